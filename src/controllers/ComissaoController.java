@@ -2,6 +2,7 @@ package controllers;
 
 import entities.Comissao;
 import services.PessoaService;
+import util.RegistroDeAlteracoes;
 import util.Validador;
 
 import java.io.Serializable;
@@ -30,6 +31,10 @@ public class ComissaoController implements Serializable {
      * Armazena objetos Comissao assumindo como chave seu tema.
      */
     private Map<String, Comissao> comissoes;
+    /**
+     * Armazena as chaves das comissões cadastradas ou alteradas desde o último salvamento.
+     */
+    private RegistroDeAlteracoes alteracoes;
 
     /**
      * Constroi um Controlador de Comissao a partir de um objeto de PessoaService.
@@ -40,6 +45,7 @@ public class ComissaoController implements Serializable {
     public ComissaoController(PessoaService pessoaService) {
         this.pessoaService = pessoaService;
         this.comissoes = new HashMap<>();
+        this.alteracoes = new RegistroDeAlteracoes();
     }
 
     /**
@@ -92,6 +98,7 @@ public class ComissaoController implements Serializable {
         Set<String> integrantes = new HashSet<>(Arrays.asList(dnis));
 
         this.comissoes.put(tema, new Comissao(tema, integrantes));
+        this.alteracoes.marca(tema);
     }
 
     /**
@@ -103,6 +110,16 @@ public class ComissaoController implements Serializable {
         return new HashSet<>(this.comissoes.values());
     }
 
+    /**
+     * Retorna a comissão com o tema passado, ou null caso não exista.
+     *
+     * @param tema tema da comissão
+     * @return comissão com o tema passado
+     */
+    public Comissao getComissao(String tema) {
+        return this.comissoes.get(tema);
+    }
+
     /**
      * Esse método serve para carregar o mapa de comissões
      * com o conjunto de comissões do arquivo.
@@ -111,5 +128,15 @@ public class ComissaoController implements Serializable {
      */
     public void setComissoes(Map<String, Comissao> mapaComissoes) {
         this.comissoes = mapaComissoes;
+        this.alteracoes.limpa();
+    }
+
+    /**
+     * Retorna o registro das comissões cadastradas ou alteradas desde o último salvamento.
+     *
+     * @return registro de alterações das comissões
+     */
+    public RegistroDeAlteracoes getAlteracoes() {
+        return this.alteracoes;
     }
 }
\ No newline at end of file
@@ -2,11 +2,15 @@ package controllers;
 
 import comparators.ComparatorOrdemAlfabeticaPartido;
 import entities.Partido;
+import util.LeitorDeRegistros.Registro;
+import util.RegistroDeAlteracoes;
+import util.ResultadoDaImportacao;
 import util.Validador;
 
 import java.io.Serializable;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Essa classe usa o padrão Controller contendo métodos que operam sobre a
@@ -27,12 +31,17 @@ public class PartidoBaseController implements Serializable {
      * cadastrado.
      */
     private Map<String, Partido> partidos;
+    /**
+     * Armazena as chaves dos partidos cadastrados ou alterados desde o último salvamento.
+     */
+    private RegistroDeAlteracoes alteracoes;
 
     /**
      * Constrói o controller e inicializa o mapa que armazena Partidos.
      */
     public PartidoBaseController() {
         this.partidos = new HashMap<>();
+        this.alteracoes = new RegistroDeAlteracoes();
     }
 
     /**
@@ -50,6 +59,53 @@ public class PartidoBaseController implements Serializable {
             throw new IllegalArgumentException("Erro ao cadastrar partido: partido já cadastrado");
 
         this.partidos.put(partido, new Partido(partido));
+        this.alteracoes.marca(partido);
+    }
+
+    /**
+     * Cadastra um lote de partidos lidos de um arquivo de importação, com a coluna
+     * nome. Os nomes são validados em paralelo e os partidos válidos são inseridos
+     * de uma vez. As linhas rejeitadas são registradas no resultado com a mesma
+     * mensagem do cadastro individual.
+     *
+     * @param lote      registros lidos do arquivo
+     * @param resultado resultado da importação
+     * @return registros cadastrados, na ordem do lote
+     */
+    public List<Registro> importarPartidos(List<Registro> lote, ResultadoDaImportacao resultado) {
+        String[] erros = new String[lote.size()];
+
+        IntStream.range(0, lote.size()).parallel().forEach(i -> {
+            Registro registro = lote.get(i);
+            try {
+                if (registro.getErro() != null)
+                    throw new IllegalArgumentException(registro.getErro());
+                new Validador().validaString(registro.get("nome"),
+                        "Erro ao cadastrar partido: partido nao pode ser vazio ou nulo");
+            } catch (IllegalArgumentException | NullPointerException erro) {
+                erros[i] = erro.getMessage();
+            }
+        });
+
+        List<Registro> cadastrados = new ArrayList<>();
+        List<String> nomes = new ArrayList<>();
+        for (int i = 0; i < lote.size(); i++) {
+            String nome = lote.get(i).get("nome");
+            if (erros[i] == null && this.partidos.containsKey(nome))
+                erros[i] = "Erro ao cadastrar partido: partido já cadastrado";
+            if (erros[i] != null) {
+                resultado.registraErro(lote.get(i).getLinha(), erros[i]);
+                continue;
+            }
+
+            this.partidos.put(nome, new Partido(nome));
+            nomes.add(nome);
+            cadastrados.add(lote.get(i));
+        }
+
+        this.alteracoes.marcaTodas(nomes);
+        resultado.registraImportados(cadastrados.size());
+        return cadastrados;
     }
 
     /**
@@ -81,5 +137,25 @@ public class PartidoBaseController implements Serializable {
      */
     public void setPartidos(Map<String, Partido> mapaPartidos) {
         this.partidos = mapaPartidos;
+        this.alteracoes.limpa();
+    }
+
+    /**
+     * Retorna o partido com o nome passado, ou null caso não exista.
+     *
+     * @param nome nome do partido
+     * @return partido com o nome passado
+     */
+    public Partido getPartido(String nome) {
+        return this.partidos.get(nome);
+    }
+
+    /**
+     * Retorna o registro das partidos cadastrados ou alterados desde o último salvamento.
+     *
+     * @return registro de alterações dos partidos
+     */
+    public RegistroDeAlteracoes getAlteracoes() {
+        return this.alteracoes;
     }
 }
\ No newline at end of file
@@ -1,23 +1,59 @@
 package controllers;
 
 import entities.Comissao;
+import entities.PEC;
+import entities.PL;
+import entities.PLP;
 import entities.Partido;
 import entities.Pessoa;
+import entities.Projeto;
+import enums.FormatoDeExportacao;
+import interfaces.Armazenamento;
+import interfaces.ArmazenamentoDeFamilia;
 import interfaces.PropostaLegislativa;
 import services.ProjetoService;
+import util.AcervoDePropostas;
+import util.ArmazenamentoParticionado;
+import util.ArquivoSegmentado;
+import util.Buscador;
+import util.CodificadorDeEntidades;
+import util.DiarioDeOperacoes;
+import util.EscritorDeRegistros;
+import util.EstatisticasDeSalvamento;
+import util.ImagemDeIndices;
+import util.Manifesto;
+import util.RegistroDeAlteracoes;
+import util.Validador;
 
-import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 /**
  * Essa classe usa o padrão Controller contendo métodos que facilitam a
@@ -29,307 +65,1179 @@ import java.util.Map;
  * @author Guilherme de Melo Carneiro
  */
 public class PersistenciaController {
+    /**
+     * Número máximo de threads usadas para carregar os arquivos
+     */
+    private static final int THREADS_DE_CARGA = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    /**
+     * Quantidade de segmentos de uma família a partir da qual eles são mesclados com a base
+     */
+    private static final int LIMITE_DE_SEGMENTOS = 8;
+    /**
+     * Quantidade padrão de operações no diário a partir da qual ele é compactado
+     */
+    private static final long LIMITE_DO_DIARIO = 100_000;
+    /**
+     * Tamanho padrão, em bytes, do diário a partir do qual ele é compactado
+     */
+    private static final long LIMITE_DO_DIARIO_EM_BYTES = 64L << 20;
+    /**
+     * Diretório de dados usado quando nenhum armazenamento é passado
+     */
+    public static final File DIRETORIO_DE_DADOS = new File("dados");
     /**
      * Armazena uma instância de ProjetoService
      */
     private ProjetoService projetoService;
+    /**
+     * Armazena o diário das operações realizadas desde o último salvamento
+     */
+    private DiarioDeOperacoes diario;
+    /**
+     * Armazena o codificador usado para gravar e ler as entidades em formato binário
+     */
+    private CodificadorDeEntidades codificador;
+    /**
+     * Armazena o diretório dos arquivos de dados
+     */
+    private File diretorio;
+    /**
+     * Armazena o armazenamento de cada família de entidades
+     */
+    private ArmazenamentoDeFamilia<Pessoa> arquivoPessoas;
+    private ArmazenamentoDeFamilia<Comissao> arquivoComissoes;
+    private ArmazenamentoDeFamilia<Partido> arquivoPartidos;
+    private ArmazenamentoParticionado<PropostaLegislativa> arquivoPropostas;
+    /**
+     * Número do último segmento gravado, ou 0 caso ainda não tenha sido lido do disco
+     */
+    private long ultimoSegmento;
+    /**
+     * Indica se os arquivos correspondem ao estado do sistema mais as alterações
+     * registradas, isto é, se o sistema foi carregado, limpo ou salvo por completo
+     */
+    private volatile boolean sincronizado;
+    /**
+     * Indica se a última carga falhou, caso em que os arquivos não podem ser
+     * reescritos por completo, pois perderiam as entidades que não foram lidas
+     */
+    private volatile boolean cargaFalhou;
+    /**
+     * Armazena o arquivo e o conteúdo do manifesto que liga os arquivos a uma geração
+     */
+    private File arquivoManifesto;
+    private volatile Manifesto manifesto;
+    /**
+     * Armazena a imagem dos índices derivados, gravada a cada salvamento
+     */
+    private ImagemDeIndices imagem;
+    /**
+     * Executor de uma única thread que mescla os segmentos em segundo plano
+     */
+    private ExecutorService mesclador;
+    /**
+     * Executor de uma única thread que grava os salvamentos em segundo plano
+     */
+    private ExecutorService gravador;
+    /**
+     * Executor de uma única thread que escreve as exportações em segundo plano
+     */
+    private ExecutorService exportador;
+    /**
+     * Salvamento em segundo plano mais recente
+     */
+    private CompletableFuture<Void> salvamentoEmAndamento;
+    /**
+     * Estatísticas dos salvamentos
+     */
+    private EstatisticasDeSalvamento estatisticas;
+    /**
+     * Intervalo máximo, em nanossegundos, entre salvamentos automáticos, ou 0 caso desativado
+     */
+    private volatile long intervaloDeSalvamento;
+    /**
+     * Quantidade de operações no diário que inicia um salvamento automático, ou 0 caso desativado
+     */
+    private volatile long operacoesPorSalvamento;
+    /**
+     * Quantidade de operações no diário que inicia uma compactação, ou 0 caso desativado
+     */
+    private volatile long limiteDoDiario;
+    /**
+     * Tamanho, em bytes, do diário que inicia uma compactação, ou 0 caso desativado
+     */
+    private volatile long limiteDoDiarioEmBytes;
+    /**
+     * Instante, em nanossegundos, do início do último salvamento
+     */
+    private volatile long ultimoSalvamento;
 
     /**
      * Constrói um controlador usado para persistir e ler
-     * dados. Faz uso de ProjetoService.
+     * dados. Faz uso de ProjetoService. As famílias de
+     * entidades são guardadas em arquivos segmentados no
+     * diretório de dados.
      *
      * @param projetoService instância de ProjetoService
      */
     public PersistenciaController(ProjetoService projetoService) {
+        this(projetoService, ArquivoSegmentado.emDiretorio(DIRETORIO_DE_DADOS));
+    }
+
+    /**
+     * Constrói um controlador usado para persistir e ler
+     * dados. Faz uso de ProjetoService e guarda as famílias
+     * de entidades no armazenamento passado. O diário, o
+     * manifesto, o acervo e a imagem dos índices ficam no
+     * diretório do armazenamento.
+     *
+     * @param projetoService instância de ProjetoService
+     * @param armazenamento  armazenamento das famílias de entidades
+     */
+    public PersistenciaController(ProjetoService projetoService, Armazenamento armazenamento) {
         this.projetoService = projetoService;
+        File diretorio = armazenamento.getDiretorio();
+        this.diretorio = diretorio;
+        this.diario = new DiarioDeOperacoes(new File(diretorio, "diario.log"));
+        this.codificador = new CodificadorDeEntidades();
+
+        this.arquivoManifesto = new File(diretorio, "manifesto");
+        this.imagem = new ImagemDeIndices(diretorio, armazenamento.getNome());
+        this.arquivoPessoas = armazenamento.abre("pessoas", Pessoa::getDni,
+                this.codificador::escrevePessoas, this.codificador::lePessoas);
+        this.arquivoComissoes = armazenamento.abre("comissoes", Comissao::getTema,
+                this.codificador::escreveComissoes, this.codificador::leComissoes);
+        this.arquivoPartidos = armazenamento.abre("partidos", Partido::getNome,
+                this.codificador::escrevePartidos, this.codificador::lePartidos);
+        this.arquivoPropostas = new ArmazenamentoParticionado<>(armazenamento, "propostas",
+                PropostaLegislativa::getCodigo, PropostaLegislativa::getAno, this.codificador::escrevePropostas,
+                this.codificador::lePropostas);
+        this.mesclador = Executors.newSingleThreadExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "mescla-segmentos");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.gravador = Executors.newSingleThreadExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "salvamento");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.exportador = Executors.newSingleThreadExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "exportacao");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.salvamentoEmAndamento = CompletableFuture.completedFuture(null);
+        this.estatisticas = new EstatisticasDeSalvamento();
+        this.ultimoSalvamento = System.nanoTime();
+        this.limiteDoDiario = LIMITE_DO_DIARIO;
+        this.limiteDoDiarioEmBytes = LIMITE_DO_DIARIO_EM_BYTES;
     }
 
     /**
-     * Esse método sobrescreve os arquivos de texto comissoes,
-     * pessoas, partidos e propostas do sistema com uma string
-     * vazia.
+     * Esse método esvazia os arquivos de texto comissoes,
+     * pessoas, partidos e propostas do sistema e apaga os
+     * seus segmentos e a imagem dos índices.
      *
      * @throws IOException erro de escrita em arquivos
      */
-    public void limparSistema() throws IOException {
-        FileWriter arquivoComissoes = new FileWriter("dados" + File.separator + "comissoes.txt");
-        FileWriter arquivoPessoas = new FileWriter("dados" + File.separator + "pessoas.txt");
-        FileWriter arquivoPartidos = new FileWriter("dados" + File.separator + "partidos.txt");
-        FileWriter arquivoPropostas = new FileWriter("dados" + File.separator + "propostas.txt");
+    public synchronized void limparSistema() throws IOException {
+        this.aguardarSalvamento();
+        this.arquivoComissoes.limpa();
+        this.arquivoPessoas.limpa();
+        this.arquivoPartidos.limpa();
+        this.arquivoPropostas.limpa();
+        this.imagem.limpa();
 
-        arquivoComissoes.write("");
-        arquivoComissoes.flush();
-        arquivoComissoes.close();
+        this.diario.limpa();
+        long geracao = this.getManifesto().getGeracaoAtual();
+        this.gravarManifesto(new Manifesto(geracao, geracao, this.diario.getUltimaSequencia()));
+        this.sincronizado = true;
+        this.cargaFalhou = false;
+    }
 
-        arquivoPessoas.write("");
-        arquivoPessoas.flush();
-        arquivoPessoas.close();
+    /**
+     * Esse método serve para salvar o sistema e só retorna
+     * depois que os arquivos estiverem gravados. Ver
+     * {@link #salvarSistemaEmSegundoPlano()}.
+     */
+    public void salvarSistema() {
+        this.salvarSistemaEmSegundoPlano();
+        this.aguardarSalvamento();
+    }
+
+    /**
+     * Esse método serve para salvar as entidades cadastradas
+     * ou alteradas desde o último salvamento sem bloquear as
+     * próximas operações. O estado é capturado na thread que
+     * chama o método, copiando apenas as entidades alteradas,
+     * e a cópia é gravada em segundo plano enquanto novos
+     * cadastros e votações continuam sendo feitos. Cada família
+     * com alterações ganha um novo segmento, de forma que o custo
+     * do salvamento depende da quantidade de alterações e não do
+     * tamanho do sistema. Caso o sistema não tenha sido carregado
+     * nem limpo, todos os arquivos são reescritos com o estado
+     * atual. Na captura o diário passa para um novo segmento, e
+     * caso todos os arquivos sejam salvos, o manifesto passa para
+     * a nova geração e só então os segmentos com as operações já
+     * contidas nos arquivos são apagados. Em seguida é gravada a
+     * imagem dos índices da nova geração. Um salvamento só começa
+     * depois que o anterior termina. Caso a última carga tenha
+     * falhado, os arquivos não são reescritos até que o sistema
+     * seja carregado ou limpo.
+     *
+     * @return tarefa que termina quando os arquivos estiverem gravados
+     * @throws IllegalStateException caso o salvamento precise reescrever
+     *                               os arquivos depois de uma carga que falhou
+     */
+    public synchronized CompletableFuture<Void> salvarSistemaEmSegundoPlano() {
+        this.aguardarSalvamento();
+        boolean completo = !this.sincronizado;
+        if (completo && this.cargaFalhou)
+            throw new IllegalStateException("Erro ao salvar sistema: arquivos de dados nao puderam ser carregados");
+
+        long inicio = System.nanoTime();
+        long sequencia = this.rotacionarDiario();
+        long numero = this.proximoSegmento();
+        List<CapturaDeFamilia<?>> capturas = Arrays.asList(
+                this.capturar(this.arquivoPessoas, this.projetoService.getPessoaService().getAlteracoes(),
+                        this.projetoService.getPessoaService()::getPessoaPeloDni,
+                        this.projetoService.getPessoaService()::getPessoas, Pessoa::copia,
+                        Collections::emptyList, completo),
+                this.capturar(this.arquivoComissoes, this.projetoService.getComissaoService().getAlteracoes(),
+                        this.projetoService.getComissaoService()::getComissao,
+                        this.projetoService.getComissaoService()::getComissoes, UnaryOperator.identity(),
+                        Collections::emptyList, completo),
+                this.capturar(this.arquivoPartidos, this.projetoService.getPartidoService().getAlteracoes(),
+                        this.projetoService.getPartidoService()::getPartido,
+                        this.projetoService.getPartidoService()::getPartidos, UnaryOperator.identity(),
+                        Collections::emptyList, completo),
+                this.capturarPropostas(completo));
+        ImagemDeIndices.Captura indices = this.capturarIndices();
+        this.sincronizado = true;
+        this.ultimoSalvamento = System.nanoTime();
 
-        arquivoPartidos.write("");
-        arquivoPartidos.flush();
-        arquivoPartidos.close();
+        long capturados = 0;
+        for (CapturaDeFamilia<?> captura : capturas)
+            capturados += captura.getQuantidade();
+        this.estatisticas.registraCaptura(capturados, System.nanoTime() - inicio);
 
-        arquivoPropostas.write("");
-        arquivoPropostas.flush();
-        arquivoPropostas.close();
+        this.salvamentoEmAndamento = CompletableFuture.runAsync(
+                () -> this.gravar(capturas, indices, numero, sequencia, completo), this.gravador);
+        return this.salvamentoEmAndamento;
     }
 
     /**
-     * Esse método serve para salvar as estruturas
-     * que guardam pessoas, comissoes, partidos e
-     * propostas em seus respectivos arquivos.
+     * Esse método exporta todas as propostas, com a tramitação
+     * completa e os dados do autor, no formato passado. O estado
+     * é capturado na thread que chama o método, da mesma forma
+     * que no salvamento completo: as propostas em memória são
+     * copiadas e as arquivadas são lidas do acervo durante a
+     * escrita. As propostas são escritas em segundo plano, uma
+     * de cada vez, enquanto o sistema continua recebendo
+     * operações, que não afetam a exportação.
+     *
+     * @param saida   fluxo em que as propostas são escritas, que não é fechado
+     * @param formato formato da exportação
+     * @return tarefa que termina com a quantidade de propostas exportadas
      */
-    public void salvarSistema() {
-        this.salvarPessoas();
-        this.salvarComissoes();
-        this.salvarPartidos();
-        this.salvarPropostas();
+    public synchronized CompletableFuture<Long> exportarPropostas(OutputStream saida, FormatoDeExportacao formato) {
+        List<PropostaLegislativa> copias = new ArrayList<>();
+        for (PropostaLegislativa proposta : this.projetoService.getPropostasEmMemoria())
+            copias.add(proposta.copia());
+        return this.exportar(saida, formato, copias, this.projetoService.getAcervo().getPropostas());
+    }
+
+    /**
+     * Esse método exporta as propostas do ano passado, da mesma
+     * forma que {@link #exportarPropostas(OutputStream, FormatoDeExportacao)}.
+     * Apenas as propostas em memória do ano são copiadas, e as
+     * arquivadas dos demais anos são ignoradas pelo acervo sem
+     * serem lidas.
+     *
+     * @param saida   fluxo em que as propostas são escritas, que não é fechado
+     * @param formato formato da exportação
+     * @param ano     ano das propostas exportadas
+     * @return tarefa que termina com a quantidade de propostas exportadas
+     */
+    public synchronized CompletableFuture<Long> exportarPropostas(OutputStream saida, FormatoDeExportacao formato,
+                                                                  int ano) {
+        List<PropostaLegislativa> copias = new ArrayList<>();
+        for (PropostaLegislativa proposta : this.projetoService.getPropostasEmMemoria())
+            if (proposta.getAno() == ano)
+                copias.add(proposta.copia());
+        return this.exportar(saida, formato, copias, this.projetoService.getAcervo().getPropostas(ano));
+    }
+
+    /**
+     * Esse método escreve em segundo plano as cópias das propostas
+     * em memória seguidas das propostas arquivadas.
+     *
+     * @param saida      fluxo em que as propostas são escritas, que não é fechado
+     * @param formato    formato da exportação
+     * @param copias     cópias das propostas em memória
+     * @param arquivadas propostas arquivadas, lidas durante a escrita
+     * @return tarefa que termina com a quantidade de propostas exportadas
+     */
+    private CompletableFuture<Long> exportar(OutputStream saida, FormatoDeExportacao formato,
+                                             List<PropostaLegislativa> copias,
+                                             Collection<PropostaLegislativa> arquivadas) {
+        //O nome e o partido de uma pessoa não mudam depois do cadastro, por isso não são copiados
+        Map<String, Pessoa> autores = new HashMap<>();
+        for (Pessoa pessoa : this.projetoService.getPessoaService().getVisaoPessoas())
+            autores.put(pessoa.getDni(), pessoa);
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                EscritorDeRegistros escritor = new EscritorDeRegistros(saida, formato, "codigo", "tipo", "ano",
+                        "autor", "nomeDoAutor", "partidoDoAutor", "ementa", "interesses", "url", "conclusivo",
+                        "artigos", "situacao", "local", "tramitacao");
+                Iterator<PropostaLegislativa> propostas = Stream.concat(copias.stream(), arquivadas.stream()).iterator();
+                while (propostas.hasNext())
+                    this.exportarProposta(escritor, propostas.next(), autores);
+                escritor.termina();
+                return escritor.getQuantidade();
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }, this.exportador);
+    }
+
+    /**
+     * Esse método exporta todas as propostas para o canal
+     * passado. Ver {@link #exportarPropostas(OutputStream, FormatoDeExportacao)}.
+     *
+     * @param canal   canal em que as propostas são escritas, que não é fechado
+     * @param formato formato da exportação
+     * @return tarefa que termina com a quantidade de propostas exportadas
+     */
+    public CompletableFuture<Long> exportarPropostas(WritableByteChannel canal, FormatoDeExportacao formato) {
+        return this.exportarPropostas(Channels.newOutputStream(canal), formato);
+    }
+
+    /**
+     * Esse método configura o salvamento automático em segundo
+     * plano, verificado a cada operação registrada. Um salvamento
+     * é iniciado quando o intervalo desde o último termina ou
+     * quando o diário acumula a quantidade de operações passada.
+     * Valores menores ou iguais a zero desativam o critério
+     * correspondente.
+     *
+     * @param intervaloEmSegundos intervalo máximo entre salvamentos
+     * @param operacoes           quantidade máxima de operações no diário
+     */
+    public void configurarSalvamentoAutomatico(long intervaloEmSegundos, long operacoes) {
+        this.intervaloDeSalvamento = Math.max(0, intervaloEmSegundos) * 1_000_000_000L;
+        this.operacoesPorSalvamento = Math.max(0, operacoes);
+        this.ultimoSalvamento = System.nanoTime();
+    }
+
+    /**
+     * Esse método configura a compactação do diário, que é feita
+     * por um salvamento em segundo plano iniciado quando as
+     * operações ainda não contidas nos arquivos atingem a
+     * quantidade ou o tamanho passados. Limita o tempo de uma
+     * reinicialização à leitura dos arquivos mais a reexecução
+     * de um diário de tamanho limitado, mesmo sem salvamento
+     * automático configurado. Valores menores ou iguais a zero
+     * desativam o critério correspondente.
+     *
+     * @param operacoes quantidade máxima de operações no diário
+     * @param bytes     tamanho máximo do diário, em bytes
+     */
+    public void configurarCompactacaoDoDiario(long operacoes, long bytes) {
+        this.limiteDoDiario = Math.max(0, operacoes);
+        this.limiteDoDiarioEmBytes = Math.max(0, bytes);
+    }
+
+    /**
+     * Esse método configura a compressão dos blocos gravados
+     * nos próximos salvamentos dos quatro arquivos. O nível 0
+     * grava os blocos sem compressão; os arquivos já gravados
+     * continuam legíveis com qualquer configuração, pois o
+     * cabeçalho de cada um registra a compressão usada.
+     *
+     * @param nivel          nível de compressão, de 0 a 9, ou -1 para o padrão do Deflater
+     * @param tamanhoDoBloco tamanho máximo de cada bloco, em bytes
+     */
+    public void configurarCompressao(int nivel, int tamanhoDoBloco) {
+        new Validador().validaCompressao(nivel, tamanhoDoBloco);
+        this.arquivoPessoas.configuraCompressao(nivel, tamanhoDoBloco);
+        this.arquivoComissoes.configuraCompressao(nivel, tamanhoDoBloco);
+        this.arquivoPartidos.configuraCompressao(nivel, tamanhoDoBloco);
+        this.arquivoPropostas.configuraCompressao(nivel, tamanhoDoBloco);
+    }
+
+    /**
+     * Esse método retorna as estatísticas dos salvamentos, com
+     * o progresso do salvamento em andamento e a duração do último.
+     *
+     * @return estatísticas dos salvamentos
+     */
+    public EstatisticasDeSalvamento getEstatisticas() {
+        return this.estatisticas;
     }
 
     /**
      * Esse método serve para carregar as estruturas
      * salvas nos arquivos de pessoas, comissoes, partidos
      * e propostas nas estruturas de dados dos seus respectivos
-     * controllers.
+     * controllers. São lidos apenas os segmentos da geração
+     * registrada no manifesto; caso algum arquivo dessa geração
+     * esteja truncado ou corrompido, é carregada a geração anterior.
+     * Os controllers só são alterados depois que todas as partes
+     * forem carregadas; caso nenhuma geração possa ser lida, o
+     * sistema continua com os dados anteriores e os arquivos não
+     * são reescritos por completo até que o sistema seja carregado
+     * ou limpo.
+     */
+    public synchronized void carregarSistema() {
+        this.aguardarSalvamento();
+        Manifesto lido = Manifesto.le(this.arquivoManifesto);
+        this.manifesto = lido;
+        try {
+            this.carregarGeracao(lido == null ? Long.MAX_VALUE : lido.getGeracaoAtual());
+            this.cargaFalhou = false;
+            return;
+        } catch (CompletionException ce) {
+            ce.getCause().printStackTrace();
+        }
+
+        this.cargaFalhou = true;
+        if (lido == null || lido.getGeracaoAnterior() >= lido.getGeracaoAtual())
+            return;
+        try {
+            this.carregarGeracao(lido.getGeracaoAnterior());
+            this.sincronizado = false;
+            this.cargaFalhou = false;
+        } catch (CompletionException ce) {
+            ce.getCause().printStackTrace();
+        }
+    }
+
+    /**
+     * Esse método serve para registrar no diário uma operação que
+     * altera o sistema. Só retorna depois que o registro estiver
+     * gravado em disco. Caso o salvamento automático esteja
+     * configurado e o seu critério tenha sido atingido, inicia
+     * um salvamento em segundo plano.
+     *
+     * @param operacao   nome da operação
+     * @param argumentos argumentos da operação
+     */
+    public void registrarOperacao(String operacao, String... argumentos) {
+        this.diario.registra(operacao, argumentos);
+        if (this.deveSalvarAutomaticamente())
+            this.salvarSistemaEmSegundoPlano();
+    }
+
+    /**
+     * Esse método serve para codificar uma operação antes de
+     * aplicá-la ao sistema, de forma que uma operação que não
+     * possa ser registrada no diário não chegue a alterar o
+     * sistema. A operação codificada é registrada depois com
+     * registrarOperacao.
+     *
+     * @param operacao   nome da operação
+     * @param argumentos argumentos da operação
+     * @return operação codificada
+     */
+    public DiarioDeOperacoes.OperacaoCodificada codificarOperacao(String operacao, String... argumentos) {
+        return DiarioDeOperacoes.codifica(operacao, argumentos);
+    }
+
+    /**
+     * Esse método serve para registrar no diário uma operação
+     * codificada por codificarOperacao. Só retorna depois que o
+     * registro estiver gravado em disco e, assim como o registro
+     * de uma operação não codificada, pode iniciar um salvamento
+     * automático.
+     *
+     * @param operacao operação codificada
      */
-    public void carregarSistema() {
-        this.carregarPessoas(this.recuperarPessoas());
-        this.carregarComissoes(this.recuperarComissoes());
-        this.carregarPartidos(this.recuperarPartidos());
-        this.carregarPropostas(this.recuperarPropostas());
+    public void registrarOperacao(DiarioDeOperacoes.OperacaoCodificada operacao) {
+        this.diario.registra(operacao);
+        if (this.deveSalvarAutomaticamente())
+            this.salvarSistemaEmSegundoPlano();
     }
 
     /**
-     * Esse método serve para salvar o Set de comissões no arquivo.
+     * Esse método serve para registrar no diário um lote de
+     * operações, gravadas em disco com uma única sincronização.
+     * Usado pelas importações em lote, que registram cada
+     * cadastro como a operação individual equivalente.
+     *
+     * @param operacoes operações, cada uma com o nome seguido
+     *                  dos seus argumentos
      */
-    private void salvarComissoes() {
-        HashSet<Comissao> comissoes = new HashSet<>(this.projetoService.getComissaoService().getComissoes());
-        ObjectOutputStream objGravador = null;
+    public void registrarOperacoes(List<String[]> operacoes) {
+        this.diario.registraLote(operacoes);
+        if (this.deveSalvarAutomaticamente())
+            this.salvarSistemaEmSegundoPlano();
+    }
+
+    /**
+     * Esse método serve para reexecutar, em ordem, as operações
+     * registradas no diário que ainda não estão nos arquivos. Deve
+     * ser chamado logo após carregarSistema. Caso o diário tenha
+     * atingido o limite de compactação, inicia um salvamento em
+     * segundo plano para que a próxima reinicialização não precise
+     * reexecutá-lo.
+     *
+     * @param executor consumidor que recebe o nome da operação
+     *                 seguido dos seus argumentos
+     */
+    public void reexecutarDiario(Consumer<String[]> executor) {
         try {
-            objGravador = new ObjectOutputStream(
-                    new FileOutputStream(new File("dados" + File.separator + "comissoes.txt")));
-            objGravador.writeObject(comissoes);
-            objGravador.close();
+            this.diario.reexecuta(this.getManifesto().getSequenciaDoDiario(), executor);
         } catch (IOException ioe) {
             ioe.printStackTrace();
         }
+        if (this.deveCompactarDiario())
+            this.salvarSistemaEmSegundoPlano();
+    }
+
+    /**
+     * Esse método serve para carregar os arquivos até a geração
+     * passada. Os quatro arquivos são lidos ao mesmo tempo, e cada
+     * mapa é montado à medida que o seu arquivo é lido. As propostas
+     * com tramitação encerrada vão para um acervo mapeado em memória
+     * em vez do mapa. As propostas são guardadas por ano, e os anos
+     * são lidos ao mesmo tempo. O índice de busca das propostas em
+     * memória é construído assim que elas terminam de ser lidas. Os
+     * controllers só são alterados depois que todas as partes forem
+     * carregadas. Caso ainda haja propostas gravadas antes da divisão
+     * por ano, o próximo salvamento é completo.
+     * <p>
+     * Caso a imagem dos índices tenha sido gravada para a mesma
+     * geração, o acervo e o índice de deputados são restaurados dela,
+     * e só são lidas as propostas dos anos que tinham propostas em
+     * memória. Caso a carga com a imagem falhe, ela é refeita
+     * reconstruindo os índices.
+     *
+     * @param limite maior número de segmento a ser lido
+     * @throws CompletionException caso algum arquivo não possa ser lido
+     */
+    private void carregarGeracao(long limite) {
+        this.carregarGeracao(limite, limite != Long.MAX_VALUE);
     }
 
     /**
-     * Esse método serve para salvar o Set de pessoas no arquivo.
+     * Esse método serve para carregar os arquivos até a geração
+     * passada, como {@link #carregarGeracao(long)}, restaurando
+     * ou não os índices da imagem.
+     *
+     * @param limite     maior número de segmento a ser lido
+     * @param usarImagem indica se a imagem dos índices deve ser lida
+     * @throws CompletionException caso algum arquivo não possa ser lido
      */
-    private void salvarPessoas() {
-        HashSet<Pessoa> pessoas = new HashSet<>(this.projetoService.getPessoaService().getPessoas());
+    private void carregarGeracao(long limite, boolean usarImagem) {
+        AcervoDePropostas.apagaArquivosAntigos(this.diretorio);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS_DE_CARGA, tarefa -> {
+            Thread thread = new Thread(tarefa, "carga-dados");
+            thread.setDaemon(true);
+            return thread;
+        });
+
         try {
-            ObjectOutputStream objGravador = new ObjectOutputStream(
-                    new FileOutputStream(new File("dados" + File.separator + "pessoas.txt")));
-            objGravador.writeObject(pessoas);
-            objGravador.close();
-        } catch (IOException ioe) {
-            ioe.printStackTrace();
+            CompletableFuture<Map<String, Pessoa>> pessoas =
+                    CompletableFuture.supplyAsync(() -> this.recuperar(this.arquivoPessoas, limite), executor);
+            CompletableFuture<Map<String, Comissao>> comissoes =
+                    CompletableFuture.supplyAsync(() -> this.recuperar(this.arquivoComissoes, limite), executor);
+            CompletableFuture<Map<String, Partido>> partidos =
+                    CompletableFuture.supplyAsync(() -> this.recuperar(this.arquivoPartidos, limite), executor);
+            CompletableFuture<ImagemDeIndices.Conteudo> indices = CompletableFuture.supplyAsync(
+                    () -> usarImagem ? this.imagem.le(limite, this.codificador) : null, executor);
+            Map<String, PropostaLegislativa> propostas = new HashMap<>();
+            CompletableFuture<AcervoDePropostas> acervo = indices.thenApplyAsync(
+                    restaurados -> this.recuperarPropostas(limite, propostas, restaurados), executor);
+            CompletableFuture<Buscador> buscador = acervo.thenApplyAsync(
+                    carregado -> new Buscador(new HashSet<>(propostas.values())), executor);
+
+            try {
+                CompletableFuture.allOf(pessoas, comissoes, partidos, buscador).join();
+            } catch (CompletionException ce) {
+                acervo.thenAccept(this::descartarAcervo);
+                if (indices.join() == null)
+                    throw ce;
+                this.carregarGeracao(limite, false);
+                return;
+            }
+
+            if (indices.join() == null)
+                this.projetoService.getPessoaService().setPessoas(pessoas.join());
+            else
+                this.projetoService.getPessoaService().setPessoas(pessoas.join(), indices.join().getDeputados());
+            this.projetoService.getComissaoService().setComissoes(comissoes.join());
+            this.projetoService.getPartidoService().setPartidos(partidos.join());
+            this.projetoService.setPropostas(propostas, acervo.join(), buscador.join());
+            this.sincronizado = !this.arquivoPropostas.precisaSerReescrito();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Esse método serve para capturar o estado de uma família a
+     * ser salvo, copiando as entidades para que alterações feitas
+     * durante a gravação não a afetem. Caso o salvamento não seja
+     * completo, apenas as entidades marcadas como alteradas são
+     * copiadas. Caso seja completo, as entidades arquivadas, que
+     * não são alteradas, também são gravadas, sem serem copiadas.
+     *
+     * @param arquivo    armazenamento da família
+     * @param alteracoes registro de alterações da família
+     * @param busca      função que retorna a entidade de uma chave
+     * @param todas      fornecedor das entidades da família em memória
+     * @param copia      função que copia uma entidade
+     * @param arquivadas fornecedor das entidades da família fora da memória
+     * @param completo   indica se todas as entidades devem ser capturadas
+     * @param <T>        tipo das entidades
+     * @return captura da família
+     */
+    private <T> CapturaDeFamilia<T> capturar(ArmazenamentoDeFamilia<T> arquivo, RegistroDeAlteracoes alteracoes,
+                                             Function<String, T> busca, Supplier<Collection<T>> todas,
+                                             UnaryOperator<T> copia, Supplier<Collection<T>> arquivadas,
+                                             boolean completo) {
+        Set<String> chaves = alteracoes.extrai();
+        List<T> entidades = new ArrayList<>();
+        Collection<T> naoCopiadas = Collections.emptyList();
+        if (completo) {
+            for (T entidade : todas.get())
+                entidades.add(copia.apply(entidade));
+            naoCopiadas = arquivadas.get();
+        } else {
+            for (String chave : chaves) {
+                T entidade = busca.apply(chave);
+                if (entidade != null)
+                    entidades.add(copia.apply(entidade));
+            }
+        }
+        return new CapturaDeFamilia<>(arquivo, alteracoes, chaves, entidades, naoCopiadas);
+    }
+
+    /**
+     * Esse método serve para capturar as propostas a serem salvas.
+     * Caso o salvamento seja completo, as propostas arquivadas são
+     * separadas por ano pelo acervo, sem serem lidas, para que cada
+     * partição seja gravada a partir das suas propostas.
+     *
+     * @param completo indica se todas as propostas devem ser capturadas
+     * @return captura das propostas
+     */
+    private CapturaDeFamilia<PropostaLegislativa> capturarPropostas(boolean completo) {
+        AcervoDePropostas acervo = this.projetoService.getAcervo();
+        CapturaDeFamilia<PropostaLegislativa> captura = this.capturar(this.arquivoPropostas,
+                this.projetoService.getAlteracoes(), this.projetoService::getProposta,
+                this.projetoService::getPropostasEmMemoria, PropostaLegislativa::copia, acervo::getPropostas, completo);
+        if (!completo)
+            return captura;
+
+        Map<Integer, Collection<PropostaLegislativa>> arquivadasPorAno = new TreeMap<>();
+        for (int ano : acervo.getAnos())
+            arquivadasPorAno.put(ano, acervo.getPropostas(ano));
+        return new CapturaDePropostas(captura, this.arquivoPropostas, arquivadasPorAno);
+    }
+
+    /**
+     * Esse método serve para gravar as famílias capturadas, executado
+     * em segundo plano. Caso todas sejam gravadas, o manifesto passa
+     * para a nova geração, as operações já contidas nos arquivos são
+     * descartadas do diário e a imagem dos índices é gravada para a
+     * nova geração.
+     *
+     * @param capturas  capturas das quatro famílias
+     * @param indices   captura dos índices, ou null caso não tenham sido capturados
+     * @param numero    número do salvamento
+     * @param sequencia sequência da última operação contida na captura
+     * @param completo  indica se os arquivos devem ser reescritos por completo
+     */
+    private void gravar(List<CapturaDeFamilia<?>> capturas, ImagemDeIndices.Captura indices, long numero,
+                        long sequencia, boolean completo) {
+        boolean salvouTudo = true;
+        for (CapturaDeFamilia<?> captura : capturas)
+            salvouTudo &= captura.grava(numero, completo, this.estatisticas);
+        if (completo && !salvouTudo)
+            this.sincronizado = false;
+
+        if (salvouTudo) {
+            try {
+                this.gravarManifesto(this.getManifesto().avanca(numero, sequencia));
+                this.diario.descartaAte(sequencia);
+            } catch (IOException ioe) {
+                ioe.printStackTrace();
+            }
         }
+        this.estatisticas.registraConclusao(salvouTudo);
+        if (indices != null && this.getManifesto().getGeracaoAtual() == numero)
+            this.gravarImagem(indices, numero);
+
+        long limite = this.getManifesto().getGeracaoAtual();
+        for (CapturaDeFamilia<?> captura : capturas)
+            this.agendarMesclagem(captura.arquivo, limite);
     }
 
     /**
-     * Esse método serve para salvar o Set de partidos no arquivo.
+     * Esse método serve para capturar os índices derivados a
+     * serem gravados na imagem junto com o salvamento.
+     *
+     * @return captura dos índices, ou null caso o acervo não
+     * possa ser descarregado
      */
-    private void salvarPartidos() {
-        HashSet<Partido> partidos = new HashSet<>(this.projetoService.getPartidoService().getPartidos());
+    private ImagemDeIndices.Captura capturarIndices() {
         try {
-            ObjectOutputStream objGravador = new ObjectOutputStream(
-                    new FileOutputStream(new File("dados" + File.separator + "partidos.txt")));
-            objGravador.writeObject(partidos);
-            objGravador.close();
+            return ImagemDeIndices.captura(this.projetoService.getAcervo(),
+                    this.projetoService.getPessoaService().getDeputados(),
+                    this.projetoService.getPropostasEmMemoria());
         } catch (IOException ioe) {
             ioe.printStackTrace();
+            return null;
         }
     }
 
     /**
-     * Esse método serve para salvar o Set de propostas no arquivo.
+     * Esse método serve para gravar a imagem dos índices de uma
+     * geração. Caso a gravação falhe, a imagem deixa de corresponder
+     * ao manifesto e a próxima carga reconstrói os índices.
+     *
+     * @param indices captura dos índices
+     * @param geracao geração registrada no manifesto
      */
-    private void salvarPropostas() {
-        HashSet<PropostaLegislativa> propostas = new HashSet<>(this.projetoService.getPropostas());
+    private void gravarImagem(ImagemDeIndices.Captura indices, long geracao) {
         try {
-            ObjectOutputStream objGravador = new ObjectOutputStream(
-                    new FileOutputStream(new File("dados" + File.separator + "propostas.txt")));
-            objGravador.writeObject(propostas);
-            objGravador.close();
+            this.imagem.grava(indices, geracao);
         } catch (IOException ioe) {
             ioe.printStackTrace();
         }
     }
 
     /**
-     * Esse método serve para recuperar do arquivo o Set de comissões
-     * e retorná-lo.
+     * Esse método passa o diário para um novo segmento, de forma
+     * que as operações contidas no salvamento capturado possam ser
+     * descartadas apagando os segmentos anteriores.
      *
-     * @return Set de comissões
+     * @return sequência da última operação contida na captura
      */
-    private HashSet<Comissao> recuperarComissoes() {
-        HashSet<Comissao> comissoes = new HashSet<>();
+    private long rotacionarDiario() {
         try {
-            File arqComissoes = new File("dados" + File.separator + "comissoes.txt");
-            if (arqComissoes.exists()) {
-                ObjectInputStream objLeitor = new ObjectInputStream(new FileInputStream(arqComissoes));
-                comissoes = (HashSet<Comissao>) objLeitor.readObject();
-                objLeitor.close();
-            }
-        } catch (EOFException eof) {
+            return this.diario.rotaciona();
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+            return this.diario.getUltimaSequencia();
+        }
+    }
 
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
+    /**
+     * Esse método aguarda o fim do salvamento em andamento, caso exista.
+     */
+    private void aguardarSalvamento() {
+        try {
+            this.salvamentoEmAndamento.join();
+        } catch (CompletionException ce) {
+            ce.getCause().printStackTrace();
         }
-        return comissoes;
     }
 
     /**
-     * Esse método serve para recuperar do arquivo o Set de pessoas
-     * e retorná-lo.
+     * Esse método verifica se o critério do salvamento automático
+     * foi atingido: o intervalo desde o último salvamento, a
+     * quantidade de operações no diário ou o limite de compactação
+     * do diário. Não inicia um salvamento enquanto outro estiver
+     * em andamento, nem um salvamento completo depois de uma carga
+     * que falhou.
      *
-     * @return Set de pessoas
+     * @return true caso um salvamento deva ser iniciado
      */
-    private HashSet<Pessoa> recuperarPessoas() {
-        HashSet<Pessoa> pessoas = new HashSet<>();
-        try {
-            File arqPessoas = new File("dados" + File.separator + "pessoas.txt");
-            if (arqPessoas.exists()) {
-                ObjectInputStream objLeitor = new ObjectInputStream(new FileInputStream(arqPessoas));
-                pessoas = (HashSet<Pessoa>) objLeitor.readObject();
-                objLeitor.close();
-            }
-        } catch (EOFException eof) {
+    private boolean deveSalvarAutomaticamente() {
+        if (!this.salvamentoEmAndamento.isDone() || (this.cargaFalhou && !this.sincronizado))
+            return false;
+        if (this.deveCompactarDiario())
+            return true;
+        if (this.operacoesPorSalvamento > 0 && this.diario.getUltimaSequencia()
+                - this.getManifesto().getSequenciaDoDiario() >= this.operacoesPorSalvamento)
+            return true;
+        return this.intervaloDeSalvamento > 0
+                && System.nanoTime() - this.ultimoSalvamento >= this.intervaloDeSalvamento;
+    }
 
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
+    /**
+     * Esse método verifica se o diário atingiu o limite de
+     * compactação, em operações ainda não contidas nos arquivos
+     * ou em bytes. Só compacta um sistema carregado, limpo ou já
+     * salvo, pois a compactação de um sistema que não foi carregado
+     * reescreveria os arquivos existentes sem as suas entidades.
+     *
+     * @return true caso o diário deva ser compactado
+     */
+    private boolean deveCompactarDiario() {
+        if (!this.sincronizado)
+            return false;
+        if (this.limiteDoDiario > 0 && this.diario.getUltimaSequencia()
+                - this.getManifesto().getSequenciaDoDiario() >= this.limiteDoDiario)
+            return true;
+        return this.limiteDoDiarioEmBytes > 0 && this.diario.getTamanho() >= this.limiteDoDiarioEmBytes;
+    }
+
+    /**
+     * Esse método retorna o número do próximo segmento, maior que
+     * o de todos os segmentos existentes e que a geração atual.
+     *
+     * @return número do próximo segmento
+     */
+    private long proximoSegmento() {
+        if (this.ultimoSegmento == 0) {
+            this.ultimoSegmento = Math.max(this.getManifesto().getGeracaoAtual(),
+                    Math.max(this.arquivoPessoas.getMaiorNumero(), this.arquivoComissoes.getMaiorNumero()));
+            this.ultimoSegmento = Math.max(this.ultimoSegmento,
+                    Math.max(this.arquivoPartidos.getMaiorNumero(), this.arquivoPropostas.getMaiorNumero()));
         }
-        return pessoas;
+        return ++this.ultimoSegmento;
     }
 
     /**
-     * Esse método serve para recuperar do arquivo o Set de partidos
-     * e retorná-lo.
+     * Esse método agenda a mesclagem dos segmentos de uma família
+     * com a sua base, caso a família tenha atingido o limite de
+     * segmentos pendentes. A mesclagem é feita em segundo plano e
+     * só incorpora segmentos de gerações já registradas no manifesto.
      *
-     * @return Set de Partidos
+     * @param arquivo armazenamento da família
+     * @param limite  maior número de segmento a ser mesclado
+     * @param <T>     tipo das entidades
      */
-    private HashSet<Partido> recuperarPartidos() {
-        HashSet<Partido> partidos = new HashSet<>();
-        try {
-            File arqPartidos = new File("dados" + File.separator + "partidos.txt");
-            if (arqPartidos.exists()) {
-                ObjectInputStream objLeitor = new ObjectInputStream(new FileInputStream(arqPartidos));
-                partidos = (HashSet<Partido>) objLeitor.readObject();
-                objLeitor.close();
+    private <T> void agendarMesclagem(ArmazenamentoDeFamilia<T> arquivo, long limite) {
+        if (arquivo.contaSegmentosPendentes() < LIMITE_DE_SEGMENTOS)
+            return;
+
+        this.mesclador.execute(() -> {
+            try {
+                arquivo.mescla(limite);
+            } catch (IOException ioe) {
+                ioe.printStackTrace();
             }
-        } catch (EOFException eof) {
+        });
+    }
 
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
-        }
-        return partidos;
+    /**
+     * Esse método serve para gravar o manifesto de uma nova geração.
+     *
+     * @param novo manifesto da nova geração
+     * @throws IOException erro de escrita do arquivo
+     */
+    private void gravarManifesto(Manifesto novo) throws IOException {
+        novo.grava(this.arquivoManifesto);
+        this.manifesto = novo;
     }
 
     /**
-     * Esse método serve para recuperar do arquivo o Set de propostas
-     * e retorná-lo.
+     * Esse método retorna o manifesto atual, lendo-o do arquivo caso
+     * ainda não tenha sido lido. Caso não exista manifesto, retorna
+     * um manifesto da geração zero.
      *
-     * @return Set de propostas
+     * @return manifesto atual
      */
-    private HashSet<PropostaLegislativa> recuperarPropostas() {
-        HashSet<PropostaLegislativa> propostas = new HashSet<>();
-        try {
-            File arqPropostas = new File("dados" + File.separator + "propostas.txt");
-            if (arqPropostas.exists()) {
-                ObjectInputStream objLeitor = new ObjectInputStream(new FileInputStream(arqPropostas));
-                propostas = (HashSet<PropostaLegislativa>) objLeitor.readObject();
-                objLeitor.close();
-            }
-        } catch (EOFException eof) {
+    private Manifesto getManifesto() {
+        if (this.manifesto == null)
+            this.manifesto = Manifesto.le(this.arquivoManifesto);
+        if (this.manifesto == null)
+            this.manifesto = new Manifesto(0, 0, 0);
+        return this.manifesto;
+    }
 
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
+    /**
+     * Esse método serve para recuperar dos arquivos as entidades de
+     * uma família até a geração passada, indexadas pela chave.
+     *
+     * @param arquivo armazenamento da família
+     * @param limite  maior número de segmento a ser lido
+     * @param <T>     tipo das entidades
+     * @return mapa de entidades
+     * @throws UncheckedIOException erro de leitura, ou arquivo truncado ou corrompido
+     */
+    private <T> Map<String, T> recuperar(ArmazenamentoDeFamilia<T> arquivo, long limite) {
+        try {
+            return arquivo.carrega(limite);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
         }
-        return propostas;
     }
 
-
     /**
-     * Esse método serve para carregar o mapa de comissões com
-     * os dados do arquivo.
+     * Esse método serve para recuperar dos arquivos as propostas até
+     * a geração passada. As propostas em votação são colocadas no mapa
+     * passado e as propostas com tramitação encerrada são gravadas em
+     * um novo acervo, à medida que são lidas, sem que todas fiquem em
+     * memória ao mesmo tempo. Caso os índices tenham sido restaurados
+     * da imagem, as propostas são acrescentadas ao acervo restaurado,
+     * os anos sem propostas em memória não são lidos, pois todas as
+     * suas propostas já estão no acervo, e as propostas encerradas que
+     * já estão no acervo são descartadas. Com a imagem, a leitura falha
+     * caso precise recomeçar.
      *
-     * @param comissoes Set de comissões
+     * @param limite      maior número de segmento a ser lido
+     * @param emMemoria   mapa que recebe as propostas em votação
+     * @param restaurados índices restaurados da imagem, ou null para criar um novo acervo
+     * @return acervo com as propostas de tramitação encerrada
+     * @throws UncheckedIOException erro de leitura ou escrita, ou arquivo truncado ou corrompido
      */
-    private void carregarComissoes(HashSet<Comissao> comissoes) {
-        if (comissoes != null) {
-            Map<String, Comissao> mapaComissoes = new HashMap<>();
+    private AcervoDePropostas recuperarPropostas(long limite, Map<String, PropostaLegislativa> emMemoria,
+                                                 ImagemDeIndices.Conteudo restaurados) {
+        AcervoDePropostas acervo = (restaurados != null) ? restaurados.getAcervo()
+                : new AcervoDePropostas(this.diretorio, this.codificador);
+        IntPredicate anos = (restaurados == null || this.arquivoPropostas.precisaSerReescrito()) ? ano -> true
+                : restaurados.getAnosEmMemoria()::contains;
+        try {
+            this.arquivoPropostas.carrega(limite, proposta -> {
+                String codigo = proposta.getCodigo();
+                if (AcervoDePropostas.estaEncerrada(proposta)) {
+                    emMemoria.remove(codigo);
+                    if (restaurados == null || !acervo.contem(codigo))
+                        this.arquivar(acervo, proposta);
+                } else {
+                    acervo.remove(codigo);
+                    emMemoria.put(codigo, proposta);
+                }
+            }, () -> {
+                if (restaurados != null)
+                    throw new UncheckedIOException(new IOException("leitura recomecou com a imagem dos indices"));
+                emMemoria.clear();
+                this.descartarAcervo(acervo);
+            }, anos);
+            return acervo;
+        } catch (IOException ioe) {
+            this.descartarAcervo(acervo);
+            throw new UncheckedIOException(ioe);
+        } catch (UncheckedIOException uioe) {
+            this.descartarAcervo(acervo);
+            throw uioe;
+        }
+    }
 
-            Iterator<Comissao> it = comissoes.iterator();
-            while (it.hasNext()) {
-                Comissao comissao = it.next();
-                mapaComissoes.put(comissao.getTema(), comissao);
-            }
-            this.projetoService.getComissaoService().setComissoes(mapaComissoes);
+    /**
+     * Esse método serve para gravar uma proposta no acervo durante
+     * a carga.
+     *
+     * @param acervo   acervo de propostas
+     * @param proposta proposta com tramitação encerrada
+     * @throws UncheckedIOException erro de escrita do acervo
+     */
+    private void arquivar(AcervoDePropostas acervo, PropostaLegislativa proposta) {
+        try {
+            acervo.acrescenta(proposta);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
         }
     }
 
     /**
-     * Esse método serve para carregar o mapa de pessoas com
-     * os dados do arquivo.
+     * Esse método escreve uma proposta exportada, com a sua
+     * tramitação e os dados do seu autor.
      *
-     * @param pessoas Set de pessoas
+     * @param escritor escritor da exportação
+     * @param proposta proposta a ser escrita
+     * @param autores  pessoas capturadas, pelo dni
+     * @throws IOException erro de escrita
      */
-    private void carregarPessoas(HashSet<Pessoa> pessoas) {
-        if (pessoas != null) {
-            Map<String, Pessoa> mapaPessoas = new HashMap<>();
+    private void exportarProposta(EscritorDeRegistros escritor, PropostaLegislativa proposta,
+                                  Map<String, Pessoa> autores) throws IOException {
+        List<Map<String, String>> tramitacao = new ArrayList<>(proposta.getVotacoes().size());
+        for (String[] votacao : proposta.getVotacoes()) {
+            Map<String, String> etapa = new LinkedHashMap<>();
+            etapa.put("local", votacao[0]);
+            etapa.put("situacao", votacao[1]);
+            tramitacao.add(etapa);
+        }
 
-            Iterator<Pessoa> it = pessoas.iterator();
-            while (it.hasNext()) {
-                Pessoa pessoa = it.next();
-                mapaPessoas.put(pessoa.getDni(), pessoa);
-            }
+        Projeto projeto = (Projeto) proposta;
+        Pessoa autor = autores.get(projeto.getAutor());
+        Boolean conclusivo = projeto instanceof PL ? ((PL) projeto).ehConclusivo() : null;
+        String artigos = null;
+        if (projeto instanceof PLP)
+            artigos = ((PLP) projeto).getArtigosReferenciados();
+        else if (projeto instanceof PEC)
+            artigos = ((PEC) projeto).getArtigosReferenciados();
+
+        escritor.escreve(projeto.getCodigo(), projeto.getTipoDoProjeto(), projeto.getAno(), projeto.getAutor(),
+                autor == null ? null : autor.getNome(), autor == null ? null : autor.getPartido(),
+                projeto.getEmenta(), projeto.getInteresses(), projeto.getEndereco(), conclusivo, artigos,
+                projeto.getSituacaoAtual(), projeto.getLocalDeVotacao(), tramitacao);
+    }
 
-            this.projetoService.getPessoaService().setPessoas(mapaPessoas);
+    /**
+     * Esse método serve para descartar as propostas de um acervo,
+     * apagando o seu arquivo.
+     *
+     * @param acervo acervo de propostas
+     */
+    private void descartarAcervo(AcervoDePropostas acervo) {
+        try {
+            acervo.limpa();
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
         }
     }
 
     /**
-     * Esse método serve para carregar o mapa de partidos com
-     * os dados do arquivo.
+     * Estado de uma família capturado para ser gravado em segundo plano.
      *
-     * @param partidos Set de partidos
+     * @param <T> tipo das entidades
      */
-    private void carregarPartidos(HashSet<Partido> partidos) {
-        if (partidos != null) {
-            Map<String, Partido> mapaPartidos = new HashMap<>();
+    private static class CapturaDeFamilia<T> {
+        /**
+         * Armazenamento da família
+         */
+        private final ArmazenamentoDeFamilia<T> arquivo;
+        /**
+         * Registro de alterações da família, que recebe as chaves de volta caso a gravação falhe
+         */
+        private final RegistroDeAlteracoes alteracoes;
+        /**
+         * Chaves das entidades alteradas retiradas do registro
+         */
+        private final Set<String> chaves;
+        /**
+         * Cópias das entidades a serem gravadas
+         */
+        private final List<T> entidades;
+        /**
+         * Entidades arquivadas a serem gravadas sem cópia, lidas durante a gravação
+         */
+        private final Collection<T> arquivadas;
+
+        private CapturaDeFamilia(ArmazenamentoDeFamilia<T> arquivo, RegistroDeAlteracoes alteracoes,
+                                 Set<String> chaves, List<T> entidades, Collection<T> arquivadas) {
+            this.arquivo = arquivo;
+            this.alteracoes = alteracoes;
+            this.chaves = chaves;
+            this.entidades = entidades;
+            this.arquivadas = arquivadas;
+        }
 
-            Iterator<Partido> it = partidos.iterator();
-            while (it.hasNext()) {
-                Partido partido = it.next();
-                mapaPartidos.put(partido.getNome(), partido);
+        /**
+         * Retorna a quantidade de entidades capturadas.
+         *
+         * @return quantidade de entidades a serem gravadas
+         */
+        private int getQuantidade() {
+            return this.entidades.size() + this.arquivadas.size();
+        }
+
+        /**
+         * Retorna as cópias seguidas das entidades arquivadas, que
+         * só são lidas quando a coleção é percorrida.
+         *
+         * @return entidades a serem gravadas
+         */
+        private Collection<T> getEntidades() {
+            return concatena(this.entidades, this.arquivadas);
+        }
+
+        /**
+         * Retorna uma visão das duas coleções, uma seguida da outra,
+         * que só percorre a segunda quando chega a ela.
+         *
+         * @param primeira  primeira coleção
+         * @param segunda   segunda coleção
+         * @param <E>       tipo dos elementos
+         * @return coleção com os elementos das duas
+         */
+        protected static <E> Collection<E> concatena(Collection<E> primeira, Collection<E> segunda) {
+            if (segunda.isEmpty())
+                return primeira;
+
+            return new AbstractCollection<E>() {
+                @Override
+                public Iterator<E> iterator() {
+                    return Stream.concat(primeira.stream(), segunda.stream()).iterator();
+                }
+
+                @Override
+                public int size() {
+                    return primeira.size() + segunda.size();
+                }
+            };
+        }
+
+        /**
+         * Grava as entidades capturadas em um novo segmento, ou
+         * reescreve a família caso o salvamento seja completo.
+         * Caso a gravação falhe, as chaves voltam ao registro de
+         * alterações para o próximo salvamento.
+         *
+         * @param numero       número do salvamento
+         * @param completo     indica se a família deve ser reescrita por completo
+         * @param estatisticas estatísticas que acompanham o progresso
+         * @return true caso a família tenha sido gravada, false caso contrário
+         */
+        private boolean grava(long numero, boolean completo, EstatisticasDeSalvamento estatisticas) {
+            if (!completo && this.entidades.isEmpty())
+                return true;
+
+            try {
+                if (completo)
+                    this.reescreve(numero, estatisticas);
+                else
+                    this.arquivo.acrescenta(estatisticas.acompanha(this.entidades), numero);
+            } catch (IOException | UncheckedIOException erro) {
+                this.alteracoes.marcaTodas(this.chaves);
+                erro.printStackTrace();
+                return false;
             }
+            return true;
+        }
 
-            this.projetoService.getPartidoService().setPartidos(mapaPartidos);
+        /**
+         * Reescreve a família com as entidades capturadas.
+         *
+         * @param numero       número do salvamento
+         * @param estatisticas estatísticas que acompanham o progresso
+         * @throws IOException erro de escrita
+         */
+        protected void reescreve(long numero, EstatisticasDeSalvamento estatisticas) throws IOException {
+            this.arquivo.reescreve(estatisticas.acompanha(this.getEntidades()), numero);
         }
     }
 
     /**
-     * Esse método serve para carregar o mapa de propostas com
-     * os dados do arquivo.
-     *
-     * @param propostas Set de propostas
+     * Estado das propostas capturado para um salvamento completo,
+     * com as propostas arquivadas já separadas por ano, de forma
+     * que cada partição seja gravada sem que todas as propostas
+     * arquivadas fiquem em memória ao mesmo tempo.
      */
-    private void carregarPropostas(HashSet<PropostaLegislativa> propostas) {
-        if (propostas != null) {
-            Map<String, PropostaLegislativa> mapaPropostas = new HashMap<>();
+    private static final class CapturaDePropostas extends CapturaDeFamilia<PropostaLegislativa> {
+        /**
+         * Armazenamento das propostas, particionado por ano
+         */
+        private final ArmazenamentoParticionado<PropostaLegislativa> particionado;
+        /**
+         * Propostas arquivadas de cada ano, lidas durante a gravação
+         */
+        private final Map<Integer, Collection<PropostaLegislativa>> arquivadasPorAno;
 
-            Iterator<PropostaLegislativa> it = propostas.iterator();
-            while (it.hasNext()) {
-                PropostaLegislativa proposta = it.next();
-                mapaPropostas.put(proposta.getCodigo(), proposta);
-            }
+        private CapturaDePropostas(CapturaDeFamilia<PropostaLegislativa> captura,
+                                   ArmazenamentoParticionado<PropostaLegislativa> particionado,
+                                   Map<Integer, Collection<PropostaLegislativa>> arquivadasPorAno) {
+            super(captura.arquivo, captura.alteracoes, captura.chaves, captura.entidades, captura.arquivadas);
+            this.particionado = particionado;
+            this.arquivadasPorAno = arquivadasPorAno;
+        }
 
-            this.projetoService.setPropostas(mapaPropostas);
+        /**
+         * Reescreve cada ano com as cópias das propostas em memória
+         * seguidas das propostas arquivadas do ano.
+         *
+         * @param numero       número do salvamento
+         * @param estatisticas estatísticas que acompanham o progresso
+         * @throws IOException erro de escrita
+         */
+        @Override
+        protected void reescreve(long numero, EstatisticasDeSalvamento estatisticas) throws IOException {
+            Map<Integer, Collection<PropostaLegislativa>> porAno = new TreeMap<>();
+            for (PropostaLegislativa proposta : super.entidades)
+                porAno.computeIfAbsent(proposta.getAno(), ano -> new ArrayList<>()).add(proposta);
+            for (Map.Entry<Integer, Collection<PropostaLegislativa>> arquivadas : this.arquivadasPorAno.entrySet())
+                porAno.merge(arquivadas.getKey(), arquivadas.getValue(), CapturaDeFamilia::concatena);
+            porAno.replaceAll((ano, propostas) -> estatisticas.acompanha(propostas));
+            this.particionado.reescreve(porAno, numero);
         }
     }
-
 }
@@ -2,13 +2,22 @@ package controllers;
 
 import entities.Pessoa;
 import enums.CargosPoliticos;
+import util.LeitorDeRegistros.Registro;
+import util.RegistroDeAlteracoes;
+import util.ResultadoDaImportacao;
 import util.Validador;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 
 /**
  * Essa classe usa o padrão Controller contendo métodos que operam sobre a
@@ -26,16 +35,34 @@ public class PessoaController implements Serializable {
     private static final long serialVersionUID = 2198811903520135676L;
     /**
      * Armazena um mapa de pessoas em que a chave e o documento de identificação e
-     * aponta para um objeto do tipo Pessoa.
+     * aponta para um objeto do tipo Pessoa. É um mapa concorrente, pois as buscas de
+     * propostas relacionadas consultam as pessoas enquanto outras são cadastradas.
      */
-    private Map<String, Pessoa> pessoas;
+    private volatile Map<String, Pessoa> pessoas;
+    /**
+     * Armazena uma visão somente leitura das pessoas cadastradas, compartilhada
+     * entre as consultas para evitar cópias do mapa.
+     */
+    private volatile Collection<Pessoa> visaoPessoas;
+    /**
+     * Armazena os dnis das pessoas que possuem o cargo de deputado. É atualizado
+     * a cada cadastro de deputado e reconstruído ao carregar as pessoas.
+     */
+    private volatile Set<String> deputados;
+    /**
+     * Armazena as chaves das pessoas cadastradas ou alteradas desde o último salvamento.
+     */
+    private RegistroDeAlteracoes alteracoes;
 
     /**
      * Constrói uma classe controladora de pessoa e inicializa um mapa que armazena
      * as pessoas.
      */
     public PessoaController() {
-        this.pessoas = new HashMap<>();
+        this.pessoas = new ConcurrentHashMap<>();
+        this.visaoPessoas = Collections.unmodifiableCollection(this.pessoas.values());
+        this.deputados = ConcurrentHashMap.newKeySet();
+        this.alteracoes = new RegistroDeAlteracoes();
     }
 
     /**
@@ -60,10 +87,9 @@ public class PessoaController implements Serializable {
         v.validaNull(interesses, "Erro ao cadastrar pessoa: interesses nao pode ser nulo");
         v.validaNull(partido, "Erro ao cadastrar pessoa: interesses nao pode ser nulo");
 
-        if (this.pessoas.containsKey(dni))
+        if (this.pessoas.putIfAbsent(dni, new Pessoa(nome, dni, estado, interesses, partido)) != null)
             throw new IllegalArgumentException("Erro ao cadastrar pessoa: dni ja cadastrado");
-
-        this.pessoas.put(dni, new Pessoa(nome, dni, estado, interesses, partido));
+        this.alteracoes.marca(dni);
     }
 
     /**
@@ -93,6 +119,146 @@ public class PessoaController implements Serializable {
      *                                  formato inválido.
      */
     public void cadastrarDeputado(String dni, String dataDeInicio) {
+        Date dataInicialValidada = this.validaDeputado(dni, dataDeInicio);
+        this.validaCargo(this.pessoas.get(dni));
+
+        this.pessoas.get(dni).setCargoPolitico("Deputado", dataInicialValidada);
+        this.deputados.add(dni);
+        this.alteracoes.marca(dni);
+    }
+
+    /**
+     * Esse método cadastra um lote de pessoas lidas de um arquivo de importação, com
+     * as colunas nome, dni, estado, interesses e, opcionalmente, partido e dataDeInicio.
+     * As pessoas com data de início também são cadastradas como deputado. Os campos
+     * são validados em paralelo e as pessoas válidas são inseridas de uma vez, com uma
+     * única atualização do índice de deputados. As linhas rejeitadas são registradas
+     * no resultado com a mesma mensagem do cadastro individual.
+     *
+     * @param lote      registros lidos do arquivo
+     * @param resultado resultado da importação
+     * @return registros cadastrados, na ordem do lote
+     */
+    public List<Registro> importarPessoas(List<Registro> lote, ResultadoDaImportacao resultado) {
+        Pessoa[] candidatas = new Pessoa[lote.size()];
+        Date[] datas = new Date[lote.size()];
+        String[] erros = new String[lote.size()];
+
+        IntStream.range(0, lote.size()).parallel().forEach(i -> {
+            Registro registro = lote.get(i);
+            if (registro.getErro() != null) {
+                erros[i] = registro.getErro();
+                return;
+            }
+            try {
+                candidatas[i] = new Pessoa(registro.get("nome"), registro.get("dni"), registro.get("estado"),
+                        registro.get("interesses"), registro.get("partido", ""));
+                String dataDeInicio = registro.get("dataDeInicio", "");
+                if (!dataDeInicio.trim().isEmpty())
+                    datas[i] = new Validador().validaData(dataDeInicio, "Erro ao cadastrar deputado: data invalida",
+                            "Erro ao cadastrar deputado: data futura");
+            } catch (IllegalArgumentException | NullPointerException erro) {
+                erros[i] = erro.getMessage();
+            }
+        });
+
+        List<Registro> cadastrados = new ArrayList<>();
+        List<String> dnis = new ArrayList<>();
+        List<String> novosDeputados = new ArrayList<>();
+        for (int i = 0; i < lote.size(); i++) {
+            Pessoa pessoa = candidatas[i];
+            try {
+                if (erros[i] != null)
+                    throw new IllegalArgumentException(erros[i]);
+                if (this.pessoas.containsKey(pessoa.getDni()))
+                    throw new IllegalArgumentException("Erro ao cadastrar pessoa: dni ja cadastrado");
+                if (datas[i] != null) {
+                    this.validaCargo(pessoa);
+                    pessoa.setCargoPolitico("Deputado", datas[i]);
+                }
+                if (this.pessoas.putIfAbsent(pessoa.getDni(), pessoa) != null)
+                    throw new IllegalArgumentException("Erro ao cadastrar pessoa: dni ja cadastrado");
+            } catch (IllegalArgumentException iae) {
+                resultado.registraErro(lote.get(i).getLinha(), iae.getMessage());
+                continue;
+            }
+
+            if (datas[i] != null)
+                novosDeputados.add(pessoa.getDni());
+            dnis.add(pessoa.getDni());
+            cadastrados.add(lote.get(i));
+        }
+
+        this.deputados.addAll(novosDeputados);
+        this.alteracoes.marcaTodas(dnis);
+        resultado.registraImportados(cadastrados.size());
+        return cadastrados;
+    }
+
+    /**
+     * Esse método cadastra como deputado um lote de pessoas já cadastradas, lidas de um
+     * arquivo de importação com as colunas dni e dataDeInicio. Os campos são validados
+     * em paralelo e os deputados válidos são cadastrados de uma vez, com uma única
+     * atualização do índice de deputados. As linhas rejeitadas são registradas no
+     * resultado com a mesma mensagem do cadastro individual.
+     *
+     * @param lote      registros lidos do arquivo
+     * @param resultado resultado da importação
+     * @return registros cadastrados, na ordem do lote
+     */
+    public List<Registro> importarDeputados(List<Registro> lote, ResultadoDaImportacao resultado) {
+        Date[] datas = new Date[lote.size()];
+        String[] erros = new String[lote.size()];
+
+        IntStream.range(0, lote.size()).parallel().forEach(i -> {
+            Registro registro = lote.get(i);
+            if (registro.getErro() != null) {
+                erros[i] = registro.getErro();
+                return;
+            }
+            try {
+                datas[i] = this.validaDeputado(registro.get("dni"), registro.get("dataDeInicio"));
+            } catch (IllegalArgumentException | NullPointerException erro) {
+                erros[i] = erro.getMessage();
+            }
+        });
+
+        List<Registro> cadastrados = new ArrayList<>();
+        List<String> novosDeputados = new ArrayList<>();
+        for (int i = 0; i < lote.size(); i++) {
+            Registro registro = lote.get(i);
+            try {
+                if (erros[i] != null)
+                    throw new IllegalArgumentException(erros[i]);
+                this.validaCargo(this.pessoas.get(registro.get("dni")));
+            } catch (IllegalArgumentException iae) {
+                resultado.registraErro(registro.getLinha(), iae.getMessage());
+                continue;
+            }
+
+            this.pessoas.get(registro.get("dni")).setCargoPolitico("Deputado", datas[i]);
+            novosDeputados.add(registro.get("dni"));
+            cadastrados.add(registro);
+        }
+
+        this.deputados.addAll(novosDeputados);
+        this.alteracoes.marcaTodas(novosDeputados);
+        resultado.registraImportados(cadastrados.size());
+        return cadastrados;
+    }
+
+    /**
+     * Esse método valida o dni e a data de início de um novo deputado, conferindo
+     * se a pessoa está cadastrada. Apenas consulta o mapa de pessoas, podendo ser
+     * chamado por várias threads ao mesmo tempo.
+     *
+     * @param dni          o dni da pessoa.
+     * @param dataDeInicio a data de início do cargo como deputado.
+     * @return a data de início validada.
+     * @throws NullPointerException     caso algum parâmetro seja nulo ou a pessoa não exista.
+     * @throws IllegalArgumentException caso algum parâmetro seja vazio ou de formato inválido.
+     */
+    private Date validaDeputado(String dni, String dataDeInicio) {
         Validador v = new Validador();
         v.validaString(dni, "Erro ao cadastrar deputado: dni nao pode ser vazio ou nulo");
         v.validaDni(dni, "Erro ao cadastrar deputado: dni invalido");
@@ -102,16 +268,22 @@ public class PessoaController implements Serializable {
 
         v.validaString(dataDeInicio, "Erro ao cadastrar deputado: data nao pode ser vazio ou nulo");
 
-        Date dataInicialValidada = v.validaData(dataDeInicio, "Erro ao cadastrar deputado: data invalida",
+        return v.validaData(dataDeInicio, "Erro ao cadastrar deputado: data invalida",
                 "Erro ao cadastrar deputado: data futura");
+    }
 
-        if (this.pessoas.get(dni).getPartido().equals(""))
+    /**
+     * Esse método valida se a pessoa pode receber o cargo de deputado.
+     *
+     * @param pessoa a pessoa que se deseja cadastrar como deputado.
+     * @throws IllegalArgumentException caso a pessoa não possua partido ou já seja deputado.
+     */
+    private void validaCargo(Pessoa pessoa) {
+        if (pessoa.getPartido().equals(""))
             throw new IllegalArgumentException("Erro ao cadastrar deputado: pessoa sem partido");
 
-        if (this.pessoas.get(dni).getCargoPolitico().equals(CargosPoliticos.DEPUTADO))
+        if (pessoa.getCargoPolitico().equals(CargosPoliticos.DEPUTADO))
             throw new IllegalArgumentException("Erro ao cadastrar deputado: deputado ja cadastrado");
-
-        this.pessoas.get(dni).setCargoPolitico("Deputado", dataInicialValidada);
     }
 
     /**
@@ -144,13 +316,106 @@ public class PessoaController implements Serializable {
         return new HashSet<>(this.pessoas.values());
     }
 
+    /**
+     * Retorna uma visão somente leitura das pessoas cadastradas no sistema. A
+     * visão acompanha o mapa interno e não realiza cópias.
+     *
+     * @return Collection somente leitura de pessoas
+     */
+    public Collection<Pessoa> getVisaoPessoas() {
+        return this.visaoPessoas;
+    }
+
+    /**
+     * Retorna a pessoa cadastrada com o dni passado como parâmetro.
+     *
+     * @param dni documento de identificação da pessoa.
+     * @return Pessoa dona do dni, null caso não exista
+     */
+    public Pessoa getPessoa(String dni) {
+        return this.pessoas.get(dni);
+    }
+
+    /**
+     * Retorna se existe uma pessoa cadastrada com o dni passado como parâmetro.
+     *
+     * @param dni documento de identificação da pessoa.
+     * @return true caso a pessoa esteja cadastrada, false caso contrário
+     */
+    public boolean contemPessoa(String dni) {
+        return this.pessoas.containsKey(dni);
+    }
+
+    /**
+     * Retorna se a pessoa com o dni passado como parâmetro possui o cargo de
+     * deputado.
+     *
+     * @param dni documento de identificação da pessoa.
+     * @return true caso a pessoa seja deputado, false caso contrário
+     */
+    public boolean ehDeputado(String dni) {
+        return this.deputados.contains(dni);
+    }
+
+    /**
+     * Retorna a quantidade de deputados cadastrados no sistema.
+     *
+     * @return número de deputados cadastrados
+     */
+    public int contaDeputados() {
+        return this.deputados.size();
+    }
+
+    /**
+     * Retorna uma visão somente leitura dos dnis dos deputados cadastrados.
+     *
+     * @return Set somente leitura com os dnis dos deputados
+     */
+    public Set<String> getDeputados() {
+        return Collections.unmodifiableSet(this.deputados);
+    }
+
     /**
      * Esse método serve para carregar o mapa de pessoas
-     * com o conjunto de pessoas do arquivo.
+     * com o conjunto de pessoas do arquivo. O índice de
+     * deputados é reconstruído a partir do novo mapa.
      *
      * @param mapaPessoas mapa de pessoas
      */
     public void setPessoas(Map<String, Pessoa> mapaPessoas) {
-        this.pessoas = mapaPessoas;
+        Set<String> novosDeputados = new HashSet<>();
+        for (Pessoa pessoa : mapaPessoas.values())
+            if (CargosPoliticos.DEPUTADO.equals(pessoa.getCargoPolitico()))
+                novosDeputados.add(pessoa.getDni());
+        this.setPessoas(mapaPessoas, novosDeputados);
+    }
+
+    /**
+     * Esse método serve para carregar o mapa de pessoas
+     * junto com o índice de deputados já montado, sem
+     * percorrer as pessoas do mapa. O mapa e o índice são
+     * copiados para coleções concorrentes.
+     *
+     * @param mapaPessoas mapa de pessoas
+     * @param dnisDeputados dnis dos deputados do mapa
+     */
+    public void setPessoas(Map<String, Pessoa> mapaPessoas, Set<String> dnisDeputados) {
+        Map<String, Pessoa> novasPessoas = new ConcurrentHashMap<>(mapaPessoas);
+        Set<String> novosDeputados = ConcurrentHashMap.newKeySet();
+        novosDeputados.addAll(dnisDeputados);
+
+        this.pessoas = novasPessoas;
+        this.visaoPessoas = Collections.unmodifiableCollection(novasPessoas.values());
+        this.deputados = novosDeputados;
+        this.alteracoes.limpa();
+    }
+
+    /**
+     * Retorna o registro das pessoas cadastradas ou alteradas desde o último salvamento.
+     *
+     * @return registro de alterações das pessoas
+     */
+    public RegistroDeAlteracoes getAlteracoes() {
+        return this.alteracoes;
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package controllers;
 
+import comparators.ComparatorOrdemCriacaoPropostaLegislativa;
 import entities.*;
 import enums.EstrategiaBusca;
 import enums.SituacaoVotacao;
@@ -9,14 +10,29 @@ import interfaces.PropostaLegislativa;
 import services.ComissaoService;
 import services.PartidoBaseService;
 import services.PessoaService;
+import util.AcervoDePropostas;
 import util.Buscador;
+import util.CodificadorDeEntidades;
+import util.HistoricoDeTramitacao;
+import util.RegistroDeAlteracoes;
+import util.SequenciadorDeCodigos;
 import util.Validador;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Essa classe usa o padrão Controller contendo métodos que operam sobre os diferentes
@@ -47,14 +63,31 @@ public class ProjetoController implements Serializable {
     /**
      * Armazena um mapa de propostas legislativas em que
      * a chave segue o formato: TipoProjeto numero/ano e
-     * o valor é do tipo PropostaLegislativa.
+     * o valor é do tipo PropostaLegislativa. Contém as
+     * propostas em votação e as cadastradas ou votadas
+     * desde a última carga.
      */
     private Map<String, PropostaLegislativa> propostas;
+    /**
+     * Armazena as propostas com tramitação encerrada que
+     * não estão no mapa de propostas, decodificadas apenas
+     * quando acessadas.
+     */
+    private transient AcervoDePropostas acervo;
     /**
      * Armazena objeto utilizado para buscar proposta
      * mais relacionada
      */
     private Buscador buscador;
+    /**
+     * Armazena os códigos das propostas cadastradas ou votadas desde o último salvamento.
+     */
+    private RegistroDeAlteracoes alteracoes;
+    /**
+     * Armazena os contadores usados para numerar as propostas
+     * de cada tipo em cada ano.
+     */
+    private SequenciadorDeCodigos sequenciador;
 
     /**
      * Constrói um Controlador de Projetos que inicializa um mapa que guarda
@@ -72,25 +105,10 @@ public class ProjetoController implements Serializable {
         this.comissaoService = comissaoService;
         this.partidoService = partidoService;
         this.propostas = new HashMap<>();
+        this.acervo = criaAcervoVazio();
         this.buscador = new Buscador(new HashSet<>(this.propostas.values()));
-    }
-
-    /**
-     * Esse método retorna um inteiro que representa a quantidade
-     * de projetos de um ano específico e de um tipo específico.
-     *
-     * @param tipoProjeto tipo do projeto.
-     * @param ano         ano do projeto.
-     * @return quantidade de projetos de um ano específico.
-     */
-    private int contaProjetoEmAno(TipoProjeto tipoProjeto, int ano) {
-        int qntProjetosNoAno = 0;
-
-        for (PropostaLegislativa proposta : this.propostas.values())
-            if (proposta.getTipoDoProjeto() == tipoProjeto && proposta.getAno() == ano)
-                qntProjetosNoAno++;
-
-        return qntProjetosNoAno;
+        this.sequenciador = new SequenciadorDeCodigos();
+        this.alteracoes = new RegistroDeAlteracoes();
     }
 
     /**
@@ -102,7 +120,7 @@ public class ProjetoController implements Serializable {
      * @return codigo gerado para o projeto.
      */
     private String criaCodigo(TipoProjeto tipoProjeto, int ano) {
-        int numeroDoProjeto = contaProjetoEmAno(tipoProjeto, ano) + 1;
+        int numeroDoProjeto = this.sequenciador.proximoNumero(tipoProjeto, ano);
 
         return tipoProjeto.toString() + " " + numeroDoProjeto + "/" + ano;
     }
@@ -154,11 +172,32 @@ public class ProjetoController implements Serializable {
      * @return string que representa codigo do projeto de lei.
      */
     public String cadastraPL(String dni, int ano, String ementa, String interesses, String url, boolean conclusivo) {
+        return this.cadastraPL(dni, ano, ementa, interesses, url, conclusivo, System.currentTimeMillis());
+    }
+
+    /**
+     * Esse método cadastra um novo projeto de lei no instante passado e retorna o seu código.
+     *
+     * @param dni        dni do autor.
+     * @param ano        ano do projeto.
+     * @param ementa     ementa do projeto.
+     * @param interesses interesses do projeto.
+     * @param url        url do projeto.
+     * @param conclusivo conclusividade do projeto.
+     * @param instante   instante do cadastro, em milissegundos desde a época.
+     * @return string que representa codigo do projeto de lei.
+     */
+    public String cadastraPL(String dni, int ano, String ementa, String interesses, String url, boolean conclusivo,
+                             long instante) {
         validaEntradasDoProjeto(dni, ano, ementa, interesses, url);
         new Validador().validaNull(conclusivo, "Erro ao cadastrar projeto: conclusivo nao pode ser nula");
 
         String codigo = criaCodigo(TipoProjeto.PL, ano);
-        this.propostas.put(codigo, new PL(codigo, dni, ano, ementa, interesses, url, conclusivo));
+        PropostaLegislativa proposta = new PL(codigo, dni, ano, ementa, interesses, url, conclusivo);
+        proposta.registraTransicoes(instante);
+        this.propostas.put(codigo, proposta);
+        this.alteracoes.marca(codigo);
+        this.buscador.adicionaProposta(proposta);
 
         return codigo;
     }
@@ -175,11 +214,32 @@ public class ProjetoController implements Serializable {
      * @return string que representa código do projeto de lei complementar.
      */
     public String cadastraPLP(String dni, int ano, String ementa, String interesses, String url, String artigos) {
+        return this.cadastraPLP(dni, ano, ementa, interesses, url, artigos, System.currentTimeMillis());
+    }
+
+    /**
+     * Esse método cadastra um novo projeto de lei complementar no instante passado e retorna seu código.
+     *
+     * @param dni        dni do autor.
+     * @param ano        ano do projeto.
+     * @param ementa     ementa do projeto.
+     * @param interesses interesses do projeto.
+     * @param url        url do projeto.
+     * @param artigos    artigos do projeto.
+     * @param instante   instante do cadastro, em milissegundos desde a época.
+     * @return string que representa código do projeto de lei complementar.
+     */
+    public String cadastraPLP(String dni, int ano, String ementa, String interesses, String url, String artigos,
+                             long instante) {
         validaEntradasDoProjeto(dni, ano, ementa, interesses, url);
         new Validador().validaString(artigos, "Erro ao cadastrar projeto: artigo nao pode ser vazio ou nulo");
 
         String codigo = criaCodigo(TipoProjeto.PLP, ano);
-        this.propostas.put(codigo, new PLP(codigo, dni, ano, ementa, interesses, url, artigos));
+        PropostaLegislativa proposta = new PLP(codigo, dni, ano, ementa, interesses, url, artigos);
+        proposta.registraTransicoes(instante);
+        this.propostas.put(codigo, proposta);
+        this.alteracoes.marca(codigo);
+        this.buscador.adicionaProposta(proposta);
 
         return codigo;
     }
@@ -196,11 +256,32 @@ public class ProjetoController implements Serializable {
      * @return string que representa o codigo do projeto de emenda constitucional.
      */
     public String cadastraPEC(String dni, int ano, String ementa, String interesses, String url, String artigos) {
+        return this.cadastraPEC(dni, ano, ementa, interesses, url, artigos, System.currentTimeMillis());
+    }
+
+    /**
+     * Esse método cadastra um novo projeto de emenda constitucional no instante passado e retorna o seu código.
+     *
+     * @param dni        dni do autor.
+     * @param ano        ano do projeto.
+     * @param ementa     ementa do projeto.
+     * @param interesses interesses do projeto.
+     * @param url        url do projeto.
+     * @param artigos    artigos do projeto.
+     * @param instante   instante do cadastro, em milissegundos desde a época.
+     * @return string que representa o codigo do projeto de emenda constitucional.
+     */
+    public String cadastraPEC(String dni, int ano, String ementa, String interesses, String url, String artigos,
+                             long instante) {
         validaEntradasDoProjeto(dni, ano, ementa, interesses, url);
         new Validador().validaString(artigos, "Erro ao cadastrar projeto: artigo nao pode ser vazio ou nulo");
 
         String codigo = criaCodigo(TipoProjeto.PEC, ano);
-        this.propostas.put(codigo, new PEC(codigo, dni, ano, ementa, interesses, url, artigos));
+        PropostaLegislativa proposta = new PEC(codigo, dni, ano, ementa, interesses, url, artigos);
+        proposta.registraTransicoes(instante);
+        this.propostas.put(codigo, proposta);
+        this.alteracoes.marca(codigo);
+        this.buscador.adicionaProposta(proposta);
 
         return codigo;
     }
@@ -212,10 +293,11 @@ public class ProjetoController implements Serializable {
      * @return string que representa o projeto.
      */
     public String exibirProjeto(String codigo) {
-        if (!(this.propostas.containsKey(codigo)))
+        PropostaLegislativa proposta = this.getProposta(codigo);
+        if (proposta == null)
             throw new NullPointerException("Erro ao exibir projeto: codigo nao cadastrado");
 
-        return this.propostas.get(codigo).toString();
+        return proposta.toString();
     }
 
     /**
@@ -229,6 +311,18 @@ public class ProjetoController implements Serializable {
         Pessoa autorDaProposta = pessoaService.getPessoaPeloDni(proposta.getAutor());
 
         proposta.avaliaResultado(proximoLocal, resultado, autorDaProposta);
+        this.marcaVotacao(proposta);
+    }
+
+    /**
+     * Esse método marca como alterados uma proposta votada e o seu autor,
+     * cuja quantidade de leis pode ter aumentado.
+     *
+     * @param proposta projeto votado.
+     */
+    private void marcaVotacao(PropostaLegislativa proposta) {
+        this.alteracoes.marca(proposta.getCodigo());
+        this.pessoaService.getAlteracoes().marca(proposta.getAutor());
     }
 
     /**
@@ -301,29 +395,50 @@ public class ProjetoController implements Serializable {
      * @return resultado da votação.
      */
     public boolean votarComissao(String codigo, String statusGovernista, String proximoLocal) {
+        return this.votarComissao(codigo, statusGovernista, proximoLocal, System.currentTimeMillis());
+    }
+
+    /**
+     * Esse método vota o projeto na comissão no instante passado, que
+     * fica registrado no histórico da tramitação, e retorna o resultado
+     * da votação.
+     *
+     * @param codigo           codigo do projeto.
+     * @param statusGovernista status do projeto.
+     * @param proximoLocal     próximo local de votação do projeto.
+     * @param instante         instante da votação, em milissegundos desde a época.
+     * @return resultado da votação.
+     */
+    public boolean votarComissao(String codigo, String statusGovernista, String proximoLocal, long instante) {
         Validador v = new Validador();
         v.validaString(proximoLocal, "Erro ao votar proposta: proximo local vazio");
         v.validaStatus(statusGovernista, "Erro ao votar proposta: status invalido");
 
-        if (!(this.propostas.containsKey(codigo)))
+        PropostaLegislativa proposta = this.propostas.get(codigo);
+
+        if (proposta == null && !(this.acervo.contem(codigo)))
             throw new NullPointerException("Erro ao votar proposta: projeto inexistente");
 
-        PropostaLegislativa proposta = this.propostas.get(codigo);
+        String localDeVotacao = (proposta != null) ? proposta.getLocalDeVotacao() : this.acervo.getLocalDeVotacao(codigo);
+        String situacaoAtual = (proposta != null) ? proposta.getSituacaoAtual() : this.acervo.getSituacaoAtual(codigo);
 
-        if (proposta.getLocalDeVotacao().equals("Plenario - 1o turno") || proposta.getLocalDeVotacao().equals("Plenario - 2o turno") || proposta.getLocalDeVotacao().equals("plenario"))
+        if (localDeVotacao.equals("Plenario - 1o turno") || localDeVotacao.equals("Plenario - 2o turno") || localDeVotacao.equals("plenario"))
             throw new IllegalArgumentException("Erro ao votar proposta: proposta encaminhada ao plenario");
 
-        if (proposta.getSituacaoAtual().equals(SituacaoVotacao.REJEITADO.toString()))
+        if (situacaoAtual.equals(SituacaoVotacao.REJEITADO.toString()))
             throw new IllegalArgumentException("Erro ao votar proposta: tramitacao encerrada");
 
         Comissao comissao;
 
-        if (!(this.comissaoService.containsComissao(proposta.getLocalDeVotacao())))
-            throw new NullPointerException("Erro ao votar proposta: " + proposta.getLocalDeVotacao() + " nao cadastrada");
+        if (!(this.comissaoService.containsComissao(localDeVotacao)))
+            throw new NullPointerException("Erro ao votar proposta: " + localDeVotacao + " nao cadastrada");
         else {
-            comissao = this.comissaoService.getComissao(proposta.getLocalDeVotacao());
+            comissao = this.comissaoService.getComissao(localDeVotacao);
         }
 
+        if (proposta == null)
+            proposta = this.reativaProposta(codigo);
+
         StatusGovernista status = StatusGovernista.valueOf(statusGovernista);
 
         boolean resultado = this.votarComissao(status, comissao, proposta);
@@ -331,6 +446,8 @@ public class ProjetoController implements Serializable {
         avaliaResultado(proximoLocal, proposta, resultado);
 
         proposta.alteraNovoLocal(proximoLocal);
+        proposta.registraTransicoes(instante);
+        this.buscador.atualizaSituacao(proposta);
 
         return resultado;
     }
@@ -418,6 +535,7 @@ public class ProjetoController implements Serializable {
         Pessoa autorDaProposta = pessoaService.getPessoaPeloDni(proposta.getAutor());
 
         proposta.avaliaResultado(resultado, autorDaProposta);
+        this.marcaVotacao(proposta);
     }
 
     /**
@@ -429,14 +547,34 @@ public class ProjetoController implements Serializable {
      * @return true se for aprovado.
      */
     public boolean votarPlenario(String codigo, String statusGovernista, String presentes) {
-        if (!(this.propostas.containsKey(codigo)))
-            throw new NullPointerException("Erro ao votar proposta: codigo nao existe");
+        return this.votarPlenario(codigo, statusGovernista, presentes, System.currentTimeMillis());
+    }
 
+    /**
+     * Esse método vota o projeto no plenário no instante passado, que
+     * fica registrado no histórico da tramitação, e retorna se foi
+     * aprovado ou não.
+     *
+     * @param codigo           código do projeto.
+     * @param statusGovernista status do projeto.
+     * @param presentes        presentes na votação.
+     * @param instante         instante da votação, em milissegundos desde a época.
+     * @return true se for aprovado.
+     */
+    public boolean votarPlenario(String codigo, String statusGovernista, String presentes, long instante) {
         PropostaLegislativa proposta = this.propostas.get(codigo);
 
-        if (proposta.getSituacaoAtual().equals(SituacaoVotacao.REJEITADO.toString()) || proposta.getSituacaoAtual().equals(SituacaoVotacao.APROVADO.toString()))
+        if (proposta == null && !(this.acervo.contem(codigo)))
+            throw new NullPointerException("Erro ao votar proposta: codigo nao existe");
+
+        String situacaoAtual = (proposta != null) ? proposta.getSituacaoAtual() : this.acervo.getSituacaoAtual(codigo);
+
+        if (situacaoAtual.equals(SituacaoVotacao.REJEITADO.toString()) || situacaoAtual.equals(SituacaoVotacao.APROVADO.toString()))
             throw new IllegalArgumentException("Erro ao votar proposta: tramitacao encerrada");
 
+        if (proposta == null)
+            proposta = this.reativaProposta(codigo);
+
         this.verificaQuorumMinimo(presentes, proposta);
 
         if (!(proposta.getLocalDeVotacao().equals("Plenario - 1o turno")) && !((proposta.getLocalDeVotacao().equals("Plenario - 2o turno"))) && !((proposta.getLocalDeVotacao().equals("plenario"))))
@@ -447,6 +585,8 @@ public class ProjetoController implements Serializable {
         boolean resultado = votarPlenario(status, proposta, presentes);
 
         avaliaResultado(proposta, resultado);
+        proposta.registraTransicoes(instante);
+        this.buscador.atualizaSituacao(proposta);
 
         return resultado;
     }
@@ -457,14 +597,104 @@ public class ProjetoController implements Serializable {
      * @param codigo o código do projeto que se deseja exibir a tramitação.
      */
     public String exibirTramitacao(String codigo) {
-        if (!(this.propostas.containsKey(codigo)))
+        PropostaLegislativa proposta = this.getProposta(codigo);
+        if (proposta == null)
             throw new NullPointerException("Erro ao exibir tramitacao: projeto inexistente");
 
-        PropostaLegislativa proposta = this.propostas.get(codigo);
-
         return proposta.exibirTramitacao();
     }
 
+    /**
+     * Esse método exibe a situação e o local de votação de um projeto ao
+     * final da data passada, a partir do histórico da sua tramitação.
+     *
+     * @param codigo código do projeto.
+     * @param data   data no formato ddMMyyyy.
+     * @return situação seguida do local de votação, no formato da tramitação.
+     */
+    public String exibirTramitacaoEm(String codigo, String data) {
+        long instante = this.fimDoDia(data);
+        PropostaLegislativa proposta = this.getProposta(codigo);
+        if (proposta == null)
+            throw new NullPointerException("Erro ao consultar tramitacao: projeto inexistente");
+
+        String[] tramite = proposta.getTramitacaoEm(instante);
+        if (tramite == null)
+            throw new IllegalArgumentException("Erro ao consultar tramitacao: projeto sem tramitacao na data");
+        return exibeTramite(tramite);
+    }
+
+    /**
+     * Esse método lista as propostas que estavam em um local de votação
+     * ao final da data passada, com a situação de cada uma naquele momento.
+     *
+     * @param local local de votação.
+     * @param data  data no formato ddMMyyyy.
+     * @return códigos e situações das propostas, em ordem de cadastro.
+     */
+    public String listarPropostasEm(String local, String data) {
+        new Validador().validaString(local, "Erro ao consultar tramitacao: local nao pode ser vazio ou nulo");
+        return this.listarPropostasEm(local, this.fimDoDia(data));
+    }
+
+    /**
+     * Esse método lista as propostas que estavam em um local de votação
+     * no instante passado, com a situação de cada uma naquele momento.
+     * A situação de cada proposta é encontrada por busca binária no seu
+     * histórico, e as propostas do acervo que não podiam estar no local
+     * no instante são descartadas sem serem decodificadas.
+     *
+     * @param local    local de votação.
+     * @param instante instante consultado, em milissegundos desde a época.
+     * @return códigos e situações das propostas no formato
+     * "codigo - SITUACAO", separados por " | ", em ordem de cadastro.
+     */
+    public String listarPropostasEm(String local, long instante) {
+        List<PropostaLegislativa> encontradas = new ArrayList<>();
+        Consumer<PropostaLegislativa> confere = proposta -> {
+            HistoricoDeTramitacao historico = proposta.getHistorico();
+            int posicao = historico.posicaoEm(instante);
+            if (posicao >= 0 && historico.getLocal(posicao).equals(local))
+                encontradas.add(proposta);
+        };
+        this.propostas.values().forEach(confere);
+        this.acervo.percorreCandidatasEm(instante, local, confere);
+        encontradas.sort(new ComparatorOrdemCriacaoPropostaLegislativa());
+
+        StringJoiner lista = new StringJoiner(" | ");
+        for (PropostaLegislativa proposta : encontradas)
+            lista.add(proposta.getCodigo() + " - " + proposta.getTramitacaoEm(instante)[1].replace("_", " "));
+        return lista.toString();
+    }
+
+    /**
+     * Esse método retorna o último instante do dia passado, usado nas
+     * consultas à tramitação em uma data.
+     *
+     * @param data data no formato ddMMyyyy.
+     * @return último milissegundo do dia.
+     */
+    private long fimDoDia(String data) {
+        Validador v = new Validador();
+        v.validaString(data, "Erro ao consultar tramitacao: data nao pode ser vazia ou nula");
+        Calendar dia = Calendar.getInstance();
+        dia.setTime(v.validaData(data, "Erro ao consultar tramitacao: data invalida",
+                "Erro ao consultar tramitacao: data futura"));
+        dia.add(Calendar.DAY_OF_MONTH, 1);
+        return dia.getTimeInMillis() - 1;
+    }
+
+    /**
+     * Esse método exibe um trâmite no formato usado na tramitação.
+     *
+     * @param tramite array com o local e a situação.
+     * @return situação seguida do local entre parênteses.
+     */
+    private static String exibeTramite(String[] tramite) {
+        String local = tramite[0].equals("plenario") ? "Plenario" : tramite[0];
+        return tramite[1].replace("_", " ") + " (" + local + ")";
+    }
+
     /**
      * Retorna o código da proposta mais relacionada ao usuario detentor do dni passado como
      * parâmetro. Caso não haja nenhuma proposta relacionada retorna uma String vazia.
@@ -479,8 +709,6 @@ public class ProjetoController implements Serializable {
      * @return String com o codigo da proposta mais relacionada, ou "" caso não exista uma
      */
     public String getPropostaRelacionada(String dni) {
-        this.buscador.setPropostas(new HashSet<>(this.propostas.values()));
-
         Validador v = new Validador();
         if ("".trim().equals(dni)) {
             throw new IllegalArgumentException("Erro ao pegar proposta relacionada: pessoa nao pode ser vazia ou nula");
@@ -490,18 +718,87 @@ public class ProjetoController implements Serializable {
             throw new NullPointerException("Erro ao pegar proposta relacionada: pessoa nao pode ser vazia ou nula");
         }
 
+        Pessoa pessoa = this.pessoaService.getPessoaPeloDni(dni);
         String propostaMaisRelacionada = this.buscador
-                .buscaMaisRelacionado(this.pessoaService
-                        .getPessoaPeloDni(dni)
-                        .getInteresses()
-                        .split(","));
+                .buscaMaisRelacionado(pessoa.getInteresses().split(","), pessoa.getEstrategiaBusca());
 
         return propostaMaisRelacionada;
     }
 
     /**
-     * Não possui retorno. Configura uma estratégia de desempate para a busca de proposta
-     * mais relacionada. Essa estratégia é do tipo EstrategiaBusca.
+     * Retorna os códigos das propostas em votação mais relacionadas ao usuario detentor
+     * do dni passado como parâmetro, separados por vírgula e da mais relacionada para a
+     * menos relacionada. A ordem segue os mesmos critérios de getPropostaRelacionada:
+     * número de interesses em comum, estratégia de desempate, idade e ordem de cadastro.
+     * Caso não haja nenhuma proposta relacionada retorna uma String vazia. Lança
+     * IllegalArgumentException para valores vazios ou inválidos e NullPointerException
+     * para valores nulos.
+     *
+     * @param dni        String com o dni da pessoa que se quer buscar as propostas
+     * @param quantidade número máximo de propostas a serem retornadas
+     * @return String com os códigos das propostas separados por vírgula
+     */
+    public String getPropostasRelacionadas(String dni, int quantidade) {
+        Validador v = new Validador();
+        v.validaString(dni, "Erro ao pegar propostas relacionadas: pessoa nao pode ser vazia ou nula");
+        v.validaDni(dni, "Erro ao pegar propostas relacionadas: dni invalido");
+        if (!this.pessoaService.ehPessoaCadastrada(dni))
+            throw new NullPointerException("Erro ao pegar propostas relacionadas: pessoa inexistente");
+        if (quantidade <= 0)
+            throw new IllegalArgumentException("Erro ao pegar propostas relacionadas: quantidade invalida");
+
+        Pessoa pessoa = this.pessoaService.getPessoaPeloDni(dni);
+        List<String> propostasMaisRelacionadas = this.buscador
+                .buscaMaisRelacionados(pessoa.getInteresses().split(","), pessoa.getEstrategiaBusca(), quantidade);
+
+        return String.join(",", propostasMaisRelacionadas);
+    }
+
+    /**
+     * Não possui retorno. Calcula a proposta mais relacionada de todas as pessoas cadastradas,
+     * em paralelo, entregando ao consumidor o dni de cada pessoa e o código da sua proposta
+     * mais relacionada, ou uma String vazia caso não exista uma. O consumidor é chamado a
+     * partir de várias threads e deve ser seguro para uso concorrente.
+     *
+     * @param consumidor recebe o dni e o código da proposta mais relacionada
+     */
+    public void getPropostasRelacionadasEmLote(BiConsumer<String, String> consumidor) {
+        new Validador().validaNull(consumidor, "Erro ao pegar propostas relacionadas: consumidor nao pode ser nulo");
+
+        this.buscador.buscaMaisRelacionadoEmLote(this.pessoaService.getVisaoPessoas(), Pessoa::getInteresses,
+                Pessoa::getEstrategiaBusca, (pessoa, codigo) -> consumidor.accept(pessoa.getDni(), codigo));
+    }
+
+    /**
+     * Não possui retorno. Calcula a proposta mais relacionada de cada uma das pessoas com os
+     * dnis passados como parâmetro, em paralelo, entregando ao consumidor cada dni e o código
+     * da sua proposta mais relacionada. Todos os dnis são validados antes do início da busca.
+     * O consumidor é chamado a partir de várias threads e deve ser seguro para uso concorrente.
+     *
+     * @param dnis       dnis das pessoas que se quer buscar a proposta mais relacionada
+     * @param consumidor recebe o dni e o código da proposta mais relacionada
+     */
+    public void getPropostasRelacionadasEmLote(Collection<String> dnis, BiConsumer<String, String> consumidor) {
+        Validador v = new Validador();
+        v.validaNull(dnis, "Erro ao pegar propostas relacionadas: lista de dnis nao pode ser nula");
+        v.validaNull(consumidor, "Erro ao pegar propostas relacionadas: consumidor nao pode ser nulo");
+
+        for (String dni : dnis) {
+            v.validaString(dni, "Erro ao pegar propostas relacionadas: pessoa nao pode ser vazia ou nula");
+            v.validaDni(dni, "Erro ao pegar propostas relacionadas: dni invalido");
+            if (!this.pessoaService.ehPessoaCadastrada(dni))
+                throw new NullPointerException("Erro ao pegar propostas relacionadas: pessoa inexistente");
+        }
+
+        this.buscador.buscaMaisRelacionadoEmLote(dnis,
+                dni -> this.pessoaService.getPessoaPeloDni(dni).getInteresses(),
+                dni -> this.pessoaService.getPessoaPeloDni(dni).getEstrategiaBusca(), consumidor);
+    }
+
+    /**
+     * Não possui retorno. Configura a estratégia de desempate usada nas buscas de proposta
+     * mais relacionada da pessoa com o dni informado. Essa estratégia é do tipo EstrategiaBusca
+     * e não afeta as buscas das demais pessoas.
      * <p>
      * APROVACAO - tem como prioridade o número de aprovacoes em comissões e plenario
      * CONCLUSAO - tem como prioridade a proximidade com a aprovação da proposta
@@ -524,7 +821,22 @@ public class ProjetoController implements Serializable {
         } catch (IllegalArgumentException iae) {
             throw new IllegalArgumentException("Erro ao configurar estrategia: estrategia invalida");
         }
-        this.buscador.setEstrategiaAtual(estrat);
+
+        Pessoa pessoa = this.pessoaService.getPessoaPeloDni(dni);
+        if (pessoa == null)
+            throw new NullPointerException("Erro ao configurar estrategia: pessoa inexistente");
+
+        pessoa.setEstrategiaBusca(estrat);
+        this.pessoaService.getAlteracoes().marca(dni);
+    }
+
+    /**
+     * Retorna as métricas da cache de busca de propostas relacionadas.
+     *
+     * @return String no formato "Acertos: a - Falhas: f - Resultados: r"
+     */
+    public String exibirEstatisticasDeBusca() {
+        return this.buscador.getCache().toString();
     }
 
     /**
@@ -559,12 +871,35 @@ public class ProjetoController implements Serializable {
 
     /**
      * Esse método serve para retornar um Set de
-     * propostas legislativas.
+     * propostas legislativas, incluindo as do acervo,
+     * que são decodificadas.
      *
      * @return Set de propostas legislativas
      */
     public Set<PropostaLegislativa> getPropostas() {
-        return new HashSet<>(this.propostas.values());
+        Set<PropostaLegislativa> todas = new HashSet<>(this.propostas.values());
+        todas.addAll(this.acervo.getPropostas());
+        return todas;
+    }
+
+    /**
+     * Esse método serve para retornar as propostas mantidas
+     * em memória, sem as do acervo.
+     *
+     * @return coleção somente leitura das propostas em memória
+     */
+    public Collection<PropostaLegislativa> getPropostasEmMemoria() {
+        return Collections.unmodifiableCollection(this.propostas.values());
+    }
+
+    /**
+     * Esse método serve para retornar o acervo das propostas
+     * com tramitação encerrada que não estão em memória.
+     *
+     * @return acervo de propostas
+     */
+    public AcervoDePropostas getAcervo() {
+        return this.acervo;
     }
 
     /**
@@ -575,5 +910,97 @@ public class ProjetoController implements Serializable {
      */
     public void setPropostas(Map<String, PropostaLegislativa> mapaPropostas) {
         this.propostas = mapaPropostas;
+        this.trocaAcervo(criaAcervoVazio());
+        this.sequenciador.reconstroi(mapaPropostas.values());
+        this.buscador.setPropostas(new HashSet<>(mapaPropostas.values()));
+        this.alteracoes.limpa();
+    }
+
+    /**
+     * Esse método serve para carregar o mapa de propostas e o acervo
+     * das propostas com tramitação encerrada junto com um buscador já
+     * indexado sobre as propostas do mapa, evitando que o índice seja
+     * reconstruído. O buscador nunca retorna propostas do acervo, mas
+     * recebe os seus interesses, que contam na maior quantidade de
+     * interesses em comum. A estratégia atual do buscador anterior é
+     * mantida.
+     *
+     * @param mapaPropostas    mapa de propostas
+     * @param acervoCarregado  acervo com as propostas que não estão no mapa
+     * @param buscadorIndexado buscador construído sobre as propostas do mapa
+     */
+    public void setPropostas(Map<String, PropostaLegislativa> mapaPropostas, AcervoDePropostas acervoCarregado,
+                             Buscador buscadorIndexado) {
+        buscadorIndexado.setEstrategiaAtual(this.buscador.getEstrategiaAtual());
+        this.propostas = mapaPropostas;
+        buscadorIndexado.setPropostasArquivadas(acervoCarregado.contaInteresses());
+        this.trocaAcervo(acervoCarregado);
+        this.sequenciador.reconstroi(mapaPropostas.values());
+        acervoCarregado.percorreNumeracao(this.sequenciador::proximoNumero);
+        this.buscador = buscadorIndexado;
+        this.alteracoes.limpa();
+    }
+
+    /**
+     * Retorna a proposta com o código passado, ou null caso não exista.
+     * Propostas do acervo são decodificadas a cada chamada.
+     *
+     * @param codigo código da proposta
+     * @return proposta com o código passado
+     */
+    public PropostaLegislativa getProposta(String codigo) {
+        PropostaLegislativa proposta = this.propostas.get(codigo);
+        return (proposta != null) ? proposta : this.acervo.materializa(codigo);
+    }
+
+    /**
+     * Esse método traz uma proposta do acervo de volta para a
+     * memória antes que ela seja votada, devolvendo-a ao buscador.
+     *
+     * @param codigo código da proposta
+     * @return proposta em memória
+     */
+    private PropostaLegislativa reativaProposta(String codigo) {
+        PropostaLegislativa proposta = this.acervo.materializa(codigo);
+        this.acervo.remove(codigo);
+        this.propostas.put(codigo, proposta);
+        this.buscador.removePropostaArquivada(proposta.getInteresses());
+        this.buscador.adicionaProposta(proposta);
+        return proposta;
+    }
+
+    /**
+     * Esse método substitui o acervo de propostas, fechando o anterior.
+     *
+     * @param novoAcervo novo acervo de propostas
+     */
+    private void trocaAcervo(AcervoDePropostas novoAcervo) {
+        try {
+            this.acervo.close();
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+        this.acervo = novoAcervo;
+    }
+
+    /**
+     * Esse método cria um acervo de propostas vazio no diretório
+     * temporário do sistema. Só recebem propostas os acervos
+     * montados pelo PersistenciaController, no diretório do seu
+     * armazenamento.
+     *
+     * @return acervo vazio
+     */
+    private static AcervoDePropostas criaAcervoVazio() {
+        return new AcervoDePropostas(new File(System.getProperty("java.io.tmpdir")), new CodificadorDeEntidades());
+    }
+
+    /**
+     * Retorna o registro das propostas cadastradas ou votadas desde o último salvamento.
+     *
+     * @return registro de alterações das propostas
+     */
+    public RegistroDeAlteracoes getAlteracoes() {
+        return this.alteracoes;
     }
 }
\ No newline at end of file
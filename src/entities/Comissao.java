@@ -14,6 +14,10 @@ import java.util.Set;
  * @author Guilherme de Melo Carneiro
  */
 public class Comissao implements Serializable {
+    /**
+     * Armazena Id de serialização de Comissao
+     */
+    private static final long serialVersionUID = 5793783637197263626L;
     /**
      * Armazena o tema da comissão.
      */
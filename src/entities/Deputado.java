@@ -16,6 +16,10 @@ import java.util.Date;
  * @author Guilherme de Melo Carneiro
  */
 public class Deputado implements CargoPolitico, Serializable {
+    /**
+     * Armazena Id de serialização de Deputado
+     */
+    private static final long serialVersionUID = -175250095948123390L;
     /**
      * Armazena a quantidade de leis aprovadas.
      */
@@ -29,10 +33,29 @@ public class Deputado implements CargoPolitico, Serializable {
      * Constrói um deputado inicializando sua quantidade de leis com 0.
      */
     public Deputado(Date dataDeInicio) {
-        this.leis = 0;
+        this(dataDeInicio, 0);
+    }
+
+    /**
+     * Constrói um deputado com a data de início do mandato e a quantidade de leis aprovadas.
+     *
+     * @param dataDeInicio data de início do mandato.
+     * @param leis         quantidade de leis aprovadas.
+     */
+    public Deputado(Date dataDeInicio, int leis) {
+        this.leis = leis;
         this.dataDeInicio = dataDeInicio;
     }
 
+    /**
+     * Retorna a data de início do mandato do deputado.
+     *
+     * @return data de início do mandato.
+     */
+    public Date getDataInicial() {
+        return this.dataDeInicio;
+    }
+
     /**
      * Esse método retorna o nome do cargo político do deputado.
      *
@@ -84,4 +107,14 @@ public class Deputado implements CargoPolitico, Serializable {
     public void aumentaLeis() {
         this.leis++;
     }
+
+    /**
+     * Esse método retorna uma cópia do deputado, com a mesma data de início e quantidade de leis.
+     *
+     * @return cópia do deputado.
+     */
+    @Override
+    public CargoPolitico copia() {
+        return new Deputado(this.dataDeInicio, this.leis);
+    }
 }
\ No newline at end of file
@@ -15,6 +15,10 @@ import java.io.Serializable;
  * @author Guilherme de Melo Carneiro
  */
 public class PEC extends Projeto implements Serializable {
+    /**
+     * Armazena Id de serialização de PEC
+     */
+    private static final long serialVersionUID = -4072926003550145029L;
     /**
      * Armazena uma string contendo os artigos que foram referenciados na PEC.
      */
@@ -127,4 +131,13 @@ public class PEC extends Projeto implements Serializable {
     private String getArtigos() {
         return this.artigos.replace(",", ", ");
     }
+
+    /**
+     * Retorna os artigos referenciados nessa PEC, como foram cadastrados.
+     *
+     * @return String contendo os artigos referenciados separados por vírgula.
+     */
+    public String getArtigosReferenciados() {
+        return this.artigos;
+    }
 }
\ No newline at end of file
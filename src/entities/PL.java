@@ -15,6 +15,10 @@ import java.io.Serializable;
  * @author Guilherme de Melo Carneiro
  */
 public class PL extends Projeto implements Serializable {
+    /**
+     * Armazena Id de serialização de PL
+     */
+    private static final long serialVersionUID = 5087402017014777970L;
     /**
      * Armazena se a PL é conclusiva ou nao.
      */
@@ -113,6 +117,15 @@ public class PL extends Projeto implements Serializable {
         }
     }
 
+    /**
+     * Retorna se o projeto de lei é conclusivo.
+     *
+     * @return true caso o projeto seja conclusivo, false caso contrário.
+     */
+    public boolean ehConclusivo() {
+        return this.conclusivo;
+    }
+
     /**
      * Retorna uma representaçao em String do projeto. No formato:
      * Projeto de Lei - codigo - dniAutor - ementa - status de votacão atual (local de votação atual)
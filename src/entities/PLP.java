@@ -15,6 +15,10 @@ import java.io.Serializable;
  * @author Guilherme de Melo Carneiro
  */
 public class PLP extends Projeto implements Serializable {
+    /**
+     * Armazena Id de serialização de PLP
+     */
+    private static final long serialVersionUID = 8086608573033211811L;
     /**
      * Armazena uma string contendo os artigos que foram referenciados na PLP.
      */
@@ -128,4 +132,13 @@ public class PLP extends Projeto implements Serializable {
     private String getArtigos() {
         return this.artigos.replace(",", ", ");
     }
+
+    /**
+     * Retorna os artigos referenciados nessa PLP, como foram cadastrados.
+     *
+     * @return String contendo os artigos referenciados separados por vírgula.
+     */
+    public String getArtigosReferenciados() {
+        return this.artigos;
+    }
 }
\ No newline at end of file
@@ -14,6 +14,11 @@ import java.io.Serializable;
  */
 public class Partido implements Serializable {
 
+    /**
+     * Armazena Id de serialização de Partido
+     */
+    private static final long serialVersionUID = -1081000984734162840L;
+
     /**
      * String que representa o nome do partido.
      */
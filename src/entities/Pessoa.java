@@ -1,6 +1,7 @@
 package entities;
 
 import enums.CargosPoliticos;
+import enums.EstrategiaBusca;
 import interfaces.CargoPolitico;
 import util.Validador;
 
@@ -15,7 +16,11 @@ import java.util.Date;
  * @author Tulio Araujo Cunha
  * @author Guilherme de Melo Carneiro
  */
-public class Pessoa implements Serializable {
+public class Pessoa implements Serializable, Cloneable {
+    /**
+     * Armazena Id de serialização de Pessoa
+     */
+    private static final long serialVersionUID = -237610343787523376L;
     /**
      * Armazena o nome da pessoa.
      */
@@ -40,6 +45,11 @@ public class Pessoa implements Serializable {
      * Armazena o cargo politico da pessoa.
      */
     private CargoPolitico cargoPolitico;
+    /**
+     * Armazena a estratégia de desempate usada nas buscas de propostas da pessoa.
+     * É lida pelas buscas em lote, feitas em outras threads.
+     */
+    private volatile EstrategiaBusca estrategiaBusca;
 
     /**
      * Constrói uma pessoa dado seu nome, documento de identificação, estado,
@@ -68,6 +78,7 @@ public class Pessoa implements Serializable {
         this.estado = estado;
         this.interesses = interesses;
         this.partido = new Partido(partido);
+        this.estrategiaBusca = EstrategiaBusca.CONSTITUCIONAL;
     }
 
     /**
@@ -141,6 +152,28 @@ public class Pessoa implements Serializable {
         return (this.cargoPolitico != null) ? this.cargoPolitico.getNomeCargo() : CargosPoliticos.SEM_CARGO;
     }
 
+    /**
+     * Esse método recupera a estratégia de desempate usada nas buscas de propostas
+     * relacionadas à pessoa. Caso nenhuma tenha sido definida, retorna CONSTITUCIONAL.
+     *
+     * @return estratégia de busca da pessoa
+     */
+    public EstrategiaBusca getEstrategiaBusca() {
+        return (this.estrategiaBusca != null) ? this.estrategiaBusca : EstrategiaBusca.CONSTITUCIONAL;
+    }
+
+    /**
+     * Esse método altera a estratégia de desempate usada nas buscas de propostas
+     * relacionadas à pessoa.
+     *
+     * @param estrategiaBusca nova estratégia de busca
+     * @throws NullPointerException caso a estratégia seja nula
+     */
+    public void setEstrategiaBusca(EstrategiaBusca estrategiaBusca) {
+        new Validador().validaNull(estrategiaBusca, "Estrategia nao pode ser nula!");
+        this.estrategiaBusca = estrategiaBusca;
+    }
+
     /**
      * Esse método recupera o hash do objeto pessoa baseado no seu documento de
      * identificação.
@@ -198,6 +231,27 @@ public class Pessoa implements Serializable {
         }
     }
 
+    /**
+     * Esse método altera o cargo político da pessoa para o cargo passado, mantendo
+     * a sua data de início e a sua quantidade de leis.
+     *
+     * @param cargoPolitico o novo cargo político da pessoa.
+     * @throws NullPointerException se o cargo for nulo.
+     */
+    public void setCargoPolitico(CargoPolitico cargoPolitico) {
+        new Validador().validaNull(cargoPolitico, "Cargo nao pode ser nulo ou vazio!");
+        this.cargoPolitico = cargoPolitico;
+    }
+
+    /**
+     * Esse método recupera o cargo político da pessoa, ou null caso ela não possua cargo.
+     *
+     * @return cargo político da pessoa.
+     */
+    public CargoPolitico getCargo() {
+        return this.cargoPolitico;
+    }
+
     /**
      * Esse método retorna uma string contendo informações da pessoa no formato nome
      * - dni (estado).
@@ -247,4 +301,21 @@ public class Pessoa implements Serializable {
     public void aumentaLeis() {
         this.cargoPolitico.aumentaLeis();
     }
+
+    /**
+     * Esse método retorna uma cópia da pessoa, com uma cópia do seu cargo político,
+     * que não é afetada por alterações feitas na original.
+     *
+     * @return cópia da pessoa.
+     */
+    public Pessoa copia() {
+        try {
+            Pessoa copia = (Pessoa) super.clone();
+            if (this.cargoPolitico != null)
+                copia.cargoPolitico = this.cargoPolitico.copia();
+            return copia;
+        } catch (CloneNotSupportedException cnse) {
+            throw new IllegalStateException(cnse);
+        }
+    }
 }
\ No newline at end of file
@@ -1,9 +1,11 @@
 package entities;
 
+import enums.EstrategiaBusca;
 import enums.SituacaoVotacao;
 import enums.StatusGovernista;
 import enums.TipoProjeto;
 import interfaces.PropostaLegislativa;
+import util.HistoricoDeTramitacao;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -17,7 +19,7 @@ import java.util.List;
  * @author Tulio Araujo Cunha
  * @author Guilherme de Melo Carneiro
  */
-public abstract class Projeto implements PropostaLegislativa, Serializable {
+public abstract class Projeto implements PropostaLegislativa, Serializable, Cloneable {
 
     /**
      * Armazena Id de Serialização do objeto
@@ -65,18 +67,37 @@ public abstract class Projeto implements PropostaLegislativa, Serializable {
      */
     private List<String[]> votacoes; // Local e Situação
 
+    /**
+     * Armazena as transições da tramitação com o instante de cada uma.
+     */
+    private HistoricoDeTramitacao historico;
+
+    /**
+     * Quantidade de votações já registradas no histórico. A última pode ter mudado
+     * de situação depois do registro.
+     */
+    private int votacoesRegistradas;
+
     /**
      * Número de identificação sequencial do projeto.
      */
     private int numCriacaoProjeto;
+
+    /**
+     * Armazena, para cada estratégia de busca, a chave usada no desempate entre
+     * propostas. É recalculada sempre que o local de votação muda.
+     */
+    private transient long[] chavesDeOrdenacao;
     
     /**
      * Constrói um projeto inicializando a lista com os locais de votação em CCJC e a situaçao em votação.
      */
     public Projeto(String codigo, String dniAutor, int ano, String ementa, String interesses, String endereco) {
         super();
-        Projeto.contagemDeProjetos++;
-        this.numCriacaoProjeto = Projeto.contagemDeProjetos;
+        synchronized (Projeto.class) {
+            Projeto.contagemDeProjetos++;
+            this.numCriacaoProjeto = Projeto.contagemDeProjetos;
+        }
         this.codigo = codigo;
         this.dniAutor = dniAutor;
         this.ano = ano;
@@ -85,7 +106,9 @@ public abstract class Projeto implements PropostaLegislativa, Serializable {
         this.endereco = endereco;
         this.votacoes = new ArrayList<>();
         this.votacoes.add(new String[]{"CCJC", SituacaoVotacao.EM_VOTACAO.toString()});
-        
+        this.historico = new HistoricoDeTramitacao();
+        this.atualizaChavesDeOrdenacao();
+
     }
 
     /**
@@ -104,6 +127,7 @@ public abstract class Projeto implements PropostaLegislativa, Serializable {
      */
     public void setTipoDoProjeto(TipoProjeto tipoDoProjeto) {
         this.tipoDoProjeto = tipoDoProjeto;
+        this.atualizaChavesDeOrdenacao();
     }
 
     /**
@@ -139,6 +163,24 @@ public abstract class Projeto implements PropostaLegislativa, Serializable {
         return this.codigo;
     }
 
+    /**
+     * Retorna a ementa do projeto.
+     *
+     * @return String com a ementa do projeto.
+     */
+    public String getEmenta() {
+        return this.ementa;
+    }
+
+    /**
+     * Retorna a url de endereço do projeto.
+     *
+     * @return String com a url do projeto.
+     */
+    public String getEndereco() {
+        return this.endereco;
+    }
+
     /**
      * Retorna o ano de criaçao do projeto.
      *
@@ -162,6 +204,60 @@ public abstract class Projeto implements PropostaLegislativa, Serializable {
      */
     public void setNovoLocalDeVotacao(String novoLocalDeVotacao) {
         this.votacoes.add(new String[]{novoLocalDeVotacao, SituacaoVotacao.EM_VOTACAO.toString()});
+        this.atualizaChavesDeOrdenacao();
+    }
+
+    /**
+     * Retorna a chave de desempate do projeto para uma estratégia de busca. Quanto menor
+     * a chave, maior a prioridade do projeto. A chave combina, em ordem de importância,
+     * o critério da estratégia, o ano e o número de cadastro do projeto.
+     *
+     * @param estrategia estratégia de busca.
+     * @return chave de desempate do projeto.
+     */
+    public long getChaveDeOrdenacao(EstrategiaBusca estrategia) {
+        if (this.chavesDeOrdenacao == null)
+            this.atualizaChavesDeOrdenacao();
+
+        return this.chavesDeOrdenacao[estrategia.ordinal()];
+    }
+
+    /**
+     * Recalcula as chaves de desempate do projeto para todas as estratégias de busca.
+     * Os 16 bits mais significativos guardam o critério da estratégia, os 16 seguintes
+     * o ano e os 31 menos significativos o número de cadastro.
+     */
+    private void atualizaChavesDeOrdenacao() {
+        long[] chaves = new long[EstrategiaBusca.values().length];
+        long desempate = ((long) this.ano << 31) | this.numCriacaoProjeto;
+
+        for (EstrategiaBusca estrategia : EstrategiaBusca.values())
+            chaves[estrategia.ordinal()] = ((long) this.criterioDaEstrategia(estrategia) << 47) | desempate;
+
+        this.chavesDeOrdenacao = chaves;
+    }
+
+    /**
+     * Retorna o critério principal de desempate do projeto em uma estratégia de busca.
+     * <p>
+     * CONSTITUCIONAL - 0 para PEC, 1 para PLP e 2 para PL
+     * CONCLUSAO - 0 no plenário, senão menor quanto mais locais de votação percorridos
+     * APROVACAO - menor quanto mais locais de votação percorridos
+     *
+     * @param estrategia estratégia de busca.
+     * @return critério de 16 bits, menor para o projeto de maior prioridade.
+     */
+    private int criterioDaEstrategia(EstrategiaBusca estrategia) {
+        int locaisPercorridos = Math.min(this.votacoes.size(), 0x7FFF);
+
+        switch (estrategia) {
+            case CONSTITUCIONAL:
+                return (this.tipoDoProjeto == null) ? TipoProjeto.values().length : this.tipoDoProjeto.ordinal();
+            case CONCLUSAO:
+                return "plenario".equals(this.getLocalDeVotacao()) ? 0 : 1 + 0x7FFF - locaisPercorridos;
+            default:
+                return 0x7FFF - locaisPercorridos;
+        }
     }
 
     /**
@@ -181,6 +277,80 @@ public abstract class Projeto implements PropostaLegislativa, Serializable {
     	return this.numCriacaoProjeto;
     }
 
+    /**
+     * Restaura o número de cadastro e as votações de um projeto lido de um arquivo.
+     * A contagem de projetos passa a ser no mínimo o número restaurado, para que
+     * os próximos projetos cadastrados continuem a ordem de criação.
+     *
+     * @param numCriacaoProjeto número sequencial de cadastro do projeto.
+     * @param votacoes          votações pelas quais o projeto já passou, em ordem cronológica.
+     */
+    public void restauraTramitacao(int numCriacaoProjeto, List<String[]> votacoes) {
+        this.restauraTramitacao(numCriacaoProjeto, votacoes, new HistoricoDeTramitacao());
+    }
+
+    /**
+     * Restaura o número de cadastro, as votações e o histórico da tramitação de um projeto
+     * lido de um arquivo. O histórico deve corresponder às votações restauradas.
+     *
+     * @param numCriacaoProjeto número sequencial de cadastro do projeto.
+     * @param votacoes          votações pelas quais o projeto já passou, em ordem cronológica.
+     * @param historico         transições da tramitação com o instante de cada uma.
+     */
+    public void restauraTramitacao(int numCriacaoProjeto, List<String[]> votacoes, HistoricoDeTramitacao historico) {
+        synchronized (Projeto.class) {
+            Projeto.contagemDeProjetos = Math.max(Projeto.contagemDeProjetos, numCriacaoProjeto);
+        }
+        this.numCriacaoProjeto = numCriacaoProjeto;
+        this.votacoes = votacoes;
+        this.historico = historico;
+        this.votacoesRegistradas = votacoes.size();
+        this.atualizaChavesDeOrdenacao();
+    }
+
+    /**
+     * Registra no histórico, com o instante passado, as transições feitas na tramitação
+     * desde o último registro: a mudança de situação no último local e os novos locais
+     * de votação. Chamado depois de cada cadastro e votação, de forma que todas as
+     * transições de uma operação ficam com o instante dela.
+     *
+     * @param instante instante da operação, em milissegundos desde a época.
+     */
+    public void registraTransicoes(long instante) {
+        HistoricoDeTramitacao historico = this.getHistorico();
+        for (int i = Math.max(0, this.votacoesRegistradas - 1); i < this.votacoes.size(); i++) {
+            String[] votacao = this.votacoes.get(i);
+            historico.registra(instante, votacao[0], SituacaoVotacao.valueOf(votacao[1]));
+        }
+        this.votacoesRegistradas = this.votacoes.size();
+    }
+
+    /**
+     * Retorna o histórico da tramitação, com o instante de cada transição.
+     *
+     * @return histórico da tramitação.
+     */
+    public HistoricoDeTramitacao getHistorico() {
+        if (this.historico == null)
+            this.historico = new HistoricoDeTramitacao();
+        return this.historico;
+    }
+
+    /**
+     * Retorna o local e a situação do projeto em um instante, a partir do histórico.
+     *
+     * @param instante instante consultado, em milissegundos desde a época.
+     * @return array com o local e a situação, ou null caso o histórico não tenha
+     * transições até o instante.
+     */
+    public String[] getTramitacaoEm(long instante) {
+        HistoricoDeTramitacao historico = this.getHistorico();
+        int posicao = historico.posicaoEm(instante);
+        if (posicao < 0)
+            return null;
+        return new String[]{historico.getLocal(posicao), historico.getSituacao(posicao).toString()};
+    }
+
     /**
      * Método que altera o resultado da votação no último local onde ela foi votada.
      */
@@ -359,4 +529,25 @@ public abstract class Projeto implements PropostaLegislativa, Serializable {
             return other.codigo == null;
         } else return codigo.equals(other.codigo);
     }
+
+    /**
+     * Esse método retorna uma cópia do projeto, com uma cópia da sua tramitação, que
+     * não é afetada por votações feitas no original. A cópia mantém o número de criação
+     * do projeto.
+     *
+     * @return cópia do projeto.
+     */
+    @Override
+    public PropostaLegislativa copia() {
+        try {
+            Projeto copia = (Projeto) super.clone();
+            copia.votacoes = new ArrayList<>(this.votacoes.size());
+            for (String[] votacao : this.votacoes)
+                copia.votacoes.add(votacao.clone());
+            copia.historico = this.getHistorico().copia();
+            return copia;
+        } catch (CloneNotSupportedException cnse) {
+            throw new IllegalStateException(cnse);
+        }
+    }
 }
\ No newline at end of file
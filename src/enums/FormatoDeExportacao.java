@@ -0,0 +1,15 @@
+package enums;
+
+import java.io.Serializable;
+
+/**
+ * Enumera os formatos em que os dados do sistema podem ser exportados.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public enum FormatoDeExportacao implements Serializable {
+    CSV, NDJSON
+}
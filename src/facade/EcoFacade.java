@@ -3,12 +3,28 @@ package facade;
 
 import controllers.*;
 import easyaccept.EasyAccept;
+import enums.FormatoDeExportacao;
+import interfaces.Armazenamento;
 import services.ComissaoService;
 import services.PartidoBaseService;
 import services.PessoaService;
 import services.ProjetoService;
+import util.ArquivoSegmentado;
+import util.DiarioDeOperacoes.OperacaoCodificada;
+import util.LeitorDeRegistros;
+import util.LeitorDeRegistros.Registro;
+import util.ResultadoDaImportacao;
+import util.Validador;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 
 /**
  * Essa classe usa o padrão Facade contendo métodos de acesso ao E-Camara
@@ -49,13 +65,24 @@ public class EcoFacade {
      * PersistenciaController para escrita e coleta dos dados em arquivo.
      */
     public EcoFacade() {
+        this(ArquivoSegmentado.emDiretorio(PersistenciaController.DIRETORIO_DE_DADOS));
+    }
+
+    /**
+     * Constrói a classe EcoFacade da mesma forma que o construtor padrão, mas com
+     * as famílias de entidades guardadas no armazenamento passado.
+     *
+     * @param armazenamento armazenamento das famílias de entidades
+     */
+    public EcoFacade(Armazenamento armazenamento) {
         this.pessoaController = new PessoaController();
         this.partidoController = new PartidoBaseController();
         this.comissaoController = new ComissaoController(new PessoaService(pessoaController));
         this.projetoController = new ProjetoController(new PessoaService(pessoaController),
                 new ComissaoService(comissaoController),
                 new PartidoBaseService(partidoController));
-        this.persistenciaController = new PersistenciaController(new ProjetoService(projetoController));
+        this.persistenciaController = new PersistenciaController(new ProjetoService(projetoController),
+                armazenamento);
     }
 
     /**
@@ -97,10 +124,172 @@ public class EcoFacade {
     }
 
     /**
-     * Esse método carrega os dados serializados do sistema que estão gravados em arquivos de texto.
+     * Esse método inicia o salvamento do sistema em segundo plano e retorna assim que
+     * o estado for capturado, sem esperar a gravação dos arquivos.
+     */
+    public void salvarSistemaEmSegundoPlano() {
+        this.persistenciaController.salvarSistemaEmSegundoPlano();
+    }
+
+    /**
+     * Esse método configura o salvamento automático em segundo plano, iniciado quando
+     * o intervalo desde o último salvamento termina ou quando o diário acumula a
+     * quantidade de operações passada. Valores menores ou iguais a zero desativam o
+     * critério correspondente.
+     *
+     * @param intervaloEmSegundos intervalo máximo entre salvamentos
+     * @param operacoes           quantidade máxima de operações no diário
+     */
+    public void configurarSalvamentoAutomatico(int intervaloEmSegundos, int operacoes) {
+        this.persistenciaController.configurarSalvamentoAutomatico(intervaloEmSegundos, operacoes);
+    }
+
+    /**
+     * Esse método configura a compactação do diário, que salva o sistema em segundo
+     * plano quando as operações ainda não salvas atingem a quantidade ou o tamanho
+     * passados. Valores menores ou iguais a zero desativam o critério correspondente.
+     *
+     * @param operacoes quantidade máxima de operações no diário
+     * @param bytes     tamanho máximo do diário, em bytes
+     */
+    public void configurarCompactacaoDoDiario(int operacoes, long bytes) {
+        this.persistenciaController.configurarCompactacaoDoDiario(operacoes, bytes);
+    }
+
+    /**
+     * Esse método configura a compressão dos blocos gravados nos próximos salvamentos.
+     * O nível 0 desativa a compressão; arquivos gravados com outra configuração
+     * continuam sendo lidos normalmente.
+     *
+     * @param nivel          nível de compressão, de 0 a 9, ou -1 para o padrão do Deflater
+     * @param tamanhoDoBloco tamanho máximo de cada bloco, em bytes
+     */
+    public void configurarCompressao(int nivel, int tamanhoDoBloco) {
+        this.persistenciaController.configurarCompressao(nivel, tamanhoDoBloco);
+    }
+
+    /**
+     * Esse método exporta todas as propostas, com a tramitação completa e os dados do
+     * autor, para um arquivo CSV ou NDJSON. As propostas são escritas a partir de uma
+     * captura do estado atual, sem carregar o arquivo inteiro em memória.
+     *
+     * @param caminho caminho do arquivo a ser criado.
+     * @param formato formato do arquivo: CSV ou NDJSON.
+     * @return quantidade de propostas exportadas.
+     */
+    public String exportarPropostas(String caminho, String formato) {
+        Validador v = new Validador();
+        v.validaString(caminho, "Erro ao exportar propostas: caminho nao pode ser vazio ou nulo");
+        FormatoDeExportacao formatoValidado = v.validaFormato(formato, "Erro ao exportar propostas: formato invalido");
+
+        try (OutputStream saida = new FileOutputStream(caminho)) {
+            return "Exportadas: " + this.persistenciaController.exportarPropostas(saida, formatoValidado).join();
+        } catch (IOException | CompletionException erro) {
+            throw new IllegalArgumentException("Erro ao exportar propostas: arquivo nao pode ser escrito");
+        }
+    }
+
+    /**
+     * Esse método exporta as propostas do ano passado, da mesma forma que
+     * exportarPropostas, sem ler as propostas arquivadas dos demais anos.
+     *
+     * @param caminho caminho do arquivo a ser criado.
+     * @param formato formato do arquivo: CSV ou NDJSON.
+     * @param ano     ano das propostas exportadas.
+     * @return quantidade de propostas exportadas.
+     */
+    public String exportarPropostasDoAno(String caminho, String formato, int ano) {
+        Validador v = new Validador();
+        v.validaString(caminho, "Erro ao exportar propostas: caminho nao pode ser vazio ou nulo");
+        FormatoDeExportacao formatoValidado = v.validaFormato(formato, "Erro ao exportar propostas: formato invalido");
+
+        try (OutputStream saida = new FileOutputStream(caminho)) {
+            return "Exportadas: " + this.persistenciaController.exportarPropostas(saida, formatoValidado, ano).join();
+        } catch (IOException | CompletionException erro) {
+            throw new IllegalArgumentException("Erro ao exportar propostas: arquivo nao pode ser escrito");
+        }
+    }
+
+    /**
+     * Esse método exibe o progresso do salvamento em andamento e a duração do último.
+     *
+     * @return string com as estatísticas dos salvamentos
+     */
+    public String exibirEstatisticasDeSalvamento() {
+        return this.persistenciaController.getEstatisticas().toString();
+    }
+
+    /**
+     * Esse método carrega os dados serializados do sistema que estão gravados em arquivos de texto
+     * e reexecuta as operações registradas no diário desde o último salvamento.
      */
     public void carregarSistema() {
         this.persistenciaController.carregarSistema();
+        this.persistenciaController.reexecutarDiario(this::reexecutarOperacao);
+    }
+
+    /**
+     * Reexecuta uma operação registrada no diário diretamente nos controllers, sem
+     * registrá-la novamente.
+     *
+     * @param registro nome da operação seguido dos seus argumentos.
+     */
+    private void reexecutarOperacao(String[] registro) {
+        switch (registro[0]) {
+            case "cadastrarPessoa":
+                if (registro.length == 5)
+                    this.pessoaController.cadastrarPessoa(registro[1], registro[2], registro[3], registro[4]);
+                else
+                    this.pessoaController.cadastrarPessoa(registro[1], registro[2], registro[3], registro[4], registro[5]);
+                break;
+            case "cadastrarDeputado":
+                this.pessoaController.cadastrarDeputado(registro[1], registro[2]);
+                break;
+            case "cadastrarPartido":
+                this.partidoController.cadastrarPartido(registro[1]);
+                break;
+            case "cadastrarComissao":
+                this.comissaoController.cadastrarComissao(registro[1], registro[2]);
+                break;
+            case "cadastrarPL":
+                this.projetoController.cadastraPL(registro[1], Integer.parseInt(registro[2]), registro[3],
+                        registro[4], registro[5], Boolean.parseBoolean(registro[6]), instanteRegistrado(registro, 7));
+                break;
+            case "cadastrarPLP":
+                this.projetoController.cadastraPLP(registro[1], Integer.parseInt(registro[2]), registro[3],
+                        registro[4], registro[5], registro[6], instanteRegistrado(registro, 7));
+                break;
+            case "cadastrarPEC":
+                this.projetoController.cadastraPEC(registro[1], Integer.parseInt(registro[2]), registro[3],
+                        registro[4], registro[5], registro[6], instanteRegistrado(registro, 7));
+                break;
+            case "votarComissao":
+                this.projetoController.votarComissao(registro[1], registro[2], registro[3],
+                        instanteRegistrado(registro, 4));
+                break;
+            case "votarPlenario":
+                this.projetoController.votarPlenario(registro[1], registro[2], registro[3],
+                        instanteRegistrado(registro, 4));
+                break;
+            case "configurarEstrategiaPropostaRelacionada":
+                this.projetoController.configurarEstrategiaPropostaRelacionada(registro[1], registro[2]);
+                break;
+            default:
+                throw new IllegalArgumentException("Erro ao carregar sistema: operacao desconhecida");
+        }
+    }
+
+    /**
+     * Retorna o instante registrado no diário junto com uma operação que altera a
+     * tramitação. Operações registradas antes do histórico da tramitação não possuem
+     * o instante e ficam com o instante da reexecução.
+     *
+     * @param registro nome da operação seguido dos seus argumentos.
+     * @param posicao  posição do instante no registro.
+     * @return instante da operação, em milissegundos desde a época.
+     */
+    private static long instanteRegistrado(String[] registro, int posicao) {
+        return registro.length > posicao ? Long.parseLong(registro[posicao]) : System.currentTimeMillis();
     }
 
     /**
@@ -113,7 +302,10 @@ public class EcoFacade {
      * @param interesses interesses da pessoa.
      */
     public void cadastrarPessoa(String nome, String dni, String estado, String interesses) {
+        OperacaoCodificada operacao = this.persistenciaController.codificarOperacao("cadastrarPessoa", nome, dni,
+                estado, interesses);
         this.pessoaController.cadastrarPessoa(nome, dni, estado, interesses);
+        this.persistenciaController.registrarOperacao(operacao);
     }
 
     /**
@@ -127,7 +319,10 @@ public class EcoFacade {
      * @param partido    partido da pessoa.
      */
     public void cadastrarPessoa(String nome, String dni, String estado, String interesses, String partido) {
+        OperacaoCodificada operacao = this.persistenciaController.codificarOperacao("cadastrarPessoa", nome, dni,
+                estado, interesses, partido);
         this.pessoaController.cadastrarPessoa(nome, dni, estado, interesses, partido);
+        this.persistenciaController.registrarOperacao(operacao);
     }
 
     /**
@@ -137,7 +332,87 @@ public class EcoFacade {
      * @param dataDeInicio a data de início do cargo da pessoa.
      */
     public void cadastrarDeputado(String dni, String dataDeInicio) {
+        OperacaoCodificada operacao = this.persistenciaController.codificarOperacao("cadastrarDeputado", dni,
+                dataDeInicio);
         this.pessoaController.cadastrarDeputado(dni, dataDeInicio);
+        this.persistenciaController.registrarOperacao(operacao);
+    }
+
+    /**
+     * Importa as pessoas de um arquivo CSV ou NDJSON, com as colunas nome, dni, estado,
+     * interesses e, opcionalmente, partido e dataDeInicio. As pessoas com data de
+     * início também são cadastradas como deputado. O arquivo é lido e validado em
+     * lotes, e as linhas inválidas são ignoradas e relatadas com a mesma mensagem do
+     * cadastro individual.
+     *
+     * @param caminho caminho do arquivo.
+     * @return quantidade de pessoas importadas e de erros, seguida do erro de cada linha rejeitada.
+     */
+    public String importarPessoas(String caminho) {
+        return this.importar(caminho, "Erro ao importar pessoas", this.pessoaController::importarPessoas,
+                (registro, operacoes) -> {
+                    operacoes.add(new String[]{"cadastrarPessoa", registro.get("nome"), registro.get("dni"),
+                            registro.get("estado"), registro.get("interesses"), registro.get("partido", "")});
+                    String dataDeInicio = registro.get("dataDeInicio", "");
+                    if (!dataDeInicio.trim().isEmpty())
+                        operacoes.add(new String[]{"cadastrarDeputado", registro.get("dni"), dataDeInicio});
+                });
+    }
+
+    /**
+     * Importa deputados de um arquivo CSV ou NDJSON, com as colunas dni e dataDeInicio
+     * de pessoas já cadastradas. As linhas inválidas são ignoradas e relatadas com a
+     * mesma mensagem do cadastro individual.
+     *
+     * @param caminho caminho do arquivo.
+     * @return quantidade de deputados importados e de erros, seguida do erro de cada linha rejeitada.
+     */
+    public String importarDeputados(String caminho) {
+        return this.importar(caminho, "Erro ao importar deputados", this.pessoaController::importarDeputados,
+                (registro, operacoes) -> operacoes.add(new String[]{"cadastrarDeputado", registro.get("dni"),
+                        registro.get("dataDeInicio")}));
+    }
+
+    /**
+     * Importa partidos de um arquivo CSV ou NDJSON, com a coluna nome. As linhas
+     * inválidas são ignoradas e relatadas com a mesma mensagem do cadastro individual.
+     *
+     * @param caminho caminho do arquivo.
+     * @return quantidade de partidos importados e de erros, seguida do erro de cada linha rejeitada.
+     */
+    public String importarPartidos(String caminho) {
+        return this.importar(caminho, "Erro ao importar partidos", this.partidoController::importarPartidos,
+                (registro, operacoes) -> operacoes.add(new String[]{"cadastrarPartido", registro.get("nome")}));
+    }
+
+    /**
+     * Lê o arquivo em lotes, cadastra cada lote com o importador passado e registra no
+     * diário, com uma única gravação por lote, as operações equivalentes aos cadastros
+     * realizados.
+     *
+     * @param caminho    caminho do arquivo.
+     * @param erro       início das mensagens de erro da importação.
+     * @param importador cadastra um lote e retorna os registros cadastrados.
+     * @param operacoes  acrescenta à lista as operações equivalentes a um registro cadastrado.
+     * @return resultado da importação em forma de String.
+     */
+    private String importar(String caminho, String erro,
+                            BiFunction<List<Registro>, ResultadoDaImportacao, List<Registro>> importador,
+                            BiConsumer<Registro, List<String[]>> operacoes) {
+        new Validador().validaString(caminho, erro + ": caminho nao pode ser vazio ou nulo");
+        ResultadoDaImportacao resultado = new ResultadoDaImportacao();
+
+        try {
+            new LeitorDeRegistros().percorre(new File(caminho), LeitorDeRegistros.TAMANHO_DO_LOTE, lote -> {
+                List<String[]> registradas = new ArrayList<>();
+                for (Registro registro : importador.apply(lote, resultado))
+                    operacoes.accept(registro, registradas);
+                this.persistenciaController.registrarOperacoes(registradas);
+            });
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException(erro + ": arquivo nao pode ser lido");
+        }
+        return resultado.toString();
     }
 
     /**
@@ -160,7 +435,9 @@ public class EcoFacade {
      * @param partido nome do partido a ser cadastrado.
      */
     public void cadastrarPartido(String partido) {
+        OperacaoCodificada operacao = this.persistenciaController.codificarOperacao("cadastrarPartido", partido);
         this.partidoController.cadastrarPartido(partido);
+        this.persistenciaController.registrarOperacao(operacao);
     }
 
     /**
@@ -180,7 +457,10 @@ public class EcoFacade {
      *                  que participarão da comissão.
      */
     public void cadastrarComissao(String tema, String politicos) {
+        OperacaoCodificada operacao = this.persistenciaController.codificarOperacao("cadastrarComissao", tema,
+                politicos);
         this.comissaoController.cadastrarComissao(tema, politicos);
+        this.persistenciaController.registrarOperacao(operacao);
     }
 
     /**
@@ -201,7 +481,12 @@ public class EcoFacade {
      * @return String contendo o código da PL cadastrada
      */
     public String cadastrarPL(String dni, int ano, String ementa, String interesses, String url, boolean conclusivo) {
-        return this.projetoController.cadastraPL(dni, ano, ementa, interesses, url, conclusivo);
+        long instante = System.currentTimeMillis();
+        OperacaoCodificada operacao = this.persistenciaController.codificarOperacao("cadastrarPL", dni,
+                String.valueOf(ano), ementa, interesses, url, String.valueOf(conclusivo), String.valueOf(instante));
+        String codigo = this.projetoController.cadastraPL(dni, ano, ementa, interesses, url, conclusivo, instante);
+        this.persistenciaController.registrarOperacao(operacao);
+        return codigo;
     }
 
     /**
@@ -222,7 +507,12 @@ public class EcoFacade {
      * @return String contendo o código da PLP cadastrada
      */
     public String cadastrarPLP(String dni, int ano, String ementa, String interesses, String url, String artigos) {
-        return this.projetoController.cadastraPLP(dni, ano, ementa, interesses, url, artigos);
+        long instante = System.currentTimeMillis();
+        OperacaoCodificada operacao = this.persistenciaController.codificarOperacao("cadastrarPLP", dni,
+                String.valueOf(ano), ementa, interesses, url, artigos, String.valueOf(instante));
+        String codigo = this.projetoController.cadastraPLP(dni, ano, ementa, interesses, url, artigos, instante);
+        this.persistenciaController.registrarOperacao(operacao);
+        return codigo;
     }
 
     /**
@@ -243,7 +533,12 @@ public class EcoFacade {
      * @return String contendo o código da PEC cadastrada
      */
     public String cadastrarPEC(String dni, int ano, String ementa, String interesses, String url, String artigos) {
-        return this.projetoController.cadastraPEC(dni, ano, ementa, interesses, url, artigos);
+        long instante = System.currentTimeMillis();
+        OperacaoCodificada operacao = this.persistenciaController.codificarOperacao("cadastrarPEC", dni,
+                String.valueOf(ano), ementa, interesses, url, artigos, String.valueOf(instante));
+        String codigo = this.projetoController.cadastraPEC(dni, ano, ementa, interesses, url, artigos, instante);
+        this.persistenciaController.registrarOperacao(operacao);
+        return codigo;
     }
 
     /**
@@ -270,7 +565,12 @@ public class EcoFacade {
      * @return true para uma votação aprovada pela comissão, false caso contrario
      */
     public boolean votarComissao(String codigo, String statusGovernista, String proximoLocal) {
-        return this.projetoController.votarComissao(codigo, statusGovernista, proximoLocal);
+        long instante = System.currentTimeMillis();
+        OperacaoCodificada operacao = this.persistenciaController.codificarOperacao("votarComissao", codigo,
+                statusGovernista, proximoLocal, String.valueOf(instante));
+        boolean aprovada = this.projetoController.votarComissao(codigo, statusGovernista, proximoLocal, instante);
+        this.persistenciaController.registrarOperacao(operacao);
+        return aprovada;
     }
 
     /**
@@ -283,7 +583,12 @@ public class EcoFacade {
      * @return true para uma proposta aprovada pelo plenário, false caso contrário
      */
     public boolean votarPlenario(String codigo, String statusGovernista, String presentes) {
-        return this.projetoController.votarPlenario(codigo, statusGovernista, presentes);
+        long instante = System.currentTimeMillis();
+        OperacaoCodificada operacao = this.persistenciaController.codificarOperacao("votarPlenario", codigo,
+                statusGovernista, presentes, String.valueOf(instante));
+        boolean aprovada = this.projetoController.votarPlenario(codigo, statusGovernista, presentes, instante);
+        this.persistenciaController.registrarOperacao(operacao);
+        return aprovada;
     }
 
     /**
@@ -299,6 +604,32 @@ public class EcoFacade {
         return this.projetoController.exibirTramitacao(codigo);
     }
 
+    /**
+     * Retorna a situação e o local de votação de uma proposta ao final da data passada,
+     * no formato "SITUACAO (Local)". Lança IllegalArgumentException caso a proposta
+     * ainda não tivesse tramitação registrada na data.
+     *
+     * @param codigo código da proposta
+     * @param data   data no formato ddMMyyyy
+     * @return String contendo a situação e o local da proposta na data
+     */
+    public String exibirTramitacaoEm(String codigo, String data) {
+        return this.projetoController.exibirTramitacaoEm(codigo, data);
+    }
+
+    /**
+     * Retorna as propostas que estavam em um local de votação ao final da data passada,
+     * com a situação de cada uma naquele momento, no formato "codigo - SITUACAO" e
+     * separadas por " | ", em ordem de cadastro.
+     *
+     * @param local local de votação
+     * @param data  data no formato ddMMyyyy
+     * @return String contendo as propostas no local na data
+     */
+    public String listarPropostasEm(String local, String data) {
+        return this.projetoController.listarPropostasEm(local, data);
+    }
+
     /**
      * Retorna o código da proposta mais relacionada a pessoa do dni, com base
      * no número de interesses em comum com a proposta. Caso não haja interesses
@@ -316,6 +647,21 @@ public class EcoFacade {
         return this.projetoController.getPropostaRelacionada(dni);
     }
 
+    /**
+     * Retorna os códigos das propostas em votação mais relacionadas a pessoa do dni,
+     * separados por vírgula e da mais relacionada para a menos relacionada. Os critérios
+     * de ordenação são os mesmos de pegarPropostaRelacionada. Caso não haja interesses
+     * em comum, uma String vazia é retornada. Lança IllegalArgumentException e
+     * NullPointerException para entradas inválidas ou nulas, respectivamente.
+     *
+     * @param dni        dni da pessoa a qual se quer buscar as propostas relacionadas
+     * @param quantidade número máximo de propostas a serem retornadas
+     * @return códigos das propostas mais relacionadas separados por vírgula
+     */
+    public String pegarPropostasRelacionadas(String dni, int quantidade) {
+        return this.projetoController.getPropostasRelacionadas(dni, quantidade);
+    }
+
     /**
      * Redefine a estratégia de desempate da busca por uma proposta mais relacionada, com
      * base no dni da pessoa e na estratégia nova a ser sobreposta a antiga. Essa estratégia
@@ -327,6 +673,9 @@ public class EcoFacade {
      * @param estrategia nova estratégia a ser redefinida
      */
     public void configurarEstrategiaPropostaRelacionada(String dni, String estrategia) {
+        OperacaoCodificada operacao = this.persistenciaController.codificarOperacao(
+                "configurarEstrategiaPropostaRelacionada", dni, estrategia);
         this.projetoController.configurarEstrategiaPropostaRelacionada(dni, estrategia);
+        this.persistenciaController.registrarOperacao(operacao);
     }
 }
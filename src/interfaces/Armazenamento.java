@@ -0,0 +1,60 @@
+package interfaces;
+
+import util.ArquivoSegmentado.Escrita;
+import util.ArquivoSegmentado.Leitura;
+
+import java.io.File;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Essa interface representa a forma como o PersistenciaController guarda as quatro
+ * famílias de entidades. Cada implementação abre o armazenamento de uma família pelo
+ * seu nome, de forma que o sistema possa ser salvo em disco com formatos diferentes,
+ * ou apenas em memória, sem alterar o controller. O diário de operações, o manifesto,
+ * o acervo das propostas encerradas e a imagem dos índices, que não são famílias de
+ * entidades, ficam no diretório do armazenamento.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public interface Armazenamento {
+    /**
+     * Esse método abre o armazenamento de uma família de entidades. A escrita e a
+     * leitura binárias do CodificadorDeEntidades são passadas para as implementações
+     * que as usam; as demais podem ignorá-las.
+     *
+     * @param nome    nome da família
+     * @param chave   função que retorna a chave de uma entidade
+     * @param escrita escrita das entidades no formato binário
+     * @param leitura leitura das entidades no formato binário
+     * @param <T>     tipo das entidades
+     * @return armazenamento da família
+     */
+    <T> ArmazenamentoDeFamilia<T> abre(String nome, Function<T, String> chave, Escrita<T> escrita,
+                                       Leitura<T> leitura);
+
+    /**
+     * Esse método retorna, em ordem alfabética, os nomes das famílias com entidades
+     * guardadas cujo nome começa com o prefixo passado.
+     *
+     * @param prefixo prefixo dos nomes das famílias
+     * @return nomes das famílias guardadas
+     */
+    List<String> listaFamilias(String prefixo);
+
+    /**
+     * Esse método retorna o nome do armazenamento, usado nas comparações entre eles.
+     */
+    String getNome();
+
+    /**
+     * Esse método retorna o diretório em que o PersistenciaController guarda o diário de
+     * operações, o manifesto, o acervo e a imagem dos índices.
+     *
+     * @return diretório dos arquivos que não são famílias de entidades
+     */
+    File getDiretorio();
+}
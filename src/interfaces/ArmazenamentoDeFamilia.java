@@ -0,0 +1,104 @@
+package interfaces;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Essa interface representa o armazenamento de uma família de entidades (pessoas,
+ * comissões, partidos ou propostas) usado pelo PersistenciaController. Cada salvamento
+ * recebe um número crescente: um salvamento incremental acrescenta apenas as entidades
+ * alteradas, e um salvamento completo substitui a família inteira. Na leitura, a versão
+ * de uma entidade gravada por um salvamento mais novo substitui as anteriores.
+ *
+ * @param <T> tipo das entidades guardadas
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public interface ArmazenamentoDeFamilia<T> {
+    /**
+     * Esse método lê as entidades gravadas pelos salvamentos de número até o limite
+     * passado e as retorna indexadas pela chave.
+     *
+     * @param limite maior número de salvamento a ser lido
+     * @return mapa com as entidades lidas
+     * @throws IOException erro de leitura, ou dados truncados ou corrompidos
+     */
+    Map<String, T> carrega(long limite) throws IOException;
+
+    /**
+     * Esse método lê as entidades gravadas pelos salvamentos de número até o limite
+     * passado, passando cada uma ao consumidor assim que é lida. Uma mesma chave pode
+     * ser recebida mais de uma vez, e a versão recebida por último é a mais nova. Caso
+     * a leitura precise recomeçar, o reinício é executado para descartar o que já foi
+     * recebido.
+     *
+     * @param limite     maior número de salvamento a ser lido
+     * @param consumidor consumidor das entidades lidas
+     * @param reinicio   descarta as entidades recebidas antes de a leitura recomeçar
+     * @throws IOException erro de leitura, ou dados truncados ou corrompidos
+     */
+    void carrega(long limite, Consumer<T> consumidor, Runnable reinicio) throws IOException;
+
+    /**
+     * Esse método aplica um salvamento incremental, com as entidades alteradas.
+     *
+     * @param registros entidades alteradas
+     * @param numero    número do salvamento, maior que o de todos os anteriores
+     * @throws IOException erro de escrita
+     */
+    void acrescenta(Collection<T> registros, long numero) throws IOException;
+
+    /**
+     * Esse método aplica um salvamento completo, substituindo a família inteira.
+     *
+     * @param registros todas as entidades da família
+     * @param numero    número do salvamento
+     * @throws IOException erro de escrita
+     */
+    void reescreve(Collection<T> registros, long numero) throws IOException;
+
+    /**
+     * Esse método junta os salvamentos incrementais de número até o limite passado,
+     * para que a leitura não precise percorrê-los um a um.
+     *
+     * @param limite maior número de salvamento a ser juntado
+     * @throws IOException erro de leitura ou escrita
+     */
+    void mescla(long limite) throws IOException;
+
+    /**
+     * Esse método apaga todas as entidades guardadas.
+     *
+     * @throws IOException erro ao apagar os dados
+     */
+    void limpa() throws IOException;
+
+    /**
+     * Esse método retorna o maior número de salvamento guardado.
+     *
+     * @return maior número de salvamento, ou 0 caso não haja nenhum
+     */
+    long getMaiorNumero();
+
+    /**
+     * Esse método retorna a quantidade de salvamentos incrementais ainda não juntados
+     * por {@link #mescla(long)}.
+     *
+     * @return quantidade de salvamentos pendentes de mesclagem
+     */
+    int contaSegmentosPendentes();
+
+    /**
+     * Esse método configura a compressão dos próximos salvamentos. Armazenamentos sem
+     * compressão ignoram a configuração.
+     *
+     * @param nivel          nível de compressão, de 0 a 9, ou -1 para o nível padrão
+     * @param tamanhoDoBloco tamanho dos blocos, em bytes
+     */
+    default void configuraCompressao(int nivel, int tamanhoDoBloco) {
+    }
+}
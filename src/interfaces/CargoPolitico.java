@@ -35,4 +35,9 @@ public interface CargoPolitico {
      * Esse método adiciona uma lei aprovada à uma pessoa que possui um Cargo Político.
      */
     void aumentaLeis();
+
+    /**
+     * Esse método retorna uma cópia independente do cargo, que não é afetada por alterações no original.
+     */
+    CargoPolitico copia();
 }
@@ -1,8 +1,10 @@
 package interfaces;
 
 import entities.Pessoa;
+import enums.EstrategiaBusca;
 import enums.StatusGovernista;
 import enums.TipoProjeto;
+import util.HistoricoDeTramitacao;
 
 import java.util.List;
 
@@ -89,6 +91,16 @@ public interface PropostaLegislativa {
      */
     int getNumCriacaoProjeto();
 
+    /**
+     * Retorna a chave de desempate da proposta para uma estratégia de busca. Uma chave
+     * menor indica uma proposta de maior prioridade. A chave considera o critério da
+     * estratégia, o ano e a ordem de cadastro da proposta.
+     *
+     * @param estrategia estratégia de busca
+     * @return chave de desempate da proposta
+     */
+    long getChaveDeOrdenacao(EstrategiaBusca estrategia);
+
     /**
      * Esse método retorna a representaçao em String de uma proposta legislativa.
      *
@@ -151,4 +163,34 @@ public interface PropostaLegislativa {
      * Esse método exibe toda a tramitação de um projeto.
      */
     String exibirTramitacao();
+
+    /**
+     * Esse método registra no histórico da tramitação, com o instante passado, as
+     * transições feitas desde o último registro.
+     *
+     * @param instante instante da operação, em milissegundos desde a época.
+     */
+    void registraTransicoes(long instante);
+
+    /**
+     * Retorna o histórico da tramitação, com o instante de cada transição.
+     *
+     * @return histórico da tramitação.
+     */
+    HistoricoDeTramitacao getHistorico();
+
+    /**
+     * Retorna o local e a situação da proposta em um instante.
+     *
+     * @param instante instante consultado, em milissegundos desde a época.
+     * @return array com o local e a situação, ou null caso a proposta não tenha
+     * transições registradas até o instante.
+     */
+    String[] getTramitacaoEm(long instante);
+
+    /**
+     * Esse método retorna uma cópia independente da proposta, com a mesma tramitação
+     * e o mesmo número de criação, que não é afetada por votações feitas na original.
+     */
+    PropostaLegislativa copia();
 }
\ No newline at end of file
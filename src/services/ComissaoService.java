@@ -2,6 +2,7 @@ package services;
 
 import controllers.ComissaoController;
 import entities.Comissao;
+import util.RegistroDeAlteracoes;
 
 import java.io.Serializable;
 import java.util.HashSet;
@@ -52,10 +53,7 @@ public class ComissaoService implements Serializable {
      * @return true para a existência da Comissão, false caso contrário
      */
     public boolean containsComissao(String comissaoDesejada) {
-        for (Comissao comissao : this.getComissoes())
-            if (comissao.getTema().equals(comissaoDesejada))
-                return true;
-        return false;
+        return this.comissoes.getComissao(comissaoDesejada) != null;
     }
 
     /**
@@ -66,10 +64,7 @@ public class ComissaoService implements Serializable {
      * @return objeto Comissão com o tema passado como parâmetro, null para quando não existir Comissão com tal tema
      */
     public Comissao getComissao(String comissaoDesejada) {
-        for (Comissao comissao : this.getComissoes())
-            if (comissao.getTema().equals(comissaoDesejada))
-                return comissao;
-        return null;
+        return this.comissoes.getComissao(comissaoDesejada);
     }
 
     /**
@@ -81,4 +76,13 @@ public class ComissaoService implements Serializable {
     public void setComissoes(Map<String, Comissao> mapaComissoes) {
         this.comissoes.setComissoes(mapaComissoes);
     }
-}
\ No newline at end of file
+
+    /**
+     * Retorna o registro das comissões cadastradas ou alteradas desde o último salvamento.
+     *
+     * @return registro de alterações das comissões
+     */
+    public RegistroDeAlteracoes getAlteracoes() {
+        return this.comissoes.getAlteracoes();
+    }
+}
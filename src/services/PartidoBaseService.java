@@ -2,6 +2,7 @@ package services;
 
 import controllers.PartidoBaseController;
 import entities.Partido;
+import util.RegistroDeAlteracoes;
 
 import java.io.Serializable;
 import java.util.HashSet;
@@ -54,10 +55,17 @@ public class PartidoBaseService implements Serializable {
      * @return true para quando o partido consultado for da base, false caso contrário
      */
     public boolean containsPartido(String partidoDesejado) {
-        for (Partido partido : getPartidos())
-            if (partido.getNome().equals(partidoDesejado))
-                return true;
-        return false;
+        return this.partidos.getPartido(partidoDesejado) != null;
+    }
+
+    /**
+     * Retorna o partido com o nome passado, ou null caso não exista.
+     *
+     * @param nome nome do partido
+     * @return partido com o nome passado
+     */
+    public Partido getPartido(String nome) {
+        return this.partidos.getPartido(nome);
     }
 
     /**
@@ -69,4 +77,13 @@ public class PartidoBaseService implements Serializable {
     public void setPartidos(Map<String, Partido> mapaPartidos) {
         this.partidos.setPartidos(mapaPartidos);
     }
+
+    /**
+     * Retorna o registro dos partidos cadastrados ou alterados desde o último salvamento.
+     *
+     * @return registro de alterações dos partidos
+     */
+    public RegistroDeAlteracoes getAlteracoes() {
+        return this.partidos.getAlteracoes();
+    }
 }
@@ -2,11 +2,13 @@ package services;
 
 import controllers.PessoaController;
 import entities.Pessoa;
-import enums.CargosPoliticos;
+import util.RegistroDeAlteracoes;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Classe que segue o padrão Service e é responsável por retornar as informações
@@ -47,6 +49,16 @@ public class PessoaService implements Serializable {
         return new HashSet<>(this.pessoas.getPessoas());
     }
 
+    /**
+     * Retorna uma visão somente leitura das Pessoas cadastradas no sistema, sem
+     * realizar cópias.
+     *
+     * @return Collection somente leitura de Pessoa
+     */
+    public Collection<Pessoa> getVisaoPessoas() {
+        return this.pessoas.getVisaoPessoas();
+    }
+
     /**
      * Retorna booleano sobre o fato de uma Pessoa estar ou não cadastrada no
      * sistema.
@@ -55,10 +67,7 @@ public class PessoaService implements Serializable {
      * @return true para uma pessoa cadastrada, false caso contrário.
      */
     public boolean ehPessoaCadastrada(String dni) {
-        for (Pessoa pessoa : getPessoas())
-            if (pessoa.getDni().equals(dni))
-                return true;
-        return false;
+        return this.pessoas.contemPessoa(dni);
     }
 
     /**
@@ -69,10 +78,7 @@ public class PessoaService implements Serializable {
      * contrário
      */
     public Pessoa getPessoaPeloDni(String dni) {
-        for (Pessoa pessoa : getPessoas())
-            if (pessoa.getDni().equals(dni))
-                return pessoa;
-        return null;
+        return this.pessoas.getPessoa(dni);
     }
 
     /**
@@ -84,7 +90,7 @@ public class PessoaService implements Serializable {
      * Deputado, false caso contrário
      */
     public boolean ehDeputado(String dni) {
-        return ehPessoaCadastrada(dni) && CargosPoliticos.DEPUTADO.equals(getPessoaPeloDni(dni).getCargoPolitico());
+        return this.pessoas.ehDeputado(dni);
     }
 
     /**
@@ -93,13 +99,7 @@ public class PessoaService implements Serializable {
      * @return número de deputados cadastrados no sistema
      */
     public int contaDeputados() {
-        int qntDeputados = 0;
-
-        for (Pessoa pessoa : this.getPessoas())
-            if (this.ehDeputado(pessoa.getDni()))
-                qntDeputados++;
-
-        return qntDeputados;
+        return this.pessoas.contaDeputados();
     }
 
     /**
@@ -111,4 +111,33 @@ public class PessoaService implements Serializable {
     public void setPessoas(Map<String, Pessoa> mapaPessoas) {
         this.pessoas.setPessoas(mapaPessoas);
     }
-}
\ No newline at end of file
+
+    /**
+     * Esse método serve para carregar do arquivo de pessoas
+     * o mapa de pessoas junto com o índice de deputados.
+     *
+     * @param mapaPessoas   mapa de pessoas
+     * @param dnisDeputados dnis dos deputados do mapa
+     */
+    public void setPessoas(Map<String, Pessoa> mapaPessoas, Set<String> dnisDeputados) {
+        this.pessoas.setPessoas(mapaPessoas, dnisDeputados);
+    }
+
+    /**
+     * Retorna os dnis dos deputados cadastrados.
+     *
+     * @return Set somente leitura com os dnis dos deputados
+     */
+    public Set<String> getDeputados() {
+        return this.pessoas.getDeputados();
+    }
+
+    /**
+     * Retorna o registro das pessoas cadastradas ou alteradas desde o último salvamento.
+     *
+     * @return registro de alterações das pessoas
+     */
+    public RegistroDeAlteracoes getAlteracoes() {
+        return this.pessoas.getAlteracoes();
+    }
+}
@@ -2,7 +2,11 @@ package services;
 
 import controllers.ProjetoController;
 import interfaces.PropostaLegislativa;
+import util.AcervoDePropostas;
+import util.Buscador;
+import util.RegistroDeAlteracoes;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
 
@@ -77,4 +81,58 @@ public class ProjetoService {
     public void setPropostas(Map<String, PropostaLegislativa> mapaPropostas) {
         this.projetoController.setPropostas(mapaPropostas);
     }
+
+    /**
+     * Esse método serve para carregar do arquivo de propostas
+     * o mapa das propostas em votação e o acervo das propostas
+     * com tramitação encerrada, junto com o buscador já indexado
+     * sobre as propostas do mapa.
+     *
+     * @param mapaPropostas    mapa de propostas
+     * @param acervo           acervo com as propostas que não estão no mapa
+     * @param buscadorIndexado buscador construído sobre as propostas do mapa
+     */
+    public void setPropostas(Map<String, PropostaLegislativa> mapaPropostas, AcervoDePropostas acervo,
+                             Buscador buscadorIndexado) {
+        this.projetoController.setPropostas(mapaPropostas, acervo, buscadorIndexado);
+    }
+
+    /**
+     * Esse método serve para retornar as propostas mantidas
+     * em memória, sem as do acervo.
+     *
+     * @return coleção das propostas em memória
+     */
+    public Collection<PropostaLegislativa> getPropostasEmMemoria() {
+        return this.projetoController.getPropostasEmMemoria();
+    }
+
+    /**
+     * Esse método serve para retornar o acervo das propostas
+     * com tramitação encerrada que não estão em memória.
+     *
+     * @return acervo de propostas
+     */
+    public AcervoDePropostas getAcervo() {
+        return this.projetoController.getAcervo();
+    }
+
+    /**
+     * Retorna a proposta com o código passado, ou null caso não exista.
+     *
+     * @param codigo código da proposta
+     * @return proposta com o código passado
+     */
+    public PropostaLegislativa getProposta(String codigo) {
+        return this.projetoController.getProposta(codigo);
+    }
+
+    /**
+     * Retorna o registro das propostas cadastradas ou votadas desde o último salvamento.
+     *
+     * @return registro de alterações das propostas
+     */
+    public RegistroDeAlteracoes getAlteracoes() {
+        return this.projetoController.getAlteracoes();
+    }
 }
@@ -0,0 +1,1067 @@
+package util;
+
+import enums.SituacaoVotacao;
+import enums.TipoProjeto;
+import interfaces.PropostaLegislativa;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Classe que guarda as propostas cuja tramitação foi encerrada em um arquivo mapeado
+ * em memória. Cada proposta é gravada como um registro independente e só é decodificada
+ * quando é acessada, por exemplo para exibir o projeto ou a sua tramitação. Os campos
+ * consultados nas votações e buscas (código, tipo, ano, local de votação atual e
+ * situação, além do instante da primeira e da última transição da tramitação) ficam
+ * em arrays compactos na memória, com os códigos no formato
+ * "TIPO numero/ano" guardados como números em uma tabela de espalhamento, de forma
+ * que o acervo ocupa algumas dezenas de bytes por proposta independentemente do
+ * tamanho da sua tramitação.
+ * <p>
+ * O arquivo é criado no diretório informado assim que a primeira proposta é acrescentada
+ * e apagado quando o acervo é fechado. Os registros nunca são alterados: uma proposta
+ * acrescentada novamente ganha um novo registro, e uma proposta removida apenas deixa de
+ * ser encontrada.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class AcervoDePropostas implements Closeable {
+
+    /**
+     * Tamanho de cada região mapeada do arquivo. Nenhum registro atravessa o limite entre duas regiões.
+     */
+    private static final long TAMANHO_DA_REGIAO = 1L << 30;
+
+    /**
+     * Prefixo do nome dos arquivos de acervo.
+     */
+    private static final String PREFIXO = "propostas";
+
+    /**
+     * Extensão dos arquivos de acervo.
+     */
+    private static final String EXTENSAO = ".acervo";
+
+    /**
+     * Capacidade inicial dos arrays de campos.
+     */
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    /**
+     * Tamanho do buffer usado para decodificar um único registro.
+     */
+    private static final int TAMANHO_DO_BUFFER_DE_LEITURA = 512;
+
+    /**
+     * Tamanho, em bytes, da entrada de cada registro gravada por {@link #copiaEntradas(int, int, ByteBuffer)}.
+     */
+    static final int TAMANHO_DA_ENTRADA = 44;
+
+    /**
+     * Diretório em que o arquivo do acervo é criado.
+     */
+    private final File diretorio;
+
+    /**
+     * Codificador usado para gravar e ler os registros.
+     */
+    private final CodificadorDeEntidades codificador;
+
+    /**
+     * Arquivo do acervo, ou null caso nenhuma proposta tenha sido acrescentada.
+     */
+    private File arquivo;
+
+    /**
+     * Canal do arquivo do acervo.
+     */
+    private FileChannel canal;
+
+    /**
+     * Fluxo de saída que acrescenta registros ao final do arquivo.
+     */
+    private OutputStream saida;
+
+    /**
+     * Bytes do registro sendo gravado.
+     */
+    private final ByteArrayOutputStream registro;
+
+    /**
+     * Escritor do registro sendo gravado, com o dicionário reiniciado a cada registro.
+     */
+    private final EscritorBinario escritor;
+
+    /**
+     * Tamanho do arquivo, incluindo os bytes ainda não descarregados.
+     */
+    private long tamanho;
+
+    /**
+     * Regiões já mapeadas do arquivo.
+     */
+    private MappedByteBuffer[] regioes;
+
+    /**
+     * Quantidade de registros gravados, incluindo os removidos.
+     */
+    private int quantidade;
+
+    /**
+     * Quantidade de registros removidos.
+     */
+    private int quantidadeDeRemovidos;
+
+    /**
+     * Posição de cada registro no arquivo.
+     */
+    private long[] posicoes;
+
+    /**
+     * Tipo de cada proposta, pela posição da constante em TipoProjeto.
+     */
+    private byte[] tipos;
+
+    /**
+     * Ano de cada proposta.
+     */
+    private short[] anos;
+
+    /**
+     * Situação de cada proposta, pela posição da constante em SituacaoVotacao.
+     */
+    private byte[] situacoes;
+
+    /**
+     * Local de votação atual de cada proposta, pela posição em nomesDosLocais.
+     */
+    private int[] locais;
+
+    /**
+     * Interesses de cada proposta, pela posição em nomesDosInteresses.
+     */
+    private int[] interesses;
+
+    /**
+     * Instante da primeira transição de cada proposta, ou Long.MAX_VALUE caso a proposta
+     * não tenha histórico.
+     */
+    private long[] inicios;
+
+    /**
+     * Instante da última transição de cada proposta, a partir do qual o local e a
+     * situação guardados na memória valem.
+     */
+    private long[] encerramentos;
+
+    /**
+     * Chave numérica do código de cada registro, ou 0 caso o código não siga o formato.
+     */
+    private long[] codigos;
+
+    /**
+     * Registros removidos ou substituídos por um registro mais novo.
+     */
+    private BitSet removidos;
+
+    /**
+     * Nomes dos locais de votação, na ordem em que apareceram.
+     */
+    private final List<String> nomesDosLocais;
+
+    /**
+     * Posição de cada local de votação em nomesDosLocais.
+     */
+    private final Map<String, Integer> indicesDosLocais;
+
+    /**
+     * Conjuntos de interesses das propostas, separados por vírgula, na ordem em que
+     * apareceram.
+     */
+    private final List<String> nomesDosInteresses;
+
+    /**
+     * Posição de cada conjunto de interesses em nomesDosInteresses.
+     */
+    private final Map<String, Integer> indicesDosInteresses;
+
+    /**
+     * Posição do registro de cada código que não segue o formato "TIPO numero/ano".
+     */
+    private final Map<String, Integer> registrosIrregulares;
+
+    /**
+     * Tabela de espalhamento com as chaves numéricas dos códigos, com sondagem linear.
+     */
+    private long[] chaves;
+
+    /**
+     * Posição do registro de cada chave da tabela.
+     */
+    private int[] registros;
+
+    /**
+     * Quantidade de chaves na tabela.
+     */
+    private int chavesOcupadas;
+
+    /**
+     * Constrói um acervo vazio, que cria o seu arquivo no diretório passado.
+     *
+     * @param diretorio   diretório do arquivo do acervo
+     * @param codificador codificador dos registros
+     */
+    public AcervoDePropostas(File diretorio, CodificadorDeEntidades codificador) {
+        this.diretorio = diretorio;
+        this.codificador = codificador;
+        this.registro = new ByteArrayOutputStream();
+        this.escritor = new EscritorBinario(this.registro);
+        this.nomesDosLocais = new ArrayList<>();
+        this.indicesDosLocais = new HashMap<>();
+        this.nomesDosInteresses = new ArrayList<>();
+        this.indicesDosInteresses = new HashMap<>();
+        this.registrosIrregulares = new HashMap<>();
+        this.inicializa();
+    }
+
+    /**
+     * Retorna se a tramitação de uma proposta foi encerrada, ou seja, se a proposta
+     * pode ser guardada no acervo.
+     *
+     * @param proposta proposta legislativa
+     * @return true caso a proposta não esteja "EM VOTACAO"
+     */
+    public static boolean estaEncerrada(PropostaLegislativa proposta) {
+        return !"EM VOTACAO".equals(proposta.getSituacaoAtual());
+    }
+
+    /**
+     * Não possui retorno. Apaga os arquivos de acervo deixados no diretório por execuções
+     * interrompidas. Um acervo ainda aberto continua lendo o seu arquivo apagado nos
+     * sistemas que permitem apagar arquivos em uso.
+     *
+     * @param diretorio diretório dos arquivos de acervo
+     */
+    public static void apagaArquivosAntigos(File diretorio) {
+        File[] antigos = diretorio.listFiles((pasta, nome) -> nome.startsWith(PREFIXO) && nome.endsWith(EXTENSAO));
+        if (antigos == null)
+            return;
+        for (File antigo : antigos)
+            antigo.delete();
+    }
+
+    /**
+     * Não possui retorno. Grava uma proposta no final do arquivo e guarda os seus campos
+     * na memória. Caso a proposta já esteja no acervo, o registro anterior é substituído.
+     *
+     * @param proposta proposta com a tramitação encerrada
+     * @throws IOException erro de escrita
+     */
+    public synchronized void acrescenta(PropostaLegislativa proposta) throws IOException {
+        this.registro.reset();
+        this.escritor.reiniciaDicionario();
+        this.codificador.escreveProposta(this.escritor, proposta);
+        this.escritor.descarrega();
+
+        int tamanhoDoRegistro = this.registro.size();
+        if (tamanhoDoRegistro > TAMANHO_DA_REGIAO)
+            throw new IOException("registro maior que a regiao mapeada");
+        if (this.saida == null)
+            this.abre();
+
+        long ocupado = this.tamanho % TAMANHO_DA_REGIAO;
+        if (ocupado + tamanhoDoRegistro > TAMANHO_DA_REGIAO) {
+            for (long i = ocupado; i < TAMANHO_DA_REGIAO; i++)
+                this.saida.write(0);
+            this.tamanho += TAMANHO_DA_REGIAO - ocupado;
+        }
+        long posicao = this.tamanho;
+        this.registro.writeTo(this.saida);
+        this.tamanho += tamanhoDoRegistro;
+
+        String codigo = proposta.getCodigo();
+        int anterior = this.busca(codigo);
+        if (anterior >= 0)
+            this.marcaRemovido(anterior);
+
+        this.garanteCapacidade();
+        int indice = this.quantidade++;
+        this.posicoes[indice] = posicao;
+        this.tipos[indice] = (byte) proposta.getTipoDoProjeto().ordinal();
+        this.anos[indice] = (short) proposta.getAno();
+        this.situacoes[indice] = (byte) SituacaoVotacao.valueOf(proposta.getSituacaoAtual().replace(" ", "_")).ordinal();
+        this.locais[indice] = posicaoDoNome(this.nomesDosLocais, this.indicesDosLocais, proposta.getLocalDeVotacao());
+        this.interesses[indice] = posicaoDoNome(this.nomesDosInteresses, this.indicesDosInteresses,
+                proposta.getInteresses());
+        HistoricoDeTramitacao historico = proposta.getHistorico();
+        int transicoes = historico.getQuantidade();
+        this.inicios[indice] = (transicoes == 0) ? Long.MAX_VALUE : historico.getInstante(0);
+        this.encerramentos[indice] = (transicoes == 0) ? Long.MAX_VALUE : historico.getInstante(transicoes - 1);
+
+        long chave = chaveDoCodigo(codigo);
+        this.codigos[indice] = chave;
+        if (chave != 0)
+            this.insereChave(chave, indice);
+        else
+            this.registrosIrregulares.put(codigo, indice);
+    }
+
+    /**
+     * Remove uma proposta do acervo, que deixa de ser encontrada pelo seu código.
+     *
+     * @param codigo código da proposta
+     * @return true caso a proposta estivesse no acervo
+     */
+    public synchronized boolean remove(String codigo) {
+        int indice = this.busca(codigo);
+        if (indice < 0)
+            return false;
+        this.marcaRemovido(indice);
+        return true;
+    }
+
+    /**
+     * Retorna se uma proposta está no acervo.
+     *
+     * @param codigo código da proposta
+     * @return true caso a proposta esteja no acervo
+     */
+    public synchronized boolean contem(String codigo) {
+        return this.busca(codigo) >= 0;
+    }
+
+    /**
+     * Retorna a proposta com o código passado, decodificada a partir do arquivo mapeado.
+     * Cada chamada retorna um novo objeto, que pode ser alterado sem afetar o acervo.
+     *
+     * @param codigo código da proposta
+     * @return proposta decodificada, ou null caso não esteja no acervo
+     * @throws UncheckedIOException caso o registro não possa ser lido
+     */
+    public synchronized PropostaLegislativa materializa(String codigo) {
+        int indice = this.busca(codigo);
+        return (indice < 0) ? null : this.le(indice);
+    }
+
+    /**
+     * Retorna o local de votação atual de uma proposta do acervo, sem decodificá-la.
+     *
+     * @param codigo código da proposta
+     * @return local de votação atual, ou null caso a proposta não esteja no acervo
+     */
+    public synchronized String getLocalDeVotacao(String codigo) {
+        int indice = this.busca(codigo);
+        return (indice < 0) ? null : this.nomesDosLocais.get(this.locais[indice]);
+    }
+
+    /**
+     * Retorna a situação atual de uma proposta do acervo, no mesmo formato de
+     * PropostaLegislativa.getSituacaoAtual, sem decodificá-la.
+     *
+     * @param codigo código da proposta
+     * @return situação atual, ou null caso a proposta não esteja no acervo
+     */
+    public synchronized String getSituacaoAtual(String codigo) {
+        int indice = this.busca(codigo);
+        return (indice < 0) ? null : SituacaoVotacao.values()[this.situacoes[indice]].toString().replace("_", " ");
+    }
+
+    /**
+     * Retorna a quantidade de propostas no acervo.
+     *
+     * @return quantidade de propostas
+     */
+    public synchronized int getQuantidade() {
+        return this.quantidade - this.quantidadeDeRemovidos;
+    }
+
+    /**
+     * Retorna, para cada conjunto de interesses, a quantidade de propostas do acervo
+     * que o possuem, sem decodificá-las.
+     *
+     * @return quantidade de propostas por conjunto de interesses, separados por vírgula
+     */
+    public synchronized Map<String, Integer> contaInteresses() {
+        Map<String, Integer> quantidades = new HashMap<>();
+        for (int i = 0; i < this.quantidade; i++)
+            if (!this.removidos.get(i))
+                quantidades.merge(this.nomesDosInteresses.get(this.interesses[i]), 1, Integer::sum);
+        return quantidades;
+    }
+
+    /**
+     * Retorna o tamanho do arquivo do acervo.
+     *
+     * @return tamanho do arquivo em bytes
+     */
+    public synchronized long getTamanhoDoArquivo() {
+        return this.tamanho;
+    }
+
+    /**
+     * Não possui retorno. Passa ao consumidor o tipo e o ano de cada proposta do acervo,
+     * sem decodificá-las.
+     *
+     * @param consumidor consumidor do tipo e do ano de cada proposta
+     */
+    public synchronized void percorreNumeracao(ObjIntConsumer<TipoProjeto> consumidor) {
+        TipoProjeto[] valores = TipoProjeto.values();
+        for (int i = 0; i < this.quantidade; i++)
+            if (!this.removidos.get(i))
+                consumidor.accept(valores[this.tipos[i]], this.anos[i]);
+    }
+
+    /**
+     * Retorna as propostas que estão no acervo neste momento. As propostas são
+     * decodificadas uma a uma enquanto a coleção é percorrida, sem que todas fiquem
+     * na memória ao mesmo tempo, e propostas acrescentadas ou removidas depois da
+     * chamada não afetam a coleção.
+     *
+     * @return coleção das propostas do acervo
+     */
+    public synchronized Collection<PropostaLegislativa> getPropostas() {
+        return this.getPropostas((BitSet) this.removidos.clone());
+    }
+
+    /**
+     * Retorna as propostas do ano passado que estão no acervo neste momento. Os
+     * registros dos demais anos são ignorados sem serem decodificados, e as propostas
+     * do ano são decodificadas uma a uma enquanto a coleção é percorrida.
+     *
+     * @param ano ano das propostas
+     * @return coleção das propostas do ano no acervo
+     */
+    public synchronized Collection<PropostaLegislativa> getPropostas(int ano) {
+        BitSet ignorados = (BitSet) this.removidos.clone();
+        for (int i = 0; i < this.quantidade; i++)
+            if (this.anos[i] != ano)
+                ignorados.set(i);
+        return this.getPropostas(ignorados);
+    }
+
+    /**
+     * Retorna os anos das propostas que estão no acervo, em ordem crescente.
+     *
+     * @return conjunto dos anos
+     */
+    public synchronized Set<Integer> getAnos() {
+        Set<Integer> anos = new TreeSet<>();
+        for (int i = this.removidos.nextClearBit(0); i < this.quantidade; i = this.removidos.nextClearBit(i + 1))
+            anos.add((int) this.anos[i]);
+        return anos;
+    }
+
+    /**
+     * Retorna as propostas dos registros gravados até agora que não estão entre os
+     * ignorados, decodificadas enquanto a coleção é percorrida.
+     *
+     * @param ignorados registros a serem ignorados, que não é alterado depois
+     * @return coleção das propostas
+     */
+    private Collection<PropostaLegislativa> getPropostas(BitSet ignorados) {
+        int total = this.quantidade;
+        int ativas = total - ignorados.get(0, total).cardinality();
+
+        return new AbstractCollection<PropostaLegislativa>() {
+            @Override
+            public Iterator<PropostaLegislativa> iterator() {
+                return new Iterator<PropostaLegislativa>() {
+                    private int proximo = ignorados.nextClearBit(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.proximo < total;
+                    }
+
+                    @Override
+                    public PropostaLegislativa next() {
+                        if (!this.hasNext())
+                            throw new NoSuchElementException();
+                        PropostaLegislativa proposta = le(this.proximo);
+                        this.proximo = ignorados.nextClearBit(this.proximo + 1);
+                        return proposta;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ativas;
+            }
+        };
+    }
+
+    /**
+     * Não possui retorno. Passa ao consumidor as propostas do acervo que podem estar
+     * no local passado no instante passado, decodificando apenas elas. São ignoradas,
+     * sem decodificação, as propostas cuja tramitação começou depois do instante e as
+     * já encerradas no instante em um local diferente do passado. O consumidor ainda
+     * deve conferir o local de cada proposta no instante.
+     *
+     * @param instante   instante consultado, em milissegundos desde a época
+     * @param local      local de votação, ou null para qualquer local
+     * @param consumidor consumidor das propostas decodificadas
+     * @throws UncheckedIOException caso um registro não possa ser lido
+     */
+    public synchronized void percorreCandidatasEm(long instante, String local,
+                                                  Consumer<PropostaLegislativa> consumidor) {
+        Integer indiceDoLocal = (local == null) ? null : this.indicesDosLocais.get(local);
+        for (int i = this.removidos.nextClearBit(0); i < this.quantidade; i = this.removidos.nextClearBit(i + 1)) {
+            if (this.inicios[i] > instante)
+                continue;
+            if (instante >= this.encerramentos[i] && local != null
+                    && (indiceDoLocal == null || this.locais[i] != indiceDoLocal))
+                continue;
+            consumidor.accept(this.le(i));
+        }
+    }
+
+    /**
+     * Não possui retorno. Remove todas as propostas e apaga o arquivo do acervo.
+     *
+     * @throws IOException erro ao fechar o arquivo
+     */
+    public synchronized void limpa() throws IOException {
+        this.close();
+        this.inicializa();
+    }
+
+    /**
+     * Não possui retorno. Fecha e apaga o arquivo do acervo. As regiões já mapeadas
+     * continuam válidas até serem descartadas.
+     *
+     * @throws IOException erro ao fechar o arquivo
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.canal == null)
+            return;
+
+        try {
+            this.saida.close();
+        } finally {
+            this.canal = null;
+            this.saida = null;
+            this.arquivo.delete();
+            this.arquivo = null;
+        }
+    }
+
+    /**
+     * Não possui retorno. Esvazia os campos do acervo.
+     */
+    private void inicializa() {
+        this.tamanho = 0;
+        this.regioes = new MappedByteBuffer[0];
+        this.quantidade = 0;
+        this.quantidadeDeRemovidos = 0;
+        this.posicoes = new long[CAPACIDADE_INICIAL];
+        this.tipos = new byte[CAPACIDADE_INICIAL];
+        this.anos = new short[CAPACIDADE_INICIAL];
+        this.situacoes = new byte[CAPACIDADE_INICIAL];
+        this.locais = new int[CAPACIDADE_INICIAL];
+        this.interesses = new int[CAPACIDADE_INICIAL];
+        this.inicios = new long[CAPACIDADE_INICIAL];
+        this.encerramentos = new long[CAPACIDADE_INICIAL];
+        this.codigos = new long[CAPACIDADE_INICIAL];
+        this.removidos = new BitSet();
+        this.nomesDosLocais.clear();
+        this.indicesDosLocais.clear();
+        this.nomesDosInteresses.clear();
+        this.indicesDosInteresses.clear();
+        this.registrosIrregulares.clear();
+        this.chaves = new long[2 * CAPACIDADE_INICIAL];
+        this.registros = new int[2 * CAPACIDADE_INICIAL];
+        this.chavesOcupadas = 0;
+    }
+
+    /**
+     * Não possui retorno. Cria o arquivo do acervo.
+     *
+     * @throws IOException erro ao criar o arquivo
+     */
+    private void abre() throws IOException {
+        this.abre(criaArquivo(this.diretorio), 0);
+    }
+
+    /**
+     * Não possui retorno. Abre um arquivo de acervo cujos primeiros bytes já contêm
+     * registros, que passam a ser acrescentados depois deles.
+     *
+     * @param arquivo arquivo do acervo
+     * @param tamanho quantidade de bytes já ocupados por registros
+     * @throws IOException erro ao abrir o arquivo
+     */
+    private void abre(File arquivo, long tamanho) throws IOException {
+        this.arquivo = arquivo;
+        this.canal = FileChannel.open(this.arquivo.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.canal.truncate(tamanho);
+        this.canal.position(tamanho);
+        this.saida = new BufferedOutputStream(Channels.newOutputStream(this.canal), 1 << 16);
+    }
+
+    /**
+     * Cria um arquivo de acervo vazio no diretório passado, apagado ao fim da execução
+     * e por {@link #apagaArquivosAntigos(File)}.
+     *
+     * @param diretorio diretório do arquivo
+     * @return arquivo criado
+     * @throws IOException erro ao criar o arquivo
+     */
+    static File criaArquivo(File diretorio) throws IOException {
+        File arquivo = File.createTempFile(PREFIXO, EXTENSAO, diretorio);
+        arquivo.deleteOnExit();
+        return arquivo;
+    }
+
+    /**
+     * Captura os campos do acervo que mudam depois de gravados, junto com a
+     * quantidade de registros e de bytes gravados até agora, que são descarregados
+     * no arquivo. Os registros e as suas entradas anteriores à captura não mudam mais
+     * e podem ser copiados depois por {@link #leRegistros(long, ByteBuffer)} e
+     * {@link #copiaEntradas(int, int, ByteBuffer)}.
+     *
+     * @return captura do acervo
+     * @throws IOException erro ao descarregar o arquivo
+     */
+    synchronized Captura captura() throws IOException {
+        if (this.saida != null)
+            this.saida.flush();
+        return new Captura(this, this.quantidade, this.tamanho, (BitSet) this.removidos.clone(),
+                new ArrayList<>(this.nomesDosLocais), new ArrayList<>(this.nomesDosInteresses),
+                new HashMap<>(this.registrosIrregulares));
+    }
+
+    /**
+     * Lê os bytes do arquivo a partir da posição passada, que já devem ter sido
+     * descarregados por {@link #captura()}.
+     *
+     * @param posicao posição no arquivo
+     * @param destino buffer que recebe os bytes
+     * @return quantidade de bytes lidos, ou -1 no fim do arquivo
+     * @throws IOException erro de leitura, ou acervo fechado
+     */
+    synchronized int leRegistros(long posicao, ByteBuffer destino) throws IOException {
+        if (this.canal == null)
+            throw new IOException("acervo fechado");
+        return this.canal.read(destino, posicao);
+    }
+
+    /**
+     * Escreve no buffer as entradas dos registros a partir do início passado, com a
+     * posição, o tipo, o ano, a situação, o local, os interesses, os instantes da
+     * tramitação e a chave numérica de cada um, enquanto couberem no buffer.
+     *
+     * @param inicio  primeiro registro
+     * @param fim     registro seguinte ao último, no máximo a quantidade capturada
+     * @param destino buffer que recebe as entradas
+     * @return quantidade de entradas escritas
+     */
+    synchronized int copiaEntradas(int inicio, int fim, ByteBuffer destino) {
+        int copiadas = Math.min(fim - inicio, destino.remaining() / TAMANHO_DA_ENTRADA);
+        for (int i = inicio; i < inicio + copiadas; i++) {
+            destino.putLong(this.posicoes[i]);
+            destino.put(this.tipos[i]);
+            destino.putShort(this.anos[i]);
+            destino.put(this.situacoes[i]);
+            destino.putInt(this.locais[i]);
+            destino.putInt(this.interesses[i]);
+            destino.putLong(this.inicios[i]);
+            destino.putLong(this.encerramentos[i]);
+            destino.putLong(this.codigos[i]);
+        }
+        return copiadas;
+    }
+
+    /**
+     * Reconstrói um acervo a partir de um arquivo com os seus registros e das entradas
+     * e dos campos guardados por uma captura, sem decodificar nenhum registro. A tabela
+     * de espalhamento é montada a partir das chaves das entradas dos registros ativos.
+     *
+     * @param diretorio   diretório dos arquivos de acervo
+     * @param codificador codificador dos registros
+     * @param arquivo     arquivo de acervo com os registros, que passa a pertencer ao acervo
+     * @param tamanho     quantidade de bytes ocupados pelos registros
+     * @param quantidade  quantidade de registros
+     * @param entradas    fluxo com as entradas dos registros, na ordem
+     * @param removidos   registros removidos
+     * @param locais      nomes dos locais de votação
+     * @param interesses  conjuntos de interesses das propostas
+     * @param irregulares posição do registro de cada código que não segue o formato
+     * @return acervo reconstruído
+     * @throws IOException erro de leitura, ou entradas inconsistentes
+     */
+    static AcervoDePropostas restaura(File diretorio, CodificadorDeEntidades codificador, File arquivo,
+                                      long tamanho, int quantidade, DataInputStream entradas, BitSet removidos,
+                                      List<String> locais, List<String> interesses,
+                                      Map<String, Integer> irregulares) throws IOException {
+        AcervoDePropostas acervo = new AcervoDePropostas(diretorio, codificador);
+        acervo.abre(arquivo, tamanho);
+        acervo.tamanho = tamanho;
+        try {
+            for (String local : locais)
+                posicaoDoNome(acervo.nomesDosLocais, acervo.indicesDosLocais, local);
+            for (String interesse : interesses)
+                posicaoDoNome(acervo.nomesDosInteresses, acervo.indicesDosInteresses, interesse);
+            for (int i = 0; i < quantidade; i++) {
+                acervo.garanteCapacidade();
+                acervo.posicoes[i] = entradas.readLong();
+                acervo.tipos[i] = entradas.readByte();
+                acervo.anos[i] = entradas.readShort();
+                acervo.situacoes[i] = entradas.readByte();
+                acervo.locais[i] = entradas.readInt();
+                acervo.interesses[i] = entradas.readInt();
+                acervo.inicios[i] = entradas.readLong();
+                acervo.encerramentos[i] = entradas.readLong();
+                acervo.codigos[i] = entradas.readLong();
+                acervo.quantidade++;
+                if (acervo.posicoes[i] < 0 || acervo.posicoes[i] >= tamanho || acervo.locais[i] < 0
+                        || acervo.locais[i] >= locais.size() || acervo.interesses[i] < 0
+                        || acervo.interesses[i] >= interesses.size())
+                    throw new IOException("entrada do acervo invalida");
+                if (acervo.codigos[i] != 0 && !removidos.get(i))
+                    acervo.insereChave(acervo.codigos[i], i);
+            }
+            acervo.removidos = removidos;
+            acervo.quantidadeDeRemovidos = removidos.get(0, quantidade).cardinality();
+            acervo.registrosIrregulares.putAll(irregulares);
+            return acervo;
+        } catch (IOException ioe) {
+            acervo.close();
+            throw ioe;
+        }
+    }
+
+    /**
+     * Decodifica a proposta de um registro.
+     *
+     * @param indice posição do registro
+     * @return proposta decodificada
+     * @throws UncheckedIOException caso o registro não possa ser lido
+     */
+    private synchronized PropostaLegislativa le(int indice) {
+        long posicao = this.posicoes[indice];
+        int inicio = (int) (posicao % TAMANHO_DA_REGIAO);
+        try {
+            ByteBuffer bytes = this.regiao((int) (posicao / TAMANHO_DA_REGIAO), inicio).duplicate();
+            bytes.position(inicio);
+            LeitorBinario leitor = new LeitorBinario(new EntradaDeRegiao(bytes), TAMANHO_DO_BUFFER_DE_LEITURA);
+            return this.codificador.leProposta(leitor);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /**
+     * Retorna uma região mapeada do arquivo que contenha a posição passada, mapeando-a
+     * novamente caso tenha crescido desde o último mapeamento.
+     *
+     * @param numero número da região
+     * @param inicio posição dentro da região que precisa estar mapeada
+     * @return região mapeada
+     * @throws IOException erro ao mapear o arquivo
+     */
+    private MappedByteBuffer regiao(int numero, int inicio) throws IOException {
+        if (numero >= this.regioes.length)
+            this.regioes = Arrays.copyOf(this.regioes, numero + 1);
+
+        MappedByteBuffer regiao = this.regioes[numero];
+        if (regiao == null || inicio >= regiao.limit()) {
+            if (this.canal == null)
+                throw new IOException("acervo fechado");
+            this.saida.flush();
+            long deslocamento = numero * TAMANHO_DA_REGIAO;
+            regiao = this.canal.map(FileChannel.MapMode.READ_ONLY, deslocamento,
+                    Math.min(TAMANHO_DA_REGIAO, this.tamanho - deslocamento));
+            this.regioes[numero] = regiao;
+        }
+        return regiao;
+    }
+
+    /**
+     * Retorna a posição do registro ativo de um código.
+     *
+     * @param codigo código da proposta
+     * @return posição do registro, ou -1 caso o código não esteja no acervo
+     */
+    private int busca(String codigo) {
+        if (codigo == null)
+            return -1;
+
+        long chave = chaveDoCodigo(codigo);
+        if (chave != 0) {
+            int mascara = this.chaves.length - 1;
+            for (int i = espalha(chave) & mascara; this.chaves[i] != 0; i = (i + 1) & mascara)
+                if (this.chaves[i] == chave)
+                    return this.removidos.get(this.registros[i]) ? -1 : this.registros[i];
+        }
+
+        Integer indice = this.registrosIrregulares.get(codigo);
+        return (indice == null || this.removidos.get(indice)) ? -1 : indice;
+    }
+
+    /**
+     * Não possui retorno. Marca um registro como removido.
+     *
+     * @param indice posição do registro
+     */
+    private void marcaRemovido(int indice) {
+        this.removidos.set(indice);
+        this.quantidadeDeRemovidos++;
+    }
+
+    /**
+     * Não possui retorno. Associa uma chave numérica a um registro, substituindo a
+     * associação anterior da mesma chave.
+     *
+     * @param chave  chave numérica do código
+     * @param indice posição do registro
+     */
+    private void insereChave(long chave, int indice) {
+        if (2 * (this.chavesOcupadas + 1) > this.chaves.length)
+            this.redimensionaTabela();
+
+        int mascara = this.chaves.length - 1;
+        int i = espalha(chave) & mascara;
+        while (this.chaves[i] != 0 && this.chaves[i] != chave)
+            i = (i + 1) & mascara;
+        if (this.chaves[i] == 0)
+            this.chavesOcupadas++;
+        this.chaves[i] = chave;
+        this.registros[i] = indice;
+    }
+
+    /**
+     * Não possui retorno. Dobra o tamanho da tabela de espalhamento.
+     */
+    private void redimensionaTabela() {
+        long[] chavesAntigas = this.chaves;
+        int[] registrosAntigos = this.registros;
+        this.chaves = new long[2 * chavesAntigas.length];
+        this.registros = new int[2 * chavesAntigas.length];
+
+        int mascara = this.chaves.length - 1;
+        for (int j = 0; j < chavesAntigas.length; j++) {
+            if (chavesAntigas[j] == 0)
+                continue;
+            int i = espalha(chavesAntigas[j]) & mascara;
+            while (this.chaves[i] != 0)
+                i = (i + 1) & mascara;
+            this.chaves[i] = chavesAntigas[j];
+            this.registros[i] = registrosAntigos[j];
+        }
+    }
+
+    /**
+     * Não possui retorno. Garante espaço nos arrays de campos para mais um registro.
+     */
+    private void garanteCapacidade() {
+        if (this.quantidade < this.posicoes.length)
+            return;
+
+        int capacidade = 2 * this.posicoes.length;
+        this.posicoes = Arrays.copyOf(this.posicoes, capacidade);
+        this.tipos = Arrays.copyOf(this.tipos, capacidade);
+        this.anos = Arrays.copyOf(this.anos, capacidade);
+        this.situacoes = Arrays.copyOf(this.situacoes, capacidade);
+        this.locais = Arrays.copyOf(this.locais, capacidade);
+        this.interesses = Arrays.copyOf(this.interesses, capacidade);
+        this.inicios = Arrays.copyOf(this.inicios, capacidade);
+        this.encerramentos = Arrays.copyOf(this.encerramentos, capacidade);
+        this.codigos = Arrays.copyOf(this.codigos, capacidade);
+    }
+
+    /**
+     * Retorna a posição de um nome em uma lista de nomes, como a de locais de votação,
+     * acrescentando-o caso ainda não exista.
+     *
+     * @param nomes   nomes na ordem em que apareceram
+     * @param indices posição de cada nome na lista
+     * @param nome    nome procurado
+     * @return posição do nome
+     */
+    private static int posicaoDoNome(List<String> nomes, Map<String, Integer> indices, String nome) {
+        Integer indice = indices.get(nome);
+        if (indice == null) {
+            indice = nomes.size();
+            nomes.add(nome);
+            indices.put(nome, indice);
+        }
+        return indice;
+    }
+
+    /**
+     * Retorna a chave numérica de um código no formato "TIPO numero/ano".
+     *
+     * @param codigo código da proposta
+     * @return chave numérica, ou 0 caso o código não siga o formato
+     */
+    private static long chaveDoCodigo(String codigo) {
+        int espaco = codigo.indexOf(' ');
+        int barra = codigo.indexOf('/', espaco + 1);
+        if (espaco < 0 || barra < 0)
+            return 0;
+
+        TipoProjeto tipo = null;
+        for (TipoProjeto valor : TipoProjeto.values())
+            if (valor.name().length() == espaco && codigo.startsWith(valor.name()))
+                tipo = valor;
+
+        int numero = leNatural(codigo, espaco + 1, barra, 9);
+        int ano = leNatural(codigo, barra + 1, codigo.length(), 4);
+        if (tipo == null || numero < 0 || ano < 0)
+            return 0;
+        return chaveDoCodigo(tipo, ano, numero);
+    }
+
+    /**
+     * Retorna a chave numérica de um código a partir das suas partes.
+     *
+     * @param tipo   tipo da proposta
+     * @param ano    ano da proposta
+     * @param numero número da proposta no seu tipo e ano
+     * @return chave numérica, diferente de 0
+     */
+    private static long chaveDoCodigo(TipoProjeto tipo, int ano, int numero) {
+        return ((long) (tipo.ordinal() + 1) << 48) | ((long) (ano & 0xFFFF) << 32) | (numero & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Lê um número natural escrito sem zeros à esquerda em um trecho de uma String.
+     *
+     * @param texto      String com o número
+     * @param inicio     início do trecho
+     * @param fim        fim do trecho, exclusivo
+     * @param maxDigitos quantidade máxima de dígitos
+     * @return número lido, ou -1 caso o trecho não seja um número natural
+     */
+    private static int leNatural(String texto, int inicio, int fim, int maxDigitos) {
+        if (fim <= inicio || fim - inicio > maxDigitos || (texto.charAt(inicio) == '0' && fim - inicio > 1))
+            return -1;
+
+        int numero = 0;
+        for (int i = inicio; i < fim; i++) {
+            char digito = texto.charAt(i);
+            if (digito < '0' || digito > '9')
+                return -1;
+            numero = 10 * numero + (digito - '0');
+        }
+        return numero;
+    }
+
+    /**
+     * Espalha os bits de uma chave numérica para a tabela de espalhamento.
+     *
+     * @param chave chave numérica
+     * @return valor espalhado
+     */
+    private static int espalha(long chave) {
+        long valor = chave * 0x9E3779B97F4A7C15L;
+        return (int) (valor ^ (valor >>> 32));
+    }
+
+    /**
+     * Quantidade de registros e de bytes de um acervo em um momento, junto com os
+     * campos que mudam depois de gravados.
+     */
+    static final class Captura {
+        /**
+         * Acervo capturado
+         */
+        final AcervoDePropostas acervo;
+        /**
+         * Quantidade de registros gravados, incluindo os removidos
+         */
+        final int quantidade;
+        /**
+         * Quantidade de bytes ocupados pelos registros
+         */
+        final long tamanho;
+        /**
+         * Registros removidos
+         */
+        final BitSet removidos;
+        /**
+         * Nomes dos locais de votação
+         */
+        final List<String> locais;
+        /**
+         * Conjuntos de interesses das propostas
+         */
+        final List<String> interesses;
+        /**
+         * Posição do registro de cada código que não segue o formato
+         */
+        final Map<String, Integer> irregulares;
+
+        private Captura(AcervoDePropostas acervo, int quantidade, long tamanho, BitSet removidos,
+                        List<String> locais, List<String> interesses, Map<String, Integer> irregulares) {
+            this.acervo = acervo;
+            this.quantidade = quantidade;
+            this.tamanho = tamanho;
+            this.removidos = removidos;
+            this.locais = locais;
+            this.interesses = interesses;
+            this.irregulares = irregulares;
+        }
+    }
+
+    /**
+     * Fluxo de entrada que lê os bytes de uma região mapeada a partir da sua posição atual.
+     */
+    private static final class EntradaDeRegiao extends InputStream {
+        /**
+         * Bytes da região
+         */
+        private final ByteBuffer bytes;
+
+        private EntradaDeRegiao(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            return this.bytes.hasRemaining() ? this.bytes.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] destino, int inicio, int quantidade) {
+            if (quantidade == 0)
+                return 0;
+            if (!this.bytes.hasRemaining())
+                return -1;
+            int lidos = Math.min(quantidade, this.bytes.remaining());
+            this.bytes.get(destino, inicio, lidos);
+            return lidos;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package util;
+
+import interfaces.Armazenamento;
+import interfaces.ArmazenamentoDeFamilia;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Classe que guarda as famílias de entidades apenas em memória, usada em testes e nas
+ * comparações entre armazenamentos. Cada família guarda uma base e os salvamentos
+ * incrementais posteriores a ela, como o ArquivoSegmentado, mas em arrays de bytes no
+ * formato binário do CodificadorDeEntidades, de forma que as entidades carregadas são
+ * independentes das salvas. Os dados são mantidos enquanto a instância existir, e uma
+ * mesma instância pode ser passada a vários PersistenciaController para simular uma
+ * reinicialização. O diário, o manifesto e o acervo, que o PersistenciaController
+ * guarda em arquivos, ficam em um diretório temporário criado para a instância e
+ * apagado por fecha.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class ArmazenamentoEmMemoria implements Armazenamento {
+
+    /**
+     * Famílias abertas, indexadas pelo nome.
+     */
+    private final Map<String, Familia<?>> familias;
+
+    /**
+     * Diretório temporário dos arquivos que não são famílias de entidades.
+     */
+    private final File diretorio;
+
+    /**
+     * Constrói um armazenamento em memória sem famílias, com um novo diretório
+     * temporário, que deve ser apagado com fecha quando a instância deixar de ser usada.
+     *
+     * @throws UncheckedIOException caso o diretório temporário não possa ser criado
+     */
+    public ArmazenamentoEmMemoria() {
+        this.familias = new HashMap<>();
+        try {
+            this.diretorio = Files.createTempDirectory("armazenamento-memoria").toFile();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /**
+     * Não possui retorno. Descarta as famílias guardadas e apaga o diretório temporário
+     * da instância com todo o seu conteúdo. Os PersistenciaController construídos com a
+     * instância não devem ser usados depois.
+     *
+     * @throws IOException erro ao apagar os arquivos do diretório
+     */
+    public synchronized void fecha() throws IOException {
+        this.familias.clear();
+        if (!this.diretorio.exists())
+            return;
+
+        List<Path> arquivos;
+        try (Stream<Path> percurso = Files.walk(this.diretorio.toPath())) {
+            arquivos = percurso.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path arquivo : arquivos)
+            Files.deleteIfExists(arquivo);
+    }
+
+    /**
+     * Retorna a família de nome passado, criando-a caso ainda não exista.
+     *
+     * @param nome    nome da família
+     * @param chave   função que retorna a chave de uma entidade
+     * @param escrita escrita das entidades no formato binário
+     * @param leitura leitura das entidades no formato binário
+     * @param <T>     tipo das entidades
+     * @return armazenamento da família
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized <T> ArmazenamentoDeFamilia<T> abre(String nome, Function<T, String> chave,
+                                                           ArquivoSegmentado.Escrita<T> escrita,
+                                                           ArquivoSegmentado.Leitura<T> leitura) {
+        return (ArmazenamentoDeFamilia<T>) this.familias.computeIfAbsent(nome,
+                chaveDaFamilia -> new Familia<>(chave, escrita, leitura));
+    }
+
+    /**
+     * Retorna, em ordem alfabética, os nomes das famílias com entidades guardadas cujo
+     * nome começa com o prefixo passado.
+     *
+     * @param prefixo prefixo dos nomes das famílias
+     * @return nomes das famílias guardadas
+     */
+    @Override
+    public synchronized List<String> listaFamilias(String prefixo) {
+        List<String> nomes = new ArrayList<>();
+        for (Map.Entry<String, Familia<?>> familia : new TreeMap<>(this.familias).entrySet())
+            if (familia.getKey().startsWith(prefixo) && familia.getValue().temEntidades())
+                nomes.add(familia.getKey());
+        return nomes;
+    }
+
+    /**
+     * Retorna o nome do armazenamento.
+     *
+     * @return "memoria"
+     */
+    @Override
+    public String getNome() {
+        return "memoria";
+    }
+
+    /**
+     * Retorna o diretório temporário da instância.
+     *
+     * @return diretório dos arquivos que não são famílias de entidades
+     */
+    @Override
+    public File getDiretorio() {
+        return this.diretorio;
+    }
+
+    /**
+     * Família de entidades guardada em memória.
+     *
+     * @param <T> tipo das entidades
+     */
+    private static final class Familia<T> implements ArmazenamentoDeFamilia<T> {
+        /**
+         * Função que retorna a chave de uma entidade.
+         */
+        private final Function<T, String> chave;
+        /**
+         * Escrita e leitura das entidades no formato binário.
+         */
+        private final ArquivoSegmentado.Escrita<T> escrita;
+        private final ArquivoSegmentado.Leitura<T> leitura;
+        /**
+         * Base da família e maior número de salvamento incorporado a ela.
+         */
+        private byte[] base;
+        private long cobertura;
+        /**
+         * Salvamentos incrementais posteriores à base, indexados pelo número.
+         */
+        private final TreeMap<Long, byte[]> segmentos;
+
+        private Familia(Function<T, String> chave, ArquivoSegmentado.Escrita<T> escrita,
+                        ArquivoSegmentado.Leitura<T> leitura) {
+            this.chave = chave;
+            this.escrita = escrita;
+            this.leitura = leitura;
+            this.segmentos = new TreeMap<>();
+        }
+
+        @Override
+        public synchronized Map<String, T> carrega(long limite) throws IOException {
+            Map<String, T> registros = new HashMap<>();
+            this.carrega(limite, registro -> registros.put(this.chave.apply(registro), registro), registros::clear);
+            return registros;
+        }
+
+        @Override
+        public synchronized void carrega(long limite, Consumer<T> consumidor, Runnable reinicio)
+                throws IOException {
+            if (this.base != null)
+                this.leitura.le(new ByteArrayInputStream(this.base), consumidor);
+            if (limite <= this.cobertura)
+                return;
+            for (byte[] segmento : this.segmentos.subMap(this.cobertura, false, limite, true).values())
+                this.leitura.le(new ByteArrayInputStream(segmento), consumidor);
+        }
+
+        @Override
+        public synchronized void acrescenta(Collection<T> registros, long numero) throws IOException {
+            this.segmentos.put(numero, this.codifica(registros));
+        }
+
+        @Override
+        public synchronized void reescreve(Collection<T> registros, long numero) throws IOException {
+            this.base = this.codifica(registros);
+            this.cobertura = numero;
+            this.segmentos.headMap(numero, true).clear();
+        }
+
+        @Override
+        public synchronized void mescla(long limite) throws IOException {
+            if (this.segmentos.isEmpty() || this.segmentos.firstKey() > limite)
+                return;
+
+            Map<String, T> registros = new LinkedHashMap<>();
+            this.carrega(limite, registro -> registros.put(this.chave.apply(registro), registro), registros::clear);
+            long novaCobertura = this.segmentos.floorKey(limite);
+            this.base = this.codifica(registros.values());
+            this.cobertura = novaCobertura;
+            this.segmentos.headMap(novaCobertura, true).clear();
+        }
+
+        @Override
+        public synchronized void limpa() {
+            this.base = null;
+            this.cobertura = 0;
+            this.segmentos.clear();
+        }
+
+        @Override
+        public synchronized long getMaiorNumero() {
+            return this.segmentos.isEmpty() ? this.cobertura : this.segmentos.lastKey();
+        }
+
+        @Override
+        public synchronized int contaSegmentosPendentes() {
+            return this.segmentos.size();
+        }
+
+        /**
+         * Indica se a família tem base ou salvamentos incrementais.
+         *
+         * @return true caso haja entidades guardadas
+         */
+        private synchronized boolean temEntidades() {
+            return this.base != null || !this.segmentos.isEmpty();
+        }
+
+        /**
+         * Codifica as entidades no formato binário.
+         *
+         * @param registros entidades a serem codificadas
+         * @return bytes das entidades
+         * @throws IOException erro de escrita
+         */
+        private byte[] codifica(Collection<T> registros) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            this.escrita.escreve(registros, bytes);
+            return bytes.toByteArray();
+        }
+    }
+}
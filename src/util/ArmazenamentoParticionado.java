@@ -0,0 +1,351 @@
+package util;
+
+import interfaces.Armazenamento;
+import interfaces.ArmazenamentoDeFamilia;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Classe que guarda uma família de entidades dividida em partições, uma família do
+ * armazenamento para cada valor da partição, chamada "nome-valor". As propostas são
+ * divididas pelo ano: cada salvamento incremental só grava nas partições dos anos com
+ * alterações, as partições dos anos encerrados deixam de receber segmentos e não
+ * precisam ser mescladas, e as partições são lidas ao mesmo tempo, começando pelas
+ * mais recentes.
+ * <p>
+ * A família sem partições, gravada antes da divisão, continua sendo lida antes das
+ * partições, de forma que as versões gravadas nas partições prevalecem. Enquanto ela
+ * existir, {@link #precisaSerReescrito()} retorna true, e o próximo salvamento completo
+ * a distribui pelas partições e a apaga.
+ *
+ * @param <T> tipo das entidades guardadas
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class ArmazenamentoParticionado<T> implements ArmazenamentoDeFamilia<T> {
+
+    /**
+     * Número máximo de partições lidas ao mesmo tempo.
+     */
+    private static final int THREADS_DE_CARGA = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * Armazenamento em que as partições são abertas.
+     */
+    private final Armazenamento armazenamento;
+
+    /**
+     * Nome da família.
+     */
+    private final String nome;
+
+    /**
+     * Função que retorna a chave de uma entidade.
+     */
+    private final Function<T, String> chave;
+
+    /**
+     * Função que retorna a partição de uma entidade, que não muda depois do cadastro.
+     */
+    private final ToIntFunction<T> particao;
+
+    /**
+     * Escrita e leitura das entidades no formato binário.
+     */
+    private final ArquivoSegmentado.Escrita<T> escrita;
+    private final ArquivoSegmentado.Leitura<T> leitura;
+
+    /**
+     * Família gravada antes da divisão em partições.
+     */
+    private final ArmazenamentoDeFamilia<T> legado;
+
+    /**
+     * Partições abertas, indexadas pelo valor.
+     */
+    private final TreeMap<Integer, ArmazenamentoDeFamilia<T>> particoes;
+
+    /**
+     * Compressão das partições, ou null caso não tenha sido configurada.
+     */
+    private int[] compressao;
+
+    /**
+     * Constrói a família particionada, abrindo as partições já guardadas no armazenamento.
+     *
+     * @param armazenamento armazenamento das partições
+     * @param nome          nome da família
+     * @param chave         função que retorna a chave de uma entidade
+     * @param particao      função que retorna a partição de uma entidade
+     * @param escrita       escrita das entidades
+     * @param leitura       leitura das entidades
+     */
+    public ArmazenamentoParticionado(Armazenamento armazenamento, String nome, Function<T, String> chave,
+                                     ToIntFunction<T> particao, ArquivoSegmentado.Escrita<T> escrita,
+                                     ArquivoSegmentado.Leitura<T> leitura) {
+        this.armazenamento = armazenamento;
+        this.nome = nome;
+        this.chave = chave;
+        this.particao = particao;
+        this.escrita = escrita;
+        this.leitura = leitura;
+        this.legado = armazenamento.abre(nome, chave, escrita, leitura);
+        this.particoes = new TreeMap<>();
+
+        String prefixo = nome + "-";
+        for (String familia : armazenamento.listaFamilias(prefixo)) {
+            try {
+                this.getParticao(Integer.parseInt(familia.substring(prefixo.length())));
+            } catch (NumberFormatException nfe) {
+                // família de outro tipo que começa com o mesmo nome
+            }
+        }
+    }
+
+    /**
+     * Retorna os valores das partições existentes, em ordem crescente.
+     *
+     * @return lista com os valores das partições
+     */
+    public synchronized List<Integer> getParticoes() {
+        return new ArrayList<>(this.particoes.keySet());
+    }
+
+    /**
+     * Retorna a partição de valor passado, abrindo-a caso ainda não exista.
+     *
+     * @param valor valor da partição
+     * @return armazenamento da partição
+     */
+    public synchronized ArmazenamentoDeFamilia<T> getParticao(int valor) {
+        ArmazenamentoDeFamilia<T> particao = this.particoes.get(valor);
+        if (particao == null) {
+            particao = this.armazenamento.abre(this.nome + "-" + valor, this.chave, this.escrita, this.leitura);
+            if (this.compressao != null)
+                particao.configuraCompressao(this.compressao[0], this.compressao[1]);
+            this.particoes.put(valor, particao);
+        }
+        return particao;
+    }
+
+    /**
+     * Indica se ainda há entidades na família gravada antes da divisão em partições,
+     * que só é apagada por um salvamento completo.
+     *
+     * @return true caso a família deva ser reescrita por completo
+     */
+    public boolean precisaSerReescrito() {
+        return this.armazenamento.listaFamilias(this.nome).contains(this.nome);
+    }
+
+    @Override
+    public synchronized void configuraCompressao(int nivel, int tamanhoDoBloco) {
+        this.compressao = new int[]{nivel, tamanhoDoBloco};
+        this.legado.configuraCompressao(nivel, tamanhoDoBloco);
+        for (ArmazenamentoDeFamilia<T> particao : this.particoes.values())
+            particao.configuraCompressao(nivel, tamanhoDoBloco);
+    }
+
+    @Override
+    public Map<String, T> carrega(long limite) throws IOException {
+        Map<String, T> registros = new HashMap<>();
+        this.carrega(limite, registro -> registros.put(this.chave.apply(registro), registro), registros::clear);
+        return registros;
+    }
+
+    /**
+     * Não possui retorno. Lê a família gravada antes da divisão e depois as partições,
+     * até o limite passado. As partições são lidas ao mesmo tempo, das mais recentes
+     * para as mais antigas, e as entidades de cada uma são passadas ao consumidor, uma
+     * partição de cada vez, assim que ela termina de ser lida. Como as partições são
+     * independentes, uma partição lida novamente a partir da sua base anterior só
+     * descarta as suas próprias entidades, e o reinício só é executado pela família
+     * gravada antes da divisão.
+     *
+     * @param limite     maior número de salvamento a ser lido
+     * @param consumidor consumidor das entidades lidas
+     * @param reinicio   descarta as entidades recebidas antes de a leitura recomeçar
+     * @throws IOException erro de leitura, ou dados truncados ou corrompidos
+     */
+    @Override
+    public void carrega(long limite, Consumer<T> consumidor, Runnable reinicio) throws IOException {
+        this.carrega(limite, consumidor, reinicio, valor -> true);
+    }
+
+    /**
+     * Não possui retorno. Lê a família da mesma forma que
+     * {@link #carrega(long, Consumer, Runnable)}, mas apenas as partições aceitas pelo
+     * filtro. A família gravada antes da divisão é sempre lida.
+     *
+     * @param limite     maior número de salvamento a ser lido
+     * @param consumidor consumidor das entidades lidas
+     * @param reinicio   descarta as entidades recebidas antes de a leitura recomeçar
+     * @param particoes  filtro dos valores das partições a serem lidas
+     * @throws IOException erro de leitura, ou dados truncados ou corrompidos
+     */
+    public void carrega(long limite, Consumer<T> consumidor, Runnable reinicio, IntPredicate particoes)
+            throws IOException {
+        this.legado.carrega(limite, consumidor, reinicio);
+
+        List<Integer> valores = this.getParticoes();
+        valores.removeIf(valor -> !particoes.test(valor));
+        if (valores.isEmpty())
+            return;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(THREADS_DE_CARGA, valores.size()),
+                tarefa -> {
+                    Thread thread = new Thread(tarefa, "carga-particoes");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        try {
+            List<CompletableFuture<Void>> cargas = new ArrayList<>();
+            for (int i = valores.size() - 1; i >= 0; i--) {
+                ArmazenamentoDeFamilia<T> particao = this.getParticao(valores.get(i));
+                cargas.add(CompletableFuture.runAsync(() -> {
+                    List<T> lidas = new ArrayList<>();
+                    try {
+                        particao.carrega(limite, lidas::add, lidas::clear);
+                    } catch (IOException ioe) {
+                        throw new UncheckedIOException(ioe);
+                    }
+                    synchronized (consumidor) {
+                        lidas.forEach(consumidor);
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(cargas.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException ce) {
+            if (ce.getCause() instanceof UncheckedIOException)
+                throw ((UncheckedIOException) ce.getCause()).getCause();
+            throw ce;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Não possui retorno. Grava as entidades alteradas de cada partição em um novo
+     * segmento da partição. As partições sem alterações não são tocadas.
+     *
+     * @param registros entidades alteradas
+     * @param numero    número do salvamento, maior que o de todos os anteriores
+     * @throws IOException erro de escrita
+     */
+    @Override
+    public void acrescenta(Collection<T> registros, long numero) throws IOException {
+        for (Map.Entry<Integer, List<T>> grupo : this.agrupa(registros).entrySet())
+            this.getParticao(grupo.getKey()).acrescenta(grupo.getValue(), numero);
+    }
+
+    /**
+     * Não possui retorno. Substitui a família inteira, agrupando as entidades por
+     * partição. Todas as entidades ficam em memória durante o agrupamento; quando as
+     * partições das entidades já são conhecidas, {@link #reescreve(Map, long)} grava
+     * cada partição sem agrupá-las.
+     *
+     * @param registros todas as entidades da família
+     * @param numero    número do salvamento
+     * @throws IOException erro de escrita
+     */
+    @Override
+    public void reescreve(Collection<T> registros, long numero) throws IOException {
+        this.reescreve(this.agrupa(registros), numero);
+    }
+
+    /**
+     * Não possui retorno. Substitui a família inteira pelas entidades de cada partição
+     * passada. As partições que não foram passadas e a família gravada antes da divisão
+     * são apagadas.
+     *
+     * @param registros entidades de cada partição, indexadas pelo valor da partição
+     * @param numero    número do salvamento
+     * @throws IOException erro de escrita
+     */
+    public void reescreve(Map<Integer, ? extends Collection<T>> registros, long numero) throws IOException {
+        for (Map.Entry<Integer, ? extends Collection<T>> grupo : registros.entrySet())
+            this.getParticao(grupo.getKey()).reescreve(grupo.getValue(), numero);
+        for (Integer valor : this.getParticoes())
+            if (!registros.containsKey(valor))
+                this.getParticao(valor).limpa();
+        this.legado.limpa();
+    }
+
+    /**
+     * Não possui retorno. Mescla as partições e a família gravada antes da divisão que
+     * tenham segmentos pendentes.
+     *
+     * @param limite maior número de salvamento a ser mesclado
+     * @throws IOException erro de leitura ou escrita
+     */
+    @Override
+    public void mescla(long limite) throws IOException {
+        if (this.legado.contaSegmentosPendentes() > 0)
+            this.legado.mescla(limite);
+        for (Integer valor : this.getParticoes()) {
+            ArmazenamentoDeFamilia<T> particao = this.getParticao(valor);
+            if (particao.contaSegmentosPendentes() > 0)
+                particao.mescla(limite);
+        }
+    }
+
+    @Override
+    public void limpa() throws IOException {
+        this.legado.limpa();
+        for (Integer valor : this.getParticoes())
+            this.getParticao(valor).limpa();
+    }
+
+    @Override
+    public long getMaiorNumero() {
+        long maior = this.legado.getMaiorNumero();
+        for (Integer valor : this.getParticoes())
+            maior = Math.max(maior, this.getParticao(valor).getMaiorNumero());
+        return maior;
+    }
+
+    /**
+     * Retorna a maior quantidade de segmentos pendentes entre as partições, de forma
+     * que a mesclagem comece assim que uma delas atinja o limite.
+     *
+     * @return quantidade de segmentos pendentes da partição com mais segmentos
+     */
+    @Override
+    public int contaSegmentosPendentes() {
+        int pendentes = this.legado.contaSegmentosPendentes();
+        for (Integer valor : this.getParticoes())
+            pendentes = Math.max(pendentes, this.getParticao(valor).contaSegmentosPendentes());
+        return pendentes;
+    }
+
+    /**
+     * Agrupa as entidades por partição, mantendo a ordem em que foram passadas.
+     *
+     * @param registros entidades a serem agrupadas
+     * @return entidades de cada partição, indexadas pelo valor da partição
+     */
+    private Map<Integer, List<T>> agrupa(Collection<T> registros) {
+        Map<Integer, List<T>> grupos = new LinkedHashMap<>();
+        for (T registro : registros)
+            grupos.computeIfAbsent(this.particao.applyAsInt(registro), valor -> new ArrayList<>()).add(registro);
+        return grupos;
+    }
+}
@@ -0,0 +1,599 @@
+package util;
+
+import interfaces.Armazenamento;
+import interfaces.ArmazenamentoDeFamilia;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Classe que guarda uma família de entidades em um arquivo base seguido de segmentos
+ * que só recebem acréscimos. Cada salvamento grava, em um novo segmento, apenas as
+ * entidades alteradas desde o anterior. Na leitura, a versão de uma entidade em um
+ * segmento mais novo substitui as versões anteriores. A mesclagem junta a base e os
+ * segmentos em uma nova base.
+ * <p>
+ * A base se chama "nome.txt" e os segmentos "nome.N.seg", sendo N o número crescente
+ * do salvamento que os gravou. Todos os arquivos são divididos em blocos verificáveis
+ * e comprimidos ({@link SaidaEmBlocos}), começam com o maior número de segmento que
+ * incorporam e são gravados em um arquivo temporário, sincronizado com o disco e
+ * renomeado. O nível de compressão e o tamanho dos blocos podem ser configurados e
+ * ficam registrados no cabeçalho de cada arquivo, de forma que arquivos gravados com
+ * configurações diferentes continuam sendo lidos.
+ * <p>
+ * É o armazenamento padrão do PersistenciaController ({@link #emDiretorio(File)}).
+ *
+ * @param <T> tipo das entidades guardadas
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class ArquivoSegmentado<T> implements ArmazenamentoDeFamilia<T> {
+
+    /**
+     * Escreve um conjunto de entidades em um fluxo de saída.
+     *
+     * @param <T> tipo das entidades
+     */
+    public interface Escrita<T> {
+        void escreve(Collection<T> registros, OutputStream saida) throws IOException;
+    }
+
+    /**
+     * Lê as entidades de um fluxo de entrada, passando cada uma ao consumidor.
+     *
+     * @param <T> tipo das entidades
+     */
+    public interface Leitura<T> {
+        void le(InputStream entrada, Consumer<T> consumidor) throws IOException;
+    }
+
+    /**
+     * Extensão dos arquivos de segmento.
+     */
+    private static final String EXTENSAO_SEGMENTO = ".seg";
+
+    /**
+     * Diretório dos arquivos.
+     */
+    private final File diretorio;
+
+    /**
+     * Nome da família, usado como prefixo dos arquivos.
+     */
+    private final String nome;
+
+    /**
+     * Função que retorna a chave de uma entidade.
+     */
+    private final Function<T, String> chave;
+
+    /**
+     * Escrita das entidades no formato binário.
+     */
+    private final Escrita<T> escrita;
+
+    /**
+     * Leitura das entidades no formato binário.
+     */
+    private final Leitura<T> leitura;
+
+    /**
+     * Incrementada a cada limpeza, para que uma mesclagem iniciada antes dela seja descartada.
+     */
+    private int geracao;
+
+    /**
+     * Maior número de segmento incorporado à base atual, ou -1 caso ainda não seja conhecido.
+     */
+    private long cobertura;
+
+    /**
+     * Indica se há uma mesclagem em andamento.
+     */
+    private boolean mesclando;
+
+    /**
+     * Nível de compressão dos próximos arquivos gravados.
+     */
+    private volatile int nivelDeCompressao;
+
+    /**
+     * Tamanho dos blocos dos próximos arquivos gravados.
+     */
+    private volatile int tamanhoDoBloco;
+
+    /**
+     * Constrói o arquivo segmentado de uma família de entidades.
+     *
+     * @param diretorio diretório dos arquivos
+     * @param nome      nome da família
+     * @param chave     função que retorna a chave de uma entidade
+     * @param escrita   escrita das entidades
+     * @param leitura   leitura das entidades
+     */
+    public ArquivoSegmentado(File diretorio, String nome, Function<T, String> chave, Escrita<T> escrita,
+                             Leitura<T> leitura) {
+        this.diretorio = diretorio;
+        this.nome = nome;
+        this.chave = chave;
+        this.escrita = escrita;
+        this.leitura = leitura;
+        this.cobertura = -1;
+        this.nivelDeCompressao = SaidaEmBlocos.NIVEL_PADRAO;
+        this.tamanhoDoBloco = SaidaEmBlocos.TAMANHO_PADRAO;
+    }
+
+    /**
+     * Retorna o armazenamento que guarda cada família em um arquivo segmentado no
+     * diretório passado.
+     *
+     * @param diretorio diretório dos arquivos
+     * @return armazenamento em arquivos segmentados
+     */
+    public static Armazenamento emDiretorio(File diretorio) {
+        return new Armazenamento() {
+            @Override
+            public <E> ArmazenamentoDeFamilia<E> abre(String nome, Function<E, String> chave, Escrita<E> escrita,
+                                                      Leitura<E> leitura) {
+                return new ArquivoSegmentado<>(diretorio, nome, chave, escrita, leitura);
+            }
+
+            @Override
+            public List<String> listaFamilias(String prefixo) {
+                return familiasEm(diretorio, prefixo);
+            }
+
+            @Override
+            public String getNome() {
+                return "segmentado";
+            }
+
+            @Override
+            public File getDiretorio() {
+                return diretorio;
+            }
+        };
+    }
+
+    /**
+     * Retorna, em ordem alfabética, os nomes das famílias com base, base anterior ou
+     * segmentos no diretório passado cujo nome começa com o prefixo passado. Arquivos
+     * temporários de gravações interrompidas são ignorados.
+     *
+     * @param diretorio diretório dos arquivos
+     * @param prefixo   prefixo dos nomes das famílias
+     * @return nomes das famílias
+     */
+    public static List<String> familiasEm(File diretorio, String prefixo) {
+        Set<String> familias = new TreeSet<>();
+        File[] arquivos = diretorio.listFiles((pasta, nome) -> nome.startsWith(prefixo));
+        if (arquivos == null)
+            return new ArrayList<>();
+
+        for (File arquivo : arquivos) {
+            String nome = arquivo.getName();
+            if (nome.endsWith(".txt"))
+                familias.add(nome.substring(0, nome.length() - ".txt".length()));
+            else if (nome.endsWith(".txt.anterior"))
+                familias.add(nome.substring(0, nome.length() - ".txt.anterior".length()));
+            else if (nome.endsWith(EXTENSAO_SEGMENTO) && nome.indexOf('.') < nome.length() - EXTENSAO_SEGMENTO.length())
+                familias.add(nome.substring(0, nome.lastIndexOf('.', nome.length() - EXTENSAO_SEGMENTO.length() - 1)));
+        }
+        return new ArrayList<>(familias);
+    }
+
+    /**
+     * Não possui retorno. Define a compressão dos próximos arquivos gravados. Os arquivos
+     * já gravados continuam com a compressão registrada nos seus cabeçalhos.
+     *
+     * @param nivel        nível de compressão, de 0 a 9, ou -1 para o nível padrão do Deflater
+     * @param tamanhoBloco tamanho máximo de cada bloco, em bytes
+     * @throws IllegalArgumentException caso o nível ou o tamanho do bloco sejam inválidos
+     */
+    @Override
+    public void configuraCompressao(int nivel, int tamanhoBloco) {
+        new Validador().validaCompressao(nivel, tamanhoBloco);
+        this.nivelDeCompressao = nivel;
+        this.tamanhoDoBloco = tamanhoBloco;
+    }
+
+    /**
+     * Retorna o arquivo base.
+     *
+     * @return arquivo base da família
+     */
+    public File getBase() {
+        return new File(this.diretorio, this.nome + ".txt");
+    }
+
+    /**
+     * Retorna a base anterior, substituída pela última mesclagem ou reescrita e usada
+     * caso a base atual esteja corrompida.
+     *
+     * @return arquivo da base anterior
+     */
+    public File getBaseAnterior() {
+        return new File(this.diretorio, this.nome + ".txt.anterior");
+    }
+
+    /**
+     * Retorna os segmentos existentes, do mais antigo para o mais novo.
+     *
+     * @return lista com os arquivos de segmento
+     */
+    public synchronized List<File> getSegmentos() {
+        List<File> segmentos = new ArrayList<>();
+        File[] arquivos = this.diretorio.listFiles();
+        if (arquivos == null)
+            return segmentos;
+
+        for (File arquivo : arquivos)
+            if (this.numeroDoSegmento(arquivo) >= 0)
+                segmentos.add(arquivo);
+        segmentos.sort(Comparator.comparingLong(this::numeroDoSegmento));
+        return segmentos;
+    }
+
+    /**
+     * Retorna o maior número de segmento existente, ou 0 caso não haja segmentos.
+     *
+     * @return maior número de segmento
+     */
+    @Override
+    public long getMaiorNumero() {
+        List<File> segmentos = this.getSegmentos();
+        return segmentos.isEmpty() ? 0 : this.numeroDoSegmento(segmentos.get(segmentos.size() - 1));
+    }
+
+    /**
+     * Retorna a quantidade de segmentos ainda não incorporados à base.
+     *
+     * @return quantidade de segmentos pendentes de mesclagem
+     */
+    @Override
+    public synchronized int contaSegmentosPendentes() {
+        long cobertura = this.getCobertura();
+        int pendentes = 0;
+        for (File segmento : this.getSegmentos())
+            if (this.numeroDoSegmento(segmento) > cobertura)
+                pendentes++;
+        return pendentes;
+    }
+
+    /**
+     * Lê a base e depois os segmentos de número até o limite passado, em ordem,
+     * retornando as entidades indexadas pela chave. A versão de uma entidade em um
+     * segmento mais novo substitui as anteriores. Caso a base esteja corrompida, ou
+     * ausente por uma queda durante a sua troca, a base anterior é lida no seu lugar.
+     *
+     * @param limite maior número de segmento a ser lido
+     * @return mapa com as entidades lidas
+     * @throws IOException erro de leitura, ou algum arquivo truncado ou corrompido
+     */
+    @Override
+    public Map<String, T> carrega(long limite) throws IOException {
+        Map<String, T> registros = new HashMap<>();
+        this.carrega(limite, registro -> registros.put(this.chave.apply(registro), registro), registros::clear);
+        return registros;
+    }
+
+    /**
+     * Não possui retorno. Lê a base e depois os segmentos de número até o limite passado,
+     * em ordem, passando cada entidade ao consumidor assim que é decodificada. Uma mesma
+     * chave pode ser recebida mais de uma vez, e a versão recebida por último é a mais
+     * nova. Caso a base esteja corrompida, ou ausente por uma queda durante a sua troca,
+     * o reinício é executado para descartar o que já foi recebido e a base anterior é
+     * lida no seu lugar.
+     *
+     * @param limite     maior número de segmento a ser lido
+     * @param consumidor consumidor das entidades lidas
+     * @param reinicio   descarta as entidades recebidas antes da leitura da base anterior
+     * @throws IOException erro de leitura, ou algum arquivo truncado ou corrompido
+     */
+    @Override
+    public synchronized void carrega(long limite, Consumer<T> consumidor, Runnable reinicio) throws IOException {
+        long cobertura;
+        try {
+            if (!this.getBase().exists() && this.getBaseAnterior().exists())
+                throw new IOException("base ausente durante a troca pela nova base");
+            cobertura = this.leArquivo(this.getBase(), consumidor);
+            this.cobertura = cobertura;
+        } catch (IOException ioe) {
+            if (!this.getBaseAnterior().exists())
+                throw ioe;
+            reinicio.run();
+            cobertura = this.leArquivo(this.getBaseAnterior(), consumidor);
+            this.cobertura = -1;
+        }
+
+        for (File segmento : this.getSegmentos()) {
+            long numero = this.numeroDoSegmento(segmento);
+            if (numero > cobertura && numero <= limite)
+                this.leArquivo(segmento, consumidor);
+        }
+    }
+
+    /**
+     * Não possui retorno. Grava as entidades passadas em um novo segmento. O segmento é
+     * gravado em um arquivo temporário, sincronizado com o disco e só então renomeado.
+     *
+     * @param registros entidades alteradas
+     * @param numero    número do segmento, maior que o de todos os existentes
+     * @throws IOException erro de escrita
+     */
+    @Override
+    public void acrescenta(Collection<T> registros, long numero) throws IOException {
+        File segmento = new File(this.diretorio, this.nome + "." + numero + EXTENSAO_SEGMENTO);
+        File temporario = new File(this.diretorio, segmento.getName() + ".tmp");
+
+        this.grava(registros, numero, temporario);
+        synchronized (this) {
+            Manifesto.instala(temporario, segmento);
+        }
+    }
+
+    /**
+     * Não possui retorno. Substitui a base pelas entidades passadas, que passam a
+     * representar a família inteira até o número passado.
+     *
+     * @param registros todas as entidades da família
+     * @param numero    número do salvamento que gravou a base
+     * @throws IOException erro de escrita
+     */
+    @Override
+    public void reescreve(Collection<T> registros, long numero) throws IOException {
+        File temporario = new File(this.diretorio, this.nome + ".txt.tmp");
+        this.grava(registros, numero, temporario);
+
+        synchronized (this) {
+            this.instalaBase(temporario, numero);
+            this.geracao++;
+        }
+    }
+
+    /**
+     * Não possui retorno. Junta a base e os segmentos de número até o limite passado em
+     * uma nova base. Os segmentos mesclados só são apagados na mesclagem seguinte, pois
+     * ainda são necessários caso a nova base se corrompa e a anterior precise ser lida.
+     * Caso o arquivo seja limpo ou reescrito durante a mesclagem, o resultado é descartado.
+     *
+     * @param limite maior número de segmento a ser mesclado
+     * @throws IOException erro de leitura ou escrita
+     */
+    @Override
+    public void mescla(long limite) throws IOException {
+        int geracaoInicial;
+        List<File> segmentos;
+        synchronized (this) {
+            if (this.mesclando)
+                return;
+            this.mesclando = true;
+            geracaoInicial = this.geracao;
+            segmentos = this.getSegmentos();
+        }
+
+        try {
+            Map<String, T> registros = new LinkedHashMap<>();
+            Consumer<T> acumulador = registro -> registros.put(this.chave.apply(registro), registro);
+            long cobertura = this.leArquivo(this.getBase(), acumulador);
+            long novaCobertura = cobertura;
+            for (File segmento : segmentos) {
+                long numero = this.numeroDoSegmento(segmento);
+                if (numero > cobertura && numero <= limite) {
+                    this.leArquivo(segmento, acumulador);
+                    novaCobertura = numero;
+                }
+            }
+            if (novaCobertura == cobertura)
+                return;
+
+            File temporario = new File(this.diretorio, this.nome + ".txt.mescla");
+            this.grava(registros.values(), novaCobertura, temporario);
+
+            synchronized (this) {
+                if (this.geracao != geracaoInicial) {
+                    Files.deleteIfExists(temporario.toPath());
+                    return;
+                }
+                this.instalaBase(temporario, novaCobertura);
+            }
+        } finally {
+            synchronized (this) {
+                this.mesclando = false;
+            }
+        }
+    }
+
+    /**
+     * Não possui retorno. Apaga a base, a base anterior e os segmentos.
+     *
+     * @throws IOException erro ao apagar os arquivos
+     */
+    @Override
+    public synchronized void limpa() throws IOException {
+        Files.deleteIfExists(this.getBase().toPath());
+        Files.deleteIfExists(this.getBaseAnterior().toPath());
+        for (File segmento : this.getSegmentos())
+            Files.deleteIfExists(segmento.toPath());
+        Manifesto.sincronizaDiretorio(this.diretorio);
+        this.cobertura = 0;
+        this.geracao++;
+    }
+
+    /**
+     * Não possui retorno. Instala uma nova base, guardando a atual como base anterior,
+     * e apaga os segmentos já incorporados às duas.
+     *
+     * @param temporario    arquivo com a nova base, já sincronizado com o disco
+     * @param novaCobertura maior número de segmento incorporado à nova base
+     * @throws IOException erro ao renomear ou apagar os arquivos
+     */
+    private void instalaBase(File temporario, long novaCobertura) throws IOException {
+        long coberturaAnterior = 0;
+        if (this.getBase().exists()) {
+            coberturaAnterior = this.getCobertura();
+            Manifesto.instala(this.getBase(), this.getBaseAnterior());
+        }
+        Manifesto.instala(temporario, this.getBase());
+        this.cobertura = novaCobertura;
+
+        for (File segmento : this.getSegmentos())
+            if (this.numeroDoSegmento(segmento) <= coberturaAnterior)
+                Files.deleteIfExists(segmento.toPath());
+    }
+
+    /**
+     * Retorna o maior número de segmento incorporado à base atual, lendo-o do arquivo
+     * caso ainda não seja conhecido. Uma base ilegível é tratada como vazia.
+     *
+     * @return cobertura da base atual
+     */
+    private long getCobertura() {
+        if (this.cobertura < 0) {
+            try {
+                this.cobertura = leCobertura(this.getBase());
+            } catch (IOException ioe) {
+                return 0;
+            }
+        }
+        return this.cobertura;
+    }
+
+    /**
+     * Não possui retorno. Grava as entidades em um arquivo dividido em blocos
+     * verificáveis e o sincroniza com o disco.
+     *
+     * @param registros entidades a serem gravadas
+     * @param cobertura número gravado no início do arquivo
+     * @param arquivo   arquivo de destino
+     * @throws IOException erro de escrita
+     */
+    private void grava(Collection<T> registros, long cobertura, File arquivo) throws IOException {
+        try (FileOutputStream saida = new FileOutputStream(arquivo)) {
+            SaidaEmBlocos blocos = new SaidaEmBlocos(saida, this.tamanhoDoBloco, this.nivelDeCompressao);
+            new DataOutputStream(blocos).writeLong(cobertura);
+            this.escrita.escreve(registros, blocos);
+            blocos.termina();
+            saida.getFD().sync();
+        }
+    }
+
+    /**
+     * Lê as entidades de um arquivo, retornando o número gravado no seu início.
+     * Arquivos gravados antes da divisão em blocos são lidos diretamente, e os gravados
+     * antes do formato binário são lidos com a serialização do Java. Arquivos vazios
+     * ou inexistentes não possuem entidades.
+     *
+     * @param arquivo    arquivo a ser lido
+     * @param consumidor consumidor das entidades lidas
+     * @return maior número de segmento incorporado ao arquivo, ou 0 caso não seja conhecido
+     * @throws IOException erro de leitura, ou arquivo truncado ou corrompido
+     */
+    @SuppressWarnings("unchecked")
+    private long leArquivo(File arquivo, Consumer<T> consumidor) throws IOException {
+        if (!arquivo.exists() || arquivo.length() == 0)
+            return 0;
+
+        int assinatura = leAssinatura(arquivo);
+        if (assinatura == SaidaEmBlocos.ASSINATURA || assinatura == SaidaEmBlocos.ASSINATURA_COMPRIMIDA) {
+            try (EntradaEmBlocos entrada = new EntradaEmBlocos(new FileInputStream(arquivo))) {
+                long cobertura = new DataInputStream(entrada).readLong();
+                this.leitura.le(entrada, consumidor);
+                entrada.verificaFim();
+                return cobertura;
+            }
+        }
+
+        if (assinatura == CodificadorDeEntidades.ASSINATURA) {
+            try (FileInputStream entrada = new FileInputStream(arquivo)) {
+                this.leitura.le(entrada, consumidor);
+            }
+            return 0;
+        }
+
+        try (ObjectInputStream entrada = new ObjectInputStream(new FileInputStream(arquivo))) {
+            for (T registro : (Collection<T>) entrada.readObject())
+                consumidor.accept(registro);
+        } catch (ClassNotFoundException cnfe) {
+            throw new IOException(cnfe);
+        }
+        return 0;
+    }
+
+    /**
+     * Lê o maior número de segmento incorporado a um arquivo, sem ler as entidades.
+     *
+     * @param arquivo arquivo a ser lido
+     * @return cobertura do arquivo, ou 0 caso não exista ou não seja dividido em blocos
+     * @throws IOException erro de leitura
+     */
+    private static long leCobertura(File arquivo) throws IOException {
+        if (!arquivo.exists())
+            return 0;
+        int assinatura = leAssinatura(arquivo);
+        if (assinatura != SaidaEmBlocos.ASSINATURA && assinatura != SaidaEmBlocos.ASSINATURA_COMPRIMIDA)
+            return 0;
+
+        try (EntradaEmBlocos entrada = new EntradaEmBlocos(new FileInputStream(arquivo))) {
+            return new DataInputStream(entrada).readLong();
+        }
+    }
+
+    /**
+     * Retorna os quatro primeiros bytes de um arquivo, que identificam o seu formato.
+     *
+     * @param arquivo arquivo a ser verificado
+     * @return assinatura do arquivo, ou 0 caso ele tenha menos de quatro bytes
+     * @throws IOException erro de leitura
+     */
+    private static int leAssinatura(File arquivo) throws IOException {
+        if (arquivo.length() < 4)
+            return 0;
+
+        try (DataInputStream entrada = new DataInputStream(new FileInputStream(arquivo))) {
+            return entrada.readInt();
+        }
+    }
+
+    /**
+     * Retorna o número de um arquivo de segmento desta família, ou -1 caso o arquivo
+     * não seja um segmento dela.
+     *
+     * @param arquivo arquivo a ser verificado
+     * @return número do segmento
+     */
+    private long numeroDoSegmento(File arquivo) {
+        String nomeArquivo = arquivo.getName();
+        String prefixo = this.nome + ".";
+        if (!nomeArquivo.startsWith(prefixo) || !nomeArquivo.endsWith(EXTENSAO_SEGMENTO))
+            return -1;
+
+        String numero = nomeArquivo.substring(prefixo.length(), nomeArquivo.length() - EXTENSAO_SEGMENTO.length());
+        try {
+            return Long.parseLong(numero);
+        } catch (NumberFormatException nfe) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package util;
+
+import interfaces.Armazenamento;
+import interfaces.ArmazenamentoDeFamilia;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Classe que guarda uma família de entidades em um único arquivo gravado com a
+ * serialização padrão do Java, como o sistema fazia antes do formato binário. O
+ * arquivo "nome.ser" contém o número do último salvamento seguido da lista de todas as
+ * entidades, de forma que um salvamento incremental lê o arquivo, aplica as entidades
+ * alteradas e o grava por inteiro novamente. Cada gravação é feita em um arquivo
+ * temporário, sincronizado com o disco e renomeado, e o arquivo substituído fica
+ * guardado como "nome.ser.anterior" para ser lido caso o manifesto ainda não registre
+ * o último salvamento.
+ *
+ * @param <T> tipo das entidades guardadas
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class ArquivoSerializado<T> implements ArmazenamentoDeFamilia<T> {
+
+    /**
+     * Diretório do arquivo.
+     */
+    private final File diretorio;
+
+    /**
+     * Nome da família, usado como nome do arquivo.
+     */
+    private final String nome;
+
+    /**
+     * Função que retorna a chave de uma entidade.
+     */
+    private final Function<T, String> chave;
+
+    /**
+     * Constrói o arquivo serializado de uma família de entidades.
+     *
+     * @param diretorio diretório do arquivo
+     * @param nome      nome da família
+     * @param chave     função que retorna a chave de uma entidade
+     */
+    public ArquivoSerializado(File diretorio, String nome, Function<T, String> chave) {
+        this.diretorio = diretorio;
+        this.nome = nome;
+        this.chave = chave;
+    }
+
+    /**
+     * Retorna o armazenamento que guarda cada família em um arquivo serializado no
+     * diretório passado.
+     *
+     * @param diretorio diretório dos arquivos
+     * @return armazenamento em arquivos serializados
+     */
+    public static Armazenamento emDiretorio(File diretorio) {
+        return new Armazenamento() {
+            @Override
+            public <E> ArmazenamentoDeFamilia<E> abre(String nome, Function<E, String> chave,
+                                                      ArquivoSegmentado.Escrita<E> escrita,
+                                                      ArquivoSegmentado.Leitura<E> leitura) {
+                return new ArquivoSerializado<>(diretorio, nome, chave);
+            }
+
+            @Override
+            public List<String> listaFamilias(String prefixo) {
+                Set<String> familias = new TreeSet<>();
+                File[] arquivos = diretorio.listFiles((pasta, nome) -> nome.startsWith(prefixo)
+                        && (nome.endsWith(".ser") || nome.endsWith(".ser.anterior")));
+                if (arquivos != null)
+                    for (File arquivo : arquivos)
+                        familias.add(arquivo.getName().substring(0, arquivo.getName().indexOf(".ser")));
+                return new ArrayList<>(familias);
+            }
+
+            @Override
+            public String getNome() {
+                return "serializado";
+            }
+
+            @Override
+            public File getDiretorio() {
+                return diretorio;
+            }
+        };
+    }
+
+    /**
+     * Retorna o arquivo com a versão mais recente da família.
+     *
+     * @return arquivo da família
+     */
+    public File getArquivo() {
+        return new File(this.diretorio, this.nome + ".ser");
+    }
+
+    /**
+     * Retorna o arquivo substituído pela última gravação.
+     *
+     * @return arquivo anterior da família
+     */
+    public File getArquivoAnterior() {
+        return new File(this.diretorio, this.nome + ".ser.anterior");
+    }
+
+    /**
+     * Retorna as entidades do arquivo mais novo gravado por um salvamento de número até
+     * o limite passado, indexadas pela chave. Caso nenhum arquivo exista, retorna um
+     * mapa vazio.
+     *
+     * @param limite maior número de salvamento a ser lido
+     * @return mapa com as entidades lidas
+     * @throws IOException erro de leitura, ou nenhum arquivo gravado até o limite
+     */
+    @Override
+    public synchronized Map<String, T> carrega(long limite) throws IOException {
+        Map<String, T> registros = new HashMap<>();
+        this.carrega(limite, registro -> registros.put(this.chave.apply(registro), registro), registros::clear);
+        return registros;
+    }
+
+    /**
+     * Não possui retorno. Lê as entidades do arquivo mais novo gravado por um salvamento
+     * de número até o limite passado, passando cada uma ao consumidor. Como o arquivo é
+     * lido por inteiro antes de as entidades serem passadas, o reinício nunca é executado.
+     *
+     * @param limite     maior número de salvamento a ser lido
+     * @param consumidor consumidor das entidades lidas
+     * @param reinicio   descarta as entidades recebidas antes de a leitura recomeçar
+     * @throws IOException erro de leitura, ou nenhum arquivo gravado até o limite
+     */
+    @Override
+    public synchronized void carrega(long limite, Consumer<T> consumidor, Runnable reinicio) throws IOException {
+        if (!this.getArquivo().exists() && !this.getArquivoAnterior().exists())
+            return;
+
+        IOException erro = null;
+        for (File arquivo : new File[]{this.getArquivo(), this.getArquivoAnterior()}) {
+            if (!arquivo.exists())
+                continue;
+            try {
+                Conteudo<T> conteudo = this.le(arquivo);
+                if (conteudo.numero <= limite) {
+                    conteudo.entidades.forEach(consumidor);
+                    return;
+                }
+                erro = new IOException("arquivo " + arquivo.getName() + " posterior ao salvamento " + limite);
+            } catch (IOException ioe) {
+                erro = ioe;
+            }
+        }
+        throw erro;
+    }
+
+    /**
+     * Não possui retorno. Lê o arquivo, substitui as entidades alteradas e o grava por
+     * inteiro com o número do salvamento.
+     *
+     * @param registros entidades alteradas
+     * @param numero    número do salvamento, maior que o de todos os anteriores
+     * @throws IOException erro de leitura ou escrita
+     */
+    @Override
+    public synchronized void acrescenta(Collection<T> registros, long numero) throws IOException {
+        Map<String, T> entidades = new LinkedHashMap<>();
+        if (this.getArquivo().exists())
+            for (T entidade : this.le(this.getArquivo()).entidades)
+                entidades.put(this.chave.apply(entidade), entidade);
+        for (T registro : registros)
+            entidades.put(this.chave.apply(registro), registro);
+        this.grava(entidades.values(), numero);
+    }
+
+    /**
+     * Não possui retorno. Grava o arquivo com as entidades passadas.
+     *
+     * @param registros todas as entidades da família
+     * @param numero    número do salvamento
+     * @throws IOException erro de escrita
+     */
+    @Override
+    public synchronized void reescreve(Collection<T> registros, long numero) throws IOException {
+        this.grava(registros, numero);
+    }
+
+    /**
+     * Não possui retorno. Todo salvamento já grava a família inteira, então não há o
+     * que mesclar.
+     *
+     * @param limite maior número de salvamento a ser mesclado
+     */
+    @Override
+    public void mescla(long limite) {
+    }
+
+    /**
+     * Não possui retorno. Apaga o arquivo e o arquivo anterior.
+     *
+     * @throws IOException erro ao apagar os arquivos
+     */
+    @Override
+    public synchronized void limpa() throws IOException {
+        Files.deleteIfExists(this.getArquivo().toPath());
+        Files.deleteIfExists(this.getArquivoAnterior().toPath());
+        Manifesto.sincronizaDiretorio(this.diretorio);
+    }
+
+    /**
+     * Retorna o número do salvamento que gravou o arquivo, ou 0 caso ele não exista ou
+     * não possa ser lido.
+     *
+     * @return maior número de salvamento
+     */
+    @Override
+    public synchronized long getMaiorNumero() {
+        if (!this.getArquivo().exists())
+            return 0;
+        try (ObjectInputStream leitor = new ObjectInputStream(new FileInputStream(this.getArquivo()))) {
+            return leitor.readLong();
+        } catch (IOException ioe) {
+            return 0;
+        }
+    }
+
+    /**
+     * Retorna 0, pois todo salvamento grava a família inteira.
+     *
+     * @return quantidade de salvamentos pendentes de mesclagem
+     */
+    @Override
+    public int contaSegmentosPendentes() {
+        return 0;
+    }
+
+    /**
+     * Lê o número do salvamento e as entidades de um arquivo.
+     *
+     * @param arquivo arquivo a ser lido
+     * @return conteúdo do arquivo
+     * @throws IOException erro de leitura, ou arquivo truncado ou corrompido
+     */
+    @SuppressWarnings("unchecked")
+    private Conteudo<T> le(File arquivo) throws IOException {
+        try (ObjectInputStream leitor = new ObjectInputStream(
+                new BufferedInputStream(new FileInputStream(arquivo)))) {
+            long numero = leitor.readLong();
+            return new Conteudo<>(numero, (List<T>) leitor.readObject());
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("arquivo " + arquivo.getName() + " com conteudo invalido", e);
+        }
+    }
+
+    /**
+     * Não possui retorno. Grava as entidades em um arquivo temporário, sincroniza-o com
+     * o disco e o instala no lugar do arquivo atual, que passa a ser o anterior.
+     *
+     * @param registros entidades a serem gravadas
+     * @param numero    número do salvamento
+     * @throws IOException erro de escrita
+     */
+    private void grava(Collection<T> registros, long numero) throws IOException {
+        File temporario = new File(this.diretorio, this.getArquivo().getName() + ".tmp");
+        try (FileOutputStream arquivo = new FileOutputStream(temporario)) {
+            ObjectOutputStream escritor = new ObjectOutputStream(new BufferedOutputStream(arquivo));
+            escritor.writeLong(numero);
+            escritor.writeObject(new ArrayList<>(registros));
+            escritor.flush();
+            arquivo.getFD().sync();
+        }
+
+        if (this.getArquivo().exists())
+            Manifesto.instala(this.getArquivo(), this.getArquivoAnterior());
+        Manifesto.instala(temporario, this.getArquivo());
+    }
+
+    /**
+     * Número do salvamento e entidades lidos de um arquivo.
+     *
+     * @param <T> tipo das entidades
+     */
+    private static final class Conteudo<T> {
+        private final long numero;
+        private final List<T> entidades;
+
+        private Conteudo(long numero, List<T> entidades) {
+            this.numero = numero;
+            this.entidades = entidades;
+        }
+    }
+}
@@ -1,21 +1,31 @@
 package util;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
-import comparators.ComparatorAprovacaoPropostaLegislativa;
-import comparators.ComparatorConclusaoPropostaLegislativa;
-import comparators.ComparatorConstitucionalPropostaLegislativa;
-import comparators.ComparatorIdadePropostaLegislativa;
-import comparators.ComparatorOrdemCriacaoPropostaLegislativa;
 import enums.EstrategiaBusca;
 import interfaces.PropostaLegislativa;
 
 /**
  * Classe que simula um buscador de propostas cadastradas.
+ * <p>
+ * As buscas podem ser feitas por várias threads ao mesmo tempo, inclusive enquanto
+ * uma proposta é adicionada, tem a sua situação atualizada ou deixa de ser arquivada,
+ * pois os índices são coleções concorrentes. Essas alterações devem ser feitas por uma
+ * thread de cada vez, como fazem os controllers. Já setPropostas e
+ * setPropostasArquivadas substituem todos os índices e só devem ser chamados sem
+ * buscas em andamento, como na carga do sistema.
  *
  * @author Jonathan Tavares da Silva
  * @author Mirella Quintans Lyra
@@ -25,14 +35,42 @@ import interfaces.PropostaLegislativa;
 public class Buscador {
 
     /**
-     * Estratégia de desempate atual entre propostas legislativas do buscador.
+     * Estratégia de desempate usada nas buscas que não informam uma estratégia.
      */
-    private Comparator<PropostaLegislativa> estrategiaAtual;
+    private volatile EstrategiaBusca estrategiaAtual;
+
+    /**
+     * Cache dos resultados de buscas por proposta mais relacionada.
+     */
+    private CacheDeRecomendacoes cache;
 
     /**
      * Conjunto de propostas legislativas cadastradas no sistema
      */
-    private Set<PropostaLegislativa> propostas;
+    private volatile Set<PropostaLegislativa> propostas;
+
+    /**
+     * Índice invertido que associa cada interesse às propostas que o possuem.
+     */
+    private volatile Map<String, Set<PropostaLegislativa>> indiceInteresses;
+
+    /**
+     * Conjunto das propostas que se encontram "EM VOTACAO", atualizado a cada
+     * cadastro e a cada mudança de situação informada ao buscador.
+     */
+    private volatile Set<PropostaLegislativa> propostasEmVotacao;
+
+    /**
+     * Quantidade de propostas arquivadas fora do buscador com cada conjunto de interesses.
+     * Elas nunca são retornadas, mas contam na maior quantidade de interesses em comum.
+     */
+    private volatile Map<String, Integer> interessesArquivados;
+
+    /**
+     * Índice invertido que associa cada interesse aos conjuntos de interesses arquivados
+     * que o possuem.
+     */
+    private volatile Map<String, Set<String>> indiceArquivados;
 
     /**
      * Constroi um buscador com base num conjunto de propostas do sistema
@@ -40,148 +78,342 @@ public class Buscador {
      * @param propostas conjunto de propostas já cadastrado no sistema
      */
     public Buscador(Set<PropostaLegislativa> propostas) {
-        this.estrategiaAtual = new ComparatorConstitucionalPropostaLegislativa();
-        this.propostas = propostas;
+        this.estrategiaAtual = EstrategiaBusca.CONSTITUCIONAL;
+        this.cache = new CacheDeRecomendacoes();
+        this.setPropostas(propostas);
     }
 
     /**
-     * Não possui retorno. Redefine o conjunto de propostas do buscador.
+     * Não possui retorno. Redefine o conjunto de propostas do buscador e
+     * reconstrói o índice de interesses, sem propostas arquivadas.
      *
      * @param propostas conjunto de propostas já cadastrado no sistema
      */
     public void setPropostas(Set<PropostaLegislativa> propostas) {
-        this.propostas = propostas;
+        Set<PropostaLegislativa> todas = ConcurrentHashMap.newKeySet();
+        Map<String, Set<PropostaLegislativa>> indice = new ConcurrentHashMap<>();
+        Set<PropostaLegislativa> emVotacao = ConcurrentHashMap.newKeySet();
+        for (PropostaLegislativa proposta : propostas) {
+            todas.add(proposta);
+            indexaInteresses(indice, proposta);
+            if ("EM VOTACAO".equals(proposta.getSituacaoAtual()))
+                emVotacao.add(proposta);
+        }
+
+        this.propostas = todas;
+        this.indiceInteresses = indice;
+        this.propostasEmVotacao = emVotacao;
+        this.interessesArquivados = new ConcurrentHashMap<>();
+        this.indiceArquivados = new ConcurrentHashMap<>();
+        this.cache.limpa();
+    }
+
+    /**
+     * Não possui retorno. Redefine as propostas arquivadas fora do buscador, como as do
+     * acervo, pela quantidade de propostas com cada conjunto de interesses. Assim a maior
+     * quantidade de interesses em comum é a mesma de quando todas as propostas estavam
+     * no buscador.
+     *
+     * @param interesses quantidade de propostas arquivadas por conjunto de interesses,
+     *                   separados por vírgula
+     */
+    public void setPropostasArquivadas(Map<String, Integer> interesses) {
+        Map<String, Set<String>> indice = new ConcurrentHashMap<>();
+        for (String conjunto : interesses.keySet())
+            for (String interesse : conjunto.split(","))
+                indice.computeIfAbsent(interesse, chave -> ConcurrentHashMap.newKeySet()).add(conjunto);
+
+        this.interessesArquivados = new ConcurrentHashMap<>(interesses);
+        this.indiceArquivados = indice;
+        this.cache.limpa();
+    }
+
+    /**
+     * Não possui retorno. Deixa de considerar uma proposta arquivada, que deve ser
+     * adicionada ao buscador caso volte para a memória.
+     *
+     * @param interesses interesses da proposta, separados por vírgula
+     */
+    public void removePropostaArquivada(String interesses) {
+        if (!this.interessesArquivados.containsKey(interesses))
+            return;
+
+        if (this.interessesArquivados.computeIfPresent(interesses,
+                (conjunto, quantidade) -> (quantidade > 1) ? quantidade - 1 : null) == null) {
+            for (String interesse : interesses.split(",")) {
+                Set<String> conjuntos = this.indiceArquivados.get(interesse);
+                if (conjuntos != null)
+                    conjuntos.remove(interesses);
+            }
+        }
+        this.cache.invalida(interesses);
+    }
+
+    /**
+     * Não possui retorno. Adiciona uma proposta recém cadastrada ao buscador,
+     * atualizando o índice de interesses.
+     *
+     * @param proposta proposta legislativa cadastrada
+     */
+    public void adicionaProposta(PropostaLegislativa proposta) {
+        this.propostas.add(proposta);
+        indexaInteresses(this.indiceInteresses, proposta);
+        this.atualizaSituacao(proposta);
+    }
+
+    /**
+     * Não possui retorno. Deve ser chamado após uma votação para que o buscador
+     * passe a considerar, ou deixe de considerar, a proposta como "EM VOTACAO".
+     * Toda votação altera a situação ou o local de votação da proposta, portanto
+     * os resultados da cache que dependem dos seus interesses são descartados.
+     *
+     * @param proposta proposta legislativa que teve sua situação alterada
+     */
+    public void atualizaSituacao(PropostaLegislativa proposta) {
+        if ("EM VOTACAO".equals(proposta.getSituacaoAtual()))
+            this.propostasEmVotacao.add(proposta);
+        else
+            this.propostasEmVotacao.remove(proposta);
+
+        this.cache.invalida(proposta.getInteresses());
+    }
+
+    /**
+     * Retorna uma visão somente leitura das propostas que se encontram "EM VOTACAO".
+     *
+     * @return Set somente leitura de propostas em votação
+     */
+    public Set<PropostaLegislativa> getPropostasEmVotacao() {
+        return Collections.unmodifiableSet(this.propostasEmVotacao);
+    }
+
+    /**
+     * Não possui retorno. Registra a proposta no índice sob cada um dos seus
+     * interesses.
+     *
+     * @param indice   índice de interesses
+     * @param proposta proposta legislativa a ser indexada
+     */
+    private static void indexaInteresses(Map<String, Set<PropostaLegislativa>> indice, PropostaLegislativa proposta) {
+        for (String interesse : proposta.getInteresses().split(","))
+            indice.computeIfAbsent(interesse, chave -> ConcurrentHashMap.newKeySet()).add(proposta);
     }
 
     /**
      * Redefine a estratégia de desempate atual por outra presente no enum
-     * EstrategiaBusca.
+     * EstrategiaBusca. A estratégia atual só é usada nas buscas que não
+     * informam uma estratégia própria.
      *
      * @param estrategiaAtual enum contendo qual tipo de critério desempate será usado
      */
     public void setEstrategiaAtual(EstrategiaBusca estrategiaAtual) {
-        if (EstrategiaBusca.APROVACAO.equals(estrategiaAtual)) {
-            this.estrategiaAtual = new ComparatorAprovacaoPropostaLegislativa();
-        }
-        if (EstrategiaBusca.CONCLUSAO.equals(estrategiaAtual)) {
-            this.estrategiaAtual = new ComparatorConclusaoPropostaLegislativa();
-        }
-        if (EstrategiaBusca.CONSTITUCIONAL.equals(estrategiaAtual)) {
-            this.estrategiaAtual = new ComparatorConstitucionalPropostaLegislativa();
-        }
+        if (estrategiaAtual != null)
+            this.estrategiaAtual = estrategiaAtual;
     }
 
     /**
-     * Retorna o código da proposta mais relacionada com os interesses passados como parâmetro.
-     * Se não houver interesses em comum entre as propostas do sistema e as propostas passadas
-     * como parâmetro, é retornada uma String vazia.
+     * Retorna a estratégia de desempate atual.
+     *
+     * @return estratégia usada nas buscas que não informam uma estratégia própria
+     */
+    public EstrategiaBusca getEstrategiaAtual() {
+        return this.estrategiaAtual;
+    }
+
+    /**
+     * Retorna o código da proposta mais relacionada com os interesses passados como parâmetro,
+     * usando a estratégia de desempate atual. Se não houver interesses em comum entre as
+     * propostas do sistema e as propostas passadas como parâmetro, é retornada uma String vazia.
      *
      * @param interessesUsuario array de String contendo os interesses do usuário
      * @return String com o código da proposta mais relacionada com os interesses do usuário
      */
     public String buscaMaisRelacionado(String[] interessesUsuario) {
-        //Filtra propostas "EM VOTACAO"
-        Set<PropostaLegislativa> propostasEmVotacao = this.propostas
-                .stream()
-                .filter(proposta -> "EM VOTACAO".equals(proposta.getSituacaoAtual()))
-                .collect(Collectors.toSet());
-
-        //Filtra propostas com mais interesses em comum
-        Set<PropostaLegislativa> propostasMaisInteressantes = propostasEmVotacao
-                .stream()
-                .filter(proposta -> (getQntdInteressesEmComum(proposta, interessesUsuario) == getQtdMaxInteressesComuns(interessesUsuario)
-                        && getQntdInteressesEmComum(proposta, interessesUsuario) != 0))
-                .collect(Collectors.toSet());
-
-        List<PropostaLegislativa> propostasMaisRelacionadas = new ArrayList<>(propostasMaisInteressantes);
-
-        //Se possuir uma proposta de maior interesse, a retorna
-        if (propostasMaisRelacionadas.isEmpty()) {
-            return "";
-        } else if (propostasMaisRelacionadas.size() == 1) {
-            return propostasMaisRelacionadas.get(0).getCodigo();
-        }
+        return this.buscaMaisRelacionado(interessesUsuario, this.estrategiaAtual);
+    }
 
-        //Define o modelo a se seguir na filtragem de acordo com a estratégia definida
-        PropostaLegislativa propModelo = propostasMaisRelacionadas
-                .stream()
-                .min(this.estrategiaAtual)
-                .get();
-
-        //Filtra os itens que não seguirem a estratégia definida
-        propostasMaisRelacionadas = propostasMaisRelacionadas
-                .stream()
-                .filter
-                        (proposta -> (this.estrategiaAtual.compare(proposta, propModelo) == 0))
-                .collect(Collectors.toList());
-
-        //Se encontrar uma proposta única, a retorna
-        if (propostasMaisRelacionadas.size() == 1) {
-            return propostasMaisRelacionadas.get(0).getCodigo();
+    /**
+     * Retorna o código da proposta mais relacionada com os interesses passados como parâmetro,
+     * usando a estratégia de desempate informada. O estado do buscador não é alterado, o que
+     * permite atender buscas de usuários com estratégias diferentes ao mesmo tempo. Se não
+     * houver interesses em comum, é retornada uma String vazia.
+     *
+     * @param interessesUsuario array de String contendo os interesses do usuário
+     * @param estrategia        estratégia de desempate da busca
+     * @return String com o código da proposta mais relacionada com os interesses do usuário
+     */
+    public String buscaMaisRelacionado(String[] interessesUsuario, EstrategiaBusca estrategia) {
+        String chave = CacheDeRecomendacoes.chave(interessesUsuario, estrategia);
+        long versao = this.cache.getVersao();
+        String resultado = this.cache.busca(chave);
+
+        if (resultado == null) {
+            resultado = this.calculaMaisRelacionado(interessesUsuario, estrategia);
+            this.cache.armazena(chave, resultado, versao);
         }
 
-        //Define o menor ano a ser buscado como desempate
-        int menorAno = propostasMaisRelacionadas
-                .stream()
-                .min(new ComparatorIdadePropostaLegislativa())
-                .get()
-                .getAno();
-        //Mantem na lista somente os itens de menor ano
-        propostasMaisRelacionadas = propostasMaisRelacionadas.stream().filter(proposta -> proposta.getAno() == menorAno).collect(Collectors.toList());
-
-        //Retorna se chegar a somente uma proposta
-        if (propostasMaisRelacionadas.size() == 1) {
-            return propostasMaisRelacionadas.get(0).getCodigo();
+        return resultado;
+    }
+
+    /**
+     * Calcula o código da proposta mais relacionada com os interesses passados como parâmetro,
+     * sem consultar a cache.
+     *
+     * @param interessesUsuario array de String contendo os interesses do usuário
+     * @param estrategia        estratégia de desempate da busca
+     * @return String com o código da proposta mais relacionada com os interesses do usuário
+     */
+    private String calculaMaisRelacionado(String[] interessesUsuario, EstrategiaBusca estrategia) {
+        //Pontua somente as propostas que possuem algum interesse do usuário
+        Map<PropostaLegislativa, Integer> interessesEmComum = this.contaInteressesEmComum(interessesUsuario);
+        int maiorQntdInteressesComuns = 0;
+        for (int qntdInteressesComuns : interessesEmComum.values())
+            maiorQntdInteressesComuns = Math.max(maiorQntdInteressesComuns, qntdInteressesComuns);
+        for (int qntdInteressesComuns : this.contaInteressesArquivadosEmComum(interessesUsuario).values())
+            maiorQntdInteressesComuns = Math.max(maiorQntdInteressesComuns, qntdInteressesComuns);
+
+        //Entre as propostas "EM VOTACAO" com mais interesses em comum, a de menor chave vence
+        //o desempate pela estratégia, pelo ano e pela ordem de cadastro, nessa ordem
+        PropostaLegislativa propostaMaisRelacionada = null;
+        long menorChave = Long.MAX_VALUE;
+        for (Map.Entry<PropostaLegislativa, Integer> pontuacao : interessesEmComum.entrySet()) {
+            PropostaLegislativa proposta = pontuacao.getKey();
+            if (pontuacao.getValue() != maiorQntdInteressesComuns || !this.propostasEmVotacao.contains(proposta))
+                continue;
+
+            long chave = proposta.getChaveDeOrdenacao(estrategia);
+            if (chave < menorChave) {
+                menorChave = chave;
+                propostaMaisRelacionada = proposta;
+            }
         }
 
-        //Finalmente pega a primeira proposta a ser cadastrada no conjunto e a retorna
-        PropostaLegislativa propostaMaisRelacionada = propostasMaisRelacionadas
-                .stream()
-                .min(new ComparatorOrdemCriacaoPropostaLegislativa())
-                .get();
+        return (propostaMaisRelacionada == null) ? "" : propostaMaisRelacionada.getCodigo();
+    }
+
+    /**
+     * Não possui retorno. Busca a proposta mais relacionada para cada consulta de um lote,
+     * dividindo o trabalho entre os núcleos disponíveis através do framework fork/join.
+     * Consultas com a mesma String de interesses e a mesma estratégia compartilham o resultado,
+     * que é calculado apenas uma vez. Cada resultado é entregue ao consumidor assim que calculado, a partir
+     * de threads diferentes, portanto o consumidor deve ser seguro para uso concorrente.
+     * As propostas alteradas durante a busca podem ou não ser consideradas nas consultas
+     * ainda não respondidas.
+     *
+     * @param consultas  consultas a serem respondidas
+     * @param interesses função que obtém a String de interesses, separados por vírgula, de uma consulta
+     * @param estrategia função que obtém a estratégia de desempate de uma consulta
+     * @param consumidor recebe cada consulta e o código da sua proposta mais relacionada
+     * @param <T>        tipo das consultas
+     */
+    public <T> void buscaMaisRelacionadoEmLote(Collection<T> consultas, Function<T, String> interesses,
+                                               Function<T, EstrategiaBusca> estrategia, BiConsumer<T, String> consumidor) {
+        Map<EstrategiaBusca, Map<String, String>> resultadosPorPerfil = new EnumMap<>(EstrategiaBusca.class);
+        for (EstrategiaBusca estrategiaBusca : EstrategiaBusca.values())
+            resultadosPorPerfil.put(estrategiaBusca, new ConcurrentHashMap<>());
 
-        return propostaMaisRelacionada.getCodigo();
+        consultas.parallelStream().forEach(consulta -> {
+            EstrategiaBusca estrategiaDaConsulta = estrategia.apply(consulta);
+            String codigo = resultadosPorPerfil.get(estrategiaDaConsulta).computeIfAbsent(interesses.apply(consulta),
+                    perfil -> this.buscaMaisRelacionado(perfil.split(","), estrategiaDaConsulta));
+            consumidor.accept(consulta, codigo);
+        });
     }
 
     /**
-     * Retorna a quantidade de interesses em comum que uma proposta tem com o array de interesses
-     * passado como parâmetro.
+     * Retorna os códigos das propostas "EM VOTACAO" mais relacionadas com os interesses
+     * passados como parâmetro, da mais relacionada para a menos relacionada. As propostas
+     * são ordenadas pelo número de interesses em comum e, em caso de empate, pela
+     * estratégia de desempate, pelo ano e pela ordem de cadastro. Propostas sem interesses em
+     * comum não são retornadas. Apenas as melhores propostas são mantidas durante a busca,
+     * sem ordenar todas as candidatas.
      *
-     * @param proposta          proposta legislativa que se quer saber o número de interesses em comum
      * @param interessesUsuario array de String contendo os interesses do usuário
-     * @return numero de interesses em comum entre a propostas e os interesses do usuario
+     * @param quantidade        número máximo de propostas a serem retornadas
+     * @return lista com os códigos das propostas mais relacionadas, em ordem
      */
-    private int getQntdInteressesEmComum(PropostaLegislativa proposta, String[] interessesUsuario) {
+    public List<String> buscaMaisRelacionados(String[] interessesUsuario, int quantidade) {
+        return this.buscaMaisRelacionados(interessesUsuario, this.estrategiaAtual, quantidade);
+    }
 
-        List<String> interessesProposta = new ArrayList<>();
-        for (String interesseProposta : proposta.getInteresses().split(",")) {
-            interessesProposta.add(interesseProposta);
-        }
+    /**
+     * Retorna os códigos das propostas "EM VOTACAO" mais relacionadas com os interesses
+     * passados como parâmetro, usando a estratégia de desempate informada, sem alterar o
+     * estado do buscador.
+     *
+     * @param interessesUsuario array de String contendo os interesses do usuário
+     * @param estrategia        estratégia de desempate da busca
+     * @param quantidade        número máximo de propostas a serem retornadas
+     * @return lista com os códigos das propostas mais relacionadas, em ordem
+     */
+    public List<String> buscaMaisRelacionados(String[] interessesUsuario, EstrategiaBusca estrategia, int quantidade) {
+        Map<PropostaLegislativa, Integer> interessesEmComum = this.contaInteressesEmComum(interessesUsuario);
 
-        int interessesEmComum = 0;
-        for (String interesseUsuario : interessesUsuario) {
-            if (interessesProposta.contains(interesseUsuario)) {
-                interessesEmComum++;
-            }
+        Comparator<PropostaLegislativa> ordem = Comparator
+                .<PropostaLegislativa>comparingInt(interessesEmComum::get)
+                .reversed()
+                .thenComparingLong(proposta -> proposta.getChaveDeOrdenacao(estrategia));
+
+        //Mantém no topo do heap a pior das melhores propostas encontradas até o momento
+        PriorityQueue<PropostaLegislativa> melhores = new PriorityQueue<>(quantidade, ordem.reversed());
+        for (PropostaLegislativa proposta : interessesEmComum.keySet()) {
+            if (!this.propostasEmVotacao.contains(proposta))
+                continue;
+
+            melhores.offer(proposta);
+            if (melhores.size() > quantidade)
+                melhores.poll();
         }
+
+        List<String> codigos = new ArrayList<>(melhores.size());
+        while (!melhores.isEmpty())
+            codigos.add(melhores.poll().getCodigo());
+        Collections.reverse(codigos);
+
+        return codigos;
+    }
+
+    /**
+     * Retorna a cache de resultados do buscador, que informa suas métricas de uso.
+     *
+     * @return cache de resultados do buscador
+     */
+    public CacheDeRecomendacoes getCache() {
+        return this.cache;
+    }
+
+    /**
+     * Retorna, para cada proposta que possui ao menos um dos interesses passados como
+     * parâmetro, a quantidade de interesses em comum. Somente as propostas associadas
+     * a esses interesses no índice são visitadas.
+     *
+     * @param interessesUsuario array de String contendo os interesses do usuário
+     * @return mapa de propostas para o número de interesses em comum com o usuário
+     */
+    private Map<PropostaLegislativa, Integer> contaInteressesEmComum(String[] interessesUsuario) {
+        Map<PropostaLegislativa, Integer> interessesEmComum = new HashMap<>();
+
+        for (String interesseUsuario : interessesUsuario)
+            for (PropostaLegislativa proposta : this.indiceInteresses.getOrDefault(interesseUsuario, Collections.emptySet()))
+                interessesEmComum.merge(proposta, 1, Integer::sum);
+
         return interessesEmComum;
     }
 
     /**
-     * Retorna o número maximo de interesses comuns existentes com alguma proposta
-     * do conjunto de propostas existentes no buscador.
+     * Retorna, para cada conjunto de interesses arquivado que possui ao menos um dos
+     * interesses passados como parâmetro, a quantidade de interesses em comum.
      *
-     * @param interessesUsuario array de String contendo os interesses dos usuarios
-     * @return máximo valor de interesses em comum existentes entre alguma das propostas do sistema
+     * @param interessesUsuario array de String contendo os interesses do usuário
+     * @return mapa de conjuntos de interesses para o número de interesses em comum com o usuário
      */
-    private int getQtdMaxInteressesComuns(String[] interessesUsuario) {
-        int maiorQntdInteressesComuns = 0;
-        for (PropostaLegislativa proposta : this.propostas) {
-            int qntInterComuns = getQntdInteressesEmComum(proposta, interessesUsuario);
-            if (qntInterComuns > maiorQntdInteressesComuns) {
-                maiorQntdInteressesComuns = qntInterComuns;
-            }
-        }
-        return maiorQntdInteressesComuns;
+    private Map<String, Integer> contaInteressesArquivadosEmComum(String[] interessesUsuario) {
+        Map<String, Integer> interessesEmComum = new HashMap<>();
+
+        for (String interesseUsuario : interessesUsuario)
+            for (String conjunto : this.indiceArquivados.getOrDefault(interesseUsuario, Collections.emptySet()))
+                interessesEmComum.merge(conjunto, 1, Integer::sum);
+
+        return interessesEmComum;
     }
 }
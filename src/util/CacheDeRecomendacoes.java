@@ -0,0 +1,335 @@
+package util;
+
+import enums.EstrategiaBusca;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Classe que guarda os resultados das buscas por proposta mais relacionada. Cada
+ * resultado é identificado pelos interesses do usuário, em ordem, e pela estratégia
+ * de desempate utilizada. Quando a quantidade de resultados ou a memória estimada
+ * ocupada por eles passa do limite, os resultados usados há mais tempo são
+ * descartados. A memória de cada resultado é estimada pelo tamanho da chave e do
+ * código e pela quantidade de interesses, sem medir os objetos da JVM. Os resultados
+ * são invalidados somente quando uma proposta que possui algum dos seus interesses é
+ * alterada, e um resultado calculado antes de uma invalidação não é armazenado depois
+ * dela.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class CacheDeRecomendacoes {
+
+    /**
+     * Capacidade padrão, em número de resultados armazenados.
+     */
+    public static final int CAPACIDADE_PADRAO = 10_000;
+
+    /**
+     * Limite padrão da memória estimada ocupada pelos resultados, em bytes.
+     */
+    public static final long LIMITE_PADRAO_EM_BYTES = 4L << 20;
+
+    /**
+     * Memória estimada de um resultado, em bytes, sem contar os caracteres da chave e do
+     * código: a entrada do mapa, os dois objetos String e os seus arrays.
+     */
+    private static final int BYTES_POR_RESULTADO = 128;
+
+    /**
+     * Memória estimada da referência a um resultado no índice de um dos seus interesses.
+     */
+    private static final int BYTES_POR_INTERESSE = 48;
+
+    /**
+     * Separa a estratégia dos interesses na chave de um resultado.
+     */
+    private static final String SEPARADOR = "|";
+
+    /**
+     * Número máximo de resultados armazenados.
+     */
+    private final int capacidade;
+
+    /**
+     * Memória estimada máxima ocupada pelos resultados, em bytes.
+     */
+    private final long limiteEmBytes;
+
+    /**
+     * Memória estimada ocupada pelos resultados armazenados, em bytes.
+     */
+    private long bytesOcupados;
+
+    /**
+     * Versão dos resultados, incrementada a cada invalidação. Um resultado só é
+     * armazenado caso a versão não tenha mudado desde o início do seu cálculo.
+     */
+    private long versao;
+
+    /**
+     * Resultados armazenados, ordenados do usado há mais tempo para o usado mais recentemente.
+     */
+    private final Map<String, String> resultados;
+
+    /**
+     * Associa cada interesse às chaves dos resultados que dependem dele.
+     */
+    private final Map<String, Set<String>> chavesPorInteresse;
+
+    /**
+     * Quantidade de buscas respondidas pela cache.
+     */
+    private long acertos;
+
+    /**
+     * Quantidade de buscas que não estavam na cache.
+     */
+    private long falhas;
+
+    /**
+     * Constrói uma cache com a capacidade e o limite de memória padrão.
+     */
+    public CacheDeRecomendacoes() {
+        this(CAPACIDADE_PADRAO, LIMITE_PADRAO_EM_BYTES);
+    }
+
+    /**
+     * Constrói uma cache que armazena no máximo a quantidade de resultados passada, com
+     * o limite de memória padrão.
+     *
+     * @param capacidade número máximo de resultados armazenados
+     * @throws IllegalArgumentException caso a capacidade não seja positiva
+     */
+    public CacheDeRecomendacoes(int capacidade) {
+        this(capacidade, LIMITE_PADRAO_EM_BYTES);
+    }
+
+    /**
+     * Constrói uma cache que armazena no máximo a quantidade de resultados passada e
+     * cujos resultados ocupam no máximo a memória estimada passada.
+     *
+     * @param capacidade    número máximo de resultados armazenados
+     * @param limiteEmBytes memória estimada máxima ocupada pelos resultados, em bytes
+     * @throws IllegalArgumentException caso a capacidade ou o limite não sejam positivos
+     */
+    public CacheDeRecomendacoes(int capacidade, long limiteEmBytes) {
+        if (capacidade <= 0 || limiteEmBytes <= 0)
+            throw new IllegalArgumentException("Erro ao criar cache: capacidade invalida");
+
+        this.capacidade = capacidade;
+        this.limiteEmBytes = limiteEmBytes;
+        this.chavesPorInteresse = new HashMap<>();
+        this.resultados = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Retorna a chave que identifica uma busca. A ordem dos interesses não altera a chave,
+     * mas interesses repetidos são mantidos, pois contam mais de uma vez na busca.
+     *
+     * @param interessesUsuario interesses do usuário
+     * @param estrategia        estratégia de desempate da busca
+     * @return chave da busca
+     */
+    public static String chave(String[] interessesUsuario, EstrategiaBusca estrategia) {
+        String[] interessesOrdenados = interessesUsuario.clone();
+        Arrays.sort(interessesOrdenados);
+
+        return estrategia.name() + SEPARADOR + String.join(",", interessesOrdenados);
+    }
+
+    /**
+     * Retorna o resultado armazenado para uma chave, ou null caso não exista.
+     *
+     * @param chave chave da busca
+     * @return código da proposta mais relacionada armazenado, ou null
+     */
+    public synchronized String busca(String chave) {
+        String resultado = this.resultados.get(chave);
+
+        if (resultado == null)
+            this.falhas++;
+        else
+            this.acertos++;
+
+        return resultado;
+    }
+
+    /**
+     * Retorna a versão atual dos resultados, que deve ser lida antes de o resultado de
+     * uma busca ser calculado e passada a {@link #armazena(String, String, long)}.
+     *
+     * @return versão dos resultados
+     */
+    public synchronized long getVersao() {
+        return this.versao;
+    }
+
+    /**
+     * Não possui retorno. Armazena o resultado de uma busca calculado a partir do
+     * estado atual.
+     *
+     * @param chave     chave da busca
+     * @param resultado código da proposta mais relacionada
+     */
+    public synchronized void armazena(String chave, String resultado) {
+        this.armazena(chave, resultado, this.versao);
+    }
+
+    /**
+     * Não possui retorno. Armazena o resultado de uma busca, caso nenhuma invalidação
+     * tenha ocorrido desde que a versão passada foi lida. Em seguida descarta os
+     * resultados usados há mais tempo até que a quantidade e a memória estimada voltem
+     * ao limite.
+     *
+     * @param chave     chave da busca
+     * @param resultado código da proposta mais relacionada
+     * @param versao    versão lida antes do cálculo do resultado
+     * @return true caso o resultado tenha sido armazenado
+     */
+    public synchronized boolean armazena(String chave, String resultado, long versao) {
+        if (versao != this.versao)
+            return false;
+
+        String anterior = this.resultados.put(chave, resultado);
+        if (anterior != null) {
+            this.bytesOcupados += 2L * (resultado.length() - anterior.length());
+        } else {
+            this.bytesOcupados += bytesEstimados(chave, resultado);
+            for (String interesse : interessesDaChave(chave))
+                this.chavesPorInteresse.computeIfAbsent(interesse, i -> new HashSet<>()).add(chave);
+        }
+
+        Iterator<Map.Entry<String, String>> maisAntigos = this.resultados.entrySet().iterator();
+        while (this.resultados.size() > this.capacidade || this.bytesOcupados > this.limiteEmBytes) {
+            Map.Entry<String, String> maisAntigo = maisAntigos.next();
+            this.bytesOcupados -= bytesEstimados(maisAntigo.getKey(), maisAntigo.getValue());
+            this.desindexa(maisAntigo.getKey());
+            maisAntigos.remove();
+        }
+        return true;
+    }
+
+    /**
+     * Não possui retorno. Descarta os resultados que dependem de algum dos interesses de
+     * uma proposta alterada.
+     *
+     * @param interessesProposta interesses da proposta, separados por vírgula
+     */
+    public synchronized void invalida(String interessesProposta) {
+        this.versao++;
+        for (String interesse : interessesProposta.split(",")) {
+            Set<String> chaves = this.chavesPorInteresse.get(interesse);
+            if (chaves == null)
+                continue;
+
+            for (String chave : chaves.toArray(new String[0])) {
+                this.bytesOcupados -= bytesEstimados(chave, this.resultados.remove(chave));
+                this.desindexa(chave);
+            }
+        }
+    }
+
+    /**
+     * Não possui retorno. Descarta todos os resultados armazenados.
+     */
+    public synchronized void limpa() {
+        this.versao++;
+        this.resultados.clear();
+        this.chavesPorInteresse.clear();
+        this.bytesOcupados = 0;
+    }
+
+    /**
+     * Retorna a memória estimada ocupada por um resultado e pelas suas referências no
+     * índice de interesses, contando dois bytes por caractere.
+     *
+     * @param chave     chave da busca
+     * @param resultado código da proposta mais relacionada
+     * @return memória estimada, em bytes
+     */
+    private static long bytesEstimados(String chave, String resultado) {
+        return BYTES_POR_RESULTADO + 2L * (chave.length() + resultado.length())
+                + (long) BYTES_POR_INTERESSE * interessesDaChave(chave).length;
+    }
+
+    /**
+     * Não possui retorno. Remove uma chave do índice de interesses.
+     *
+     * @param chave chave a ser removida
+     */
+    private void desindexa(String chave) {
+        for (String interesse : interessesDaChave(chave)) {
+            Set<String> chaves = this.chavesPorInteresse.get(interesse);
+            if (chaves != null) {
+                chaves.remove(chave);
+                if (chaves.isEmpty())
+                    this.chavesPorInteresse.remove(interesse);
+            }
+        }
+    }
+
+    /**
+     * Retorna os interesses que compõem uma chave.
+     *
+     * @param chave chave da busca
+     * @return array com os interesses da chave
+     */
+    private static String[] interessesDaChave(String chave) {
+        return chave.substring(chave.indexOf(SEPARADOR) + 1).split(",");
+    }
+
+    /**
+     * Retorna a quantidade de buscas respondidas pela cache.
+     *
+     * @return número de acertos
+     */
+    public synchronized long getAcertos() {
+        return this.acertos;
+    }
+
+    /**
+     * Retorna a quantidade de buscas que não estavam na cache.
+     *
+     * @return número de falhas
+     */
+    public synchronized long getFalhas() {
+        return this.falhas;
+    }
+
+    /**
+     * Retorna a quantidade de resultados armazenados.
+     *
+     * @return número de resultados armazenados
+     */
+    public synchronized int getTamanho() {
+        return this.resultados.size();
+    }
+
+    /**
+     * Retorna a memória estimada ocupada pelos resultados armazenados.
+     *
+     * @return memória estimada, em bytes
+     */
+    public synchronized long getBytesOcupados() {
+        return this.bytesOcupados;
+    }
+
+    /**
+     * Retorna uma representação em String das métricas da cache.
+     *
+     * @return String no formato "Acertos: a - Falhas: f - Resultados: r"
+     */
+    @Override
+    public synchronized String toString() {
+        return "Acertos: " + this.acertos + " - Falhas: " + this.falhas + " - Resultados: " + this.resultados.size();
+    }
+}
@@ -0,0 +1,513 @@
+package util;
+
+import entities.Comissao;
+import entities.Deputado;
+import entities.PEC;
+import entities.PL;
+import entities.PLP;
+import entities.Partido;
+import entities.Pessoa;
+import entities.Projeto;
+import enums.EstrategiaBusca;
+import enums.SituacaoVotacao;
+import enums.TipoProjeto;
+import interfaces.PropostaLegislativa;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Classe que converte as entidades do sistema para o formato binário dos arquivos
+ * de dados e vice-versa. Cada arquivo começa com a assinatura "ECOB", a versão do
+ * formato e a família de entidades que ele guarda, seguidos da quantidade de
+ * registros e dos registros em si. A versão 2 acrescenta ao registro das propostas
+ * o histórico da tramitação; arquivos da versão 1 continuam sendo lidos, com o
+ * histórico vazio.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class CodificadorDeEntidades {
+
+    /**
+     * Assinatura que identifica um arquivo no formato binário ("ECOB").
+     */
+    public static final int ASSINATURA = 0x45434F42;
+
+    /**
+     * Versão atual do formato.
+     */
+    public static final int VERSAO = 2;
+
+    /**
+     * Família de um arquivo de pessoas.
+     */
+    public static final int FAMILIA_PESSOAS = 1;
+
+    /**
+     * Família de um arquivo de partidos.
+     */
+    public static final int FAMILIA_PARTIDOS = 2;
+
+    /**
+     * Família de um arquivo de comissões.
+     */
+    public static final int FAMILIA_COMISSOES = 3;
+
+    /**
+     * Família de um arquivo de propostas.
+     */
+    public static final int FAMILIA_PROPOSTAS = 4;
+
+    /**
+     * Indica que a pessoa não possui cargo político.
+     */
+    private static final int SEM_CARGO = 0;
+
+    /**
+     * Indica que a pessoa é deputado.
+     */
+    private static final int CARGO_DEPUTADO = 1;
+
+    /**
+     * Não possui retorno. Escreve o cabeçalho de um arquivo.
+     *
+     * @param escritor escritor do arquivo
+     * @param familia  família de entidades do arquivo
+     * @throws IOException erro de escrita
+     */
+    public void escreveCabecalho(EscritorBinario escritor, int familia) throws IOException {
+        escritor.escreveInteiroFixo(ASSINATURA);
+        escritor.escreveByte(VERSAO);
+        escritor.escreveByte(familia);
+    }
+
+    /**
+     * Lê e confere o cabeçalho de um arquivo, retornando a versão do formato.
+     *
+     * @param leitor  leitor do arquivo
+     * @param familia família de entidades esperada
+     * @return versão do formato do arquivo
+     * @throws IOException caso o cabeçalho não corresponda ao esperado
+     */
+    public int leCabecalho(LeitorBinario leitor, int familia) throws IOException {
+        if (leitor.leInteiroFixo() != ASSINATURA)
+            throw new IOException("arquivo nao esta no formato binario");
+        int versao = leitor.leByte();
+        if (versao < 1 || versao > VERSAO)
+            throw new IOException("versao " + versao + " do formato nao suportada");
+        if (leitor.leByte() != familia)
+            throw new IOException("familia de entidades inesperada");
+        return versao;
+    }
+
+    /**
+     * Não possui retorno. Escreve um arquivo com as pessoas passadas.
+     *
+     * @param pessoas pessoas a serem escritas
+     * @param saida   fluxo de saída do arquivo
+     * @throws IOException erro de escrita
+     */
+    public void escrevePessoas(Collection<Pessoa> pessoas, OutputStream saida) throws IOException {
+        EscritorBinario escritor = new EscritorBinario(saida);
+        this.escreveCabecalho(escritor, FAMILIA_PESSOAS);
+        escritor.escreveVarInt(pessoas.size());
+        for (Pessoa pessoa : pessoas)
+            this.escrevePessoa(escritor, pessoa);
+        escritor.descarrega();
+    }
+
+    /**
+     * Retorna as pessoas de um arquivo.
+     *
+     * @param entrada fluxo de entrada do arquivo
+     * @return lista com as pessoas lidas
+     * @throws IOException erro de leitura ou arquivo inválido
+     */
+    public List<Pessoa> lePessoas(InputStream entrada) throws IOException {
+        List<Pessoa> pessoas = new ArrayList<>();
+        this.lePessoas(entrada, pessoas::add);
+        return pessoas;
+    }
+
+    /**
+     * Não possui retorno. Lê as pessoas de um arquivo, passando cada uma ao consumidor
+     * assim que é decodificada, sem guardar as pessoas lidas em uma lista.
+     *
+     * @param entrada    fluxo de entrada do arquivo
+     * @param consumidor consumidor das pessoas lidas
+     * @throws IOException erro de leitura ou arquivo inválido
+     */
+    public void lePessoas(InputStream entrada, Consumer<Pessoa> consumidor) throws IOException {
+        LeitorBinario leitor = new LeitorBinario(entrada);
+        this.leCabecalho(leitor, FAMILIA_PESSOAS);
+        int quantidade = leitor.leVarInt();
+        for (int i = 0; i < quantidade; i++)
+            consumidor.accept(this.lePessoa(leitor));
+    }
+
+    /**
+     * Não possui retorno. Escreve um arquivo com os partidos passados.
+     *
+     * @param partidos partidos a serem escritos
+     * @param saida    fluxo de saída do arquivo
+     * @throws IOException erro de escrita
+     */
+    public void escrevePartidos(Collection<Partido> partidos, OutputStream saida) throws IOException {
+        EscritorBinario escritor = new EscritorBinario(saida);
+        this.escreveCabecalho(escritor, FAMILIA_PARTIDOS);
+        escritor.escreveVarInt(partidos.size());
+        for (Partido partido : partidos)
+            this.escrevePartido(escritor, partido);
+        escritor.descarrega();
+    }
+
+    /**
+     * Retorna os partidos de um arquivo.
+     *
+     * @param entrada fluxo de entrada do arquivo
+     * @return lista com os partidos lidos
+     * @throws IOException erro de leitura ou arquivo inválido
+     */
+    public List<Partido> lePartidos(InputStream entrada) throws IOException {
+        List<Partido> partidos = new ArrayList<>();
+        this.lePartidos(entrada, partidos::add);
+        return partidos;
+    }
+
+    /**
+     * Não possui retorno. Lê os partidos de um arquivo, passando cada um ao consumidor
+     * assim que é decodificado, sem guardar os partidos lidos em uma lista.
+     *
+     * @param entrada    fluxo de entrada do arquivo
+     * @param consumidor consumidor dos partidos lidos
+     * @throws IOException erro de leitura ou arquivo inválido
+     */
+    public void lePartidos(InputStream entrada, Consumer<Partido> consumidor) throws IOException {
+        LeitorBinario leitor = new LeitorBinario(entrada);
+        this.leCabecalho(leitor, FAMILIA_PARTIDOS);
+        int quantidade = leitor.leVarInt();
+        for (int i = 0; i < quantidade; i++)
+            consumidor.accept(this.lePartido(leitor));
+    }
+
+    /**
+     * Não possui retorno. Escreve um arquivo com as comissões passadas.
+     *
+     * @param comissoes comissões a serem escritas
+     * @param saida     fluxo de saída do arquivo
+     * @throws IOException erro de escrita
+     */
+    public void escreveComissoes(Collection<Comissao> comissoes, OutputStream saida) throws IOException {
+        EscritorBinario escritor = new EscritorBinario(saida);
+        this.escreveCabecalho(escritor, FAMILIA_COMISSOES);
+        escritor.escreveVarInt(comissoes.size());
+        for (Comissao comissao : comissoes)
+            this.escreveComissao(escritor, comissao);
+        escritor.descarrega();
+    }
+
+    /**
+     * Retorna as comissões de um arquivo.
+     *
+     * @param entrada fluxo de entrada do arquivo
+     * @return lista com as comissões lidas
+     * @throws IOException erro de leitura ou arquivo inválido
+     */
+    public List<Comissao> leComissoes(InputStream entrada) throws IOException {
+        List<Comissao> comissoes = new ArrayList<>();
+        this.leComissoes(entrada, comissoes::add);
+        return comissoes;
+    }
+
+    /**
+     * Não possui retorno. Lê as comissões de um arquivo, passando cada uma ao consumidor
+     * assim que é decodificada, sem guardar as comissões lidas em uma lista.
+     *
+     * @param entrada    fluxo de entrada do arquivo
+     * @param consumidor consumidor das comissões lidas
+     * @throws IOException erro de leitura ou arquivo inválido
+     */
+    public void leComissoes(InputStream entrada, Consumer<Comissao> consumidor) throws IOException {
+        LeitorBinario leitor = new LeitorBinario(entrada);
+        this.leCabecalho(leitor, FAMILIA_COMISSOES);
+        int quantidade = leitor.leVarInt();
+        for (int i = 0; i < quantidade; i++)
+            consumidor.accept(this.leComissao(leitor));
+    }
+
+    /**
+     * Não possui retorno. Escreve um arquivo com as propostas passadas.
+     *
+     * @param propostas propostas a serem escritas
+     * @param saida     fluxo de saída do arquivo
+     * @throws IOException erro de escrita
+     */
+    public void escrevePropostas(Collection<PropostaLegislativa> propostas, OutputStream saida) throws IOException {
+        EscritorBinario escritor = new EscritorBinario(saida);
+        this.escreveCabecalho(escritor, FAMILIA_PROPOSTAS);
+        escritor.escreveVarInt(propostas.size());
+        for (PropostaLegislativa proposta : propostas)
+            this.escreveProposta(escritor, proposta);
+        escritor.descarrega();
+    }
+
+    /**
+     * Retorna as propostas de um arquivo.
+     *
+     * @param entrada fluxo de entrada do arquivo
+     * @return lista com as propostas lidas
+     * @throws IOException erro de leitura ou arquivo inválido
+     */
+    public List<PropostaLegislativa> lePropostas(InputStream entrada) throws IOException {
+        List<PropostaLegislativa> propostas = new ArrayList<>();
+        this.lePropostas(entrada, propostas::add);
+        return propostas;
+    }
+
+    /**
+     * Não possui retorno. Lê as propostas de um arquivo, passando cada uma ao consumidor
+     * assim que é decodificada, sem guardar as propostas lidas em uma lista.
+     *
+     * @param entrada    fluxo de entrada do arquivo
+     * @param consumidor consumidor das propostas lidas
+     * @throws IOException erro de leitura ou arquivo inválido
+     */
+    public void lePropostas(InputStream entrada, Consumer<PropostaLegislativa> consumidor) throws IOException {
+        LeitorBinario leitor = new LeitorBinario(entrada);
+        int versao = this.leCabecalho(leitor, FAMILIA_PROPOSTAS);
+        int quantidade = leitor.leVarInt();
+        for (int i = 0; i < quantidade; i++)
+            consumidor.accept(this.leProposta(leitor, versao));
+    }
+
+    /**
+     * Não possui retorno. Escreve o registro de uma pessoa.
+     *
+     * @param escritor escritor do arquivo
+     * @param pessoa   pessoa a ser escrita
+     * @throws IOException erro de escrita
+     */
+    public void escrevePessoa(EscritorBinario escritor, Pessoa pessoa) throws IOException {
+        escritor.escreveTexto(pessoa.getNome());
+        escritor.escreveTexto(pessoa.getDni());
+        escritor.escreveTermo(pessoa.getEstado());
+        escritor.escreveTermo(pessoa.getInteresses());
+        escritor.escreveTermo(pessoa.getPartido());
+        escritor.escreveByte(pessoa.getEstrategiaBusca().ordinal());
+
+        if (pessoa.getCargo() instanceof Deputado) {
+            Deputado deputado = (Deputado) pessoa.getCargo();
+            escritor.escreveByte(CARGO_DEPUTADO);
+            escritor.escreveVarLongComSinal(deputado.getDataInicial().getTime());
+            escritor.escreveVarInt(deputado.getLeis());
+        } else {
+            escritor.escreveByte(SEM_CARGO);
+        }
+    }
+
+    /**
+     * Retorna a pessoa do próximo registro.
+     *
+     * @param leitor leitor do arquivo
+     * @return pessoa lida
+     * @throws IOException erro de leitura ou registro inválido
+     */
+    public Pessoa lePessoa(LeitorBinario leitor) throws IOException {
+        Pessoa pessoa = new Pessoa(leitor.leTexto(), leitor.leTexto(), leitor.leTermo(), leitor.leTermo(),
+                leitor.leTermo());
+        pessoa.setEstrategiaBusca(valorDe(EstrategiaBusca.values(), leitor.leByte()));
+
+        int cargo = leitor.leByte();
+        if (cargo == CARGO_DEPUTADO)
+            pessoa.setCargoPolitico(new Deputado(new Date(leitor.leVarLongComSinal()), leitor.leVarInt()));
+        else if (cargo != SEM_CARGO)
+            throw new IOException("cargo politico invalido");
+
+        return pessoa;
+    }
+
+    /**
+     * Não possui retorno. Escreve o registro de um partido.
+     *
+     * @param escritor escritor do arquivo
+     * @param partido  partido a ser escrito
+     * @throws IOException erro de escrita
+     */
+    public void escrevePartido(EscritorBinario escritor, Partido partido) throws IOException {
+        escritor.escreveTexto(partido.getNome());
+    }
+
+    /**
+     * Retorna o partido do próximo registro.
+     *
+     * @param leitor leitor do arquivo
+     * @return partido lido
+     * @throws IOException erro de leitura
+     */
+    public Partido lePartido(LeitorBinario leitor) throws IOException {
+        return new Partido(leitor.leTexto());
+    }
+
+    /**
+     * Não possui retorno. Escreve o registro de uma comissão.
+     *
+     * @param escritor escritor do arquivo
+     * @param comissao comissão a ser escrita
+     * @throws IOException erro de escrita
+     */
+    public void escreveComissao(EscritorBinario escritor, Comissao comissao) throws IOException {
+        escritor.escreveTexto(comissao.getTema());
+        escritor.escreveVarInt(comissao.getIntegrantes().size());
+        for (String integrante : comissao.getIntegrantes())
+            escritor.escreveTermo(integrante);
+    }
+
+    /**
+     * Retorna a comissão do próximo registro.
+     *
+     * @param leitor leitor do arquivo
+     * @return comissão lida
+     * @throws IOException erro de leitura
+     */
+    public Comissao leComissao(LeitorBinario leitor) throws IOException {
+        String tema = leitor.leTexto();
+        int quantidade = leitor.leVarInt();
+        Set<String> integrantes = new HashSet<>();
+        for (int i = 0; i < quantidade; i++)
+            integrantes.add(leitor.leTermo());
+        return new Comissao(tema, integrantes);
+    }
+
+    /**
+     * Não possui retorno. Escreve o registro de uma proposta, incluindo as suas votações
+     * e o histórico da tramitação, com cada instante gravado como a diferença para o
+     * anterior.
+     *
+     * @param escritor escritor do arquivo
+     * @param proposta proposta a ser escrita
+     * @throws IOException erro de escrita
+     */
+    public void escreveProposta(EscritorBinario escritor, PropostaLegislativa proposta) throws IOException {
+        Projeto projeto = (Projeto) proposta;
+        TipoProjeto tipo = projeto.getTipoDoProjeto();
+
+        escritor.escreveByte(tipo.ordinal());
+        escritor.escreveTexto(projeto.getCodigo());
+        escritor.escreveTermo(projeto.getAutor());
+        escritor.escreveVarInt(projeto.getAno());
+        escritor.escreveTexto(projeto.getEmenta());
+        escritor.escreveTermo(projeto.getInteresses());
+        escritor.escreveTexto(projeto.getEndereco());
+        escritor.escreveVarInt(projeto.getNumCriacaoProjeto());
+
+        if (tipo == TipoProjeto.PL)
+            escritor.escreveBooleano(((PL) projeto).ehConclusivo());
+        else if (tipo == TipoProjeto.PLP)
+            escritor.escreveTermo(((PLP) projeto).getArtigosReferenciados());
+        else
+            escritor.escreveTermo(((PEC) projeto).getArtigosReferenciados());
+
+        List<String[]> votacoes = projeto.getVotacoes();
+        escritor.escreveVarInt(votacoes.size());
+        for (String[] votacao : votacoes) {
+            escritor.escreveTermo(votacao[0]);
+            escritor.escreveByte(SituacaoVotacao.valueOf(votacao[1]).ordinal());
+        }
+
+        HistoricoDeTramitacao historico = projeto.getHistorico();
+        escritor.escreveVarInt(historico.getQuantidade());
+        long anterior = 0;
+        for (int i = 0; i < historico.getQuantidade(); i++) {
+            escritor.escreveVarLongComSinal(historico.getInstante(i) - anterior);
+            escritor.escreveTermo(historico.getLocal(i));
+            escritor.escreveByte(historico.getSituacao(i).ordinal());
+            anterior = historico.getInstante(i);
+        }
+    }
+
+    /**
+     * Retorna a proposta do próximo registro, com as suas votações, no formato atual.
+     *
+     * @param leitor leitor do arquivo
+     * @return proposta lida
+     * @throws IOException erro de leitura ou registro inválido
+     */
+    public PropostaLegislativa leProposta(LeitorBinario leitor) throws IOException {
+        return this.leProposta(leitor, VERSAO);
+    }
+
+    /**
+     * Retorna a proposta do próximo registro, com as suas votações, na versão do
+     * formato passada.
+     *
+     * @param leitor leitor do arquivo
+     * @param versao versão do formato do arquivo
+     * @return proposta lida
+     * @throws IOException erro de leitura ou registro inválido
+     */
+    public PropostaLegislativa leProposta(LeitorBinario leitor, int versao) throws IOException {
+        TipoProjeto tipo = valorDe(TipoProjeto.values(), leitor.leByte());
+        String codigo = leitor.leTexto();
+        String autor = leitor.leTermo();
+        int ano = leitor.leVarInt();
+        String ementa = leitor.leTexto();
+        String interesses = leitor.leTermo();
+        String endereco = leitor.leTexto();
+        int numCriacaoProjeto = leitor.leVarInt();
+
+        Projeto projeto;
+        if (tipo == TipoProjeto.PL)
+            projeto = new PL(codigo, autor, ano, ementa, interesses, endereco, leitor.leBooleano());
+        else if (tipo == TipoProjeto.PLP)
+            projeto = new PLP(codigo, autor, ano, ementa, interesses, endereco, leitor.leTermo());
+        else
+            projeto = new PEC(codigo, autor, ano, ementa, interesses, endereco, leitor.leTermo());
+
+        int quantidade = leitor.leVarInt();
+        List<String[]> votacoes = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            String local = leitor.leTermo();
+            votacoes.add(new String[]{local, valorDe(SituacaoVotacao.values(), leitor.leByte()).toString()});
+        }
+
+        HistoricoDeTramitacao historico = new HistoricoDeTramitacao();
+        if (versao >= 2) {
+            int transicoes = leitor.leVarInt();
+            long instante = 0;
+            for (int i = 0; i < transicoes; i++) {
+                instante += leitor.leVarLongComSinal();
+                String local = leitor.leTermo();
+                historico.registra(instante, local, valorDe(SituacaoVotacao.values(), leitor.leByte()));
+            }
+        }
+        projeto.restauraTramitacao(numCriacaoProjeto, votacoes, historico);
+
+        return projeto;
+    }
+
+    /**
+     * Retorna a constante de um enum pela sua posição.
+     *
+     * @param valores constantes do enum
+     * @param posicao posição da constante
+     * @param <E>     tipo do enum
+     * @return constante na posição
+     * @throws IOException caso a posição não exista
+     */
+    private static <E extends Enum<E>> E valorDe(E[] valores, int posicao) throws IOException {
+        if (posicao < 0 || posicao >= valores.length)
+            throw new IOException("valor de enumeracao invalido");
+        return valores[posicao];
+    }
+}
@@ -0,0 +1,843 @@
+package util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Classe que mantém o diário das operações que alteram o sistema. Cada operação é
+ * acrescentada ao final de um arquivo sequencial e só é considerada registrada depois
+ * de gravada em disco. Operações registradas ao mesmo tempo por várias threads são
+ * gravadas juntas, com uma única sincronização com o disco por lote.
+ * <p>
+ * Cada registro possui o formato: tamanho, CRC32 do conteúdo e conteúdo (sequência,
+ * nome da operação e argumentos). Cada texto é gravado com o seu tamanho em bytes e a
+ * sua codificação UTF-8, sem limite de tamanho. Um registro incompleto ou corrompido
+ * no final do arquivo, causado por uma queda durante a escrita, é descartado na
+ * leitura. Quando a gravação de um lote falha, o arquivo volta ao tamanho anterior ao
+ * lote e todas as operações do lote são informadas como não registradas.
+ * <p>
+ * O diário é dividido em segmentos, nomeados pela sequência do seu primeiro registro
+ * (diario.N.log). A cada salvamento o segmento atual é fechado e um novo é iniciado,
+ * de forma que as operações contidas em um salvamento concluído são descartadas
+ * apagando os segmentos fechados, sem copiar as operações posteriores. O arquivo do
+ * diário sem número, gravado antes da divisão em segmentos, é lido como o primeiro.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class DiarioDeOperacoes {
+
+    /**
+     * Tamanho do cabeçalho de cada registro: tamanho do conteúdo e CRC32.
+     */
+    private static final int TAMANHO_CABECALHO = 8;
+
+    /**
+     * Marca gravada após a sequência dos registros com textos de tamanho ilimitado. Os
+     * registros anteriores começam com o tamanho do nome da operação em UTF modificado,
+     * que nunca é igual à marca.
+     */
+    private static final int MARCA_DO_FORMATO = 0xFFFF;
+
+    /**
+     * Arquivo do diário, que dá nome aos segmentos.
+     */
+    private final File arquivo;
+
+    /**
+     * Segmentos do diário pela sequência do seu primeiro registro. O último é o
+     * segmento atual, que recebe os novos registros.
+     */
+    private final TreeMap<Long, File> segmentos;
+
+    /**
+     * Canal de escrita do segmento atual, aberto na primeira gravação.
+     */
+    private FileChannel canal;
+
+    /**
+     * Registros ainda não gravados em disco.
+     */
+    private final ByteArrayOutputStream pendentes;
+
+    /**
+     * Sequência do último registro acrescentado ao diário.
+     */
+    private long ultimaSequencia;
+
+    /**
+     * Sequência do último registro gravado em disco.
+     */
+    private long sequenciaGravada;
+
+    /**
+     * Sequência do último registro retirado dos registros pendentes para ser gravado.
+     */
+    private long sequenciaRetirada;
+
+    /**
+     * Lotes cuja gravação falhou, pela sequência do primeiro registro, com a sequência
+     * do último registro. As sequências não são reutilizadas, portanto os lotes são mantidos.
+     */
+    private final TreeMap<Long, Long> lotesComFalha;
+
+    /**
+     * Tamanho do segmento atual antes de uma gravação que falhou e não pôde ser
+     * desfeita, ou -1 caso não exista. O segmento volta a esse tamanho antes da
+     * próxima gravação.
+     */
+    private long tamanhoAntesDaFalha;
+
+    /**
+     * Indica se alguma thread está gravando um lote de registros.
+     */
+    private boolean gravando;
+
+    /**
+     * Quantidade de bytes nos segmentos do diário.
+     */
+    private long tamanho;
+
+    /**
+     * Constrói um diário gravado no arquivo passado, encontrando os segmentos já
+     * existentes no seu diretório.
+     *
+     * @param arquivo arquivo do diário
+     */
+    public DiarioDeOperacoes(File arquivo) {
+        this.arquivo = arquivo;
+        this.pendentes = new ByteArrayOutputStream();
+        this.segmentos = new TreeMap<>();
+        this.lotesComFalha = new TreeMap<>();
+        this.tamanhoAntesDaFalha = -1;
+
+        if (arquivo.exists())
+            this.segmentos.put(0L, arquivo);
+        File[] arquivos = arquivo.getAbsoluteFile().getParentFile().listFiles();
+        if (arquivos != null) {
+            for (File candidato : arquivos) {
+                long numero = this.numeroDoSegmento(candidato.getName());
+                if (numero > 0)
+                    this.segmentos.put(numero, candidato);
+            }
+        }
+        for (File segmento : this.segmentos.values())
+            this.tamanho += segmento.length();
+    }
+
+    /**
+     * Retorna uma operação codificada, pronta para ser registrada. Permite codificar a
+     * operação antes de alterar o sistema, de forma que uma operação que não possa ser
+     * registrada não chegue a ser aplicada.
+     *
+     * @param operacao   nome da operação
+     * @param argumentos argumentos da operação, podendo conter valores nulos
+     * @return operação codificada
+     * @throws IllegalStateException caso não seja possível codificar a operação
+     */
+    public static OperacaoCodificada codifica(String operacao, String... argumentos) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream escritor = new DataOutputStream(bytes)) {
+            escritor.writeShort(MARCA_DO_FORMATO);
+            escreveTexto(escritor, operacao);
+            escritor.writeInt(argumentos.length);
+            for (String argumento : argumentos)
+                escreveTexto(escritor, argumento);
+        } catch (IOException ioe) {
+            throw new IllegalStateException("Erro ao registrar operacao: " + ioe.getMessage(), ioe);
+        }
+        return new OperacaoCodificada(bytes.toByteArray());
+    }
+
+    /**
+     * Não possui retorno. Acrescenta uma operação ao diário e só retorna depois que ela
+     * estiver gravada em disco.
+     *
+     * @param operacao   nome da operação
+     * @param argumentos argumentos da operação, podendo conter valores nulos
+     * @throws IllegalStateException caso não seja possível gravar o diário
+     */
+    public void registra(String operacao, String... argumentos) {
+        this.registra(codifica(operacao, argumentos));
+    }
+
+    /**
+     * Não possui retorno. Acrescenta uma operação já codificada ao diário e só retorna
+     * depois que ela estiver gravada em disco.
+     *
+     * @param operacao operação codificada
+     * @throws IllegalStateException caso não seja possível gravar o diário
+     */
+    public void registra(OperacaoCodificada operacao) {
+        this.acrescenta(Collections.singletonList(operacao));
+    }
+
+    /**
+     * Não possui retorno. Acrescenta várias operações ao diário, em ordem, e só retorna
+     * depois que todas estiverem gravadas em disco, com uma única sincronização.
+     *
+     * @param operacoes operações, cada uma com o nome seguido dos seus argumentos
+     * @throws IllegalStateException caso não seja possível gravar o diário
+     */
+    public void registraLote(List<String[]> operacoes) {
+        List<OperacaoCodificada> codificadas = new ArrayList<>(operacoes.size());
+        for (String[] operacao : operacoes)
+            codificadas.add(codifica(operacao[0], Arrays.copyOfRange(operacao, 1, operacao.length)));
+        this.acrescenta(codificadas);
+    }
+
+    /**
+     * Não possui retorno. Acrescenta operações codificadas ao diário, em ordem, e só
+     * retorna depois que todas estiverem gravadas em disco. As sequências só são
+     * atribuídas depois que todas as operações estão codificadas.
+     *
+     * @param operacoes operações codificadas
+     * @throws IllegalStateException caso não seja possível gravar o diário
+     */
+    private void acrescenta(List<OperacaoCodificada> operacoes) {
+        if (operacoes.isEmpty())
+            return;
+
+        long sequencia;
+        synchronized (this) {
+            for (OperacaoCodificada operacao : operacoes) {
+                byte[] conteudo = ByteBuffer.allocate(8 + operacao.corpo.length)
+                        .putLong(this.ultimaSequencia + 1).put(operacao.corpo).array();
+                escreveCabecalho(conteudo);
+                this.pendentes.write(conteudo, 0, conteudo.length);
+                this.ultimaSequencia++;
+            }
+            sequencia = this.ultimaSequencia;
+        }
+        this.aguardaGravacao(sequencia);
+    }
+
+    /**
+     * Não possui retorno. Aguarda até que o registro da sequência passada esteja em disco.
+     * A primeira thread a chegar grava todos os registros pendentes, inclusive os das
+     * threads que chegarem enquanto ela espera, que apenas aguardam o fim da gravação.
+     * Caso a gravação do lote que contém o registro falhe, todas essas threads recebem
+     * o erro.
+     *
+     * @param sequencia sequência do registro
+     * @throws IllegalStateException caso a gravação do registro tenha falhado
+     */
+    private void aguardaGravacao(long sequencia) {
+        byte[] lote;
+        long primeiraDoLote;
+        long ultimaDoLote;
+
+        synchronized (this) {
+            while (this.gravando && this.sequenciaGravada < sequencia && !this.falhou(sequencia))
+                this.aguarda();
+            if (this.falhou(sequencia))
+                throw new IllegalStateException("Erro ao registrar operacao: falha na gravacao do diario");
+            if (this.sequenciaGravada >= sequencia)
+                return;
+
+            this.gravando = true;
+            lote = this.pendentes.toByteArray();
+            this.pendentes.reset();
+            primeiraDoLote = this.sequenciaRetirada + 1;
+            ultimaDoLote = this.ultimaSequencia;
+            this.sequenciaRetirada = ultimaDoLote;
+        }
+
+        boolean gravou = false;
+        try {
+            this.grava(lote);
+            gravou = true;
+        } catch (IOException ioe) {
+            throw new IllegalStateException("Erro ao registrar operacao: " + ioe.getMessage(), ioe);
+        } finally {
+            synchronized (this) {
+                if (gravou) {
+                    this.sequenciaGravada = ultimaDoLote;
+                    this.tamanho += lote.length;
+                } else {
+                    this.lotesComFalha.put(primeiraDoLote, ultimaDoLote);
+                }
+                this.gravando = false;
+                this.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Retorna se o registro da sequência passada pertence a um lote cuja gravação falhou.
+     *
+     * @param sequencia sequência do registro
+     * @return true caso a gravação do registro tenha falhado, false caso contrário
+     */
+    private boolean falhou(long sequencia) {
+        Map.Entry<Long, Long> lote = this.lotesComFalha.floorEntry(sequencia);
+        return lote != null && lote.getValue() >= sequencia;
+    }
+
+    /**
+     * Não possui retorno. Grava um lote de registros ao final do segmento atual e o
+     * sincroniza com o disco. Caso a gravação falhe, o segmento volta ao tamanho
+     * anterior ao lote, para que um registro incompleto não fique entre registros
+     * válidos. Caso nem isso seja possível, o segmento volta a esse tamanho antes da
+     * próxima gravação.
+     *
+     * @param lote registros a serem gravados
+     * @throws IOException erro de escrita no arquivo
+     */
+    private void grava(byte[] lote) throws IOException {
+        FileChannel canal = this.getCanal();
+        this.desfazGravacaoComFalha(canal);
+
+        long inicio = canal.position();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(lote);
+            while (buffer.hasRemaining())
+                this.escreve(canal, buffer);
+            canal.force(false);
+        } catch (IOException | RuntimeException erro) {
+            synchronized (this) {
+                this.tamanhoAntesDaFalha = inicio;
+            }
+            try {
+                this.desfazGravacaoComFalha(canal);
+            } catch (IOException ioe) {
+                erro.addSuppressed(ioe);
+            }
+            throw erro;
+        }
+    }
+
+    /**
+     * Não possui retorno. Devolve o segmento atual ao tamanho anterior a uma gravação que
+     * falhou, caso ela ainda não tenha sido desfeita.
+     *
+     * @param canal canal do segmento atual
+     * @throws IOException erro ao truncar o arquivo
+     */
+    private synchronized void desfazGravacaoComFalha(FileChannel canal) throws IOException {
+        if (this.tamanhoAntesDaFalha < 0)
+            return;
+
+        canal.truncate(this.tamanhoAntesDaFalha);
+        canal.position(this.tamanhoAntesDaFalha);
+        canal.force(false);
+        this.tamanhoAntesDaFalha = -1;
+    }
+
+    /**
+     * Retorna a quantidade de bytes escritos. Escreve no canal do diário os bytes
+     * restantes do buffer, ou parte deles.
+     *
+     * @param canal  canal do segmento atual
+     * @param buffer bytes a serem escritos
+     * @return quantidade de bytes escritos
+     * @throws IOException erro de escrita no arquivo
+     */
+    protected int escreve(FileChannel canal, ByteBuffer buffer) throws IOException {
+        return canal.write(buffer);
+    }
+
+    /**
+     * Não possui retorno. Espera a gravação em andamento terminar.
+     */
+    private void aguarda() {
+        try {
+            this.wait();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Erro ao registrar operacao: gravacao interrompida");
+        }
+    }
+
+    /**
+     * Não possui retorno. Lê o diário e passa cada operação registrada, em ordem, para
+     * o consumidor. O primeiro elemento do array é o nome da operação e os demais são
+     * os seus argumentos. Um registro incompleto no final do arquivo é descartado, para
+     * que as próximas operações sejam acrescentadas logo após o último registro válido.
+     *
+     * @param consumidor consumidor das operações registradas
+     * @throws IOException erro de leitura do arquivo
+     */
+    public void reexecuta(Consumer<String[]> consumidor) throws IOException {
+        this.reexecuta(0, consumidor);
+    }
+
+    /**
+     * Não possui retorno. Lê o diário e passa para o consumidor, em ordem, apenas as
+     * operações com sequência maior que a passada, pois as demais já estão contidas nos
+     * arquivos de dados. As próximas operações registradas recebem sequências maiores
+     * que a passada.
+     *
+     * @param aPartirDe  sequência da última operação já contida nos arquivos de dados
+     * @param consumidor consumidor das operações registradas
+     * @throws IOException erro de leitura do arquivo
+     */
+    public synchronized void reexecuta(long aPartirDe, Consumer<String[]> consumidor) throws IOException {
+        this.ultimaSequencia = Math.max(this.ultimaSequencia, aPartirDe);
+        this.sequenciaGravada = this.ultimaSequencia;
+        this.tamanhoAntesDaFalha = -1;
+
+        for (Map.Entry<Long, File> segmento : new ArrayList<>(this.segmentos.entrySet())) {
+            Long proximo = this.segmentos.higherKey(segmento.getKey());
+            if ((proximo != null && proximo - 1 <= aPartirDe) || !segmento.getValue().exists())
+                continue;
+
+            if (!this.reexecutaSegmento(segmento.getValue(), proximo == null, aPartirDe, consumidor)) {
+                //Os registros depois de um registro inválido não podem ser reexecutados fora de ordem
+                this.fecha();
+                while (this.segmentos.lastKey() > segmento.getKey())
+                    this.apaga(this.segmentos.pollLastEntry().getValue());
+                break;
+            }
+        }
+
+        if (!this.segmentos.isEmpty())
+            this.ultimaSequencia = Math.max(this.ultimaSequencia, this.segmentos.lastKey() - 1);
+        this.sequenciaGravada = this.ultimaSequencia;
+        this.sequenciaRetirada = this.ultimaSequencia;
+    }
+
+    /**
+     * Lê um segmento e passa para o consumidor, em ordem, as operações com sequência maior
+     * que a passada. Um registro incompleto ou corrompido é descartado junto com o
+     * restante do segmento.
+     *
+     * @param arquivo    arquivo do segmento
+     * @param atual      indica se o segmento é o atual, que recebe os novos registros
+     * @param aPartirDe  sequência da última operação já contida nos arquivos de dados
+     * @param consumidor consumidor das operações registradas
+     * @return true caso o segmento tenha sido lido até o fim, false caso tenha sido truncado
+     * @throws IOException erro de leitura do arquivo
+     */
+    private boolean reexecutaSegmento(File arquivo, boolean atual, long aPartirDe, Consumer<String[]> consumidor)
+            throws IOException {
+        FileChannel canal = atual ? this.getCanal()
+                : FileChannel.open(arquivo.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long posicao = 0;
+            long tamanhoArquivo = canal.size();
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+
+            while (posicao + TAMANHO_CABECALHO <= tamanhoArquivo) {
+                cabecalho.clear();
+                leCompleto(canal, cabecalho, posicao);
+                int tamanho = cabecalho.getInt(0);
+                int crc = cabecalho.getInt(4);
+                if (tamanho <= 0 || posicao + TAMANHO_CABECALHO + tamanho > tamanhoArquivo)
+                    break;
+
+                ByteBuffer conteudo = ByteBuffer.allocate(tamanho);
+                leCompleto(canal, conteudo, posicao + TAMANHO_CABECALHO);
+                if (crc32(conteudo.array()) != crc)
+                    break;
+
+                DataInputStream leitor = new DataInputStream(new ByteArrayInputStream(conteudo.array()));
+                long sequencia = leitor.readLong();
+                this.ultimaSequencia = Math.max(this.ultimaSequencia, sequencia);
+                this.sequenciaGravada = this.ultimaSequencia;
+                if (sequencia > aPartirDe)
+                    consumidor.accept(decodifica(leitor));
+                posicao += TAMANHO_CABECALHO + tamanho;
+            }
+
+            if (posicao < tamanhoArquivo) {
+                canal.truncate(posicao);
+                canal.force(false);
+                this.tamanho -= tamanhoArquivo - posicao;
+                return false;
+            }
+            return true;
+        } finally {
+            if (!atual)
+                canal.close();
+        }
+    }
+
+    /**
+     * Não possui retorno. Fecha o segmento atual e inicia um novo, que recebe as operações
+     * registradas a partir de agora. Os registros pendentes são gravados antes, de forma
+     * que todas as operações com sequência até a retornada ficam nos segmentos fechados.
+     * Usado quando o estado do sistema é capturado para ser salvo, para que as operações
+     * contidas no salvamento possam ser descartadas apagando segmentos inteiros.
+     *
+     * @return sequência da última operação dos segmentos fechados
+     * @throws IOException erro de escrita no arquivo
+     */
+    public synchronized long rotaciona() throws IOException {
+        while (this.gravando)
+            this.aguarda();
+
+        if (this.pendentes.size() > 0) {
+            byte[] lote = this.pendentes.toByteArray();
+            long primeiraDoLote = this.sequenciaRetirada + 1;
+            this.pendentes.reset();
+            this.sequenciaRetirada = this.ultimaSequencia;
+            try {
+                this.grava(lote);
+            } catch (IOException | RuntimeException erro) {
+                this.lotesComFalha.put(primeiraDoLote, this.ultimaSequencia);
+                this.notifyAll();
+                throw erro;
+            }
+            this.tamanho += lote.length;
+            this.sequenciaGravada = this.ultimaSequencia;
+            this.notifyAll();
+        } else if (this.canal != null) {
+            this.desfazGravacaoComFalha(this.canal);
+        }
+
+        if (!this.segmentos.isEmpty() && this.segmentos.lastEntry().getValue().length() > 0) {
+            this.fecha();
+            this.segmentos.put(this.ultimaSequencia + 1, this.segmento(this.ultimaSequencia + 1));
+        }
+        return this.ultimaSequencia;
+    }
+
+    /**
+     * Não possui retorno. Descarta todas as operações do diário. Usado depois que o
+     * estado do sistema é gravado por completo.
+     *
+     * @throws IOException erro de escrita no arquivo
+     */
+    public synchronized void limpa() throws IOException {
+        while (this.gravando)
+            this.aguarda();
+
+        this.pendentes.reset();
+        this.sequenciaGravada = this.ultimaSequencia;
+        this.sequenciaRetirada = this.ultimaSequencia;
+        while (this.segmentos.size() > 1)
+            this.apaga(this.segmentos.pollFirstEntry().getValue());
+        if (this.canal != null || (!this.segmentos.isEmpty() && this.segmentos.lastEntry().getValue().exists())) {
+            FileChannel canal = this.getCanal();
+            canal.truncate(0);
+            canal.force(false);
+        }
+        this.tamanhoAntesDaFalha = -1;
+        this.tamanho = 0;
+    }
+
+    /**
+     * Não possui retorno. Descarta do diário as operações com sequência até a passada,
+     * que já estão contidas nos arquivos de dados, mantendo as registradas depois dela.
+     * Usado quando o estado é gravado em segundo plano enquanto novas operações chegam.
+     *
+     * @param sequencia sequência da última operação contida nos arquivos de dados
+     * @throws IOException erro de leitura ou escrita no arquivo
+     */
+    public synchronized void descartaAte(long sequencia) throws IOException {
+        while (this.gravando)
+            this.aguarda();
+
+        while (this.segmentos.size() > 1 && this.segmentos.higherKey(this.segmentos.firstKey()) - 1 <= sequencia)
+            this.apaga(this.segmentos.pollFirstEntry().getValue());
+
+        //O segmento atual só contém operações já salvas caso não tenha sido rotacionado na captura
+        Map.Entry<Long, File> atual = this.segmentos.lastEntry();
+        if (atual == null || atual.getKey() > sequencia || (this.canal == null && !atual.getValue().exists()))
+            return;
+
+        FileChannel canal = this.getCanal();
+        this.desfazGravacaoComFalha(canal);
+        long tamanhoArquivo = canal.size();
+        long inicio = sequencia >= this.sequenciaGravada ? tamanhoArquivo : posicaoApos(canal, sequencia);
+        if (inicio == 0)
+            return;
+
+        if (inicio >= tamanhoArquivo) {
+            canal.truncate(0);
+            canal.force(false);
+            this.tamanho -= tamanhoArquivo;
+            return;
+        }
+
+        File temporario = new File(atual.getValue().getPath() + ".tmp");
+        try (FileChannel destino = FileChannel.open(temporario.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long restantes = tamanhoArquivo - inicio;
+            long copiados = 0;
+            while (copiados < restantes)
+                copiados += canal.transferTo(inicio + copiados, restantes - copiados, destino);
+            destino.force(false);
+        }
+        this.fecha();
+        Manifesto.instala(temporario, atual.getValue());
+        this.tamanho -= inicio;
+    }
+
+    /**
+     * Não possui retorno. Fecha o arquivo do diário.
+     *
+     * @throws IOException erro ao fechar o arquivo
+     */
+    public synchronized void fecha() throws IOException {
+        if (this.canal != null) {
+            this.canal.close();
+            this.canal = null;
+        }
+    }
+
+    /**
+     * Retorna a sequência do último registro acrescentado ao diário.
+     *
+     * @return sequência do último registro
+     */
+    public synchronized long getUltimaSequencia() {
+        return this.ultimaSequencia;
+    }
+
+    /**
+     * Retorna a quantidade de bytes nos segmentos do diário.
+     *
+     * @return tamanho do diário em bytes
+     */
+    public synchronized long getTamanho() {
+        return this.tamanho;
+    }
+
+    /**
+     * Retorna a quantidade de segmentos do diário.
+     *
+     * @return quantidade de segmentos
+     */
+    public synchronized int getQuantidadeDeSegmentos() {
+        return this.segmentos.size();
+    }
+
+    /**
+     * Retorna o canal de escrita do arquivo, abrindo-o caso necessário.
+     *
+     * @return canal do arquivo do diário
+     * @throws IOException erro ao abrir o arquivo
+     */
+    private synchronized FileChannel getCanal() throws IOException {
+        if (this.canal == null) {
+            if (this.segmentos.isEmpty())
+                this.segmentos.put(this.ultimaSequencia + 1, this.segmento(this.ultimaSequencia + 1));
+            File atual = this.segmentos.lastEntry().getValue();
+            boolean novo = !atual.exists();
+            this.canal = FileChannel.open(atual.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.canal.position(this.canal.size());
+            if (novo)
+                Manifesto.sincronizaDiretorio(atual.getAbsoluteFile().getParentFile());
+        }
+        return this.canal;
+    }
+
+    /**
+     * Retorna o arquivo do segmento que começa na sequência passada.
+     *
+     * @param primeiraSequencia sequência do primeiro registro do segmento
+     * @return arquivo do segmento
+     */
+    private File segmento(long primeiraSequencia) {
+        String nome = this.arquivo.getName();
+        int ponto = nome.lastIndexOf('.');
+        String prefixo = ponto > 0 ? nome.substring(0, ponto) : nome;
+        String extensao = ponto > 0 ? nome.substring(ponto) : "";
+        return new File(this.arquivo.getAbsoluteFile().getParentFile(), prefixo + "." + primeiraSequencia + extensao);
+    }
+
+    /**
+     * Retorna o número de um segmento a partir do nome do seu arquivo.
+     *
+     * @param nome nome do arquivo
+     * @return sequência do primeiro registro do segmento, ou 0 caso o arquivo não seja um segmento
+     */
+    private long numeroDoSegmento(String nome) {
+        String modelo = this.segmento(0).getName();
+        int ponto = modelo.lastIndexOf(".0");
+        String prefixo = modelo.substring(0, ponto + 1);
+        String extensao = modelo.substring(ponto + 2);
+        if (!nome.startsWith(prefixo) || !nome.endsWith(extensao) || nome.length() <= prefixo.length() + extensao.length())
+            return 0;
+
+        String numero = nome.substring(prefixo.length(), nome.length() - extensao.length());
+        for (int i = 0; i < numero.length(); i++)
+            if (!Character.isDigit(numero.charAt(i)))
+                return 0;
+        return numero.length() < 19 ? Long.parseLong(numero) : 0;
+    }
+
+    /**
+     * Não possui retorno. Apaga um segmento do diário.
+     *
+     * @param segmento arquivo do segmento
+     * @throws IOException erro ao apagar o arquivo
+     */
+    private void apaga(File segmento) throws IOException {
+        this.tamanho -= segmento.length();
+        Files.deleteIfExists(segmento.toPath());
+    }
+
+    /**
+     * Retorna a posição do primeiro registro com sequência maior que a passada. Os
+     * registros são gravados em ordem de sequência.
+     *
+     * @param canal     canal do arquivo do diário
+     * @param sequencia sequência procurada
+     * @return posição do registro, ou o tamanho do arquivo caso não exista
+     * @throws IOException erro de leitura do arquivo
+     */
+    private static long posicaoApos(FileChannel canal, long sequencia) throws IOException {
+        long posicao = 0;
+        long tamanhoArquivo = canal.size();
+        ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO + 8);
+
+        while (posicao + cabecalho.capacity() <= tamanhoArquivo) {
+            cabecalho.clear();
+            leCompleto(canal, cabecalho, posicao);
+            if (cabecalho.getLong(TAMANHO_CABECALHO) > sequencia)
+                return posicao;
+            posicao += TAMANHO_CABECALHO + cabecalho.getInt(0);
+        }
+        return tamanhoArquivo;
+    }
+
+    /**
+     * Não possui retorno. Escreve um texto com o seu tamanho em bytes, ou -1 caso seja
+     * nulo, seguido da sua codificação UTF-8.
+     *
+     * @param escritor escritor do registro
+     * @param texto    texto a ser escrito
+     * @throws IOException erro de escrita
+     */
+    private static void escreveTexto(DataOutputStream escritor, String texto) throws IOException {
+        if (texto == null) {
+            escritor.writeInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        escritor.writeInt(bytes.length);
+        escritor.write(bytes);
+    }
+
+    /**
+     * Retorna um texto escrito por escreveTexto.
+     *
+     * @param leitor leitor do registro
+     * @return texto lido, podendo ser nulo
+     * @throws IOException erro de leitura do registro
+     */
+    private static String leTexto(DataInputStream leitor) throws IOException {
+        int tamanho = leitor.readInt();
+        if (tamanho < 0)
+            return null;
+        if (tamanho > leitor.available())
+            throw new IOException("registro invalido");
+        byte[] bytes = new byte[tamanho];
+        leitor.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Retorna a operação contida no restante de um registro. Os registros gravados antes
+     * dos textos de tamanho ilimitado, em UTF modificado, também são lidos.
+     *
+     * @param leitor leitor posicionado após a sequência do registro
+     * @return array com o nome da operação seguido dos argumentos
+     * @throws IOException erro de leitura do registro
+     */
+    private static String[] decodifica(DataInputStream leitor) throws IOException {
+        leitor.mark(2);
+        if (leitor.readUnsignedShort() != MARCA_DO_FORMATO) {
+            leitor.reset();
+            String operacao = leitor.readUTF();
+            String[] registro = new String[leitor.readShort() + 1];
+            registro[0] = operacao;
+            for (int i = 1; i < registro.length; i++)
+                registro[i] = leitor.readBoolean() ? leitor.readUTF() : null;
+            return registro;
+        }
+
+        String operacao = leTexto(leitor);
+        int quantidade = leitor.readInt();
+        if (quantidade < 0 || quantidade > leitor.available() / 4)
+            throw new IOException("registro invalido");
+        String[] registro = new String[quantidade + 1];
+        registro[0] = operacao;
+        for (int i = 1; i < registro.length; i++)
+            registro[i] = leTexto(leitor);
+        return registro;
+    }
+
+    /**
+     * Não possui retorno. Escreve nos registros pendentes o cabeçalho de um conteúdo.
+     *
+     * @param conteudo conteúdo do registro
+     */
+    private void escreveCabecalho(byte[] conteudo) {
+        ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+        cabecalho.putInt(conteudo.length).putInt(crc32(conteudo));
+        this.pendentes.write(cabecalho.array(), 0, TAMANHO_CABECALHO);
+    }
+
+    /**
+     * Retorna o CRC32 de um array de bytes.
+     *
+     * @param bytes bytes a serem verificados
+     * @return valor do CRC32
+     */
+    private static int crc32(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Não possui retorno. Preenche o buffer com os bytes do canal a partir da posição passada.
+     *
+     * @param canal   canal de leitura
+     * @param buffer  buffer a ser preenchido
+     * @param posicao posição inicial da leitura
+     * @throws IOException erro de leitura
+     */
+    private static void leCompleto(FileChannel canal, ByteBuffer buffer, long posicao) throws IOException {
+        while (buffer.hasRemaining()) {
+            int lidos = canal.read(buffer, posicao + buffer.position());
+            if (lidos < 0)
+                throw new IOException("fim inesperado do arquivo");
+        }
+    }
+
+    /**
+     * Classe que representa uma operação codificada, ainda sem sequência, pronta para
+     * ser registrada no diário.
+     */
+    public static final class OperacaoCodificada {
+
+        /**
+         * Conteúdo do registro sem a sequência: nome da operação e argumentos.
+         */
+        private final byte[] corpo;
+
+        /**
+         * Constrói uma operação codificada a partir do conteúdo do registro.
+         *
+         * @param corpo conteúdo do registro sem a sequência
+         */
+        private OperacaoCodificada(byte[] corpo) {
+            this.corpo = corpo;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Fluxo de entrada que lê os blocos escritos pela {@link SaidaEmBlocos}, descomprimindo
+ * cada um conforme o algoritmo registrado no cabeçalho e conferindo o CRC32 do conteúdo
+ * antes de entregá-lo. Também lê os arquivos em blocos sem cabeçalho, gravados antes da
+ * compressão. Um bloco corrompido ou um arquivo que termina antes do marcador de final
+ * causam uma IOException, em vez de um final de arquivo silencioso.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class EntradaEmBlocos extends InputStream {
+
+    /**
+     * Fluxo de entrada dos blocos.
+     */
+    private final DataInputStream entrada;
+
+    /**
+     * Indica se o arquivo possui cabeçalho, com o tamanho gravado de cada bloco.
+     */
+    private final boolean possuiCabecalho;
+
+    /**
+     * Algoritmo de compressão registrado no cabeçalho.
+     */
+    private final int algoritmo;
+
+    /**
+     * Nível de compressão registrado no cabeçalho.
+     */
+    private final int nivel;
+
+    /**
+     * Maior tamanho de bloco aceito, para que um tamanho corrompido não cause uma alocação enorme.
+     */
+    private final int tamanhoMaximo;
+
+    /**
+     * Descompressor dos blocos, ou null caso o arquivo não esteja comprimido.
+     */
+    private final Inflater descompressor;
+
+    /**
+     * Conteúdo comprimido do bloco atual.
+     */
+    private byte[] comprimido;
+
+    /**
+     * Conteúdo do bloco atual.
+     */
+    private byte[] bloco;
+
+    /**
+     * Posição de leitura no bloco atual.
+     */
+    private int posicao;
+
+    /**
+     * Quantidade de bytes no bloco atual.
+     */
+    private int tamanho;
+
+    /**
+     * Quantidade total de bytes lidos.
+     */
+    private long total;
+
+    /**
+     * Indica se o marcador de final já foi lido.
+     */
+    private boolean terminado;
+
+    /**
+     * Constrói um fluxo sobre a entrada passada e confere a assinatura e o cabeçalho.
+     *
+     * @param entrada fluxo de entrada
+     * @throws IOException caso a entrada não comece com a assinatura ou o cabeçalho seja inválido
+     */
+    public EntradaEmBlocos(InputStream entrada) throws IOException {
+        this.entrada = new DataInputStream(new BufferedInputStream(entrada, 1 << 16));
+        this.bloco = new byte[0];
+        this.comprimido = new byte[0];
+
+        int assinatura = this.entrada.readInt();
+        if (assinatura == SaidaEmBlocos.ASSINATURA) {
+            this.possuiCabecalho = false;
+            this.algoritmo = SaidaEmBlocos.SEM_COMPRESSAO;
+            this.nivel = 0;
+            this.tamanhoMaximo = SaidaEmBlocos.TAMANHO_MAXIMO;
+        } else if (assinatura == SaidaEmBlocos.ASSINATURA_COMPRIMIDA) {
+            this.possuiCabecalho = true;
+            this.algoritmo = this.entrada.readByte();
+            this.nivel = this.entrada.readByte();
+            this.tamanhoMaximo = this.entrada.readInt();
+            if (this.algoritmo != SaidaEmBlocos.SEM_COMPRESSAO && this.algoritmo != SaidaEmBlocos.COMPRESSAO_DEFLATE)
+                throw new IOException("algoritmo de compressao desconhecido");
+            if (this.tamanhoMaximo <= 0 || this.tamanhoMaximo > SaidaEmBlocos.TAMANHO_MAXIMO)
+                throw new IOException("arquivo corrompido: tamanho de bloco invalido");
+        } else {
+            throw new IOException("arquivo nao esta dividido em blocos");
+        }
+        this.descompressor = (this.algoritmo == SaidaEmBlocos.COMPRESSAO_DEFLATE) ? new Inflater() : null;
+    }
+
+    /**
+     * Retorna o algoritmo de compressão registrado no cabeçalho do arquivo.
+     *
+     * @return SaidaEmBlocos.SEM_COMPRESSAO ou SaidaEmBlocos.COMPRESSAO_DEFLATE
+     */
+    public int getAlgoritmo() {
+        return this.algoritmo;
+    }
+
+    /**
+     * Retorna o nível de compressão registrado no cabeçalho do arquivo.
+     *
+     * @return nível de compressão
+     */
+    public int getNivel() {
+        return this.nivel;
+    }
+
+    /**
+     * Retorna o tamanho máximo dos blocos do arquivo.
+     *
+     * @return tamanho máximo dos blocos, em bytes
+     */
+    public int getTamanhoDoBloco() {
+        return this.tamanhoMaximo;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!this.preparaBloco())
+            return -1;
+        return this.bloco[this.posicao++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int inicio, int quantidade) throws IOException {
+        if (quantidade == 0)
+            return 0;
+        if (!this.preparaBloco())
+            return -1;
+
+        int copiados = Math.min(quantidade, this.tamanho - this.posicao);
+        System.arraycopy(this.bloco, this.posicao, bytes, inicio, copiados);
+        this.posicao += copiados;
+        return copiados;
+    }
+
+    /**
+     * Não possui retorno. Lê o restante da entrada até o marcador de final, garantindo
+     * que o arquivo esteja completo e íntegro.
+     *
+     * @throws IOException caso o arquivo esteja truncado ou corrompido
+     */
+    public void verificaFim() throws IOException {
+        while (this.preparaBloco())
+            this.posicao = this.tamanho;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.descompressor != null)
+            this.descompressor.end();
+        this.entrada.close();
+    }
+
+    /**
+     * Garante que haja bytes disponíveis no bloco atual, lendo e conferindo o próximo
+     * bloco caso necessário.
+     *
+     * @return true caso haja bytes disponíveis, false caso o marcador de final tenha sido lido
+     * @throws IOException caso o arquivo esteja truncado ou corrompido
+     */
+    private boolean preparaBloco() throws IOException {
+        while (this.posicao == this.tamanho) {
+            if (this.terminado)
+                return false;
+
+            try {
+                int tamanhoBloco = this.entrada.readInt();
+                if (tamanhoBloco == 0) {
+                    if (this.entrada.readLong() != this.total)
+                        throw new IOException("arquivo corrompido: tamanho total divergente");
+                    this.terminado = true;
+                    return false;
+                }
+                if (tamanhoBloco < 0 || tamanhoBloco > this.tamanhoMaximo)
+                    throw new IOException("arquivo corrompido: tamanho de bloco invalido");
+
+                int gravados = this.possuiCabecalho ? this.entrada.readInt() : tamanhoBloco;
+                if (gravados <= 0 || gravados > tamanhoBloco)
+                    throw new IOException("arquivo corrompido: tamanho gravado invalido");
+
+                int crc = this.entrada.readInt();
+                if (this.bloco.length <= tamanhoBloco)
+                    this.bloco = new byte[tamanhoBloco + 1];
+                if (gravados == tamanhoBloco)
+                    this.entrada.readFully(this.bloco, 0, tamanhoBloco);
+                else
+                    this.descomprime(gravados, tamanhoBloco);
+
+                CRC32 calculado = new CRC32();
+                calculado.update(this.bloco, 0, tamanhoBloco);
+                if ((int) calculado.getValue() != crc)
+                    throw new IOException("arquivo corrompido: CRC do bloco divergente");
+
+                this.posicao = 0;
+                this.tamanho = tamanhoBloco;
+                this.total += tamanhoBloco;
+            } catch (EOFException eofe) {
+                throw new IOException("arquivo incompleto", eofe);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Não possui retorno. Lê um bloco comprimido e o descomprime no bloco atual.
+     *
+     * @param gravados     tamanho do bloco comprimido
+     * @param tamanhoBloco tamanho original do bloco
+     * @throws IOException caso o bloco não possa ser descomprimido
+     */
+    private void descomprime(int gravados, int tamanhoBloco) throws IOException {
+        if (this.descompressor == null)
+            throw new IOException("arquivo corrompido: bloco comprimido sem algoritmo de compressao");
+        if (this.comprimido.length < gravados)
+            this.comprimido = new byte[gravados];
+        this.entrada.readFully(this.comprimido, 0, gravados);
+
+        this.descompressor.reset();
+        this.descompressor.setInput(this.comprimido, 0, gravados);
+        try {
+            //O byte a mais no bloco permite detectar um conteúdo maior que o tamanho original
+            int lidos = 0;
+            while (!this.descompressor.finished() && lidos <= tamanhoBloco) {
+                int parte = this.descompressor.inflate(this.bloco, lidos, tamanhoBloco + 1 - lidos);
+                if (parte == 0 && (this.descompressor.needsInput() || this.descompressor.needsDictionary()))
+                    break;
+                lidos += parte;
+            }
+            if (lidos != tamanhoBloco || !this.descompressor.finished())
+                throw new IOException("arquivo corrompido: bloco comprimido invalido");
+        } catch (DataFormatException dfe) {
+            throw new IOException("arquivo corrompido: bloco comprimido invalido", dfe);
+        }
+    }
+}
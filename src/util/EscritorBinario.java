@@ -0,0 +1,205 @@
+package util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Classe que escreve valores primitivos e Strings em formato binário compacto.
+ * Inteiros são escritos como varints, de 1 a 10 bytes conforme o valor, e Strings
+ * como UTF-8 precedido do tamanho. Termos que se repetem muito, como dnis, partidos,
+ * interesses e locais de votação, são escritos apenas na primeira ocorrência e
+ * depois referenciados pela sua posição no dicionário.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class EscritorBinario implements Closeable {
+
+    /**
+     * Marcador de termo nulo.
+     */
+    static final int TERMO_NULO = 0;
+
+    /**
+     * Marcador de termo novo, seguido do seu texto.
+     */
+    static final int TERMO_NOVO = 1;
+
+    /**
+     * Valor somado à posição de um termo já escrito.
+     */
+    static final int DESLOCAMENTO_TERMO = 2;
+
+    /**
+     * Fluxo de saída dos bytes.
+     */
+    private final OutputStream saida;
+
+    /**
+     * Posição de cada termo já escrito.
+     */
+    private final Map<String, Integer> dicionario;
+
+    /**
+     * Quantidade de bytes escritos.
+     */
+    private long bytesEscritos;
+
+    /**
+     * Constrói um escritor sobre o fluxo de saída passado.
+     *
+     * @param saida fluxo de saída
+     */
+    public EscritorBinario(OutputStream saida) {
+        this.saida = new BufferedOutputStream(saida, 1 << 16);
+        this.dicionario = new HashMap<>();
+    }
+
+    /**
+     * Não possui retorno. Escreve um byte.
+     *
+     * @param valor byte a ser escrito
+     * @throws IOException erro de escrita
+     */
+    public void escreveByte(int valor) throws IOException {
+        this.saida.write(valor);
+        this.bytesEscritos++;
+    }
+
+    /**
+     * Não possui retorno. Escreve um booleano em um byte.
+     *
+     * @param valor booleano a ser escrito
+     * @throws IOException erro de escrita
+     */
+    public void escreveBooleano(boolean valor) throws IOException {
+        this.escreveByte(valor ? 1 : 0);
+    }
+
+    /**
+     * Não possui retorno. Escreve um inteiro de 4 bytes, sem compactação.
+     *
+     * @param valor inteiro a ser escrito
+     * @throws IOException erro de escrita
+     */
+    public void escreveInteiroFixo(int valor) throws IOException {
+        this.escreveByte(valor >>> 24);
+        this.escreveByte(valor >>> 16);
+        this.escreveByte(valor >>> 8);
+        this.escreveByte(valor);
+    }
+
+    /**
+     * Não possui retorno. Escreve um inteiro não negativo como varint.
+     *
+     * @param valor inteiro a ser escrito
+     * @throws IOException erro de escrita
+     */
+    public void escreveVarInt(int valor) throws IOException {
+        this.escreveVarLong(valor & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Não possui retorno. Escreve um long não negativo como varint.
+     *
+     * @param valor long a ser escrito
+     * @throws IOException erro de escrita
+     */
+    public void escreveVarLong(long valor) throws IOException {
+        while ((valor & ~0x7FL) != 0) {
+            this.escreveByte((int) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        this.escreveByte((int) valor);
+    }
+
+    /**
+     * Não possui retorno. Escreve um long que pode ser negativo como varint, usando a
+     * codificação zigzag para que valores próximos de zero ocupem poucos bytes.
+     *
+     * @param valor long a ser escrito
+     * @throws IOException erro de escrita
+     */
+    public void escreveVarLongComSinal(long valor) throws IOException {
+        this.escreveVarLong((valor << 1) ^ (valor >> 63));
+    }
+
+    /**
+     * Não possui retorno. Escreve uma String em UTF-8 precedida do seu tamanho em bytes.
+     * Valores nulos não são aceitos.
+     *
+     * @param texto String a ser escrita
+     * @throws IOException erro de escrita
+     */
+    public void escreveTexto(String texto) throws IOException {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        this.escreveVarInt(bytes.length);
+        this.saida.write(bytes);
+        this.bytesEscritos += bytes.length;
+    }
+
+    /**
+     * Não possui retorno. Escreve um termo, que pode ser nulo, usando o dicionário.
+     *
+     * @param termo termo a ser escrito
+     * @throws IOException erro de escrita
+     */
+    public void escreveTermo(String termo) throws IOException {
+        if (termo == null) {
+            this.escreveVarInt(TERMO_NULO);
+            return;
+        }
+
+        Integer posicao = this.dicionario.get(termo);
+        if (posicao != null) {
+            this.escreveVarInt(posicao + DESLOCAMENTO_TERMO);
+        } else {
+            this.dicionario.put(termo, this.dicionario.size());
+            this.escreveVarInt(TERMO_NOVO);
+            this.escreveTexto(termo);
+        }
+    }
+
+    /**
+     * Não possui retorno. Esquece os termos já escritos, de forma que os próximos
+     * valores possam ser lidos sem os registros anteriores.
+     */
+    public void reiniciaDicionario() {
+        this.dicionario.clear();
+    }
+
+    /**
+     * Retorna a quantidade de bytes escritos até o momento.
+     *
+     * @return quantidade de bytes escritos
+     */
+    public long getBytesEscritos() {
+        return this.bytesEscritos;
+    }
+
+    /**
+     * Não possui retorno. Envia para o fluxo de saída os bytes ainda em memória.
+     *
+     * @throws IOException erro de escrita
+     */
+    public void descarrega() throws IOException {
+        this.saida.flush();
+    }
+
+    /**
+     * Não possui retorno. Descarrega e fecha o fluxo de saída.
+     *
+     * @throws IOException erro de escrita
+     */
+    @Override
+    public void close() throws IOException {
+        this.saida.close();
+    }
+}
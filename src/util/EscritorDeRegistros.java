@@ -0,0 +1,268 @@
+package util;
+
+import enums.FormatoDeExportacao;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classe que escreve registros para exportação, um registro por linha, nos formatos
+ * CSV e NDJSON lidos pelo {@link LeitorDeRegistros}. Cada registro é escrito assim que
+ * é recebido, passando apenas por um buffer de tamanho fixo, de forma que a memória
+ * usada não depende da quantidade de registros. Os valores podem ser textos, números,
+ * booleanos, nulos, listas e mapas. No NDJSON, listas e mapas viram arrays e objetos;
+ * no CSV, os elementos de uma lista são separados por ";" e os valores de um mapa por
+ * ":", e os valores que contêm vírgulas, aspas ou quebras de linha ficam entre aspas.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class EscritorDeRegistros {
+
+    /**
+     * Tamanho do buffer de escrita.
+     */
+    private static final int TAMANHO_DO_BUFFER = 1 << 16;
+
+    /**
+     * Destino dos registros.
+     */
+    private final Writer saida;
+
+    /**
+     * Formato dos registros.
+     */
+    private final FormatoDeExportacao formato;
+
+    /**
+     * Nomes das colunas, na ordem dos valores de cada registro.
+     */
+    private final String[] colunas;
+
+    /**
+     * Quantidade de registros escritos.
+     */
+    private long quantidade;
+
+    /**
+     * Constrói um escritor sobre o fluxo passado e, no CSV, escreve o cabeçalho.
+     *
+     * @param saida   fluxo de saída, que não é fechado pelo escritor
+     * @param formato formato dos registros
+     * @param colunas nomes das colunas
+     * @throws IOException erro de escrita
+     */
+    public EscritorDeRegistros(OutputStream saida, FormatoDeExportacao formato, String... colunas) throws IOException {
+        this.saida = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), TAMANHO_DO_BUFFER);
+        this.formato = formato;
+        this.colunas = colunas.clone();
+
+        if (formato == FormatoDeExportacao.CSV) {
+            for (int i = 0; i < colunas.length; i++) {
+                if (i > 0)
+                    this.saida.write(',');
+                this.escreveCsv(colunas[i]);
+            }
+            this.saida.write('\n');
+        }
+    }
+
+    /**
+     * Constrói um escritor sobre o canal passado e, no CSV, escreve o cabeçalho.
+     *
+     * @param canal   canal de saída, que não é fechado pelo escritor
+     * @param formato formato dos registros
+     * @param colunas nomes das colunas
+     * @throws IOException erro de escrita
+     */
+    public EscritorDeRegistros(WritableByteChannel canal, FormatoDeExportacao formato, String... colunas)
+            throws IOException {
+        this(Channels.newOutputStream(canal), formato, colunas);
+    }
+
+    /**
+     * Não possui retorno. Escreve um registro com os valores passados, na ordem das colunas.
+     *
+     * @param valores valores do registro
+     * @throws IOException erro de escrita
+     */
+    public void escreve(Object... valores) throws IOException {
+        if (valores.length != this.colunas.length)
+            throw new IllegalArgumentException("Erro ao exportar registro: quantidade de valores invalida");
+
+        if (this.formato == FormatoDeExportacao.CSV) {
+            for (int i = 0; i < valores.length; i++) {
+                if (i > 0)
+                    this.saida.write(',');
+                this.escreveCsv(textoCsv(valores[i]));
+            }
+        } else {
+            this.saida.write('{');
+            for (int i = 0; i < valores.length; i++) {
+                if (i > 0)
+                    this.saida.write(',');
+                this.escreveTextoJson(this.colunas[i]);
+                this.saida.write(':');
+                this.escreveJson(valores[i]);
+            }
+            this.saida.write('}');
+        }
+        this.saida.write('\n');
+        this.quantidade++;
+    }
+
+    /**
+     * Não possui retorno. Esvazia o buffer no fluxo de saída, sem fechá-lo.
+     *
+     * @throws IOException erro de escrita
+     */
+    public void termina() throws IOException {
+        this.saida.flush();
+    }
+
+    /**
+     * Retorna a quantidade de registros escritos.
+     *
+     * @return quantidade de registros
+     */
+    public long getQuantidade() {
+        return this.quantidade;
+    }
+
+    /**
+     * Retorna o texto de um valor no CSV.
+     *
+     * @param valor valor do registro
+     * @return texto do valor
+     */
+    private static String textoCsv(Object valor) {
+        if (valor == null)
+            return "";
+        if (valor instanceof Map) {
+            StringBuilder texto = new StringBuilder();
+            for (Object elemento : ((Map<?, ?>) valor).values()) {
+                if (texto.length() > 0)
+                    texto.append(':');
+                texto.append(textoCsv(elemento));
+            }
+            return texto.toString();
+        }
+        if (valor instanceof List) {
+            StringBuilder texto = new StringBuilder();
+            for (Object elemento : (List<?>) valor) {
+                if (texto.length() > 0)
+                    texto.append(';');
+                texto.append(textoCsv(elemento));
+            }
+            return texto.toString();
+        }
+        return valor.toString();
+    }
+
+    /**
+     * Não possui retorno. Escreve um valor do CSV, entre aspas caso necessário.
+     *
+     * @param texto texto do valor
+     * @throws IOException erro de escrita
+     */
+    private void escreveCsv(String texto) throws IOException {
+        boolean aspas = false;
+        for (int i = 0; i < texto.length() && !aspas; i++) {
+            char c = texto.charAt(i);
+            aspas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (!aspas) {
+            this.saida.write(texto);
+            return;
+        }
+        this.saida.write('"');
+        this.saida.write(texto.replace("\"", "\"\""));
+        this.saida.write('"');
+    }
+
+    /**
+     * Não possui retorno. Escreve um valor em JSON.
+     *
+     * @param valor valor do registro
+     * @throws IOException erro de escrita
+     */
+    private void escreveJson(Object valor) throws IOException {
+        if (valor == null) {
+            this.saida.write("null");
+        } else if (valor instanceof Number || valor instanceof Boolean) {
+            this.saida.write(valor.toString());
+        } else if (valor instanceof Map) {
+            this.saida.write('{');
+            Iterator<? extends Map.Entry<?, ?>> entradas = ((Map<?, ?>) valor).entrySet().iterator();
+            while (entradas.hasNext()) {
+                Map.Entry<?, ?> entrada = entradas.next();
+                this.escreveTextoJson(String.valueOf(entrada.getKey()));
+                this.saida.write(':');
+                this.escreveJson(entrada.getValue());
+                if (entradas.hasNext())
+                    this.saida.write(',');
+            }
+            this.saida.write('}');
+        } else if (valor instanceof List) {
+            this.saida.write('[');
+            Iterator<?> elementos = ((List<?>) valor).iterator();
+            while (elementos.hasNext()) {
+                this.escreveJson(elementos.next());
+                if (elementos.hasNext())
+                    this.saida.write(',');
+            }
+            this.saida.write(']');
+        } else {
+            this.escreveTextoJson(valor.toString());
+        }
+    }
+
+    /**
+     * Não possui retorno. Escreve um texto em JSON, entre aspas e com os caracteres
+     * especiais escapados.
+     *
+     * @param texto texto a ser escrito
+     * @throws IOException erro de escrita
+     */
+    private void escreveTextoJson(String texto) throws IOException {
+        this.saida.write('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"':
+                    this.saida.write("\\\"");
+                    break;
+                case '\\':
+                    this.saida.write("\\\\");
+                    break;
+                case '\n':
+                    this.saida.write("\\n");
+                    break;
+                case '\r':
+                    this.saida.write("\\r");
+                    break;
+                case '\t':
+                    this.saida.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                        this.saida.write(String.format("\\u%04x", (int) c));
+                    else
+                        this.saida.write(c);
+            }
+        }
+        this.saida.write('"');
+    }
+}
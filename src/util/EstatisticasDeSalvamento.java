@@ -0,0 +1,202 @@
+package util;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Classe que acompanha os salvamentos feitos em segundo plano: o progresso do
+ * salvamento em andamento, a duração da captura do estado e da gravação dos arquivos
+ * e a quantidade de salvamentos concluídos e com falha. Pode ser consultada por
+ * qualquer thread enquanto o salvamento acontece.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class EstatisticasDeSalvamento {
+
+    /**
+     * Quantidade de entidades capturadas pelo salvamento atual.
+     */
+    private volatile long registrosCapturados;
+
+    /**
+     * Quantidade de entidades do salvamento atual já gravadas.
+     */
+    private final AtomicLong registrosGravados;
+
+    /**
+     * Indica se há um salvamento em andamento.
+     */
+    private volatile boolean emAndamento;
+
+    /**
+     * Instante, em nanossegundos, em que a gravação atual começou.
+     */
+    private volatile long inicioDaGravacao;
+
+    /**
+     * Duração, em nanossegundos, da última captura do estado.
+     */
+    private volatile long duracaoDaCaptura;
+
+    /**
+     * Duração, em nanossegundos, da última gravação dos arquivos.
+     */
+    private volatile long duracaoDaGravacao;
+
+    /**
+     * Quantidade de salvamentos concluídos com sucesso.
+     */
+    private final AtomicLong salvamentosConcluidos;
+
+    /**
+     * Quantidade de salvamentos em que algum arquivo não pôde ser gravado.
+     */
+    private final AtomicLong salvamentosComFalha;
+
+    /**
+     * Constrói as estatísticas sem nenhum salvamento.
+     */
+    public EstatisticasDeSalvamento() {
+        this.registrosGravados = new AtomicLong();
+        this.salvamentosConcluidos = new AtomicLong();
+        this.salvamentosComFalha = new AtomicLong();
+    }
+
+    /**
+     * Não possui retorno. Registra o fim da captura do estado e o início da gravação.
+     *
+     * @param registros        quantidade de entidades capturadas
+     * @param duracaoEmNanos   duração da captura
+     */
+    public void registraCaptura(long registros, long duracaoEmNanos) {
+        this.registrosCapturados = registros;
+        this.registrosGravados.set(0);
+        this.duracaoDaCaptura = duracaoEmNanos;
+        this.inicioDaGravacao = System.nanoTime();
+        this.emAndamento = true;
+    }
+
+    /**
+     * Não possui retorno. Registra o fim da gravação.
+     *
+     * @param sucesso true caso todos os arquivos tenham sido gravados
+     */
+    public void registraConclusao(boolean sucesso) {
+        this.duracaoDaGravacao = System.nanoTime() - this.inicioDaGravacao;
+        if (sucesso)
+            this.salvamentosConcluidos.incrementAndGet();
+        else
+            this.salvamentosComFalha.incrementAndGet();
+        this.emAndamento = false;
+    }
+
+    /**
+     * Retorna uma visão da coleção passada que conta como gravada cada entidade
+     * percorrida, sem copiá-la.
+     *
+     * @param entidades entidades a serem gravadas
+     * @param <T>       tipo das entidades
+     * @return coleção que atualiza o progresso ao ser percorrida
+     */
+    public <T> Collection<T> acompanha(Collection<T> entidades) {
+        return new AbstractCollection<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                Iterator<T> iterador = entidades.iterator();
+                return new Iterator<T>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterador.hasNext();
+                    }
+
+                    @Override
+                    public T next() {
+                        T proxima = iterador.next();
+                        registrosGravados.incrementAndGet();
+                        return proxima;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return entidades.size();
+            }
+        };
+    }
+
+    /**
+     * Retorna o progresso do salvamento atual, ou do último caso nenhum esteja em andamento.
+     *
+     * @return fração das entidades capturadas já gravadas, entre 0 e 1
+     */
+    public double getProgresso() {
+        long capturados = this.registrosCapturados;
+        if (!this.emAndamento || capturados == 0)
+            return 1.0;
+        return Math.min(1.0, (double) this.registrosGravados.get() / capturados);
+    }
+
+    /**
+     * Retorna se há um salvamento em andamento.
+     *
+     * @return true caso haja um salvamento em andamento
+     */
+    public boolean isEmAndamento() {
+        return this.emAndamento;
+    }
+
+    /**
+     * Retorna a duração da última captura do estado, durante a qual as operações ficam paradas.
+     *
+     * @return duração em milissegundos
+     */
+    public double getDuracaoDaCaptura() {
+        return this.duracaoDaCaptura / 1_000_000.0;
+    }
+
+    /**
+     * Retorna a duração da última gravação concluída, feita em segundo plano.
+     *
+     * @return duração em milissegundos
+     */
+    public double getDuracaoDaGravacao() {
+        return this.duracaoDaGravacao / 1_000_000.0;
+    }
+
+    /**
+     * Retorna a quantidade de salvamentos concluídos com sucesso.
+     *
+     * @return quantidade de salvamentos concluídos
+     */
+    public long getSalvamentosConcluidos() {
+        return this.salvamentosConcluidos.get();
+    }
+
+    /**
+     * Retorna a quantidade de salvamentos em que algum arquivo não pôde ser gravado.
+     *
+     * @return quantidade de salvamentos com falha
+     */
+    public long getSalvamentosComFalha() {
+        return this.salvamentosComFalha.get();
+    }
+
+    /**
+     * Retorna a representação textual das estatísticas.
+     *
+     * @return string com o progresso, as durações e as quantidades de salvamentos
+     */
+    @Override
+    public String toString() {
+        return String.format("Salvamentos: %d - Falhas: %d - Em andamento: %s - Progresso: %.0f%% - "
+                        + "Captura: %.1f ms - Gravacao: %.1f ms", this.getSalvamentosConcluidos(),
+                this.getSalvamentosComFalha(), this.isEmAndamento() ? "sim" : "nao", this.getProgresso() * 100,
+                this.getDuracaoDaCaptura(), this.getDuracaoDaGravacao());
+    }
+}
@@ -0,0 +1,164 @@
+package util;
+
+import enums.SituacaoVotacao;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Classe que guarda as transições da tramitação de uma proposta, cada uma com o instante
+ * em que aconteceu e o local e a situação da proposta a partir dele. As transições ficam
+ * em ordem crescente de instante em arrays paralelos, de forma que a situação da proposta
+ * em um instante qualquer é encontrada por busca binária, sem percorrer a tramitação.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class HistoricoDeTramitacao implements Serializable {
+
+    /**
+     * Armazena Id de serialização do objeto HistoricoDeTramitacao
+     */
+    private static final long serialVersionUID = 4210598373316470582L;
+
+    /**
+     * Capacidade inicial dos arrays, suficiente para a tramitação da maioria das propostas.
+     */
+    private static final int CAPACIDADE_INICIAL = 4;
+
+    /**
+     * Instante de cada transição, em milissegundos desde a época, em ordem crescente.
+     */
+    private long[] instantes;
+
+    /**
+     * Local de votação a partir de cada transição.
+     */
+    private String[] locais;
+
+    /**
+     * Situação a partir de cada transição, pela posição da constante em SituacaoVotacao.
+     */
+    private byte[] situacoes;
+
+    /**
+     * Quantidade de transições registradas.
+     */
+    private int quantidade;
+
+    /**
+     * Constrói um histórico sem transições.
+     */
+    public HistoricoDeTramitacao() {
+        this.instantes = new long[CAPACIDADE_INICIAL];
+        this.locais = new String[CAPACIDADE_INICIAL];
+        this.situacoes = new byte[CAPACIDADE_INICIAL];
+    }
+
+    /**
+     * Não possui retorno. Registra uma transição no final do histórico. Uma transição
+     * para o mesmo local e situação da última é ignorada, e um instante anterior ao da
+     * última transição é substituído por ele, mantendo o histórico ordenado mesmo que
+     * o relógio do sistema volte.
+     *
+     * @param instante instante da transição, em milissegundos desde a época
+     * @param local    local de votação a partir da transição
+     * @param situacao situação a partir da transição
+     */
+    public void registra(long instante, String local, SituacaoVotacao situacao) {
+        if (this.quantidade > 0) {
+            int ultima = this.quantidade - 1;
+            if (this.locais[ultima].equals(local) && this.situacoes[ultima] == situacao.ordinal())
+                return;
+            instante = Math.max(instante, this.instantes[ultima]);
+        }
+
+        if (this.quantidade == this.instantes.length) {
+            int capacidade = this.quantidade * 2;
+            this.instantes = Arrays.copyOf(this.instantes, capacidade);
+            this.locais = Arrays.copyOf(this.locais, capacidade);
+            this.situacoes = Arrays.copyOf(this.situacoes, capacidade);
+        }
+        this.instantes[this.quantidade] = instante;
+        this.locais[this.quantidade] = local;
+        this.situacoes[this.quantidade] = (byte) situacao.ordinal();
+        this.quantidade++;
+    }
+
+    /**
+     * Retorna a posição da transição em vigor no instante passado, isto é, da última
+     * transição com instante menor ou igual a ele.
+     *
+     * @param instante instante consultado, em milissegundos desde a época
+     * @return posição da transição, ou -1 caso o instante seja anterior à primeira
+     */
+    public int posicaoEm(long instante) {
+        int inicio = 0;
+        int fim = this.quantidade;
+        while (inicio < fim) {
+            int meio = (inicio + fim) >>> 1;
+            if (this.instantes[meio] <= instante)
+                inicio = meio + 1;
+            else
+                fim = meio;
+        }
+        return inicio - 1;
+    }
+
+    /**
+     * Retorna a quantidade de transições registradas.
+     *
+     * @return quantidade de transições
+     */
+    public int getQuantidade() {
+        return this.quantidade;
+    }
+
+    /**
+     * Retorna o instante de uma transição.
+     *
+     * @param posicao posição da transição
+     * @return instante em milissegundos desde a época
+     */
+    public long getInstante(int posicao) {
+        return this.instantes[posicao];
+    }
+
+    /**
+     * Retorna o local de votação a partir de uma transição.
+     *
+     * @param posicao posição da transição
+     * @return local de votação
+     */
+    public String getLocal(int posicao) {
+        return this.locais[posicao];
+    }
+
+    /**
+     * Retorna a situação a partir de uma transição.
+     *
+     * @param posicao posição da transição
+     * @return situação da votação
+     */
+    public SituacaoVotacao getSituacao(int posicao) {
+        return SituacaoVotacao.values()[this.situacoes[posicao]];
+    }
+
+    /**
+     * Retorna uma cópia do histórico, que não é afetada por transições registradas
+     * no original.
+     *
+     * @return cópia do histórico
+     */
+    public HistoricoDeTramitacao copia() {
+        HistoricoDeTramitacao copia = new HistoricoDeTramitacao();
+        int capacidade = Math.max(CAPACIDADE_INICIAL, this.quantidade);
+        copia.instantes = Arrays.copyOf(this.instantes, capacidade);
+        copia.locais = Arrays.copyOf(this.locais, capacidade);
+        copia.situacoes = Arrays.copyOf(this.situacoes, capacidade);
+        copia.quantidade = this.quantidade;
+        return copia;
+    }
+}
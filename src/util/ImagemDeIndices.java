@@ -0,0 +1,531 @@
+package util;
+
+import interfaces.PropostaLegislativa;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Classe que guarda, ao lado dos arquivos de dados, uma imagem dos índices que o sistema
+ * reconstrói a cada carga: o acervo das propostas com tramitação encerrada, o índice de
+ * deputados e os anos das propostas mantidas em memória. A imagem é gravada depois de
+ * cada salvamento e registra a geração do manifesto e o armazenamento a que corresponde;
+ * uma carga da mesma geração restaura o acervo copiando os seus registros já
+ * codificados, sem decodificá-los nem codificá-los novamente, e só precisa ler as
+ * propostas dos anos que tinham propostas em memória, pois as dos demais anos já estão
+ * todas no acervo. Qualquer diferença faz a carga reconstruir os índices.
+ * <p>
+ * A imagem é formada por três arquivos. Os registros do acervo ficam em
+ * "indices.registros" e as entradas de tamanho fixo dos seus campos em
+ * "indices.entradas"; como os registros e as entradas nunca mudam depois de gravados,
+ * cada salvamento só acrescenta os novos enquanto o acervo for o mesmo. O arquivo
+ * "indices" guarda a versão do formato, a geração, as quantidades e o CRC32 dos dois
+ * arquivos, os campos que mudam depois de gravados (registros removidos, locais e
+ * conjuntos de interesses), os dnis dos deputados e os anos das propostas em memória,
+ * seguidos do CRC32 do seu próprio conteúdo, e é substituído de forma atômica, como o
+ * manifesto.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class ImagemDeIndices {
+
+    /**
+     * Assinatura que identifica o arquivo da imagem ("ECOI").
+     */
+    private static final int ASSINATURA = 0x45434F49;
+
+    /**
+     * Versão atual do formato da imagem.
+     */
+    private static final int VERSAO = 2;
+
+    /**
+     * Tamanho do buffer usado para copiar os registros e as entradas.
+     */
+    private static final int TAMANHO_DA_COPIA = 1 << 16;
+
+    /**
+     * Diretório dos arquivos da imagem.
+     */
+    private final File diretorio;
+
+    /**
+     * Arquivo com a geração, as quantidades, os campos variáveis e os checksums.
+     */
+    private final File arquivo;
+
+    /**
+     * Arquivo com os registros do acervo.
+     */
+    private final File arquivoDeRegistros;
+
+    /**
+     * Arquivo com as entradas dos registros do acervo.
+     */
+    private final File arquivoDeEntradas;
+
+    /**
+     * Nome do armazenamento das famílias de entidades, gravado na imagem.
+     */
+    private final String armazenamento;
+
+    /**
+     * Acervo cujos registros e entradas estão nos arquivos da imagem, ou null caso os
+     * arquivos precisem ser reescritos por completo no próximo salvamento.
+     */
+    private AcervoDePropostas espelhado;
+
+    /**
+     * Quantidade de registros e de bytes do acervo espelhado já nos arquivos.
+     */
+    private int quantidadeEspelhada;
+    private long tamanhoEspelhado;
+
+    /**
+     * CRC32 dos registros e das entradas já nos arquivos.
+     */
+    private CRC32 crcDosRegistros;
+    private CRC32 crcDasEntradas;
+
+    /**
+     * Constrói a imagem de índices guardada no diretório passado.
+     *
+     * @param diretorio     diretório dos arquivos de dados
+     * @param armazenamento nome do armazenamento das famílias de entidades
+     */
+    public ImagemDeIndices(File diretorio, String armazenamento) {
+        this.diretorio = diretorio;
+        this.arquivo = new File(diretorio, "indices");
+        this.arquivoDeRegistros = new File(diretorio, "indices.registros");
+        this.arquivoDeEntradas = new File(diretorio, "indices.entradas");
+        this.armazenamento = armazenamento;
+    }
+
+    /**
+     * Captura os índices a serem gravados na imagem. O acervo é descarregado no seu
+     * arquivo, mas os seus registros só são copiados na gravação.
+     *
+     * @param acervo     acervo das propostas com tramitação encerrada
+     * @param deputados  dnis dos deputados
+     * @param emMemoria  propostas que não estão no acervo
+     * @return captura dos índices
+     * @throws IOException erro ao descarregar o acervo
+     */
+    public static Captura captura(AcervoDePropostas acervo, Collection<String> deputados,
+                                  Collection<PropostaLegislativa> emMemoria) throws IOException {
+        Set<Integer> anos = new TreeSet<>();
+        for (PropostaLegislativa proposta : emMemoria)
+            anos.add(proposta.getAno());
+        return new Captura(acervo.captura(), new ArrayList<>(deputados), anos);
+    }
+
+    /**
+     * Não possui retorno. Grava a imagem dos índices capturados para a geração
+     * passada. Caso o acervo capturado seja o mesmo da gravação anterior, apenas os
+     * registros e as entradas acrescentados desde então são copiados; caso contrário,
+     * os arquivos são reescritos por completo.
+     *
+     * @param captura índices capturados
+     * @param geracao geração do manifesto a que a captura corresponde
+     * @throws IOException erro de leitura do acervo ou de escrita da imagem
+     */
+    public synchronized void grava(Captura captura, long geracao) throws IOException {
+        AcervoDePropostas.Captura acervo = captura.acervo;
+        if (this.espelhado != acervo.acervo || this.quantidadeEspelhada > acervo.quantidade
+                || this.tamanhoEspelhado > acervo.tamanho) {
+            this.espelhado = null;
+            this.quantidadeEspelhada = 0;
+            this.tamanhoEspelhado = 0;
+            this.crcDosRegistros = new CRC32();
+            this.crcDasEntradas = new CRC32();
+        }
+
+        try {
+            this.copiaRegistros(acervo);
+            this.copiaEntradas(acervo);
+            this.gravaIndices(captura, geracao);
+        } catch (IOException ioe) {
+            this.espelhado = null;
+            throw ioe;
+        }
+        this.espelhado = acervo.acervo;
+        this.quantidadeEspelhada = acervo.quantidade;
+        this.tamanhoEspelhado = acervo.tamanho;
+    }
+
+    /**
+     * Lê a imagem gravada para a geração passada e restaura os índices. O acervo é
+     * restaurado em um novo arquivo de acervo no diretório dos dados, com os registros
+     * copiados da imagem. Caso a imagem não exista, seja de outra geração, de outro
+     * armazenamento ou de outra versão, ou algum checksum não confira, retorna null e
+     * os índices devem ser reconstruídos.
+     *
+     * @param geracao     geração do manifesto sendo carregada
+     * @param codificador codificador dos registros do acervo
+     * @return índices restaurados, ou null caso a imagem não possa ser usada
+     */
+    public synchronized Conteudo le(long geracao, CodificadorDeEntidades codificador) {
+        if (!this.arquivo.exists())
+            return null;
+
+        Cabecalho cabecalho;
+        try (DataInputStream leitor = new DataInputStream(new BufferedInputStream(new FileInputStream(this.arquivo)))) {
+            cabecalho = this.leCabecalho(leitor, geracao);
+        } catch (IOException ioe) {
+            return null;
+        }
+        if (cabecalho == null || this.arquivoDeRegistros.length() < cabecalho.tamanho
+                || this.arquivoDeEntradas.length() < (long) cabecalho.quantidade * AcervoDePropostas.TAMANHO_DA_ENTRADA)
+            return null;
+
+        File copia = null;
+        try {
+            copia = AcervoDePropostas.criaArquivo(this.diretorio);
+            CRC32 crcDosRegistros = new CRC32();
+            try (InputStream registros = new CheckedInputStream(new FileInputStream(this.arquivoDeRegistros),
+                    crcDosRegistros); OutputStream saida = new FileOutputStream(copia)) {
+                byte[] buffer = new byte[TAMANHO_DA_COPIA];
+                for (long restantes = cabecalho.tamanho; restantes > 0; ) {
+                    int lidos = registros.read(buffer, 0, (int) Math.min(buffer.length, restantes));
+                    if (lidos < 0)
+                        return null;
+                    saida.write(buffer, 0, lidos);
+                    restantes -= lidos;
+                }
+            }
+            if (crcDosRegistros.getValue() != cabecalho.crcDosRegistros)
+                return null;
+
+            CRC32 crcDasEntradas = new CRC32();
+            AcervoDePropostas acervo;
+            try (DataInputStream entradas = new DataInputStream(new CheckedInputStream(
+                    new BufferedInputStream(new FileInputStream(this.arquivoDeEntradas), TAMANHO_DA_COPIA),
+                    crcDasEntradas))) {
+                acervo = AcervoDePropostas.restaura(this.diretorio, codificador, copia, cabecalho.tamanho,
+                        cabecalho.quantidade, entradas, cabecalho.removidos, cabecalho.locais, cabecalho.interesses,
+                        cabecalho.irregulares);
+            }
+            copia = null;
+            if (crcDasEntradas.getValue() != cabecalho.crcDasEntradas) {
+                acervo.close();
+                return null;
+            }
+
+            this.espelhado = acervo;
+            this.quantidadeEspelhada = cabecalho.quantidade;
+            this.tamanhoEspelhado = cabecalho.tamanho;
+            this.crcDosRegistros = crcDosRegistros;
+            this.crcDasEntradas = crcDasEntradas;
+            return new Conteudo(acervo, cabecalho.deputados, cabecalho.anos);
+        } catch (IOException ioe) {
+            return null;
+        } finally {
+            if (copia != null)
+                copia.delete();
+        }
+    }
+
+    /**
+     * Não possui retorno. Apaga os arquivos da imagem.
+     *
+     * @throws IOException erro ao apagar os arquivos
+     */
+    public synchronized void limpa() throws IOException {
+        this.espelhado = null;
+        Files.deleteIfExists(this.arquivo.toPath());
+        Files.deleteIfExists(this.arquivoDeRegistros.toPath());
+        Files.deleteIfExists(this.arquivoDeEntradas.toPath());
+        Manifesto.sincronizaDiretorio(this.diretorio);
+    }
+
+    /**
+     * Não possui retorno. Copia para o arquivo de registros os bytes do acervo que
+     * ainda não estão nele.
+     *
+     * @param acervo captura do acervo
+     * @throws IOException erro de leitura do acervo ou de escrita do arquivo
+     */
+    private void copiaRegistros(AcervoDePropostas.Captura acervo) throws IOException {
+        try (FileChannel canal = FileChannel.open(this.arquivoDeRegistros.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_DA_COPIA);
+            for (long posicao = this.tamanhoEspelhado; posicao < acervo.tamanho; ) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), acervo.tamanho - posicao));
+                if (acervo.acervo.leRegistros(posicao, buffer) < 0)
+                    throw new IOException("acervo menor que o capturado");
+                buffer.flip();
+                this.crcDosRegistros.update(buffer.duplicate());
+                posicao += escreve(canal, buffer, posicao);
+            }
+            canal.truncate(acervo.tamanho);
+            canal.force(false);
+        }
+    }
+
+    /**
+     * Não possui retorno. Copia para o arquivo de entradas as entradas dos registros
+     * do acervo que ainda não estão nele.
+     *
+     * @param acervo captura do acervo
+     * @throws IOException erro de escrita do arquivo
+     */
+    private void copiaEntradas(AcervoDePropostas.Captura acervo) throws IOException {
+        try (FileChannel canal = FileChannel.open(this.arquivoDeEntradas.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_DA_COPIA / AcervoDePropostas.TAMANHO_DA_ENTRADA
+                    * AcervoDePropostas.TAMANHO_DA_ENTRADA);
+            for (int registro = this.quantidadeEspelhada; registro < acervo.quantidade; ) {
+                buffer.clear();
+                int copiadas = acervo.acervo.copiaEntradas(registro, acervo.quantidade, buffer);
+                buffer.flip();
+                this.crcDasEntradas.update(buffer.duplicate());
+                escreve(canal, buffer, (long) registro * AcervoDePropostas.TAMANHO_DA_ENTRADA);
+                registro += copiadas;
+            }
+            canal.truncate((long) acervo.quantidade * AcervoDePropostas.TAMANHO_DA_ENTRADA);
+            canal.force(false);
+        }
+    }
+
+    /**
+     * Escreve todos os bytes restantes de um buffer na posição passada de um canal.
+     *
+     * @param canal   canal do arquivo
+     * @param buffer  bytes a serem escritos
+     * @param posicao posição no arquivo
+     * @return quantidade de bytes escritos
+     * @throws IOException erro de escrita
+     */
+    private static int escreve(FileChannel canal, ByteBuffer buffer, long posicao) throws IOException {
+        int escritos = 0;
+        while (buffer.hasRemaining())
+            escritos += canal.write(buffer, posicao + escritos);
+        return escritos;
+    }
+
+    /**
+     * Não possui retorno. Grava o arquivo da imagem em um arquivo temporário,
+     * sincronizado com o disco e renomeado sobre o anterior.
+     *
+     * @param captura índices capturados
+     * @param geracao geração a que a captura corresponde
+     * @throws IOException erro de escrita
+     */
+    private void gravaIndices(Captura captura, long geracao) throws IOException {
+        AcervoDePropostas.Captura acervo = captura.acervo;
+        File temporario = new File(this.arquivo.getPath() + ".tmp");
+        try (FileOutputStream saida = new FileOutputStream(temporario)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream escritor = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(saida, TAMANHO_DA_COPIA), crc));
+            escritor.writeInt(ASSINATURA);
+            escritor.writeInt(VERSAO);
+            escritor.writeUTF(this.armazenamento);
+            escritor.writeLong(geracao);
+            escritor.writeLong(acervo.tamanho);
+            escritor.writeInt(acervo.quantidade);
+            escritor.writeLong(this.crcDosRegistros.getValue());
+            escritor.writeLong(this.crcDasEntradas.getValue());
+
+            escritor.writeInt(acervo.locais.size());
+            for (String local : acervo.locais)
+                escritor.writeUTF(local);
+            escritor.writeInt(acervo.interesses.size());
+            for (String interesses : acervo.interesses)
+                escritor.writeUTF(interesses);
+            escritor.writeInt(acervo.irregulares.size());
+            for (Map.Entry<String, Integer> irregular : acervo.irregulares.entrySet()) {
+                escritor.writeUTF(irregular.getKey());
+                escritor.writeInt(irregular.getValue());
+            }
+            long[] removidos = acervo.removidos.toLongArray();
+            escritor.writeInt(removidos.length);
+            for (long palavra : removidos)
+                escritor.writeLong(palavra);
+            escritor.writeInt(captura.deputados.size());
+            for (String dni : captura.deputados)
+                escritor.writeUTF(dni);
+            escritor.writeInt(captura.anos.size());
+            for (int ano : captura.anos)
+                escritor.writeInt(ano);
+
+            escritor.writeLong(crc.getValue());
+            escritor.flush();
+            saida.getFD().sync();
+        }
+        Manifesto.instala(temporario, this.arquivo);
+    }
+
+    /**
+     * Lê o arquivo da imagem, conferindo a assinatura, a versão, o armazenamento, a
+     * geração e o CRC32 do conteúdo.
+     *
+     * @param entrada fluxo do arquivo da imagem
+     * @param geracao geração esperada
+     * @return conteúdo do arquivo, ou null caso não corresponda à geração ou esteja corrompido
+     * @throws IOException erro de leitura, ou arquivo truncado
+     */
+    private Cabecalho leCabecalho(DataInputStream entrada, long geracao) throws IOException {
+        CRC32 crc = new CRC32();
+        DataInputStream leitor = new DataInputStream(new CheckedInputStream(entrada, crc));
+        if (leitor.readInt() != ASSINATURA || leitor.readInt() != VERSAO
+                || !this.armazenamento.equals(leitor.readUTF()) || leitor.readLong() != geracao)
+            return null;
+
+        Cabecalho cabecalho = new Cabecalho();
+        cabecalho.tamanho = leitor.readLong();
+        cabecalho.quantidade = leitor.readInt();
+        cabecalho.crcDosRegistros = leitor.readLong();
+        cabecalho.crcDasEntradas = leitor.readLong();
+        if (cabecalho.tamanho < 0 || cabecalho.quantidade < 0)
+            return null;
+
+        int locais = leitor.readInt();
+        cabecalho.locais = new ArrayList<>();
+        for (int i = 0; i < locais; i++)
+            cabecalho.locais.add(leitor.readUTF());
+        int interesses = leitor.readInt();
+        cabecalho.interesses = new ArrayList<>();
+        for (int i = 0; i < interesses; i++)
+            cabecalho.interesses.add(leitor.readUTF());
+        int irregulares = leitor.readInt();
+        cabecalho.irregulares = new HashMap<>();
+        for (int i = 0; i < irregulares; i++)
+            cabecalho.irregulares.put(leitor.readUTF(), leitor.readInt());
+        long[] removidos = new long[leitor.readInt()];
+        for (int i = 0; i < removidos.length; i++)
+            removidos[i] = leitor.readLong();
+        cabecalho.removidos = BitSet.valueOf(removidos);
+        int deputados = leitor.readInt();
+        cabecalho.deputados = new HashSet<>();
+        for (int i = 0; i < deputados; i++)
+            cabecalho.deputados.add(leitor.readUTF());
+        int anos = leitor.readInt();
+        cabecalho.anos = new TreeSet<>();
+        for (int i = 0; i < anos; i++)
+            cabecalho.anos.add(leitor.readInt());
+
+        long esperado = crc.getValue();
+        return entrada.readLong() == esperado ? cabecalho : null;
+    }
+
+    /**
+     * Índices capturados para serem gravados na imagem.
+     */
+    public static final class Captura {
+        /**
+         * Captura do acervo
+         */
+        private final AcervoDePropostas.Captura acervo;
+        /**
+         * Dnis dos deputados
+         */
+        private final List<String> deputados;
+        /**
+         * Anos das propostas em memória
+         */
+        private final Set<Integer> anos;
+
+        private Captura(AcervoDePropostas.Captura acervo, List<String> deputados, Set<Integer> anos) {
+            this.acervo = acervo;
+            this.deputados = deputados;
+            this.anos = anos;
+        }
+    }
+
+    /**
+     * Índices restaurados de uma imagem.
+     */
+    public static final class Conteudo {
+        /**
+         * Acervo restaurado
+         */
+        private final AcervoDePropostas acervo;
+        /**
+         * Dnis dos deputados
+         */
+        private final Set<String> deputados;
+        /**
+         * Anos das propostas que não estavam no acervo
+         */
+        private final Set<Integer> anos;
+
+        private Conteudo(AcervoDePropostas acervo, Set<String> deputados, Set<Integer> anos) {
+            this.acervo = acervo;
+            this.deputados = deputados;
+            this.anos = anos;
+        }
+
+        /**
+         * Retorna o acervo restaurado, com as propostas que não estão em memória.
+         *
+         * @return acervo restaurado
+         */
+        public AcervoDePropostas getAcervo() {
+            return this.acervo;
+        }
+
+        /**
+         * Retorna os dnis dos deputados.
+         *
+         * @return conjunto com os dnis dos deputados
+         */
+        public Set<String> getDeputados() {
+            return this.deputados;
+        }
+
+        /**
+         * Retorna os anos das propostas que não estavam no acervo. As propostas dos
+         * demais anos estão todas no acervo restaurado.
+         *
+         * @return conjunto dos anos
+         */
+        public Set<Integer> getAnosEmMemoria() {
+            return this.anos;
+        }
+    }
+
+    /**
+     * Conteúdo do arquivo da imagem.
+     */
+    private static final class Cabecalho {
+        private long tamanho;
+        private int quantidade;
+        private long crcDosRegistros;
+        private long crcDasEntradas;
+        private List<String> locais;
+        private List<String> interesses;
+        private Map<String, Integer> irregulares;
+        private BitSet removidos;
+        private Set<String> deputados;
+        private Set<Integer> anos;
+    }
+}
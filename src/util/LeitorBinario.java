@@ -0,0 +1,179 @@
+package util;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classe que lê os valores escritos por um EscritorBinario, na mesma ordem em que
+ * foram escritos.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class LeitorBinario implements Closeable {
+
+    /**
+     * Fluxo de entrada dos bytes.
+     */
+    private final InputStream entrada;
+
+    /**
+     * Termos já lidos, na ordem em que apareceram.
+     */
+    private final List<String> dicionario;
+
+    /**
+     * Constrói um leitor sobre o fluxo de entrada passado.
+     *
+     * @param entrada fluxo de entrada
+     */
+    public LeitorBinario(InputStream entrada) {
+        this(entrada, 1 << 16);
+    }
+
+    /**
+     * Constrói um leitor sobre o fluxo de entrada passado com um buffer do tamanho
+     * informado, menor que o padrão quando apenas um registro será lido.
+     *
+     * @param entrada         fluxo de entrada
+     * @param tamanhoDoBuffer tamanho do buffer de leitura, em bytes
+     */
+    public LeitorBinario(InputStream entrada, int tamanhoDoBuffer) {
+        this.entrada = new BufferedInputStream(entrada, tamanhoDoBuffer);
+        this.dicionario = new ArrayList<>();
+    }
+
+    /**
+     * Retorna o próximo byte, entre 0 e 255.
+     *
+     * @return byte lido
+     * @throws IOException erro de leitura ou fim inesperado do fluxo
+     */
+    public int leByte() throws IOException {
+        int valor = this.entrada.read();
+        if (valor < 0)
+            throw new EOFException("fim inesperado do arquivo");
+        return valor;
+    }
+
+    /**
+     * Retorna o próximo booleano.
+     *
+     * @return booleano lido
+     * @throws IOException erro de leitura
+     */
+    public boolean leBooleano() throws IOException {
+        return this.leByte() != 0;
+    }
+
+    /**
+     * Retorna o próximo inteiro de 4 bytes.
+     *
+     * @return inteiro lido
+     * @throws IOException erro de leitura
+     */
+    public int leInteiroFixo() throws IOException {
+        return (this.leByte() << 24) | (this.leByte() << 16) | (this.leByte() << 8) | this.leByte();
+    }
+
+    /**
+     * Retorna o próximo inteiro escrito como varint.
+     *
+     * @return inteiro lido
+     * @throws IOException erro de leitura
+     */
+    public int leVarInt() throws IOException {
+        return (int) this.leVarLong();
+    }
+
+    /**
+     * Retorna o próximo long escrito como varint.
+     *
+     * @return long lido
+     * @throws IOException erro de leitura ou varint inválido
+     */
+    public long leVarLong() throws IOException {
+        long valor = 0;
+        for (int deslocamento = 0; deslocamento < 64; deslocamento += 7) {
+            int parte = this.leByte();
+            valor |= (long) (parte & 0x7F) << deslocamento;
+            if ((parte & 0x80) == 0)
+                return valor;
+        }
+        throw new IOException("varint invalido");
+    }
+
+    /**
+     * Retorna o próximo long escrito com a codificação zigzag.
+     *
+     * @return long lido
+     * @throws IOException erro de leitura
+     */
+    public long leVarLongComSinal() throws IOException {
+        long valor = this.leVarLong();
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+
+    /**
+     * Retorna a próxima String em UTF-8 precedida do seu tamanho.
+     *
+     * @return String lida
+     * @throws IOException erro de leitura
+     */
+    public String leTexto() throws IOException {
+        int tamanho = this.leVarInt();
+        if (tamanho < 0)
+            throw new IOException("tamanho invalido");
+
+        byte[] bytes = new byte[tamanho];
+        int lidos = 0;
+        while (lidos < tamanho) {
+            int parte = this.entrada.read(bytes, lidos, tamanho - lidos);
+            if (parte < 0)
+                throw new EOFException("fim inesperado do arquivo");
+            lidos += parte;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Retorna o próximo termo, consultando o dicionário.
+     *
+     * @return termo lido, podendo ser nulo
+     * @throws IOException erro de leitura ou referência inválida
+     */
+    public String leTermo() throws IOException {
+        int marcador = this.leVarInt();
+        if (marcador == EscritorBinario.TERMO_NULO)
+            return null;
+
+        if (marcador == EscritorBinario.TERMO_NOVO) {
+            String termo = this.leTexto();
+            this.dicionario.add(termo);
+            return termo;
+        }
+
+        int posicao = marcador - EscritorBinario.DESLOCAMENTO_TERMO;
+        if (posicao < 0 || posicao >= this.dicionario.size())
+            throw new IOException("termo invalido");
+        return this.dicionario.get(posicao);
+    }
+
+    /**
+     * Não possui retorno. Fecha o fluxo de entrada.
+     *
+     * @throws IOException erro ao fechar o fluxo
+     */
+    @Override
+    public void close() throws IOException {
+        this.entrada.close();
+    }
+}
@@ -0,0 +1,439 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Classe que lê arquivos de registros para importação em lote, um registro por linha,
+ * nos formatos CSV e NDJSON. O arquivo é lido em pedaços por um FileChannel, sem ser
+ * carregado por inteiro, e os registros são entregues em lotes. O formato é definido
+ * pela primeira linha não vazia: caso comece com "{", cada linha é um objeto JSON com
+ * os campos do registro; caso contrário, ela é o cabeçalho CSV com os nomes das colunas,
+ * separadas por vírgula, e as demais linhas são os registros, com os valores que
+ * contêm vírgulas entre aspas duplas.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class LeitorDeRegistros {
+
+    /**
+     * Quantidade padrão de registros em cada lote.
+     */
+    public static final int TAMANHO_DO_LOTE = 10_000;
+
+    /**
+     * Tamanho dos pedaços lidos do arquivo.
+     */
+    private static final int TAMANHO_DO_PEDACO = 1 << 20;
+
+    /**
+     * Mensagem dos registros que não puderam ser interpretados.
+     */
+    private static final String LINHA_MAL_FORMADA = "Erro ao importar registro: linha mal formada";
+
+    /**
+     * Nomes das colunas do arquivo CSV, ou null caso o formato ainda não seja conhecido
+     * ou seja NDJSON.
+     */
+    private String[] colunas;
+
+    /**
+     * Indica se o arquivo está no formato NDJSON.
+     */
+    private boolean json;
+
+    /**
+     * Indica se o formato do arquivo já foi definido pela primeira linha não vazia.
+     */
+    private boolean formatoDefinido;
+
+    /**
+     * Registro de uma linha do arquivo: os seus campos, pelo nome da coluna, ou a
+     * mensagem de erro caso a linha não possa ser interpretada.
+     */
+    public static class Registro {
+
+        /**
+         * Número da linha no arquivo, começando em 1.
+         */
+        private final long linha;
+
+        /**
+         * Campos do registro pelo nome da coluna.
+         */
+        private final Map<String, String> campos;
+
+        /**
+         * Mensagem de erro da linha, ou null caso ela tenha sido interpretada.
+         */
+        private final String erro;
+
+        /**
+         * Constrói um registro.
+         *
+         * @param linha  número da linha
+         * @param campos campos do registro
+         * @param erro   mensagem de erro, ou null
+         */
+        public Registro(long linha, Map<String, String> campos, String erro) {
+            this.linha = linha;
+            this.campos = campos;
+            this.erro = erro;
+        }
+
+        /**
+         * Retorna o número da linha do registro no arquivo.
+         *
+         * @return número da linha, começando em 1
+         */
+        public long getLinha() {
+            return this.linha;
+        }
+
+        /**
+         * Retorna o valor do campo passado.
+         *
+         * @param coluna nome da coluna
+         * @return valor do campo, ou null caso o registro não o possua
+         */
+        public String get(String coluna) {
+            return this.campos.get(coluna);
+        }
+
+        /**
+         * Retorna o valor do campo passado, ou o valor padrão caso o registro não o possua.
+         *
+         * @param coluna nome da coluna
+         * @param padrao valor padrão
+         * @return valor do campo
+         */
+        public String get(String coluna, String padrao) {
+            return this.campos.getOrDefault(coluna, padrao);
+        }
+
+        /**
+         * Retorna a mensagem de erro da linha.
+         *
+         * @return mensagem de erro, ou null caso a linha tenha sido interpretada
+         */
+        public String getErro() {
+            return this.erro;
+        }
+    }
+
+    /**
+     * Não possui retorno. Lê o arquivo passado e entrega os seus registros ao consumidor
+     * em lotes do tamanho passado, na ordem do arquivo. Linhas vazias são ignoradas, e
+     * linhas que não podem ser interpretadas são entregues como registros com erro.
+     *
+     * @param arquivo      arquivo CSV ou NDJSON, em UTF-8
+     * @param tamanhoDoLote quantidade máxima de registros em cada lote
+     * @param consumidor   consumidor dos lotes
+     * @throws IOException erro de leitura do arquivo
+     */
+    public void percorre(File arquivo, int tamanhoDoLote, Consumer<List<Registro>> consumidor) throws IOException {
+        this.colunas = null;
+        this.formatoDefinido = false;
+        List<Registro> lote = new ArrayList<>(tamanhoDoLote);
+        long linha = 0;
+
+        try (FileChannel canal = FileChannel.open(arquivo.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_DO_PEDACO);
+            boolean fim = false;
+
+            while (!fim) {
+                fim = canal.read(buffer) < 0;
+                byte[] bytes = buffer.array();
+                int limite = buffer.position();
+                int inicio = 0;
+
+                for (int i = 0; i < limite; i++) {
+                    if (bytes[i] != '\n')
+                        continue;
+                    Registro registro = this.interpreta(++linha, decodifica(bytes, inicio, i));
+                    inicio = i + 1;
+                    if (registro == null)
+                        continue;
+                    lote.add(registro);
+                    if (lote.size() == tamanhoDoLote) {
+                        consumidor.accept(lote);
+                        lote = new ArrayList<>(tamanhoDoLote);
+                    }
+                }
+
+                if (fim && inicio < limite) {
+                    Registro registro = this.interpreta(++linha, decodifica(bytes, inicio, limite));
+                    if (registro != null)
+                        lote.add(registro);
+                    inicio = limite;
+                }
+
+                //A linha incompleta vai para o começo do buffer; uma linha maior que o buffer o aumenta
+                buffer.limit(limite).position(inicio);
+                if (inicio == 0 && limite == buffer.capacity()) {
+                    ByteBuffer maior = ByteBuffer.allocate(buffer.capacity() * 2);
+                    maior.put(buffer);
+                    buffer = maior;
+                } else {
+                    buffer.compact();
+                }
+            }
+        }
+
+        if (!lote.isEmpty())
+            consumidor.accept(lote);
+    }
+
+    /**
+     * Retorna o texto da linha entre as posições passadas, sem a quebra de linha.
+     *
+     * @param bytes  conteúdo lido
+     * @param inicio início da linha
+     * @param fim    fim da linha, exclusivo
+     * @return texto da linha
+     */
+    private static String decodifica(byte[] bytes, int inicio, int fim) {
+        if (fim > inicio && bytes[fim - 1] == '\r')
+            fim--;
+        return new String(bytes, inicio, fim - inicio, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Retorna o registro da linha passada. A primeira linha não vazia define o formato
+     * do arquivo e, no CSV, as colunas.
+     *
+     * @param linha número da linha
+     * @param texto texto da linha
+     * @return registro da linha, ou null caso a linha seja vazia ou o cabeçalho
+     */
+    private Registro interpreta(long linha, String texto) {
+        if (texto.trim().isEmpty())
+            return null;
+
+        if (!this.formatoDefinido) {
+            this.formatoDefinido = true;
+            this.json = texto.trim().startsWith("{");
+            if (!this.json) {
+                List<String> cabecalho = separaCsv(texto);
+                this.colunas = cabecalho == null ? new String[0] : cabecalho.toArray(new String[0]);
+                for (int i = 0; i < this.colunas.length; i++)
+                    this.colunas[i] = this.colunas[i].trim();
+                return null;
+            }
+        }
+
+        Map<String, String> campos = this.json ? interpretaJson(texto) : this.interpretaCsv(texto);
+        if (campos == null)
+            return new Registro(linha, Collections.emptyMap(), LINHA_MAL_FORMADA);
+        return new Registro(linha, campos, null);
+    }
+
+    /**
+     * Retorna os campos de uma linha CSV pelo nome das colunas do cabeçalho.
+     *
+     * @param texto texto da linha
+     * @return campos da linha, ou null caso a quantidade de valores seja diferente da de colunas
+     */
+    private Map<String, String> interpretaCsv(String texto) {
+        List<String> valores = separaCsv(texto);
+        if (valores == null || valores.size() != this.colunas.length)
+            return null;
+
+        Map<String, String> campos = new HashMap<>();
+        for (int i = 0; i < this.colunas.length; i++)
+            campos.put(this.colunas[i], valores.get(i));
+        return campos;
+    }
+
+    /**
+     * Retorna os valores de uma linha CSV. Valores entre aspas duplas podem conter
+     * vírgulas, e duas aspas seguidas representam uma aspa.
+     *
+     * @param texto texto da linha
+     * @return valores da linha, ou null caso as aspas não estejam fechadas
+     */
+    private static List<String> separaCsv(String texto) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder valor = new StringBuilder();
+        boolean entreAspas = false;
+
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (entreAspas) {
+                if (c != '"')
+                    valor.append(c);
+                else if (i + 1 < texto.length() && texto.charAt(i + 1) == '"')
+                    valor.append(texto.charAt(++i));
+                else
+                    entreAspas = false;
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == ',') {
+                valores.add(valor.toString());
+                valor.setLength(0);
+            } else {
+                valor.append(c);
+            }
+        }
+        if (entreAspas)
+            return null;
+
+        valores.add(valor.toString());
+        return valores;
+    }
+
+    /**
+     * Retorna os campos de uma linha NDJSON, que deve conter um objeto sem objetos ou
+     * arrays aninhados. Números e booleanos são mantidos como texto, e campos nulos são
+     * tratados como ausentes.
+     *
+     * @param texto texto da linha
+     * @return campos da linha, ou null caso ela não seja um objeto JSON válido
+     */
+    private static Map<String, String> interpretaJson(String texto) {
+        Map<String, String> campos = new HashMap<>();
+        int[] posicao = {pulaEspacos(texto, 0)};
+
+        if (!consome(texto, posicao, '{'))
+            return null;
+        if (consome(texto, posicao, '}'))
+            return pulaEspacos(texto, posicao[0]) == texto.length() ? campos : null;
+
+        do {
+            String chave = leTextoJson(texto, posicao);
+            if (chave == null || !consome(texto, posicao, ':'))
+                return null;
+
+            posicao[0] = pulaEspacos(texto, posicao[0]);
+            if (posicao[0] < texto.length() && texto.charAt(posicao[0]) == '"') {
+                String valor = leTextoJson(texto, posicao);
+                if (valor == null)
+                    return null;
+                campos.put(chave, valor);
+            } else {
+                int inicio = posicao[0];
+                while (posicao[0] < texto.length() && ",} \t".indexOf(texto.charAt(posicao[0])) < 0)
+                    posicao[0]++;
+                String literal = texto.substring(inicio, posicao[0]);
+                if (literal.isEmpty() || literal.startsWith("{") || literal.startsWith("["))
+                    return null;
+                if (!literal.equals("null"))
+                    campos.put(chave, literal);
+            }
+        } while (consome(texto, posicao, ','));
+
+        if (!consome(texto, posicao, '}'))
+            return null;
+        return pulaEspacos(texto, posicao[0]) == texto.length() ? campos : null;
+    }
+
+    /**
+     * Retorna o texto JSON entre aspas que começa na posição passada, avançando a posição
+     * para depois das aspas finais.
+     *
+     * @param texto   texto da linha
+     * @param posicao posição atual, atualizada pela leitura
+     * @return texto sem as aspas e com os escapes substituídos, ou null caso seja inválido
+     */
+    private static String leTextoJson(String texto, int[] posicao) {
+        if (!consome(texto, posicao, '"'))
+            return null;
+
+        StringBuilder valor = new StringBuilder();
+        int i = posicao[0];
+        while (i < texto.length()) {
+            char c = texto.charAt(i++);
+            if (c == '"') {
+                posicao[0] = i;
+                return valor.toString();
+            }
+            if (c != '\\') {
+                valor.append(c);
+                continue;
+            }
+            if (i >= texto.length())
+                return null;
+
+            char escape = texto.charAt(i++);
+            switch (escape) {
+                case '"':
+                case '\\':
+                case '/':
+                    valor.append(escape);
+                    break;
+                case 'b':
+                    valor.append('\b');
+                    break;
+                case 'f':
+                    valor.append('\f');
+                    break;
+                case 'n':
+                    valor.append('\n');
+                    break;
+                case 'r':
+                    valor.append('\r');
+                    break;
+                case 't':
+                    valor.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 > texto.length())
+                        return null;
+                    try {
+                        valor.append((char) Integer.parseInt(texto.substring(i, i + 4), 16));
+                    } catch (NumberFormatException nfe) {
+                        return null;
+                    }
+                    i += 4;
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retorna se o caractere passado aparece na posição atual, ignorando espaços, e
+     * avança a posição para depois dele.
+     *
+     * @param texto     texto da linha
+     * @param posicao   posição atual, atualizada caso o caractere seja encontrado
+     * @param caractere caractere esperado
+     * @return true caso o caractere tenha sido encontrado
+     */
+    private static boolean consome(String texto, int[] posicao, char caractere) {
+        int i = pulaEspacos(texto, posicao[0]);
+        if (i < texto.length() && texto.charAt(i) == caractere) {
+            posicao[0] = i + 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Retorna a primeira posição a partir da passada que não contém um espaço.
+     *
+     * @param texto   texto da linha
+     * @param posicao posição inicial
+     * @return posição do primeiro caractere que não é espaço
+     */
+    private static int pulaEspacos(String texto, int posicao) {
+        while (posicao < texto.length() && Character.isWhitespace(texto.charAt(posicao)))
+            posicao++;
+        return posicao;
+    }
+}
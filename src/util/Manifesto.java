@@ -0,0 +1,207 @@
+package util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Classe que liga os arquivos das quatro famílias de entidades a uma mesma geração.
+ * Uma geração corresponde a um salvamento completo: só são carregados os segmentos de
+ * número menor ou igual à geração atual, de forma que um salvamento interrompido no
+ * meio não é lido pela metade. O manifesto também guarda a geração anterior, usada
+ * caso algum arquivo da atual esteja corrompido, e a sequência da última operação do
+ * diário já contida nos arquivos.
+ * <p>
+ * O manifesto é gravado em um arquivo temporário, sincronizado com o disco e renomeado
+ * sobre o anterior, assim como os demais arquivos de dados.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class Manifesto {
+
+    /**
+     * Assinatura que identifica o arquivo de manifesto ("ECOM").
+     */
+    private static final int ASSINATURA = 0x45434F4D;
+
+    /**
+     * Versão atual do formato do manifesto.
+     */
+    private static final int VERSAO = 1;
+
+    /**
+     * Geração do último salvamento completo.
+     */
+    private final long geracaoAtual;
+
+    /**
+     * Geração do salvamento completo anterior ao atual.
+     */
+    private final long geracaoAnterior;
+
+    /**
+     * Sequência da última operação do diário contida nos arquivos.
+     */
+    private final long sequenciaDoDiario;
+
+    /**
+     * Constrói um manifesto.
+     *
+     * @param geracaoAtual      geração do último salvamento completo
+     * @param geracaoAnterior   geração do salvamento completo anterior
+     * @param sequenciaDoDiario sequência da última operação do diário contida nos arquivos
+     */
+    public Manifesto(long geracaoAtual, long geracaoAnterior, long sequenciaDoDiario) {
+        this.geracaoAtual = geracaoAtual;
+        this.geracaoAnterior = geracaoAnterior;
+        this.sequenciaDoDiario = sequenciaDoDiario;
+    }
+
+    /**
+     * Retorna um manifesto para a geração seguinte, que passa a ter este como anterior.
+     *
+     * @param geracao           nova geração
+     * @param sequenciaDoDiario sequência da última operação do diário contida nos arquivos
+     * @return novo manifesto
+     */
+    public Manifesto avanca(long geracao, long sequenciaDoDiario) {
+        return new Manifesto(geracao, this.geracaoAtual, sequenciaDoDiario);
+    }
+
+    /**
+     * Retorna a geração do último salvamento completo.
+     *
+     * @return geração atual
+     */
+    public long getGeracaoAtual() {
+        return this.geracaoAtual;
+    }
+
+    /**
+     * Retorna a geração do salvamento completo anterior ao atual.
+     *
+     * @return geração anterior
+     */
+    public long getGeracaoAnterior() {
+        return this.geracaoAnterior;
+    }
+
+    /**
+     * Retorna a sequência da última operação do diário contida nos arquivos.
+     *
+     * @return sequência do diário
+     */
+    public long getSequenciaDoDiario() {
+        return this.sequenciaDoDiario;
+    }
+
+    /**
+     * Lê o manifesto de um arquivo.
+     *
+     * @param arquivo arquivo do manifesto
+     * @return manifesto lido, ou null caso o arquivo não exista ou esteja corrompido
+     */
+    public static Manifesto le(File arquivo) {
+        if (!arquivo.exists())
+            return null;
+
+        try (DataInputStream leitor = new DataInputStream(new FileInputStream(arquivo))) {
+            if (leitor.readInt() != ASSINATURA || leitor.readInt() != VERSAO)
+                return null;
+            long atual = leitor.readLong();
+            long anterior = leitor.readLong();
+            long sequencia = leitor.readLong();
+            if (leitor.readInt() != crc32(atual, anterior, sequencia))
+                return null;
+            return new Manifesto(atual, anterior, sequencia);
+        } catch (IOException ioe) {
+            return null;
+        }
+    }
+
+    /**
+     * Não possui retorno. Grava o manifesto no arquivo, substituindo o anterior de
+     * forma atômica.
+     *
+     * @param arquivo arquivo do manifesto
+     * @throws IOException erro de escrita
+     */
+    public void grava(File arquivo) throws IOException {
+        File temporario = new File(arquivo.getPath() + ".tmp");
+        try (FileOutputStream saida = new FileOutputStream(temporario)) {
+            DataOutputStream escritor = new DataOutputStream(saida);
+            escritor.writeInt(ASSINATURA);
+            escritor.writeInt(VERSAO);
+            escritor.writeLong(this.geracaoAtual);
+            escritor.writeLong(this.geracaoAnterior);
+            escritor.writeLong(this.sequenciaDoDiario);
+            escritor.writeInt(crc32(this.geracaoAtual, this.geracaoAnterior, this.sequenciaDoDiario));
+            escritor.flush();
+            saida.getFD().sync();
+        }
+        instala(temporario, arquivo);
+    }
+
+    /**
+     * Não possui retorno. Renomeia um arquivo temporário já sincronizado com o disco
+     * sobre o seu destino e sincroniza o diretório, para que a troca sobreviva a uma
+     * queda do sistema.
+     *
+     * @param temporario arquivo temporário
+     * @param destino    arquivo de destino
+     * @throws IOException erro ao renomear o arquivo
+     */
+    public static void instala(File temporario, File destino) throws IOException {
+        Files.move(temporario.toPath(), destino.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        sincronizaDiretorio(destino.getAbsoluteFile().getParentFile());
+    }
+
+    /**
+     * Não possui retorno. Sincroniza as entradas de um diretório com o disco. Em
+     * sistemas que não permitem abrir diretórios, a sincronização é ignorada.
+     *
+     * @param diretorio diretório a ser sincronizado
+     */
+    public static void sincronizaDiretorio(File diretorio) {
+        try (FileChannel canal = FileChannel.open(diretorio.toPath(), StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException ioe) {
+            // alguns sistemas não permitem sincronizar diretórios
+        }
+    }
+
+    /**
+     * Calcula o CRC32 do conteúdo do manifesto.
+     *
+     * @param atual     geração atual
+     * @param anterior  geração anterior
+     * @param sequencia sequência do diário
+     * @return CRC32 dos três valores
+     */
+    private static int crc32(long atual, long anterior, long sequencia) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream escritor = new DataOutputStream(bytes)) {
+            escritor.writeLong(atual);
+            escritor.writeLong(anterior);
+            escritor.writeLong(sequencia);
+        } catch (IOException ioe) {
+            throw new IllegalStateException(ioe);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,85 @@
+package util;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Classe que guarda as chaves das entidades cadastradas ou alteradas desde o último
+ * salvamento, para que apenas elas sejam gravadas. Pode ser usada por várias threads
+ * ao mesmo tempo.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class RegistroDeAlteracoes implements Serializable {
+
+    /**
+     * Armazena Id de serialização do objeto RegistroDeAlteracoes
+     */
+    private static final long serialVersionUID = 4310265378720473195L;
+
+    /**
+     * Chaves das entidades alteradas.
+     */
+    private Set<String> alteradas;
+
+    /**
+     * Constrói um registro sem nenhuma alteração.
+     */
+    public RegistroDeAlteracoes() {
+        this.alteradas = new HashSet<>();
+    }
+
+    /**
+     * Não possui retorno. Marca uma entidade como alterada.
+     *
+     * @param chave chave da entidade
+     */
+    public synchronized void marca(String chave) {
+        this.alteradas.add(chave);
+    }
+
+    /**
+     * Não possui retorno. Marca várias entidades como alteradas. Usado para devolver
+     * ao registro as alterações de um salvamento que falhou.
+     *
+     * @param chaves chaves das entidades
+     */
+    public synchronized void marcaTodas(Collection<String> chaves) {
+        this.alteradas.addAll(chaves);
+    }
+
+    /**
+     * Retorna as chaves marcadas e esvazia o registro. Alterações feitas depois da
+     * chamada ficam no registro para o próximo salvamento.
+     *
+     * @return conjunto com as chaves das entidades alteradas
+     */
+    public synchronized Set<String> extrai() {
+        Set<String> extraidas = this.alteradas;
+        this.alteradas = new HashSet<>();
+        return Collections.unmodifiableSet(extraidas);
+    }
+
+    /**
+     * Não possui retorno. Descarta todas as alterações marcadas, usado quando o
+     * estado é substituído pelo conteúdo dos arquivos.
+     */
+    public synchronized void limpa() {
+        this.alteradas.clear();
+    }
+
+    /**
+     * Retorna a quantidade de entidades alteradas.
+     *
+     * @return quantidade de chaves marcadas
+     */
+    public synchronized int getQuantidade() {
+        return this.alteradas.size();
+    }
+}
@@ -0,0 +1,108 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Classe que acumula o resultado de uma importação em lote: a quantidade de registros
+ * importados e os erros de cada linha rejeitada, com a mesma mensagem que o cadastro
+ * individual lançaria. Apenas as primeiras mensagens são guardadas, para que um arquivo
+ * inteiro inválido não ocupe a memória com erros, mas todos os erros são contados.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class ResultadoDaImportacao {
+
+    /**
+     * Quantidade máxima de mensagens de erro guardadas.
+     */
+    public static final int LIMITE_DE_ERROS = 1000;
+
+    /**
+     * Quantidade de registros importados.
+     */
+    private long importados;
+
+    /**
+     * Quantidade de linhas rejeitadas.
+     */
+    private long quantidadeDeErros;
+
+    /**
+     * Mensagens de erro das primeiras linhas rejeitadas, no formato "Linha N: mensagem".
+     */
+    private final List<String> erros;
+
+    /**
+     * Constrói um resultado sem registros importados nem erros.
+     */
+    public ResultadoDaImportacao() {
+        this.erros = new ArrayList<>();
+    }
+
+    /**
+     * Não possui retorno. Registra registros importados.
+     *
+     * @param quantidade quantidade de registros importados
+     */
+    public void registraImportados(long quantidade) {
+        this.importados += quantidade;
+    }
+
+    /**
+     * Não possui retorno. Registra o erro de uma linha rejeitada.
+     *
+     * @param linha    número da linha no arquivo
+     * @param mensagem mensagem de erro
+     */
+    public void registraErro(long linha, String mensagem) {
+        this.quantidadeDeErros++;
+        if (this.erros.size() < LIMITE_DE_ERROS)
+            this.erros.add("Linha " + linha + ": " + mensagem);
+    }
+
+    /**
+     * Retorna a quantidade de registros importados.
+     *
+     * @return quantidade de registros importados
+     */
+    public long getImportados() {
+        return this.importados;
+    }
+
+    /**
+     * Retorna a quantidade de linhas rejeitadas.
+     *
+     * @return quantidade de erros
+     */
+    public long getQuantidadeDeErros() {
+        return this.quantidadeDeErros;
+    }
+
+    /**
+     * Retorna as mensagens de erro guardadas, na ordem das linhas.
+     *
+     * @return lista somente leitura com as mensagens de erro
+     */
+    public List<String> getErros() {
+        return Collections.unmodifiableList(this.erros);
+    }
+
+    /**
+     * Retorna a representação textual do resultado.
+     *
+     * @return string com as quantidades seguidas de uma mensagem de erro por linha
+     */
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder();
+        texto.append("Importados: ").append(this.importados).append(" - Erros: ").append(this.quantidadeDeErros);
+        for (String erro : this.erros)
+            texto.append(System.lineSeparator()).append(erro);
+        return texto.toString();
+    }
+}
@@ -0,0 +1,234 @@
+package util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Fluxo de saída que divide os bytes escritos em blocos verificáveis e, opcionalmente,
+ * comprimidos. O arquivo começa com a assinatura "ECOZ" seguida do cabeçalho: algoritmo
+ * de compressão, nível e tamanho máximo dos blocos. Cada bloco possui o formato: tamanho
+ * original, tamanho gravado, CRC32 do conteúdo original e conteúdo gravado. Um bloco
+ * cujo tamanho gravado é igual ao original não está comprimido, o que acontece quando a
+ * compressão está desativada ou não reduz o bloco. O final é marcado por um bloco de
+ * tamanho zero seguido da quantidade total de bytes, de forma que um arquivo truncado ou
+ * corrompido é detectado na leitura pela {@link EntradaEmBlocos}. Apenas um bloco e a sua
+ * versão comprimida são mantidos em memória.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class SaidaEmBlocos extends OutputStream {
+
+    /**
+     * Assinatura dos arquivos em blocos sem cabeçalho nem compressão ("ECOV"), ainda aceitos na leitura.
+     */
+    public static final int ASSINATURA = 0x45434F56;
+
+    /**
+     * Assinatura dos arquivos em blocos com cabeçalho de compressão ("ECOZ").
+     */
+    public static final int ASSINATURA_COMPRIMIDA = 0x45434F5A;
+
+    /**
+     * Algoritmo que grava os blocos sem compressão.
+     */
+    public static final int SEM_COMPRESSAO = 0;
+
+    /**
+     * Algoritmo que comprime os blocos com o Deflater do JDK.
+     */
+    public static final int COMPRESSAO_DEFLATE = 1;
+
+    /**
+     * Tamanho padrão dos blocos.
+     */
+    public static final int TAMANHO_PADRAO = 1 << 16;
+
+    /**
+     * Maior tamanho de bloco permitido.
+     */
+    public static final int TAMANHO_MAXIMO = 1 << 26;
+
+    /**
+     * Nível de compressão padrão, que privilegia a velocidade.
+     */
+    public static final int NIVEL_PADRAO = Deflater.BEST_SPEED;
+
+    /**
+     * Fluxo de saída dos blocos.
+     */
+    private final DataOutputStream saida;
+
+    /**
+     * Conteúdo do bloco atual.
+     */
+    private final byte[] bloco;
+
+    /**
+     * Conteúdo comprimido do bloco atual, do mesmo tamanho do bloco.
+     */
+    private final byte[] comprimido;
+
+    /**
+     * Compressor dos blocos, ou null caso a compressão esteja desativada.
+     */
+    private final Deflater compressor;
+
+    /**
+     * Quantidade de bytes no bloco atual.
+     */
+    private int ocupados;
+
+    /**
+     * Quantidade total de bytes escritos.
+     */
+    private long total;
+
+    /**
+     * Indica se o marcador de final já foi escrito.
+     */
+    private boolean terminado;
+
+    /**
+     * Constrói um fluxo em blocos do tamanho passado, comprimidos com o nível passado,
+     * e escreve a assinatura e o cabeçalho. O nível 0 desativa a compressão.
+     *
+     * @param saida        fluxo de saída
+     * @param tamanhoBloco tamanho máximo de cada bloco
+     * @param nivel        nível de compressão, de 0 a 9, ou -1 para o nível padrão do Deflater
+     * @throws IOException erro de escrita
+     */
+    public SaidaEmBlocos(OutputStream saida, int tamanhoBloco, int nivel) throws IOException {
+        new Validador().validaCompressao(nivel, tamanhoBloco);
+        this.saida = new DataOutputStream(new BufferedOutputStream(saida, 1 << 16));
+        this.bloco = new byte[tamanhoBloco];
+        this.comprimido = (nivel == 0) ? null : new byte[tamanhoBloco];
+        this.compressor = (nivel == 0) ? null : new Deflater(nivel);
+
+        this.saida.writeInt(ASSINATURA_COMPRIMIDA);
+        this.saida.writeByte(nivel == 0 ? SEM_COMPRESSAO : COMPRESSAO_DEFLATE);
+        this.saida.writeByte(nivel);
+        this.saida.writeInt(tamanhoBloco);
+    }
+
+    /**
+     * Constrói um fluxo em blocos do tamanho passado, com o nível de compressão padrão.
+     *
+     * @param saida        fluxo de saída
+     * @param tamanhoBloco tamanho máximo de cada bloco
+     * @throws IOException erro de escrita
+     */
+    public SaidaEmBlocos(OutputStream saida, int tamanhoBloco) throws IOException {
+        this(saida, tamanhoBloco, NIVEL_PADRAO);
+    }
+
+    /**
+     * Constrói um fluxo com blocos do tamanho padrão e o nível de compressão padrão.
+     *
+     * @param saida fluxo de saída
+     * @throws IOException erro de escrita
+     */
+    public SaidaEmBlocos(OutputStream saida) throws IOException {
+        this(saida, TAMANHO_PADRAO);
+    }
+
+    @Override
+    public void write(int valor) throws IOException {
+        if (this.ocupados == this.bloco.length)
+            this.escreveBloco();
+        this.bloco[this.ocupados++] = (byte) valor;
+    }
+
+    @Override
+    public void write(byte[] bytes, int inicio, int tamanho) throws IOException {
+        while (tamanho > 0) {
+            if (this.ocupados == this.bloco.length)
+                this.escreveBloco();
+            int copiados = Math.min(tamanho, this.bloco.length - this.ocupados);
+            System.arraycopy(bytes, inicio, this.bloco, this.ocupados, copiados);
+            this.ocupados += copiados;
+            inicio += copiados;
+            tamanho -= copiados;
+        }
+    }
+
+    /**
+     * Não possui retorno. Escreve o último bloco e o marcador de final, sem fechar o
+     * fluxo de saída, para que ele ainda possa ser sincronizado com o disco.
+     *
+     * @throws IOException erro de escrita
+     */
+    public void termina() throws IOException {
+        if (this.terminado)
+            return;
+
+        this.escreveBloco();
+        this.saida.writeInt(0);
+        this.saida.writeLong(this.total);
+        this.saida.flush();
+        this.terminado = true;
+        if (this.compressor != null)
+            this.compressor.end();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.termina();
+        this.saida.close();
+    }
+
+    /**
+     * Não possui retorno. Escreve o bloco atual, caso não esteja vazio, comprimido
+     * caso a compressão o reduza.
+     *
+     * @throws IOException erro de escrita
+     */
+    private void escreveBloco() throws IOException {
+        if (this.ocupados == 0)
+            return;
+
+        CRC32 crc = new CRC32();
+        crc.update(this.bloco, 0, this.ocupados);
+
+        byte[] conteudo = this.bloco;
+        int gravados = this.ocupados;
+        int tamanhoComprimido = this.comprime();
+        if (tamanhoComprimido > 0) {
+            conteudo = this.comprimido;
+            gravados = tamanhoComprimido;
+        }
+
+        this.saida.writeInt(this.ocupados);
+        this.saida.writeInt(gravados);
+        this.saida.writeInt((int) crc.getValue());
+        this.saida.write(conteudo, 0, gravados);
+        this.total += this.ocupados;
+        this.ocupados = 0;
+    }
+
+    /**
+     * Comprime o bloco atual.
+     *
+     * @return tamanho do bloco comprimido, ou 0 caso a compressão esteja desativada ou
+     * não reduza o bloco
+     */
+    private int comprime() {
+        if (this.compressor == null)
+            return 0;
+
+        this.compressor.reset();
+        this.compressor.setInput(this.bloco, 0, this.ocupados);
+        this.compressor.finish();
+        int gravados = 0;
+        while (!this.compressor.finished() && gravados < this.ocupados)
+            gravados += this.compressor.deflate(this.comprimido, gravados, this.ocupados - gravados);
+
+        return (this.compressor.finished() && gravados < this.ocupados) ? gravados : 0;
+    }
+}
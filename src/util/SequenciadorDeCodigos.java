@@ -0,0 +1,73 @@
+package util;
+
+import enums.TipoProjeto;
+import interfaces.PropostaLegislativa;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Classe que distribui os números sequenciais usados nos códigos das propostas
+ * legislativas. Mantém um contador por tipo de projeto e ano, de modo que a
+ * numeração de uma nova proposta não dependa da quantidade de propostas já
+ * cadastradas.
+ *
+ * @author Jonathan Tavares da Silva
+ * @author Mirella Quintans Lyra
+ * @author Tulio Araujo Cunha
+ * @author Guilherme de Melo Carneiro
+ */
+public class SequenciadorDeCodigos implements Serializable {
+
+    /**
+     * Armazena Id de serialização do objeto SequenciadorDeCodigos
+     */
+    private static final long serialVersionUID = -6185021379043385527L;
+
+    /**
+     * Armazena, para cada tipo de projeto, o último número utilizado em cada ano.
+     */
+    private final Map<TipoProjeto, ConcurrentMap<Integer, AtomicInteger>> sequencias;
+
+    /**
+     * Constrói um sequenciador sem nenhum número utilizado.
+     */
+    public SequenciadorDeCodigos() {
+        this.sequencias = new EnumMap<>(TipoProjeto.class);
+        for (TipoProjeto tipo : TipoProjeto.values())
+            this.sequencias.put(tipo, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Reserva e retorna o próximo número sequencial de um tipo de projeto em um ano.
+     * Pode ser chamado por várias threads ao mesmo tempo sem repetir números.
+     *
+     * @param tipoProjeto tipo do projeto.
+     * @param ano         ano do projeto.
+     * @return próximo número sequencial do projeto no ano.
+     */
+    public int proximoNumero(TipoProjeto tipoProjeto, int ano) {
+        return this.sequencias.get(tipoProjeto)
+                .computeIfAbsent(ano, chave -> new AtomicInteger())
+                .incrementAndGet();
+    }
+
+    /**
+     * Reconstrói os contadores a partir de um conjunto de propostas já cadastradas,
+     * percorrendo-o uma única vez.
+     *
+     * @param propostas propostas já cadastradas no sistema.
+     */
+    public synchronized void reconstroi(Collection<PropostaLegislativa> propostas) {
+        for (ConcurrentMap<Integer, AtomicInteger> sequenciasDoTipo : this.sequencias.values())
+            sequenciasDoTipo.clear();
+
+        for (PropostaLegislativa proposta : propostas)
+            this.proximoNumero(proposta.getTipoDoProjeto(), proposta.getAno());
+    }
+}
@@ -1,5 +1,6 @@
 package util;
 
+import enums.FormatoDeExportacao;
 import enums.StatusGovernista;
 
 import java.io.Serializable;
@@ -8,6 +9,8 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Locale;
+import java.util.regex.Pattern;
 
 /**
  * Essa classe serve para Validar os dados que são recebidos nos controllers e nas entidades.
@@ -24,6 +27,21 @@ public class Validador implements Serializable {
      */
     private static final long serialVersionUID = 185782666456642438L;
 
+    /**
+     * Formato exigido para o documento nacional de identificação, compilado uma única vez.
+     */
+    private static final Pattern PADRAO_DNI = Pattern.compile("[0-9]{9}-[0-9]{1}");
+
+    /**
+     * Formato das datas no padrão ddMMyyyy. O SimpleDateFormat não pode ser usado por
+     * várias threads ao mesmo tempo, por isso cada thread reutiliza o seu.
+     */
+    private static final ThreadLocal<DateFormat> FORMATO_DATA = ThreadLocal.withInitial(() -> {
+        DateFormat formato = new SimpleDateFormat("ddMMyyyy");
+        formato.setLenient(false);
+        return formato;
+    });
+
     /**
      * Esse método válida uma string testando se é nula ou vazia.
      *
@@ -62,9 +80,7 @@ public class Validador implements Serializable {
      * @throws IllegalArgumentException dni com formato inválido.
      */
     public void validaDni(String dni, String mensagem) {
-        String regraDni = "[0-9]{9}-[0-9]{1}";
-
-        if (!(dni.matches(regraDni)))
+        if (!(PADRAO_DNI.matcher(dni).matches()))
             throw new IllegalArgumentException(mensagem);
     }
 
@@ -80,12 +96,10 @@ public class Validador implements Serializable {
      * @throws IllegalArgumentException caso a data seja inválida ou futura.
      */
     public Date validaData(String data, String erroInvalida, String erroFutura) {
-        DateFormat formato = new SimpleDateFormat("ddMMyyyy");
-        formato.setLenient(false);
         Date dataFormatada;
 
         try {
-            dataFormatada = formato.parse(data);
+            dataFormatada = FORMATO_DATA.get().parse(data);
         } catch (IllegalArgumentException | ParseException erro) {
             throw new IllegalArgumentException(erroInvalida);
         }
@@ -132,4 +146,37 @@ public class Validador implements Serializable {
             throw new IllegalArgumentException(mensagem);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Esse método valida o nome de um formato de exportação, aceitando letras
+     * maiúsculas ou minúsculas.
+     *
+     * @param formato  nome do formato a ser validado.
+     * @param mensagem mensagem de erro caso o formato não exista.
+     * @return o formato correspondente ao nome.
+     * @throws IllegalArgumentException caso o formato não seja nenhum dos valores do enum.
+     */
+    public FormatoDeExportacao validaFormato(String formato, String mensagem) {
+        this.validaString(formato, mensagem);
+        try {
+            return FormatoDeExportacao.valueOf(formato.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException iae) {
+            throw new IllegalArgumentException(mensagem);
+        }
+    }
+
+    /**
+     * Esse método valida a configuração de compressão dos arquivos de dados.
+     *
+     * @param nivel        nível de compressão, de 0 a 9, ou -1 para o nível padrão.
+     * @param tamanhoBloco tamanho máximo de cada bloco, em bytes.
+     * @throws IllegalArgumentException caso o nível ou o tamanho do bloco sejam inválidos.
+     */
+    public void validaCompressao(int nivel, int tamanhoBloco) {
+        if (nivel < -1 || nivel > 9)
+            throw new IllegalArgumentException("Erro ao configurar compressao: nivel invalido");
+
+        if (tamanhoBloco <= 0 || tamanhoBloco > SaidaEmBlocos.TAMANHO_MAXIMO)
+            throw new IllegalArgumentException("Erro ao configurar compressao: tamanho de bloco invalido");
+    }
+}
@@ -0,0 +1,114 @@
+package benchmarks;
+
+import entities.PEC;
+import entities.PL;
+import entities.PLP;
+import entities.Projeto;
+import enums.SituacaoVotacao;
+import interfaces.PropostaLegislativa;
+import util.AcervoDePropostas;
+import util.CodificadorDeEntidades;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compara a memória ocupada por propostas encerradas mantidas em um HashMap e no
+ * AcervoDePropostas, que deixa os registros em um arquivo mapeado, e mede o tempo
+ * de acesso aleatório às propostas do acervo. A quantidade de propostas pode ser
+ * passada como argumento (padrão: 1.000.000).
+ */
+public class AcervoBenchmark {
+
+    private static final String[] INTERESSES = {"saude", "educacao", "seguranca publica", "trabalho",
+            "transportes", "nutricao", "saude,educacao", "educacao,trabalho"};
+    private static final String[] LOCAIS = {"CCJC", "CTF", "CSEG", "CE", "plenario"};
+    private static final int ACESSOS = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        int quantidade = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        File diretorio = Files.createTempDirectory("acervo").toFile();
+
+        long base = memoriaUsada();
+        Map<String, PropostaLegislativa> mapa = new HashMap<>();
+        Random aleatorio = new Random(42);
+        for (int i = 0; i < quantidade; i++) {
+            PropostaLegislativa proposta = criaProposta(aleatorio, i);
+            mapa.put(proposta.getCodigo(), proposta);
+        }
+        long memoriaDoMapa = memoriaUsada() - base;
+        mapa = null;
+
+        base = memoriaUsada();
+        long inicio = System.nanoTime();
+        AcervoDePropostas acervo = new AcervoDePropostas(diretorio, new CodificadorDeEntidades());
+        aleatorio = new Random(42);
+        for (int i = 0; i < quantidade; i++)
+            acervo.acrescenta(criaProposta(aleatorio, i));
+        long gravar = System.nanoTime() - inicio;
+        long memoriaDoAcervo = memoriaUsada() - base;
+
+        aleatorio = new Random(7);
+        inicio = System.nanoTime();
+        int encontradas = 0;
+        for (int i = 0; i < ACESSOS; i++) {
+            int indice = aleatorio.nextInt(quantidade);
+            String codigo = (indice % 3 == 0 ? "PL " : indice % 3 == 1 ? "PLP " : "PEC ") + indice + "/"
+                    + (1988 + indice % 30);
+            if (acervo.materializa(codigo) != null)
+                encontradas++;
+        }
+        long acessar = System.nanoTime() - inicio;
+
+        System.out.printf("%d propostas encerradas, arquivo do acervo: %.1f MB%n", quantidade,
+                acervo.getTamanhoDoArquivo() / 1_048_576.0);
+        System.out.printf("HashMap: %8.1f MB  (%5.0f bytes/proposta)%n", memoriaDoMapa / 1_048_576.0,
+                (double) memoriaDoMapa / quantidade);
+        System.out.printf("Acervo:  %8.1f MB  (%5.0f bytes/proposta)  gravar: %.0f ms%n",
+                memoriaDoAcervo / 1_048_576.0, (double) memoriaDoAcervo / quantidade, gravar / 1_000_000.0);
+        System.out.printf("%d acessos aleatorios (%d encontrados): %.2f us/acesso%n", ACESSOS, encontradas,
+                acessar / 1_000.0 / ACESSOS);
+
+        acervo.close();
+        diretorio.delete();
+    }
+
+    private static long memoriaUsada() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static PropostaLegislativa criaProposta(Random aleatorio, int i) {
+        int ano = 1988 + i % 30;
+        String autor = String.format("%09d-0", aleatorio.nextInt(513));
+        String interesses = INTERESSES[aleatorio.nextInt(INTERESSES.length)];
+        String ementa = "Ementa da proposta " + i;
+        String url = "http://example.com/propostas/" + i;
+        Projeto proposta;
+
+        switch (i % 3) {
+            case 0:
+                proposta = new PL("PL " + i + "/" + ano, autor, ano, ementa, interesses, url, aleatorio.nextBoolean());
+                break;
+            case 1:
+                proposta = new PLP("PLP " + i + "/" + ano, autor, ano, ementa, interesses, url, "153");
+                break;
+            default:
+                proposta = new PEC("PEC " + i + "/" + ano, autor, ano, ementa, interesses, url, "7,8");
+        }
+
+        for (int local = aleatorio.nextInt(LOCAIS.length); local > 0; local--) {
+            proposta.alteraSituacaoDoUltimoLocal(SituacaoVotacao.APROVADO);
+            proposta.setNovoLocalDeVotacao(LOCAIS[local]);
+        }
+        proposta.alteraSituacaoDoUltimoLocal(aleatorio.nextBoolean() ? SituacaoVotacao.APROVADO : SituacaoVotacao.REJEITADO);
+        return proposta;
+    }
+}
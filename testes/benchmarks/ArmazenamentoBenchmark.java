@@ -0,0 +1,135 @@
+package benchmarks;
+
+import controllers.ComissaoController;
+import controllers.PartidoBaseController;
+import controllers.PersistenciaController;
+import controllers.PessoaController;
+import controllers.ProjetoController;
+import easyaccept.EasyAcceptFacade;
+import facade.EcoFacade;
+import interfaces.Armazenamento;
+import services.ComissaoService;
+import services.PartidoBaseService;
+import services.PessoaService;
+import services.ProjetoService;
+import util.ArmazenamentoEmMemoria;
+import util.ArquivoSegmentado;
+import util.ArquivoSerializado;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Executa os roteiros de acceptance_tests e mede a vazão do salvamento e da carga com
+ * cada armazenamento: em memória, em arquivos serializados e em arquivos segmentados.
+ * Cada roteiro roda em uma nova EcoFacade sobre o mesmo armazenamento, como em uma
+ * reinicialização. A medição cadastra as propostas, salva o sistema, faz rodadas de
+ * alterações em 1% delas seguidas de um salvamento incremental e, por fim, carrega o
+ * sistema em novos controllers. A quantidade de propostas pode ser passada como
+ * argumento (padrão: 100.000). Usa e apaga o diretório dados.
+ */
+public class ArmazenamentoBenchmark {
+
+    private static final String[] ROTEIROS = {"use_case_1.txt", "use_case_2.txt", "use_case_3.txt",
+            "use_case_4.txt", "use_case_5.txt", "use_case_6.txt", "use_case_7.txt", "use_case_8.txt",
+            "use_case_9.txt"};
+    private static final String[] INTERESSES = {"saude", "educacao", "seguranca publica", "saude,educacao"};
+    private static final int DEPUTADOS = 500;
+    private static final int RODADAS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int quantidade = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        ArmazenamentoEmMemoria memoria = new ArmazenamentoEmMemoria();
+        List<Armazenamento> armazenamentos = Arrays.asList(memoria,
+                ArquivoSerializado.emDiretorio(new File("dados")), ArquivoSegmentado.emDiretorio(new File("dados")));
+
+        for (Armazenamento armazenamento : armazenamentos) {
+            new EcoFacade(armazenamento).limparSistema();
+            int aprovados = 0;
+            int total = 0;
+            for (String roteiro : ROTEIROS) {
+                EasyAcceptFacade easyAccept = new EasyAcceptFacade(new EcoFacade(armazenamento),
+                        Collections.singletonList("acceptance_tests" + File.separator + roteiro));
+                easyAccept.executeTests();
+                aprovados += easyAccept.getTotalNumberOfPassedTests();
+                total += easyAccept.getTotalNumberOfTests();
+            }
+            System.out.printf("%-12s acceptance_tests: %d/%d%n", armazenamento.getNome(), aprovados, total);
+        }
+
+        System.out.printf("%n%d propostas, %d alteradas por rodada%n", quantidade, quantidade / 100);
+        for (Armazenamento armazenamento : armazenamentos)
+            mede(armazenamento, quantidade);
+        memoria.fecha();
+    }
+
+    private static void mede(Armazenamento armazenamento, int quantidade) throws Exception {
+        ProjetoController projetos = criaControllers();
+        PersistenciaController persistencia = new PersistenciaController(new ProjetoService(projetos), armazenamento);
+        persistencia.limparSistema();
+
+        Random aleatorio = new Random(42);
+        String[] codigos = new String[quantidade];
+        for (int i = 0; i < quantidade; i++)
+            codigos[i] = projetos.cadastraPL(dni(aleatorio.nextInt(DEPUTADOS)), 2010 + aleatorio.nextInt(10),
+                    "Ementa da proposta " + i, INTERESSES[aleatorio.nextInt(INTERESSES.length)],
+                    "https://example.net/" + i, aleatorio.nextBoolean());
+
+        long inicio = System.nanoTime();
+        persistencia.salvarSistema();
+        long salvar = System.nanoTime() - inicio;
+
+        long incremental = 0;
+        for (int rodada = 0; rodada < RODADAS; rodada++) {
+            for (int i = 0; i < quantidade / 100; i++) {
+                String codigo = codigos[aleatorio.nextInt(quantidade)];
+                if (projetos.getProposta(codigo) != null
+                        && projetos.getProposta(codigo).getLocalDeVotacao().equals("CCJC"))
+                    projetos.votarComissao(codigo, "GOVERNISTA", "CTF");
+                else
+                    projetos.cadastraPL(dni(aleatorio.nextInt(DEPUTADOS)), 2019, "Ementa nova", "saude",
+                            "https://example.net/nova", true);
+            }
+            inicio = System.nanoTime();
+            persistencia.salvarSistema();
+            incremental += System.nanoTime() - inicio;
+        }
+
+        ProjetoController carregados = criaControllers();
+        PersistenciaController nova = new PersistenciaController(new ProjetoService(carregados), armazenamento);
+        inicio = System.nanoTime();
+        nova.carregarSistema();
+        long carregar = System.nanoTime() - inicio;
+
+        System.out.printf("%-12s salvar: %7.0f ms (%,9.0f propostas/s)  incremental: %6.1f ms  carregar: %7.0f ms"
+                        + " (%,9.0f propostas/s)%n", armazenamento.getNome(), salvar / 1e6, quantidade * 1e9 / salvar,
+                incremental / 1e6 / RODADAS, carregar / 1e6, quantidade * 1e9 / carregar);
+        nova.limparSistema();
+    }
+
+    private static ProjetoController criaControllers() {
+        PessoaController pessoas = new PessoaController();
+        PartidoBaseController partidos = new PartidoBaseController();
+        PessoaService pessoaService = new PessoaService(pessoas);
+        ComissaoController comissoes = new ComissaoController(pessoaService);
+
+        partidos.cadastrarPartido("PT");
+        StringBuilder integrantes = new StringBuilder();
+        for (int i = 0; i < DEPUTADOS; i++) {
+            pessoas.cadastrarPessoa("Deputado " + i, dni(i), "PB", "saude", "PT");
+            pessoas.cadastrarDeputado(dni(i), "01012010");
+            if (i < 9)
+                integrantes.append(integrantes.length() > 0 ? "," : "").append(dni(i));
+        }
+        comissoes.cadastrarComissao("CCJC", integrantes.toString());
+        comissoes.cadastrarComissao("CTF", integrantes.toString());
+        return new ProjetoController(pessoaService, new ComissaoService(comissoes), new PartidoBaseService(partidos));
+    }
+
+    private static String dni(int i) {
+        return String.format("%09d-0", i);
+    }
+}
@@ -0,0 +1,106 @@
+package benchmarks;
+
+import comparators.ComparatorAprovacaoPropostaLegislativa;
+import comparators.ComparatorConclusaoPropostaLegislativa;
+import comparators.ComparatorConstitucionalPropostaLegislativa;
+import comparators.ComparatorIdadePropostaLegislativa;
+import comparators.ComparatorOrdemCriacaoPropostaLegislativa;
+import entities.PEC;
+import entities.PL;
+import entities.PLP;
+import enums.EstrategiaBusca;
+import interfaces.PropostaLegislativa;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compara o desempate entre propostas pela cadeia de comparadores com o desempate
+ * pela chave de ordenação pré-calculada de cada proposta.
+ */
+public class DesempateBenchmark {
+
+    private static final int QNT_PROPOSTAS = 200_000;
+    private static final int REPETICOES = 20;
+
+    public static void main(String[] args) {
+        List<PropostaLegislativa> propostas = criaPropostas();
+
+        for (EstrategiaBusca estrategia : EstrategiaBusca.values()) {
+            Comparator<PropostaLegislativa> cadeia = cadeiaDeComparadores(estrategia);
+
+            long inicio = System.nanoTime();
+            PropostaLegislativa pelaCadeia = null;
+            for (int i = 0; i < REPETICOES; i++)
+                pelaCadeia = propostas.stream().min(cadeia).get();
+            long tempoCadeia = System.nanoTime() - inicio;
+
+            inicio = System.nanoTime();
+            PropostaLegislativa pelaChave = null;
+            for (int i = 0; i < REPETICOES; i++)
+                pelaChave = menorChave(propostas, estrategia);
+            long tempoChave = System.nanoTime() - inicio;
+
+            System.out.printf("%-14s cadeia: %7.2f ms (%s)  chave: %7.2f ms (%s)%n", estrategia,
+                    tempoCadeia / 1_000_000.0 / REPETICOES, pelaCadeia.getCodigo(),
+                    tempoChave / 1_000_000.0 / REPETICOES, pelaChave.getCodigo());
+        }
+    }
+
+    private static Comparator<PropostaLegislativa> cadeiaDeComparadores(EstrategiaBusca estrategia) {
+        Comparator<PropostaLegislativa> comparador;
+        if (estrategia == EstrategiaBusca.APROVACAO)
+            comparador = new ComparatorAprovacaoPropostaLegislativa();
+        else if (estrategia == EstrategiaBusca.CONCLUSAO)
+            comparador = new ComparatorConclusaoPropostaLegislativa();
+        else
+            comparador = new ComparatorConstitucionalPropostaLegislativa();
+
+        return comparador
+                .thenComparing(new ComparatorIdadePropostaLegislativa())
+                .thenComparing(new ComparatorOrdemCriacaoPropostaLegislativa());
+    }
+
+    private static PropostaLegislativa menorChave(List<PropostaLegislativa> propostas, EstrategiaBusca estrategia) {
+        PropostaLegislativa menor = null;
+        long menorChave = Long.MAX_VALUE;
+
+        for (PropostaLegislativa proposta : propostas) {
+            long chave = proposta.getChaveDeOrdenacao(estrategia);
+            if (chave < menorChave) {
+                menorChave = chave;
+                menor = proposta;
+            }
+        }
+        return menor;
+    }
+
+    private static List<PropostaLegislativa> criaPropostas() {
+        Random aleatorio = new Random(42);
+        List<PropostaLegislativa> propostas = new ArrayList<>(QNT_PROPOSTAS);
+
+        for (int i = 0; i < QNT_PROPOSTAS; i++) {
+            int ano = 1988 + aleatorio.nextInt(30);
+            String codigo = "P " + i + "/" + ano;
+            PropostaLegislativa proposta;
+
+            switch (aleatorio.nextInt(3)) {
+                case 0:
+                    proposta = new PL(codigo, "111111111-1", ano, "Ementa", "saude", "url", false);
+                    break;
+                case 1:
+                    proposta = new PLP(codigo, "111111111-1", ano, "Ementa", "saude", "url", "1");
+                    break;
+                default:
+                    proposta = new PEC(codigo, "111111111-1", ano, "Ementa", "saude", "url", "1");
+            }
+
+            for (int local = aleatorio.nextInt(4); local > 0; local--)
+                proposta.setNovoLocalDeVotacao("C" + local);
+            propostas.add(proposta);
+        }
+        return propostas;
+    }
+}
@@ -0,0 +1,106 @@
+package benchmarks;
+
+import controllers.PessoaController;
+import util.DiarioDeOperacoes;
+import util.LeitorDeRegistros;
+import util.LeitorDeRegistros.Registro;
+import util.ResultadoDaImportacao;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compara o cadastro de pessoas e deputados um a um, com uma gravação do diário por
+ * operação, com a importação em lote de um arquivo CSV, validada em paralelo e com uma
+ * gravação do diário por lote. A quantidade de pessoas pode ser passada como argumento
+ * (padrão: 1.000.000); o cadastro um a um usa no máximo 20.000, por ser bem mais lento.
+ */
+public class ImportacaoBenchmark {
+
+    private static final String[] ESTADOS = {"PB", "PE", "SP", "RJ", "MG", "BA"};
+    private static final String[] INTERESSES = {"saude", "educacao", "seguranca publica", "saude,educacao"};
+    private static final String[] PARTIDOS = {"", "PT", "PSDB", "MDB", "PSOL"};
+    private static final int LIMITE_UM_A_UM = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        int quantidade = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        File csv = File.createTempFile("pessoas", ".csv");
+        File diario = File.createTempFile("diario", ".log");
+
+        try {
+            List<String[]> pessoas = criaPessoas(quantidade);
+            try (BufferedWriter saida = Files.newBufferedWriter(csv.toPath(), StandardCharsets.UTF_8)) {
+                saida.write("nome,dni,estado,interesses,partido,dataDeInicio\n");
+                for (String[] pessoa : pessoas)
+                    saida.write(pessoa[0] + "," + pessoa[1] + "," + pessoa[2] + ",\"" + pessoa[3] + "\"," + pessoa[4]
+                            + "," + pessoa[5] + "\n");
+            }
+
+            int umAUm = Math.min(quantidade, LIMITE_UM_A_UM);
+            PessoaController controller = new PessoaController();
+            DiarioDeOperacoes operacoes = new DiarioDeOperacoes(diario);
+            long inicio = System.nanoTime();
+            for (int i = 0; i < umAUm; i++) {
+                String[] pessoa = pessoas.get(i);
+                controller.cadastrarPessoa(pessoa[0], pessoa[1], pessoa[2], pessoa[3], pessoa[4]);
+                operacoes.registra("cadastrarPessoa", pessoa[0], pessoa[1], pessoa[2], pessoa[3], pessoa[4]);
+                if (!pessoa[5].isEmpty()) {
+                    controller.cadastrarDeputado(pessoa[1], pessoa[5]);
+                    operacoes.registra("cadastrarDeputado", pessoa[1], pessoa[5]);
+                }
+            }
+            imprime("um a um", umAUm, System.nanoTime() - inicio);
+            operacoes.limpa();
+            operacoes.fecha();
+
+            PessoaController importador = new PessoaController();
+            DiarioDeOperacoes diarioEmLote = new DiarioDeOperacoes(diario);
+            ResultadoDaImportacao resultado = new ResultadoDaImportacao();
+            inicio = System.nanoTime();
+            new LeitorDeRegistros().percorre(csv, LeitorDeRegistros.TAMANHO_DO_LOTE, lote -> {
+                List<String[]> registradas = new ArrayList<>();
+                for (Registro registro : importador.importarPessoas(lote, resultado)) {
+                    registradas.add(new String[]{"cadastrarPessoa", registro.get("nome"), registro.get("dni"),
+                            registro.get("estado"), registro.get("interesses"), registro.get("partido")});
+                    if (!registro.get("dataDeInicio").isEmpty())
+                        registradas.add(new String[]{"cadastrarDeputado", registro.get("dni"),
+                                registro.get("dataDeInicio")});
+                }
+                diarioEmLote.registraLote(registradas);
+            });
+            imprime("em lote", quantidade, System.nanoTime() - inicio);
+            System.out.printf("importados: %d  erros: %d  deputados: %d%n", resultado.getImportados(),
+                    resultado.getQuantidadeDeErros(), importador.contaDeputados());
+            diarioEmLote.fecha();
+        } finally {
+            csv.delete();
+            diario.delete();
+        }
+    }
+
+    private static void imprime(String forma, int quantidade, long duracao) {
+        System.out.printf("%-8s %9d pessoas  %8.0f ms  %,12.0f registros/minuto%n", forma, quantidade,
+                duracao / 1_000_000.0, quantidade * 60_000_000_000.0 / duracao);
+    }
+
+    private static List<String[]> criaPessoas(int quantidade) {
+        Random aleatorio = new Random(42);
+        List<String[]> pessoas = new ArrayList<>(quantidade);
+
+        for (int i = 0; i < quantidade; i++) {
+            String partido = PARTIDOS[aleatorio.nextInt(PARTIDOS.length)];
+            String data = partido.isEmpty() || aleatorio.nextInt(4) > 0 ? ""
+                    : String.format("%02d%02d%d", 1 + aleatorio.nextInt(28), 1 + aleatorio.nextInt(12),
+                    1990 + aleatorio.nextInt(30));
+            pessoas.add(new String[]{"Pessoa " + i, String.format("%09d-%d", i, i % 10),
+                    ESTADOS[aleatorio.nextInt(ESTADOS.length)], INTERESSES[aleatorio.nextInt(INTERESSES.length)],
+                    partido, data});
+        }
+        return pessoas;
+    }
+}
@@ -0,0 +1,135 @@
+package benchmarks;
+
+import entities.PEC;
+import entities.PL;
+import entities.PLP;
+import entities.Projeto;
+import enums.SituacaoVotacao;
+import interfaces.PropostaLegislativa;
+import util.CodificadorDeEntidades;
+import util.EntradaEmBlocos;
+import util.SaidaEmBlocos;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Compara o tamanho do arquivo de propostas e o tempo para salvá-lo e carregá-lo
+ * com a serialização do Java, com o formato binário do CodificadorDeEntidades e com
+ * o formato binário em blocos, sem compressão e comprimidos com o nível padrão.
+ * A quantidade de propostas pode ser passada como argumento (padrão: 1.000.000).
+ */
+public class SnapshotBenchmark {
+
+    private static final String[] INTERESSES = {"saude", "educacao", "seguranca publica", "trabalho",
+            "transportes", "nutricao", "saude,educacao", "educacao,trabalho"};
+    private static final String[] LOCAIS = {"CCJC", "CTF", "CSEG", "CE", "plenario"};
+
+    public static void main(String[] args) throws Exception {
+        int quantidade = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        HashSet<PropostaLegislativa> propostas = criaPropostas(quantidade);
+
+        File serializado = File.createTempFile("propostas", ".ser");
+        File binario = File.createTempFile("propostas", ".bin");
+        try {
+            long inicio = System.nanoTime();
+            try (ObjectOutputStream saida = new ObjectOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(serializado)))) {
+                saida.writeObject(propostas);
+            }
+            long salvarSerializado = System.nanoTime() - inicio;
+
+            inicio = System.nanoTime();
+            try (ObjectInputStream entrada = new ObjectInputStream(
+                    new BufferedInputStream(new FileInputStream(serializado)))) {
+                entrada.readObject();
+            }
+            long carregarSerializado = System.nanoTime() - inicio;
+
+            CodificadorDeEntidades codificador = new CodificadorDeEntidades();
+            inicio = System.nanoTime();
+            try (FileOutputStream saida = new FileOutputStream(binario)) {
+                codificador.escrevePropostas(propostas, saida);
+            }
+            long salvarBinario = System.nanoTime() - inicio;
+
+            inicio = System.nanoTime();
+            try (FileInputStream entrada = new FileInputStream(binario)) {
+                codificador.lePropostas(entrada);
+            }
+            long carregarBinario = System.nanoTime() - inicio;
+
+            System.out.printf("%d propostas%n", quantidade);
+            imprime("serializacao Java", serializado.length(), salvarSerializado, carregarSerializado);
+            imprime("formato binario", binario.length(), salvarBinario, carregarBinario);
+            comparaBlocos("blocos nivel 0", propostas, binario, 0);
+            comparaBlocos("blocos nivel " + SaidaEmBlocos.NIVEL_PADRAO, propostas, binario, SaidaEmBlocos.NIVEL_PADRAO);
+        } finally {
+            serializado.delete();
+            binario.delete();
+        }
+    }
+
+    private static void comparaBlocos(String formato, HashSet<PropostaLegislativa> propostas, File arquivo,
+                                      int nivel) throws Exception {
+        CodificadorDeEntidades codificador = new CodificadorDeEntidades();
+        long inicio = System.nanoTime();
+        try (SaidaEmBlocos saida = new SaidaEmBlocos(new FileOutputStream(arquivo), SaidaEmBlocos.TAMANHO_PADRAO,
+                nivel)) {
+            codificador.escrevePropostas(propostas, saida);
+        }
+        long salvar = System.nanoTime() - inicio;
+
+        inicio = System.nanoTime();
+        try (EntradaEmBlocos entrada = new EntradaEmBlocos(new FileInputStream(arquivo))) {
+            codificador.lePropostas(entrada);
+            entrada.verificaFim();
+        }
+        long carregar = System.nanoTime() - inicio;
+        imprime(formato, arquivo.length(), salvar, carregar);
+    }
+
+    private static void imprime(String formato, long bytes, long salvar, long carregar) {
+        System.out.printf("%-18s %8.1f MB  salvar: %7.0f ms  carregar: %7.0f ms%n", formato,
+                bytes / 1_048_576.0, salvar / 1_000_000.0, carregar / 1_000_000.0);
+    }
+
+    private static HashSet<PropostaLegislativa> criaPropostas(int quantidade) {
+        Random aleatorio = new Random(42);
+        HashSet<PropostaLegislativa> propostas = new HashSet<>(quantidade * 2);
+
+        for (int i = 0; i < quantidade; i++) {
+            int ano = 1988 + aleatorio.nextInt(30);
+            String autor = String.format("%09d-0", aleatorio.nextInt(513));
+            String interesses = INTERESSES[aleatorio.nextInt(INTERESSES.length)];
+            String ementa = "Ementa da proposta " + i;
+            String url = "http://example.com/propostas/" + i;
+            Projeto proposta;
+
+            switch (aleatorio.nextInt(3)) {
+                case 0:
+                    proposta = new PL("PL " + i + "/" + ano, autor, ano, ementa, interesses, url, aleatorio.nextBoolean());
+                    break;
+                case 1:
+                    proposta = new PLP("PLP " + i + "/" + ano, autor, ano, ementa, interesses, url, "153");
+                    break;
+                default:
+                    proposta = new PEC("PEC " + i + "/" + ano, autor, ano, ementa, interesses, url, "7,8");
+            }
+
+            for (int local = aleatorio.nextInt(LOCAIS.length); local > 0; local--) {
+                proposta.alteraSituacaoDoUltimoLocal(SituacaoVotacao.APROVADO);
+                proposta.setNovoLocalDeVotacao(LOCAIS[local]);
+            }
+            propostas.add(proposta);
+        }
+        return propostas;
+    }
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import controllers.ComissaoController;
+import controllers.PartidoBaseController;
+import controllers.PessoaController;
+import controllers.ProjetoController;
+import entities.PL;
+import enums.SituacaoVotacao;
+import interfaces.PropostaLegislativa;
+import services.ComissaoService;
+import services.PartidoBaseService;
+import services.PessoaService;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Mede o tempo das consultas à tramitação em uma data sobre muitas propostas, cada uma
+ * com um histórico de transições ao longo de dez anos. A quantidade de propostas pode
+ * ser passada como argumento (padrão: 1.000.000).
+ */
+public class TramitacaoBenchmark {
+
+    private static final String[] LOCAIS = {"CTF", "CSEG", "CE", "plenario"};
+    private static final long DIA = 86_400_000L;
+    private static final long INICIO = 1_262_304_000_000L;
+
+    public static void main(String[] args) {
+        int quantidade = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        PessoaController pessoas = new PessoaController();
+        PessoaService pessoaService = new PessoaService(pessoas);
+        ProjetoController controller = new ProjetoController(pessoaService,
+                new ComissaoService(new ComissaoController(pessoaService)),
+                new PartidoBaseService(new PartidoBaseController()));
+
+        Random aleatorio = new Random(42);
+        Map<String, PropostaLegislativa> propostas = new HashMap<>();
+        long transicoes = 0;
+        for (int i = 1; i <= quantidade; i++) {
+            int ano = 2010 + aleatorio.nextInt(10);
+            PL pl = new PL("PL " + i + "/" + ano, "111111111-1", ano, "Ementa " + i, "saude",
+                    "https://example.net/" + i, aleatorio.nextBoolean());
+            long instante = INICIO + (ano - 2010) * 365 * DIA + aleatorio.nextInt(365) * DIA;
+            pl.registraTransicoes(instante);
+            for (int j = aleatorio.nextInt(LOCAIS.length + 1); j > 0; j--) {
+                instante += (1 + aleatorio.nextInt(90)) * DIA;
+                pl.alteraSituacaoDoUltimoLocal(SituacaoVotacao.APROVADO);
+                pl.setNovoLocalDeVotacao(LOCAIS[aleatorio.nextInt(LOCAIS.length)]);
+                pl.registraTransicoes(instante);
+            }
+            transicoes += pl.getHistorico().getQuantidade();
+            propostas.put(pl.getCodigo(), pl);
+        }
+        controller.setPropostas(propostas);
+        System.out.printf("%d propostas, %d transicoes%n", quantidade, transicoes);
+
+        for (int rodada = 0; rodada < 2; rodada++) {
+            for (int ano = 2011; ano <= 2019; ano += 4) {
+                String data = "0107" + ano;
+                long inicio = System.nanoTime();
+                String resultado = controller.listarPropostasEm("CCJC", data);
+                long duracao = System.nanoTime() - inicio;
+                int encontradas = resultado.isEmpty() ? 0 : resultado.split(" \\| ").length;
+                System.out.printf("CCJC em %s: %8d propostas  %6.0f ms%n", data, encontradas, duracao / 1_000_000.0);
+            }
+        }
+    }
+}
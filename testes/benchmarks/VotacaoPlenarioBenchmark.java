@@ -0,0 +1,67 @@
+package benchmarks;
+
+import controllers.ComissaoController;
+import controllers.PartidoBaseController;
+import controllers.PessoaController;
+import controllers.ProjetoController;
+import services.ComissaoService;
+import services.PartidoBaseService;
+import services.PessoaService;
+
+/**
+ * Mede o tempo médio de uma votação no plenário com 513 deputados presentes
+ * à medida que cresce o número de pessoas cadastradas no sistema.
+ */
+public class VotacaoPlenarioBenchmark {
+
+    private static final int QNT_DEPUTADOS = 513;
+    private static final int QNT_PROPOSTAS = 200;
+
+    public static void main(String[] args) {
+        int[] tamanhosDoCadastro = {1_000, 10_000, 100_000};
+
+        for (int qntPessoas : tamanhosDoCadastro) {
+            double mediaMs = mediaPorVotacao(qntPessoas);
+            System.out.printf("%7d pessoas: %.3f ms por votacao no plenario%n", qntPessoas, mediaMs);
+        }
+    }
+
+    private static String dni(int i) {
+        return String.format("%09d-0", i);
+    }
+
+    private static double mediaPorVotacao(int qntPessoas) {
+        PessoaController pessoaController = new PessoaController();
+        PartidoBaseController partidoController = new PartidoBaseController();
+        PessoaService pessoaService = new PessoaService(pessoaController);
+        ComissaoController comissaoController = new ComissaoController(pessoaService);
+        ProjetoController projetoController = new ProjetoController(pessoaService,
+                new ComissaoService(comissaoController), new PartidoBaseService(partidoController));
+
+        partidoController.cadastrarPartido("PartidoGov");
+
+        StringBuilder presentes = new StringBuilder();
+        for (int i = 0; i < qntPessoas; i++) {
+            pessoaController.cadastrarPessoa("Pessoa " + i, dni(i), "PB", "saude,educacao", "PartidoGov");
+            if (i < QNT_DEPUTADOS) {
+                pessoaController.cadastrarDeputado(dni(i), "01012019");
+                presentes.append(i == 0 ? "" : ",").append(dni(i));
+            }
+        }
+
+        comissaoController.cadastrarComissao("CCJC", dni(0) + "," + dni(1) + "," + dni(2));
+
+        String[] codigos = new String[QNT_PROPOSTAS];
+        for (int i = 0; i < QNT_PROPOSTAS; i++) {
+            codigos[i] = projetoController.cadastraPL(dni(0), 2019, "Ementa", "saude", "http://example.com", false);
+            projetoController.votarComissao(codigos[i], "GOVERNISTA", "plenario");
+        }
+
+        long inicio = System.nanoTime();
+        for (String codigo : codigos)
+            projetoController.votarPlenario(codigo, "LIVRE", presentes.toString());
+        long fim = System.nanoTime();
+
+        return (fim - inicio) / 1_000_000.0 / QNT_PROPOSTAS;
+    }
+}
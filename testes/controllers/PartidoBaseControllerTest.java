@@ -2,6 +2,11 @@ package controllers;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import util.LeitorDeRegistros.Registro;
+import util.ResultadoDaImportacao;
+
+import java.util.Arrays;
+import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -59,4 +64,23 @@ class PartidoBaseControllerTest {
         assertEquals("",
                 this.pc1.exibeBase());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testaImportacaoDePartidos() {
+        this.pc1.cadastrarPartido("PeSól");
+        ResultadoDaImportacao resultado = new ResultadoDaImportacao();
+
+        this.pc1.importarPartidos(Arrays.asList(
+                new Registro(2, Collections.singletonMap("nome", "PeteDuBê"), null),
+                new Registro(3, Collections.singletonMap("nome", "PeSól"), null),
+                new Registro(4, Collections.singletonMap("nome", " "), null),
+                new Registro(5, Collections.singletonMap("nome", "PeteDuBê"), null)), resultado);
+
+        assertEquals(1, resultado.getImportados());
+        assertEquals(Arrays.asList(
+                "Linha 3: Erro ao cadastrar partido: partido já cadastrado",
+                "Linha 4: Erro ao cadastrar partido: partido nao pode ser vazio ou nulo",
+                "Linha 5: Erro ao cadastrar partido: partido já cadastrado"), resultado.getErros());
+        assertEquals("PeSól,PeteDuBê", this.pc1.exibeBase());
+    }
+}
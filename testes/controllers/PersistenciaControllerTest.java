@@ -0,0 +1,100 @@
+package controllers;
+
+import facade.EcoFacade;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.ArquivoSegmentado;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistenciaControllerTest {
+
+    private static final String[] FAMILIAS = {"pessoas", "comissoes", "partidos", "propostas"};
+
+    private File diretorio;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.diretorio = Files.createTempDirectory("persistencia").toFile();
+        for (String familia : FAMILIAS)
+            Files.copy(new File(PersistenciaController.DIRETORIO_DE_DADOS, familia + ".txt").toPath(),
+                    new File(this.diretorio, familia + ".txt").toPath());
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (File arquivo : this.diretorio.listFiles())
+            arquivo.delete();
+        this.diretorio.delete();
+    }
+
+    private EcoFacade carrega() {
+        EcoFacade facade = new EcoFacade(ArquivoSegmentado.emDiretorio(this.diretorio));
+        facade.carregarSistema();
+        return facade;
+    }
+
+    private void confereDadosSerializados(EcoFacade facade) {
+        assertEquals("POL: M2 - 071222222-0 (PE) - PartidoGov - Interesses: educacao,seguranca publica,saude"
+                + " - 29/02/2016 - 6 Leis", facade.exibirPessoa("071222222-0"));
+        assertEquals("M1 - 091111111-0 (PB) - PartidoGov - Interesses: quidditch", facade.exibirPessoa("091111111-0"));
+        assertEquals("PartidoGov", facade.exibirBase());
+        assertEquals("Projeto de Lei - PL 1/2016 - 071222222-0 - Ementa PL conc - Conclusiva - ARQUIVADO",
+                facade.exibirProjeto("PL 1/2016"));
+        assertEquals("Projeto de Emenda Constitucional - PEC 3/2016 - 071222222-0 - Ementa PEC - 7, 8 - EM VOTACAO"
+                + " (Plenario - 2o turno)", facade.exibirProjeto("PEC 3/2016"));
+        assertEquals("REJEITADO (CCJC), APROVADO (Plenario - 1o turno), EM VOTACAO (Plenario - 2o turno)",
+                facade.exibirTramitacao("PEC 3/2016"));
+        assertThrows(IllegalArgumentException.class, () -> facade.cadastrarComissao("CGOV", "071111111-0"));
+    }
+
+    @Test
+    void testaCargaDosArquivosSerializados() {
+        EcoFacade facade = carrega();
+        confereDadosSerializados(facade);
+
+        facade.salvarSistema();
+        confereDadosSerializados(carrega());
+    }
+
+    @Test
+    void testaCargaComFalhaNaoReescreveArquivos() throws IOException {
+        Files.write(new File(this.diretorio, "pessoas.txt").toPath(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        byte[][] conteudos = new byte[FAMILIAS.length][];
+        for (int i = 0; i < FAMILIAS.length; i++)
+            conteudos[i] = Files.readAllBytes(new File(this.diretorio, FAMILIAS[i] + ".txt").toPath());
+
+        EcoFacade facade = carrega();
+        assertThrows(IllegalStateException.class, facade::salvarSistema);
+
+        for (int i = 0; i < FAMILIAS.length; i++)
+            assertTrue(Arrays.equals(conteudos[i], Files.readAllBytes(new File(this.diretorio,
+                    FAMILIAS[i] + ".txt").toPath())), FAMILIAS[i]);
+    }
+
+    @Test
+    void testaPropostaRelacionadaAposRecarregar() throws IOException {
+        EcoFacade facade = new EcoFacade(ArquivoSegmentado.emDiretorio(this.diretorio));
+        facade.limparSistema();
+        facade.cadastrarPartido("PartidoGov");
+        facade.cadastrarPessoa("M1", "071111111-0", "PB", "a,b", "PartidoGov");
+        facade.cadastrarDeputado("071111111-0", "29022016");
+        facade.cadastrarComissao("CCJC", "071111111-0");
+        String rejeitada = facade.cadastrarPL("071111111-0", 2016, "Ementa PL", "a,b", "url", true);
+        facade.cadastrarPL("071111111-0", 2016, "Ementa PL", "a", "url", true);
+        facade.votarComissao(rejeitada, "OPOSICAO", "plenario");
+        String relacionada = facade.pegarPropostaRelacionada("071111111-0");
+        assertEquals("", relacionada);
+
+        facade.salvarSistema();
+        assertEquals(relacionada, carrega().pegarPropostaRelacionada("071111111-0"));
+        assertTrue(new File(this.diretorio, "indices").delete());
+        assertEquals(relacionada, carrega().pegarPropostaRelacionada("071111111-0"));
+    }
+}
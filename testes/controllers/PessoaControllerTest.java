@@ -1,10 +1,17 @@
 package controllers;
 
+import entities.Pessoa;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import util.LeitorDeRegistros.Registro;
+import util.ResultadoDaImportacao;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 class PessoaControllerTest {
     private PessoaController pc1;
@@ -148,4 +155,122 @@ class PessoaControllerTest {
                 () -> pc1.cadastrarDeputado("987654321-1", "01062019"));
     }
 
-}
\ No newline at end of file
+    @Test
+    void testaGetPessoaPeloDni() {
+        pc1.cadastrarPessoa("Sabido", "987654321-1", "PA", "", "GG");
+        assertEquals("987654321-1", pc1.getPessoa("987654321-1").getDni());
+        assertNull(pc1.getPessoa("123456789-0"));
+    }
+
+    @Test
+    void testaContemPessoa() {
+        pc1.cadastrarPessoa("Sabido", "987654321-1", "PA", "", "GG");
+        assertTrue(pc1.contemPessoa("987654321-1"));
+        assertFalse(pc1.contemPessoa("123456789-0"));
+    }
+
+    @Test
+    void testaVisaoPessoasSomenteLeitura() {
+        pc1.cadastrarPessoa("Sabido", "987654321-1", "PA", "", "GG");
+        assertEquals(1, pc1.getVisaoPessoas().size());
+        assertThrows(UnsupportedOperationException.class,
+                () -> pc1.getVisaoPessoas().clear());
+
+        pc1.cadastrarPessoa("Esperto", "123456789-0", "PB", "");
+        assertEquals(2, pc1.getVisaoPessoas().size());
+    }
+
+    @Test
+    void testaIndiceDeDeputados() {
+        pc1.cadastrarPessoa("Sabido", "987654321-1", "PA", "", "GG");
+        pc1.cadastrarPessoa("Esperto", "123456789-0", "PB", "", "GG");
+        assertEquals(0, pc1.contaDeputados());
+        assertFalse(pc1.ehDeputado("987654321-1"));
+
+        pc1.cadastrarDeputado("987654321-1", "01062019");
+        assertEquals(1, pc1.contaDeputados());
+        assertTrue(pc1.ehDeputado("987654321-1"));
+        assertFalse(pc1.ehDeputado("123456789-0"));
+    }
+
+    @Test
+    void testaIndiceDeDeputadosReconstruidoAoCarregar() {
+        pc1.cadastrarPessoa("Sabido", "987654321-1", "PA", "", "GG");
+        pc1.cadastrarDeputado("987654321-1", "01062019");
+
+        PessoaController carregado = new PessoaController();
+        Map<String, Pessoa> mapa = new HashMap<>();
+        for (Pessoa pessoa : pc1.getVisaoPessoas())
+            mapa.put(pessoa.getDni(), pessoa);
+        carregado.setPessoas(mapa);
+
+        assertEquals(1, carregado.contaDeputados());
+        assertTrue(carregado.ehDeputado("987654321-1"));
+    }
+
+    private Registro registro(long linha, String... campos) {
+        Map<String, String> mapa = new HashMap<>();
+        for (int i = 0; i < campos.length; i += 2)
+            mapa.put(campos[i], campos[i + 1]);
+        return new Registro(linha, mapa, null);
+    }
+
+    @Test
+    void testaImportacaoDePessoas() {
+        pc1.cadastrarPessoa("Sabido", "987654321-1", "PA", "", "GG");
+        List<Registro> lote = Arrays.asList(
+                registro(2, "nome", "Esperto", "dni", "123456789-0", "estado", "PB", "interesses", "saude"),
+                registro(3, "nome", "Rapido", "dni", "111111111-1", "estado", "PB", "interesses", "",
+                        "partido", "GG", "dataDeInicio", "01062019"),
+                registro(4, "nome", "Sabido", "dni", "987654321-1", "estado", "PA", "interesses", ""),
+                registro(5, "nome", "Outro", "dni", "123456789-0", "estado", "PB", "interesses", ""),
+                registro(6, "nome", "Errado", "dni", "12345", "estado", "PB", "interesses", ""),
+                registro(7, "nome", "Sem Partido", "dni", "222222222-2", "estado", "PB", "interesses", "",
+                        "dataDeInicio", "01062019"),
+                registro(8, "nome", "Futuro", "dni", "333333333-3", "estado", "PB", "interesses", "",
+                        "partido", "GG", "dataDeInicio", "01019999"),
+                registro(9, "dni", "444444444-4", "estado", "PB", "interesses", ""));
+        ResultadoDaImportacao resultado = new ResultadoDaImportacao();
+
+        List<Registro> cadastrados = pc1.importarPessoas(lote, resultado);
+
+        assertEquals(2, cadastrados.size());
+        assertEquals(2, resultado.getImportados());
+        assertEquals(Arrays.asList(
+                "Linha 4: Erro ao cadastrar pessoa: dni ja cadastrado",
+                "Linha 5: Erro ao cadastrar pessoa: dni ja cadastrado",
+                "Linha 6: Erro ao cadastrar pessoa: dni invalido",
+                "Linha 7: Erro ao cadastrar deputado: pessoa sem partido",
+                "Linha 8: Erro ao cadastrar deputado: data futura",
+                "Linha 9: Erro ao cadastrar pessoa: nome nao pode ser vazio ou nulo"), resultado.getErros());
+        assertEquals("Esperto - 123456789-0 (PB) - Interesses: saude", pc1.exibirPessoa("123456789-0"));
+        assertTrue(pc1.ehDeputado("111111111-1"));
+        assertFalse(pc1.contemPessoa("222222222-2"));
+        assertEquals(3, pc1.getAlteracoes().getQuantidade());
+    }
+
+    @Test
+    void testaImportacaoDeDeputados() {
+        pc1.cadastrarPessoa("Sabido", "987654321-1", "PA", "", "GG");
+        pc1.cadastrarPessoa("Esperto", "123456789-0", "PB", "");
+        List<Registro> lote = Arrays.asList(
+                registro(2, "dni", "987654321-1", "dataDeInicio", "01062019"),
+                registro(3, "dni", "987654321-1", "dataDeInicio", "01062019"),
+                registro(4, "dni", "123456789-0", "dataDeInicio", "01062019"),
+                registro(5, "dni", "111111111-1", "dataDeInicio", "01062019"),
+                registro(6, "dni", "987654321-1", "dataDeInicio", "29022017"),
+                new Registro(7, new HashMap<>(), "Erro ao importar registro: linha mal formada"));
+        ResultadoDaImportacao resultado = new ResultadoDaImportacao();
+
+        assertEquals(1, pc1.importarDeputados(lote, resultado).size());
+        assertEquals(Arrays.asList(
+                "Linha 3: Erro ao cadastrar deputado: deputado ja cadastrado",
+                "Linha 4: Erro ao cadastrar deputado: pessoa sem partido",
+                "Linha 5: Erro ao cadastrar deputado: pessoa nao encontrada",
+                "Linha 6: Erro ao cadastrar deputado: data invalida",
+                "Linha 7: Erro ao importar registro: linha mal formada"), resultado.getErros());
+        assertEquals(1, pc1.contaDeputados());
+        assertTrue(pc1.ehDeputado("987654321-1"));
+    }
+
+}
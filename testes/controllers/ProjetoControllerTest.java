@@ -1,11 +1,18 @@
 package controllers;
 
+import interfaces.PropostaLegislativa;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import services.ComissaoService;
 import services.PartidoBaseService;
 import services.PessoaService;
 
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class ProjetoControllerTest {
@@ -267,4 +274,128 @@ class ProjetoControllerTest {
         assertThrows(IllegalArgumentException.class, () -> this.pc.votarPlenario("PEC 1/2013", "OPOSICAO", "222222222-2"));
     }
 
-}
\ No newline at end of file
+    @Test
+    void testaNumeracaoPorTipoEAno() {
+        assertEquals("PL 1/2013", this.pc.cadastraPL("111111111-1", 2013, "Ementa PL", "saude", "wwww.ementa.com.br", true));
+        assertEquals("PL 2/2013", this.pc.cadastraPL("111111111-1", 2013, "Ementa PL", "saude", "wwww.ementa.com.br", true));
+        assertEquals("PL 1/2014", this.pc.cadastraPL("111111111-1", 2014, "Ementa PL", "saude", "wwww.ementa.com.br", true));
+        assertEquals("PLP 1/2013", this.pc.cadastraPLP("111111111-1", 2013, "Ementa PLP", "saude", "wwww.ementa.com.br", "4,5"));
+        assertEquals("PEC 1/2013", this.pc.cadastraPEC("111111111-1", 2013, "Ementa PEC", "saude", "wwww.ementa.com.br", "4,5"));
+    }
+
+    @Test
+    void testaNumeracaoContinuaAposCarregarPropostas() {
+        this.pc.cadastraPL("111111111-1", 2013, "Ementa PL", "saude", "wwww.ementa.com.br", true);
+        this.pc.cadastraPL("111111111-1", 2013, "Ementa PL", "saude", "wwww.ementa.com.br", true);
+
+        ProjetoController carregado = new ProjetoController(ps, cs, pas);
+        Map<String, PropostaLegislativa> mapa = new HashMap<>();
+        for (PropostaLegislativa proposta : this.pc.getPropostas())
+            mapa.put(proposta.getCodigo(), proposta);
+        carregado.setPropostas(mapa);
+
+        assertEquals("PL 3/2013", carregado.cadastraPL("111111111-1", 2013, "Ementa PL", "saude", "wwww.ementa.com.br", true));
+        assertEquals("PLP 1/2013", carregado.cadastraPLP("111111111-1", 2013, "Ementa PLP", "saude", "wwww.ementa.com.br", "4,5"));
+    }
+
+    @Test
+    void testaPropostasRelacionadasEmLote() {
+        this.pc.cadastraPL("111111111-1", 2013, "Ementa PL", "saude", "wwww.ementa.com.br", true);
+        this.pc.cadastraPEC("111111111-1", 2013, "Ementa PEC", "nutricao", "wwww.ementa.com.br", "4,5");
+
+        Map<String, String> resultados = new ConcurrentHashMap<>();
+        this.pc.getPropostasRelacionadasEmLote(resultados::put);
+
+        assertEquals(5, resultados.size());
+        for (String dni : resultados.keySet())
+            assertEquals(this.pc.getPropostaRelacionada(dni), resultados.get(dni));
+        assertEquals("PEC 1/2013", resultados.get("555555555-5"));
+    }
+
+    @Test
+    void testaPropostasRelacionadasEmLoteDuranteCadastros() throws InterruptedException {
+        this.pc.cadastraPL("111111111-1", 2013, "Ementa PL", "saude", "wwww.ementa.com.br", true);
+
+        Thread cadastros = new Thread(() -> {
+            for (int i = 0; i < 2000; i++) {
+                String dni = String.format("%09d-7", i);
+                this.p.cadastrarPessoa("pessoa", dni, "PB", "saude", "PartidoGov");
+                this.pc.configurarEstrategiaPropostaRelacionada(dni, "APROVACAO");
+            }
+        });
+        cadastros.start();
+        for (int i = 0; i < 20; i++)
+            this.pc.getPropostasRelacionadasEmLote((dni, codigo) -> { });
+        cadastros.join();
+
+        Map<String, String> resultados = new ConcurrentHashMap<>();
+        this.pc.getPropostasRelacionadasEmLote(resultados::put);
+        assertEquals(2005, resultados.size());
+        assertEquals("PL 1/2013", resultados.get("000001999-7"));
+    }
+
+    @Test
+    void testaPropostasRelacionadasEmLotePorDni() {
+        this.pc.cadastraPL("111111111-1", 2013, "Ementa PL", "saude", "wwww.ementa.com.br", true);
+
+        Map<String, String> resultados = new ConcurrentHashMap<>();
+        this.pc.getPropostasRelacionadasEmLote(Arrays.asList("111111111-1", "555555555-5"), resultados::put);
+
+        assertEquals(2, resultados.size());
+        assertEquals("PL 1/2013", resultados.get("111111111-1"));
+        assertEquals("", resultados.get("555555555-5"));
+        assertThrows(NullPointerException.class,
+                () -> this.pc.getPropostasRelacionadasEmLote(Arrays.asList("111111111-1", "999999999-9"), resultados::put));
+    }
+
+    @Test
+    void testaEstrategiaPorPessoa() {
+        this.pc.cadastraPL("111111111-1", 2013, "Ementa PL", "nutricao", "wwww.ementa.com.br", false);
+        this.pc.cadastraPEC("111111111-1", 2013, "Ementa PEC", "nutricao", "wwww.ementa.com.br", "4,5");
+        this.pc.votarComissao("PL 1/2013", "GOVERNISTA", "plenario");
+        this.p.cadastrarPessoa("joana", "666666666-6", "PB", "nutricao");
+
+        this.pc.configurarEstrategiaPropostaRelacionada("555555555-5", "CONCLUSAO");
+
+        assertEquals("PL 1/2013", this.pc.getPropostaRelacionada("555555555-5"));
+        assertEquals("PEC 1/2013", this.pc.getPropostaRelacionada("666666666-6"));
+        assertThrows(NullPointerException.class,
+                () -> this.pc.configurarEstrategiaPropostaRelacionada("999999999-9", "CONCLUSAO"));
+    }
+
+    private static long instante(int dia, int mes, int ano) {
+        Calendar data = Calendar.getInstance();
+        data.clear();
+        data.set(ano, mes - 1, dia, 12, 0);
+        return data.getTimeInMillis();
+    }
+
+    @Test
+    void testaTramitacaoEmUmaData() {
+        this.pc.cadastraPL("111111111-1", 2013, "Ementa PL", "saude", "wwww.ementa.com.br", false, instante(10, 2, 2013));
+        this.pc.cadastraPEC("111111111-1", 2013, "Ementa PEC", "nutricao", "wwww.ementa.com.br", "4,5", instante(12, 2, 2013));
+        this.pc.votarComissao("PL 1/2013", "GOVERNISTA", "CTF", instante(20, 2, 2013));
+        this.pc.votarComissao("PEC 1/2013", "LIVRE", "CTF", instante(1, 3, 2013));
+
+        assertEquals("EM VOTACAO (CCJC)", this.pc.exibirTramitacaoEm("PL 1/2013", "19022013"));
+        assertEquals("EM VOTACAO (CTF)", this.pc.exibirTramitacaoEm("PL 1/2013", "20022013"));
+        assertEquals("EM VOTACAO (CCJC)", this.pc.exibirTramitacaoEm("PEC 1/2013", "28022013"));
+        assertEquals("EM VOTACAO (CTF)", this.pc.exibirTramitacaoEm("PEC 1/2013", "01032013"));
+        assertEquals("PL 1/2013 - EM VOTACAO | PEC 1/2013 - EM VOTACAO", this.pc.listarPropostasEm("CCJC", "15022013"));
+        assertEquals("PEC 1/2013 - EM VOTACAO", this.pc.listarPropostasEm("CCJC", "20022013"));
+        assertEquals("", this.pc.listarPropostasEm("CCJC", "02032013"));
+        assertEquals("PL 1/2013 - EM VOTACAO | PEC 1/2013 - EM VOTACAO", this.pc.listarPropostasEm("CTF", "02032013"));
+        assertEquals("", this.pc.listarPropostasEm("CCJC", "09022013"));
+    }
+
+    @Test
+    void testaTramitacaoEmUmaDataInvalida() {
+        this.pc.cadastraPL("111111111-1", 2013, "Ementa PL", "saude", "wwww.ementa.com.br", false, instante(10, 2, 2013));
+
+        assertThrows(IllegalArgumentException.class, () -> this.pc.exibirTramitacaoEm("PL 1/2013", "09022013"));
+        assertThrows(NullPointerException.class, () -> this.pc.exibirTramitacaoEm("PL 2/2013", "10022013"));
+        assertThrows(IllegalArgumentException.class, () -> this.pc.exibirTramitacaoEm("PL 1/2013", "31022013"));
+        assertThrows(IllegalArgumentException.class, () -> this.pc.listarPropostasEm("", "10022013"));
+        assertThrows(NullPointerException.class, () -> this.pc.listarPropostasEm("CCJC", null));
+    }
+}
@@ -0,0 +1,204 @@
+package entities;
+
+import enums.SituacaoVotacao;
+import enums.TipoProjeto;
+import interfaces.PropostaLegislativa;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.AcervoDePropostas;
+import util.CodificadorDeEntidades;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AcervoDePropostasTest {
+
+    private File diretorio;
+    private AcervoDePropostas acervo;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.diretorio = Files.createTempDirectory("acervo").toFile();
+        this.acervo = new AcervoDePropostas(this.diretorio, new CodificadorDeEntidades());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        this.acervo.close();
+        for (File arquivo : this.diretorio.listFiles())
+            arquivo.delete();
+        this.diretorio.delete();
+    }
+
+    private PL aprovada(String codigo) {
+        PL pl = new PL(codigo, "111111111-1", 2019, "Reduz a tributacao em cima de bicicletas",
+                "meio-ambiente, transportes", "https://example.net/bicicleta", true);
+        pl.alteraSituacaoDoUltimoLocal(SituacaoVotacao.APROVADO);
+        pl.setNovoLocalDeVotacao("CTF");
+        pl.alteraSituacaoDoUltimoLocal(SituacaoVotacao.APROVADO);
+        return pl;
+    }
+
+    @Test
+    void testaCandidatasEm() throws IOException {
+        PL ctf = new PL("PL 1/2019", "111111111-1", 2019, "Ementa", "saude", "https://example.net", true);
+        ctf.registraTransicoes(100);
+        ctf.alteraSituacaoDoUltimoLocal(SituacaoVotacao.APROVADO);
+        ctf.setNovoLocalDeVotacao("CTF");
+        ctf.registraTransicoes(200);
+        ctf.alteraSituacaoDoUltimoLocal(SituacaoVotacao.REJEITADO);
+        ctf.registraTransicoes(300);
+        PL ccjc = new PL("PL 2/2019", "111111111-1", 2019, "Ementa", "saude", "https://example.net", true);
+        ccjc.registraTransicoes(150);
+        ccjc.alteraSituacaoDoUltimoLocal(SituacaoVotacao.REJEITADO);
+        ccjc.registraTransicoes(250);
+        this.acervo.acrescenta(ctf);
+        this.acervo.acrescenta(ccjc);
+
+        assertEquals(List.of(), candidatas(50, "CCJC"));
+        assertEquals(List.of("PL 1/2019", "PL 2/2019"), candidatas(220, "CTF"));
+        assertEquals(List.of("PL 1/2019"), candidatas(400, "CTF"));
+        assertEquals(List.of("PL 2/2019"), candidatas(400, "CCJC"));
+        assertEquals(List.of(), candidatas(400, "CGOV"));
+        assertEquals(List.of("PL 1/2019", "PL 2/2019"), candidatas(400, null));
+    }
+
+    private List<String> candidatas(long instante, String local) {
+        List<String> codigos = new ArrayList<>();
+        this.acervo.percorreCandidatasEm(instante, local, proposta -> codigos.add(proposta.getCodigo()));
+        return codigos;
+    }
+
+    @Test
+    void testaMaterializacao() throws IOException {
+        PL pl = aprovada("PL 1/2019");
+        this.acervo.acrescenta(pl);
+
+        PropostaLegislativa lida = this.acervo.materializa("PL 1/2019");
+        assertEquals(pl.toString(), lida.toString());
+        assertEquals(pl.exibirTramitacao(), lida.exibirTramitacao());
+        assertEquals(pl.getNumCriacaoProjeto(), lida.getNumCriacaoProjeto());
+        assertNotSame(lida, this.acervo.materializa("PL 1/2019"));
+        assertNull(this.acervo.materializa("PL 2/2019"));
+    }
+
+    @Test
+    void testaCamposSemDecodificar() throws IOException {
+        this.acervo.acrescenta(aprovada("PL 1/2019"));
+
+        assertEquals("CTF", this.acervo.getLocalDeVotacao("PL 1/2019"));
+        assertEquals("APROVADO", this.acervo.getSituacaoAtual("PL 1/2019"));
+        assertNull(this.acervo.getSituacaoAtual("PL 1/2018"));
+    }
+
+    @Test
+    void testaVersaoMaisNovaSubstituiAnterior() throws IOException {
+        this.acervo.acrescenta(aprovada("PL 1/2019"));
+        PL rejeitada = aprovada("PL 1/2019");
+        rejeitada.alteraSituacaoDoUltimoLocal(SituacaoVotacao.REJEITADO);
+        this.acervo.acrescenta(rejeitada);
+
+        assertEquals(1, this.acervo.getQuantidade());
+        assertEquals("REJEITADO", this.acervo.getSituacaoAtual("PL 1/2019"));
+        assertEquals(rejeitada.exibirTramitacao(), this.acervo.materializa("PL 1/2019").exibirTramitacao());
+    }
+
+    @Test
+    void testaRemocao() throws IOException {
+        this.acervo.acrescenta(aprovada("PL 1/2019"));
+        this.acervo.acrescenta(aprovada("PL 2/2019"));
+
+        assertTrue(this.acervo.remove("PL 1/2019"));
+        assertFalse(this.acervo.remove("PL 1/2019"));
+        assertFalse(this.acervo.contem("PL 1/2019"));
+        assertTrue(this.acervo.contem("PL 2/2019"));
+        assertEquals(1, this.acervo.getQuantidade());
+    }
+
+    @Test
+    void testaColecaoNaoMudaDepoisDaChamada() throws IOException {
+        this.acervo.acrescenta(aprovada("PL 1/2019"));
+        this.acervo.acrescenta(aprovada("PL 2/2019"));
+
+        Collection<PropostaLegislativa> propostas = this.acervo.getPropostas();
+        this.acervo.remove("PL 1/2019");
+        this.acervo.acrescenta(aprovada("PL 3/2019"));
+
+        List<String> codigos = new ArrayList<>();
+        for (PropostaLegislativa proposta : propostas)
+            codigos.add(proposta.getCodigo());
+        assertEquals(2, propostas.size());
+        assertEquals(List.of("PL 1/2019", "PL 2/2019"), codigos);
+    }
+
+    @Test
+    void testaCodigoForaDoFormato() throws IOException {
+        this.acervo.acrescenta(aprovada("10/2019"));
+        this.acervo.acrescenta(aprovada("PL 01/2019"));
+
+        assertTrue(this.acervo.contem("10/2019"));
+        assertTrue(this.acervo.contem("PL 01/2019"));
+        assertFalse(this.acervo.contem("PL 1/2019"));
+        assertEquals("10/2019", this.acervo.materializa("10/2019").getCodigo());
+    }
+
+    @Test
+    void testaNumeracao() throws IOException {
+        for (int i = 1; i <= 3; i++)
+            this.acervo.acrescenta(aprovada("PL " + i + "/2019"));
+        this.acervo.remove("PL 2/2019");
+
+        Map<TipoProjeto, Integer> contagem = new EnumMap<>(TipoProjeto.class);
+        this.acervo.percorreNumeracao((tipo, ano) -> contagem.merge(tipo, ano, Integer::sum));
+        assertEquals(Map.of(TipoProjeto.PL, 2 * 2019), contagem);
+    }
+
+    @Test
+    void testaMuitasPropostas() throws IOException {
+        for (int i = 1; i <= 5000; i++)
+            this.acervo.acrescenta(aprovada("PL " + i + "/2019"));
+
+        assertEquals(5000, this.acervo.getQuantidade());
+        assertEquals("PL 4321/2019", this.acervo.materializa("PL 4321/2019").getCodigo());
+        this.acervo.acrescenta(aprovada("PL 5001/2019"));
+        assertEquals("PL 5001/2019", this.acervo.materializa("PL 5001/2019").getCodigo());
+    }
+
+    @Test
+    void testaLimpezaApagaArquivo() throws IOException {
+        this.acervo.acrescenta(aprovada("PL 1/2019"));
+        assertEquals(1, this.diretorio.listFiles().length);
+
+        this.acervo.limpa();
+
+        assertEquals(0, this.diretorio.listFiles().length);
+        assertEquals(0, this.acervo.getQuantidade());
+        assertFalse(this.acervo.contem("PL 1/2019"));
+    }
+
+    @Test
+    void testaPropostasDeUmAno() throws IOException {
+        this.acervo.acrescenta(aprovada("PL 1/2019"));
+        PL antiga = new PL("PL 1/2017", "111111111-1", 2017, "Ementa", "saude", "https://example.net", true);
+        antiga.alteraSituacaoDoUltimoLocal(SituacaoVotacao.REJEITADO);
+        this.acervo.acrescenta(antiga);
+        this.acervo.acrescenta(aprovada("PL 2/2019"));
+
+        List<String> codigos = new ArrayList<>();
+        for (PropostaLegislativa proposta : this.acervo.getPropostas(2019))
+            codigos.add(proposta.getCodigo());
+        assertEquals(List.of("PL 1/2019", "PL 2/2019"), codigos);
+        assertEquals(1, this.acervo.getPropostas(2017).size());
+        assertTrue(this.acervo.getPropostas(2018).isEmpty());
+        assertEquals(List.of(2017, 2019), new ArrayList<>(this.acervo.getAnos()));
+    }
+}
@@ -0,0 +1,112 @@
+package entities;
+
+import interfaces.Armazenamento;
+import interfaces.PropostaLegislativa;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.ArmazenamentoParticionado;
+import util.ArquivoSegmentado;
+import util.CodificadorDeEntidades;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArmazenamentoParticionadoTest {
+
+    private File diretorio;
+    private Armazenamento armazenamento;
+    private CodificadorDeEntidades codificador;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.diretorio = Files.createTempDirectory("particionado").toFile();
+        this.armazenamento = ArquivoSegmentado.emDiretorio(this.diretorio);
+        this.codificador = new CodificadorDeEntidades();
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (File arquivo : this.diretorio.listFiles())
+            arquivo.delete();
+        this.diretorio.delete();
+    }
+
+    private ArmazenamentoParticionado<PropostaLegislativa> abre() {
+        return new ArmazenamentoParticionado<>(this.armazenamento, "propostas", PropostaLegislativa::getCodigo,
+                PropostaLegislativa::getAno, this.codificador::escrevePropostas, this.codificador::lePropostas);
+    }
+
+    private PL pl(String codigo, int ano, String ementa) {
+        return new PL(codigo, "111111111-1", ano, ementa, "saude", "https://example.net", true);
+    }
+
+    @Test
+    void testaSalvamentoIncrementalSoGravaAnosAlterados() throws IOException {
+        ArmazenamentoParticionado<PropostaLegislativa> propostas = abre();
+        propostas.reescreve(Arrays.asList(pl("PL 1/2017", 2017, "Ementa"), pl("PL 1/2019", 2019, "Ementa")), 1);
+        propostas.acrescenta(Collections.singletonList(pl("PL 2/2019", 2019, "Ementa")), 2);
+
+        assertEquals(Arrays.asList(2017, 2019), propostas.getParticoes());
+        assertEquals(0, propostas.getParticao(2017).contaSegmentosPendentes());
+        assertEquals(1, propostas.getParticao(2019).contaSegmentosPendentes());
+        assertEquals(2, propostas.getMaiorNumero());
+        assertEquals(Arrays.asList("propostas-2017", "propostas-2019"), this.armazenamento.listaFamilias("propostas"));
+
+        Map<String, PropostaLegislativa> lidas = abre().carrega(Long.MAX_VALUE);
+        assertEquals(3, lidas.size());
+        assertEquals(2017, lidas.get("PL 1/2017").getAno());
+    }
+
+    @Test
+    void testaReescritaApagaParticoesAusentes() throws IOException {
+        ArmazenamentoParticionado<PropostaLegislativa> propostas = abre();
+        propostas.reescreve(Arrays.asList(pl("PL 1/2017", 2017, "Ementa"), pl("PL 1/2019", 2019, "Ementa")), 1);
+
+        Map<Integer, List<PropostaLegislativa>> porAno = new TreeMap<>();
+        porAno.put(2019, Collections.singletonList(pl("PL 1/2019", 2019, "Ementa")));
+        propostas.reescreve(porAno, 2);
+
+        assertEquals(Collections.singleton("PL 1/2019"), abre().carrega(Long.MAX_VALUE).keySet());
+        assertEquals(Collections.singletonList("propostas-2019"), this.armazenamento.listaFamilias("propostas"));
+    }
+
+    @Test
+    void testaFamiliaSemParticoesLidaAntes() throws IOException {
+        this.armazenamento.abre("propostas", PropostaLegislativa::getCodigo, this.codificador::escrevePropostas,
+                this.codificador::lePropostas).reescreve(Arrays.asList(pl("PL 1/2019", 2019, "Antiga"),
+                pl("PL 1/2018", 2018, "Antiga")), 1);
+        ArmazenamentoParticionado<PropostaLegislativa> propostas = abre();
+        assertTrue(propostas.precisaSerReescrito());
+
+        propostas.acrescenta(Collections.singletonList(pl("PL 1/2019", 2019, "Nova")), 2);
+        Map<String, PropostaLegislativa> lidas = abre().carrega(Long.MAX_VALUE);
+        assertEquals(2, lidas.size());
+        assertEquals("Nova", ((Projeto) lidas.get("PL 1/2019")).getEmenta());
+
+        propostas.reescreve(lidas.values(), 3);
+        assertFalse(propostas.precisaSerReescrito());
+        assertEquals(Arrays.asList("propostas-2018", "propostas-2019"), this.armazenamento.listaFamilias("propostas"));
+        assertEquals(lidas.keySet(), abre().carrega(Long.MAX_VALUE).keySet());
+    }
+
+    @Test
+    void testaCargaParalelaDeMuitosAnos() throws IOException {
+        ArmazenamentoParticionado<PropostaLegislativa> propostas = abre();
+        long numero = 0;
+        for (int ano = 2000; ano < 2020; ano++)
+            for (int i = 1; i <= 5; i++)
+                propostas.acrescenta(Collections.singletonList(pl("PL " + i + "/" + ano, ano, "Ementa")), ++numero);
+
+        assertEquals(100, abre().carrega(Long.MAX_VALUE).size());
+        assertEquals(5, abre().carrega(5).size());
+    }
+}
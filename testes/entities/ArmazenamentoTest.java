@@ -0,0 +1,124 @@
+package entities;
+
+import controllers.PersistenciaController;
+import facade.EcoFacade;
+import interfaces.Armazenamento;
+import interfaces.ArmazenamentoDeFamilia;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.ArmazenamentoEmMemoria;
+import util.ArquivoSegmentado;
+import util.ArquivoSerializado;
+import util.CodificadorDeEntidades;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArmazenamentoTest {
+
+    private File diretorio;
+    private ArmazenamentoEmMemoria memoria;
+    private List<Armazenamento> armazenamentos;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.diretorio = Files.createTempDirectory("armazenamentos").toFile();
+        this.memoria = new ArmazenamentoEmMemoria();
+        this.armazenamentos = Arrays.asList(this.memoria, ArquivoSerializado.emDiretorio(this.diretorio),
+                ArquivoSegmentado.emDiretorio(this.diretorio));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        this.memoria.fecha();
+        for (File arquivo : this.diretorio.listFiles())
+            arquivo.delete();
+        this.diretorio.delete();
+    }
+
+    private ArmazenamentoDeFamilia<Comissao> abre(Armazenamento armazenamento) {
+        CodificadorDeEntidades codificador = new CodificadorDeEntidades();
+        return armazenamento.abre("comissoes", Comissao::getTema, codificador::escreveComissoes,
+                codificador::leComissoes);
+    }
+
+    private Comissao comissao(String tema, String... integrantes) {
+        return new Comissao(tema, new HashSet<>(Arrays.asList(integrantes)));
+    }
+
+    @Test
+    void testaSalvamentosIncrementais() throws IOException {
+        for (Armazenamento armazenamento : this.armazenamentos) {
+            ArmazenamentoDeFamilia<Comissao> familia = abre(armazenamento);
+            familia.reescreve(Arrays.asList(comissao("CCJC", "071111111-0"), comissao("CTF", "071111111-0")), 1);
+            familia.acrescenta(Collections.singletonList(comissao("CCJC", "071222222-0")), 2);
+            familia.acrescenta(Collections.singletonList(comissao("CE", "071111111-0")), 3);
+
+            Map<String, Comissao> comissoes = abre(armazenamento).carrega(Long.MAX_VALUE);
+            assertEquals(3, comissoes.size(), armazenamento.getNome());
+            assertEquals(Collections.singleton("071222222-0"), comissoes.get("CCJC").getIntegrantes());
+            assertEquals(3, familia.getMaiorNumero(), armazenamento.getNome());
+
+            familia.mescla(Long.MAX_VALUE);
+            assertEquals(0, familia.contaSegmentosPendentes(), armazenamento.getNome());
+            assertEquals(comissoes.keySet(), familia.carrega(Long.MAX_VALUE).keySet());
+
+            familia.limpa();
+            assertTrue(familia.carrega(Long.MAX_VALUE).isEmpty(), armazenamento.getNome());
+        }
+    }
+
+    @Test
+    void testaCargaAteUmSalvamento() throws IOException {
+        for (Armazenamento armazenamento : this.armazenamentos) {
+            ArmazenamentoDeFamilia<Comissao> familia = abre(armazenamento);
+            familia.reescreve(Collections.singletonList(comissao("CCJC", "071111111-0")), 1);
+            familia.acrescenta(Collections.singletonList(comissao("CTF", "071111111-0")), 2);
+
+            assertEquals(Collections.singleton("CCJC"), familia.carrega(1).keySet(), armazenamento.getNome());
+            familia.limpa();
+        }
+    }
+
+    @Test
+    void testaEntidadesCarregadasIndependentes() throws IOException {
+        Comissao salva = comissao("CCJC", "071111111-0");
+        abre(this.memoria).reescreve(Collections.singletonList(salva), 1);
+
+        abre(this.memoria).carrega(Long.MAX_VALUE).get("CCJC").getIntegrantes().add("071222222-0");
+
+        assertEquals(1, abre(this.memoria).carrega(Long.MAX_VALUE).get("CCJC").getIntegrantes().size());
+    }
+
+    @Test
+    void testaArquivosDoSistemaNoDiretorioDoArmazenamento() throws IOException {
+        for (Armazenamento armazenamento : this.armazenamentos) {
+            EcoFacade facade = new EcoFacade(armazenamento);
+            facade.limparSistema();
+            facade.cadastrarPessoa("M1", "071111111-0", "PB", "saude");
+            facade.salvarSistema();
+            assertTrue(new File(armazenamento.getDiretorio(), "manifesto").exists(), armazenamento.getNome());
+
+            EcoFacade carregada = new EcoFacade(armazenamento);
+            carregada.carregarSistema();
+            assertEquals("M1 - 071111111-0 (PB) - Interesses: saude", carregada.exibirPessoa("071111111-0"));
+            carregada.limparSistema();
+        }
+
+        assertNotEquals(PersistenciaController.DIRETORIO_DE_DADOS.getAbsoluteFile(),
+                this.memoria.getDiretorio().getAbsoluteFile());
+
+        this.memoria.fecha();
+        assertFalse(this.memoria.getDiretorio().exists());
+        assertTrue(this.memoria.listaFamilias("").isEmpty());
+    }
+}
@@ -0,0 +1,129 @@
+package entities;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.ArquivoSegmentado;
+import util.CodificadorDeEntidades;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArquivoSegmentadoTest {
+
+    private File diretorio;
+    private ArquivoSegmentado<Comissao> arquivo;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.diretorio = Files.createTempDirectory("segmentos").toFile();
+        CodificadorDeEntidades codificador = new CodificadorDeEntidades();
+        this.arquivo = new ArquivoSegmentado<>(this.diretorio, "comissoes", Comissao::getTema,
+                codificador::escreveComissoes, codificador::leComissoes);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (File arquivo : this.diretorio.listFiles())
+            arquivo.delete();
+        this.diretorio.delete();
+    }
+
+    private Map<String, Comissao> carrega() throws IOException {
+        return this.arquivo.carrega(Long.MAX_VALUE);
+    }
+
+    private Comissao comissao(String tema, String... integrantes) {
+        return new Comissao(tema, new HashSet<>(Arrays.asList(integrantes)));
+    }
+
+    @Test
+    void testaSegmentoMaisNovoPrevalece() throws IOException {
+        this.arquivo.reescreve(Arrays.asList(comissao("CCJC", "071111111-0"), comissao("CTF", "071111111-0")), 0);
+        this.arquivo.acrescenta(Collections.singletonList(comissao("CCJC", "071222222-0")), 1);
+        this.arquivo.acrescenta(Collections.singletonList(comissao("CE", "071111111-0")), 2);
+
+        Map<String, Comissao> comissoes = carrega();
+        assertEquals(3, comissoes.size());
+        assertEquals(new HashSet<>(Collections.singletonList("071222222-0")), comissoes.get("CCJC").getIntegrantes());
+        assertEquals(2, this.arquivo.getSegmentos().size());
+        assertEquals(2, this.arquivo.getMaiorNumero());
+    }
+
+    @Test
+    void testaSegmentosEmOrdemNumerica() throws IOException {
+        this.arquivo.acrescenta(Collections.singletonList(comissao("CCJC", "071111111-0")), 9);
+        this.arquivo.acrescenta(Collections.singletonList(comissao("CCJC", "071222222-0")), 10);
+
+        assertEquals(new HashSet<>(Collections.singletonList("071222222-0")), carrega().get("CCJC").getIntegrantes());
+    }
+
+    @Test
+    void testaMesclagem() throws IOException {
+        this.arquivo.reescreve(Collections.singletonList(comissao("CCJC", "071111111-0")), 0);
+        this.arquivo.acrescenta(Collections.singletonList(comissao("CCJC", "071222222-0")), 1);
+        this.arquivo.acrescenta(Collections.singletonList(comissao("CTF", "071111111-0")), 2);
+        Map<String, Comissao> antes = carrega();
+
+        this.arquivo.mescla(Long.MAX_VALUE);
+
+        assertEquals(0, this.arquivo.contaSegmentosPendentes());
+        Map<String, Comissao> depois = carrega();
+        assertEquals(antes.keySet(), depois.keySet());
+        assertEquals(antes.get("CCJC").getIntegrantes(), depois.get("CCJC").getIntegrantes());
+    }
+
+    @Test
+    void testaLimpeza() throws IOException {
+        this.arquivo.reescreve(Collections.singletonList(comissao("CCJC", "071111111-0")), 0);
+        this.arquivo.acrescenta(Collections.singletonList(comissao("CTF", "071111111-0")), 1);
+
+        this.arquivo.limpa();
+
+        assertTrue(carrega().isEmpty());
+        assertEquals(0, this.arquivo.getMaiorNumero());
+    }
+
+    @Test
+    void testaLimiteDeGeracao() throws IOException {
+        this.arquivo.acrescenta(Collections.singletonList(comissao("CCJC", "071111111-0")), 1);
+        this.arquivo.acrescenta(Collections.singletonList(comissao("CCJC", "071222222-0")), 2);
+
+        assertEquals(new HashSet<>(Collections.singletonList("071111111-0")),
+                this.arquivo.carrega(1).get("CCJC").getIntegrantes());
+    }
+
+    @Test
+    void testaSegmentoTruncado() throws IOException {
+        this.arquivo.acrescenta(Collections.singletonList(comissao("CCJC", "071111111-0")), 1);
+        File segmento = this.arquivo.getSegmentos().get(0);
+        try (RandomAccessFile acesso = new RandomAccessFile(segmento, "rw")) {
+            acesso.setLength(acesso.length() - 5);
+        }
+
+        assertThrows(IOException.class, this::carrega);
+    }
+
+    @Test
+    void testaBaseCorrompidaUsaAnterior() throws IOException {
+        this.arquivo.reescreve(Collections.singletonList(comissao("CCJC", "071111111-0")), 0);
+        this.arquivo.acrescenta(Collections.singletonList(comissao("CTF", "071111111-0")), 1);
+        this.arquivo.mescla(Long.MAX_VALUE);
+        this.arquivo.acrescenta(Collections.singletonList(comissao("CE", "071111111-0")), 2);
+
+        try (RandomAccessFile acesso = new RandomAccessFile(this.arquivo.getBase(), "rw")) {
+            acesso.seek(acesso.length() - 20);
+            acesso.write(0x7F);
+        }
+
+        assertEquals(new HashSet<>(Arrays.asList("CCJC", "CTF", "CE")), carrega().keySet());
+    }
+}
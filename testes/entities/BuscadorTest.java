@@ -14,8 +14,12 @@ import services.PessoaService;
 import services.ProjetoService;
 import util.Buscador;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -292,4 +296,92 @@ class BuscadorTest {
 		this.buscador.setEstrategiaAtual(EstrategiaBusca.APROVACAO);
 		assertEquals("PL 1/2006", this.buscador.buscaMaisRelacionado(interesses));
 	}
+
+	@Test
+	void testaPropostaAdicionadaIncrementalmente() {
+		assertEquals("", this.buscador.buscaMaisRelacionado(interesses));
+
+		this.buscador.adicionaProposta(new PLP("PLP 1/2006", "111111000-1", 2006, "Destina 30% das multas de trânsito arrecadadas à melhoria da acessibilidade urbana",
+				"inclusao, transportes", "https://example.net/multas%22acessibilidade", "36, 70"));
+		assertEquals("PLP 1/2006", this.buscador.buscaMaisRelacionado(interesses));
+
+		this.buscador.adicionaProposta(new PL("PL 1/2006", "111111000-1", 2006, "Destina 30% das multas de trânsito arrecadadas à melhoria da acessibilidade urbana",
+				"inclusao, transportes, carros", "https://example.net/multas%22acessibilidade", true));
+		assertEquals("PL 1/2006", this.buscador.buscaMaisRelacionado(interesses));
+	}
+
+	@Test
+	void testaPropostaForaDeVotacaoNaoEhRecomendada() {
+		this.buscador = new Buscador(new HashSet<>());
+		this.pc.cadastraPL("111111000-1", 2006, "Destina 30% das multas de trânsito arrecadadas à melhoria da acessibilidade urbana", "inclusao, transportes, carros", "https://example.net/multas%22acessibilidade", true);
+		PropostaLegislativa pl = this.projs.getPropostas().iterator().next();
+
+		this.buscador.adicionaProposta(pl);
+		assertTrue(this.buscador.getPropostasEmVotacao().contains(pl));
+		assertEquals("PL 1/2006", this.buscador.buscaMaisRelacionado(interesses));
+
+		this.pc.votarComissao("PL 1/2006", "OPOSICAO", "-");
+		this.buscador.atualizaSituacao(pl);
+		assertTrue(this.buscador.getPropostasEmVotacao().isEmpty());
+		assertEquals("", this.buscador.buscaMaisRelacionado(interesses));
+	}
+
+	@Test
+	void testaPropostasMaisRelacionadasEmOrdem() {
+		inicializaPropostasVariasMaisInteressantesPLPCadastradaPrimeiro();
+		assertEquals(Arrays.asList("PLP 1/2005", "PLP 2/2005", "PLP 1/2006"), this.buscador.buscaMaisRelacionados(interesses, 3));
+		assertEquals(Arrays.asList("PLP 1/2005"), this.buscador.buscaMaisRelacionados(interesses, 1));
+		assertEquals(6, this.buscador.buscaMaisRelacionados(interesses, 10).size());
+	}
+
+	@Test
+	void testaPropostasMaisRelacionadasSemInteressesComuns() {
+		inicializaPropostasSemInteressesComuns();
+		assertTrue(this.buscador.buscaMaisRelacionados(interesses, 3).isEmpty());
+	}
+
+	@Test
+	void testaCacheDeBuscas() {
+		inicializaPropostasUnicaMaisInteressesComuns();
+		assertEquals("PL 1/2006", this.buscador.buscaMaisRelacionado(interesses));
+		assertEquals("PL 1/2006", this.buscador.buscaMaisRelacionado(interesses));
+		assertEquals(1, this.buscador.getCache().getAcertos());
+		assertEquals(1, this.buscador.getCache().getFalhas());
+	}
+
+	@Test
+	void testaCacheInvalidadaPorNovaProposta() {
+		inicializaPropostasUnicaMaisInteressesComuns();
+		assertEquals("PL 1/2006", this.buscador.buscaMaisRelacionado(interesses));
+
+		this.buscador.adicionaProposta(new PEC("PEC 2/2006", "111111000-1", 2005, "Reduz a distancia entre paradas de transporte publico",
+				"inclusao, transportes, carros", "https://example.net/distancia%22transporte", "36, 70"));
+		assertEquals("PEC 2/2006", this.buscador.buscaMaisRelacionado(interesses));
+		assertEquals(0, this.buscador.getCache().getAcertos());
+	}
+
+	@Test
+	void testaBuscaEmLoteDuranteAtualizacoes() throws InterruptedException {
+		List<String> consultas = new ArrayList<>();
+		for (int i = 0; i < 2000; i++)
+			consultas.add(this.pessoa.getInteresses());
+
+		Thread atualizacoes = new Thread(() -> {
+			for (int i = 1; i <= 500; i++)
+				this.buscador.adicionaProposta(new PLP("PLP " + i + "/2006", "111111000-1", 2006, "Destina 30% das multas de trânsito arrecadadas à melhoria da acessibilidade urbana",
+						"inclusao, transportes", "https://example.net/multas%22acessibilidade", "36, 70"));
+		});
+		Set<String> respostas = ConcurrentHashMap.newKeySet();
+		atualizacoes.start();
+		for (int i = 0; i < 20; i++)
+			this.buscador.buscaMaisRelacionadoEmLote(consultas, consulta -> consulta, consulta -> EstrategiaBusca.CONSTITUCIONAL,
+					(consulta, codigo) -> respostas.add(codigo));
+		atualizacoes.join();
+
+		for (String resposta : respostas)
+			assertTrue(resposta.isEmpty() || resposta.startsWith("PLP "), resposta);
+
+		assertEquals(500, this.buscador.getPropostasEmVotacao().size());
+		assertEquals("PLP 1/2006", this.buscador.buscaMaisRelacionado(interesses));
+	}
 }
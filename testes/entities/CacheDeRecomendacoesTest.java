@@ -0,0 +1,105 @@
+package entities;
+
+import enums.EstrategiaBusca;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.CacheDeRecomendacoes;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheDeRecomendacoesTest {
+
+    private CacheDeRecomendacoes cache;
+
+    @BeforeEach
+    void setUp() {
+        this.cache = new CacheDeRecomendacoes(2);
+    }
+
+    @Test
+    void testaChaveIndependenteDaOrdem() {
+        assertEquals(CacheDeRecomendacoes.chave(new String[]{"saude", "educacao"}, EstrategiaBusca.APROVACAO),
+                CacheDeRecomendacoes.chave(new String[]{"educacao", "saude"}, EstrategiaBusca.APROVACAO));
+        assertNotEquals(CacheDeRecomendacoes.chave(new String[]{"saude"}, EstrategiaBusca.APROVACAO),
+                CacheDeRecomendacoes.chave(new String[]{"saude"}, EstrategiaBusca.CONCLUSAO));
+        assertNotEquals(CacheDeRecomendacoes.chave(new String[]{"saude"}, EstrategiaBusca.APROVACAO),
+                CacheDeRecomendacoes.chave(new String[]{"saude", "saude"}, EstrategiaBusca.APROVACAO));
+    }
+
+    @Test
+    void testaAcertosEFalhas() {
+        String chave = CacheDeRecomendacoes.chave(new String[]{"saude"}, EstrategiaBusca.CONSTITUCIONAL);
+        assertNull(this.cache.busca(chave));
+        this.cache.armazena(chave, "PL 1/2016");
+        assertEquals("PL 1/2016", this.cache.busca(chave));
+        assertEquals(1, this.cache.getAcertos());
+        assertEquals(1, this.cache.getFalhas());
+        assertEquals("Acertos: 1 - Falhas: 1 - Resultados: 1", this.cache.toString());
+    }
+
+    @Test
+    void testaDescartaUsadoHaMaisTempo() {
+        String saude = CacheDeRecomendacoes.chave(new String[]{"saude"}, EstrategiaBusca.CONSTITUCIONAL);
+        String educacao = CacheDeRecomendacoes.chave(new String[]{"educacao"}, EstrategiaBusca.CONSTITUCIONAL);
+        String nutricao = CacheDeRecomendacoes.chave(new String[]{"nutricao"}, EstrategiaBusca.CONSTITUCIONAL);
+
+        this.cache.armazena(saude, "PL 1/2016");
+        this.cache.armazena(educacao, "PL 2/2016");
+        this.cache.busca(saude);
+        this.cache.armazena(nutricao, "PL 3/2016");
+
+        assertEquals(2, this.cache.getTamanho());
+        assertNull(this.cache.busca(educacao));
+        assertEquals("PL 1/2016", this.cache.busca(saude));
+    }
+
+    @Test
+    void testaInvalidaSomenteInteressesAfetados() {
+        String saude = CacheDeRecomendacoes.chave(new String[]{"saude", "trabalho"}, EstrategiaBusca.CONSTITUCIONAL);
+        String educacao = CacheDeRecomendacoes.chave(new String[]{"educacao"}, EstrategiaBusca.CONSTITUCIONAL);
+        this.cache.armazena(saude, "PL 1/2016");
+        this.cache.armazena(educacao, "PL 2/2016");
+
+        this.cache.invalida("trabalho,lazer");
+
+        assertNull(this.cache.busca(saude));
+        assertEquals("PL 2/2016", this.cache.busca(educacao));
+    }
+
+    @Test
+    void testaCapacidadeInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> new CacheDeRecomendacoes(0));
+    }
+
+    @Test
+    void testaResultadoCalculadoAntesDeInvalidacaoNaoEArmazenado() {
+        String saude = CacheDeRecomendacoes.chave(new String[]{"saude"}, EstrategiaBusca.CONSTITUCIONAL);
+        long versao = this.cache.getVersao();
+
+        this.cache.invalida("saude");
+
+        assertFalse(this.cache.armazena(saude, "PL 1/2016", versao));
+        assertNull(this.cache.busca(saude));
+        assertTrue(this.cache.armazena(saude, "PL 2/2016", this.cache.getVersao()));
+        assertEquals("PL 2/2016", this.cache.busca(saude));
+    }
+
+    @Test
+    void testaDescartaAoAtingirLimiteDeMemoria() {
+        String saude = CacheDeRecomendacoes.chave(new String[]{"saude"}, EstrategiaBusca.CONSTITUCIONAL);
+        String educacao = CacheDeRecomendacoes.chave(new String[]{"educacao"}, EstrategiaBusca.CONSTITUCIONAL);
+        CacheDeRecomendacoes limitada = new CacheDeRecomendacoes(100, 300);
+
+        limitada.armazena(saude, "PL 1/2016");
+        long ocupados = limitada.getBytesOcupados();
+        limitada.armazena(educacao, "PL 2/2016");
+
+        assertEquals(1, limitada.getTamanho());
+        assertNull(limitada.busca(saude));
+        assertTrue(limitada.getBytesOcupados() <= 300);
+        limitada.invalida("educacao");
+        assertEquals(0, limitada.getBytesOcupados());
+        assertTrue(ocupados > 0);
+        assertThrows(IllegalArgumentException.class, () -> new CacheDeRecomendacoes(1, 0));
+    }
+}
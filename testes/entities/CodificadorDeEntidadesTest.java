@@ -0,0 +1,144 @@
+package entities;
+
+import enums.EstrategiaBusca;
+import enums.SituacaoVotacao;
+import interfaces.PropostaLegislativa;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.CodificadorDeEntidades;
+import util.EscritorBinario;
+import util.LeitorBinario;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodificadorDeEntidadesTest {
+
+    private CodificadorDeEntidades codificador;
+
+    @BeforeEach
+    void setUp() {
+        this.codificador = new CodificadorDeEntidades();
+    }
+
+    @Test
+    void testaVarIntsETermos() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EscritorBinario escritor = new EscritorBinario(bytes);
+        escritor.escreveVarInt(0);
+        escritor.escreveVarInt(300);
+        escritor.escreveVarInt(Integer.MAX_VALUE);
+        escritor.escreveVarLongComSinal(-86_400_000L);
+        escritor.escreveTermo("saude");
+        escritor.escreveTermo(null);
+        escritor.escreveTermo("saude");
+        escritor.descarrega();
+
+        LeitorBinario leitor = new LeitorBinario(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(0, leitor.leVarInt());
+        assertEquals(300, leitor.leVarInt());
+        assertEquals(Integer.MAX_VALUE, leitor.leVarInt());
+        assertEquals(-86_400_000L, leitor.leVarLongComSinal());
+        assertEquals("saude", leitor.leTermo());
+        assertNull(leitor.leTermo());
+        assertEquals("saude", leitor.leTermo());
+    }
+
+    @Test
+    void testaTermoRepetidoOcupaUmByte() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EscritorBinario escritor = new EscritorBinario(bytes);
+        escritor.escreveTermo("seguranca publica");
+        long primeiraOcorrencia = escritor.getBytesEscritos();
+        escritor.escreveTermo("seguranca publica");
+
+        assertEquals(primeiraOcorrencia + 1, escritor.getBytesEscritos());
+    }
+
+    @Test
+    void testaPessoas() throws IOException {
+        Pessoa deputado = new Pessoa("Ana", "071111111-0", "PB", "saude,educacao", "PartidoGov");
+        deputado.setCargoPolitico(new Deputado(new Date(1_262_311_200_000L), 3));
+        deputado.setEstrategiaBusca(EstrategiaBusca.APROVACAO);
+        Pessoa semPartido = new Pessoa("Bia", "071222222-0", "PE", "");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        this.codificador.escrevePessoas(Arrays.asList(deputado, semPartido), bytes);
+        List<Pessoa> lidas = this.codificador.lePessoas(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(deputado.toString(), lidas.get(0).toString());
+        assertEquals(EstrategiaBusca.APROVACAO, lidas.get(0).getEstrategiaBusca());
+        assertEquals(semPartido.toString(), lidas.get(1).toString());
+    }
+
+    @Test
+    void testaPartidosEComissoes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        this.codificador.escrevePartidos(Arrays.asList(new Partido("PartidoGov"), new Partido("PartidoOpo")), bytes);
+        assertEquals(Arrays.asList(new Partido("PartidoGov"), new Partido("PartidoOpo")),
+                this.codificador.lePartidos(new ByteArrayInputStream(bytes.toByteArray())));
+
+        bytes.reset();
+        Comissao ccjc = new Comissao("CCJC", new HashSet<>(Arrays.asList("071111111-0", "071222222-0")));
+        this.codificador.escreveComissoes(Arrays.asList(ccjc), bytes);
+        Comissao lida = this.codificador.leComissoes(new ByteArrayInputStream(bytes.toByteArray())).get(0);
+        assertEquals("CCJC", lida.getTema());
+        assertEquals(ccjc.getIntegrantes(), lida.getIntegrantes());
+    }
+
+    @Test
+    void testaPropostasComTramitacao() throws IOException {
+        PL pl = new PL("PL 1/2016", "071111111-0", 2016, "Ementa PL", "saude", "http://example.com", true);
+        pl.alteraSituacaoDoUltimoLocal(SituacaoVotacao.APROVADO);
+        pl.setNovoLocalDeVotacao("CTF");
+        PLP plp = new PLP("PLP 1/2016", "071111111-0", 2016, "Ementa PLP", "saude,educacao", "http://example.net", "153");
+        PEC pec = new PEC("PEC 1/2016", "071111111-0", 2016, "Ementa PEC", "educacao", "http://example.org", "7,8");
+        pec.alteraSituacaoDoUltimoLocal(SituacaoVotacao.REJEITADO);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        this.codificador.escrevePropostas(Arrays.asList(pl, plp, pec), bytes);
+        List<PropostaLegislativa> lidas = this.codificador.lePropostas(new ByteArrayInputStream(bytes.toByteArray()));
+
+        for (int i = 0; i < lidas.size(); i++) {
+            PropostaLegislativa original = Arrays.<PropostaLegislativa>asList(pl, plp, pec).get(i);
+            assertEquals(original.toString(), lidas.get(i).toString());
+            assertEquals(original.exibirTramitacao(), lidas.get(i).exibirTramitacao());
+            assertEquals(original.getNumCriacaoProjeto(), lidas.get(i).getNumCriacaoProjeto());
+            assertEquals(original.getInteresses(), lidas.get(i).getInteresses());
+        }
+    }
+
+    @Test
+    void testaHistoricoDaTramitacao() throws IOException {
+        PL pl = new PL("PL 2/2016", "071111111-0", 2016, "Ementa PL", "saude", "http://example.com", true);
+        pl.registraTransicoes(1_500_000_000_000L);
+        pl.alteraSituacaoDoUltimoLocal(SituacaoVotacao.APROVADO);
+        pl.setNovoLocalDeVotacao("CTF");
+        pl.registraTransicoes(1_500_000_500_000L);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        this.codificador.escrevePropostas(Arrays.asList(pl), bytes);
+        PropostaLegislativa lida = this.codificador.lePropostas(new ByteArrayInputStream(bytes.toByteArray())).get(0);
+
+        assertEquals(3, lida.getHistorico().getQuantidade());
+        assertNull(lida.getTramitacaoEm(1_499_999_999_999L));
+        assertArrayEquals(new String[]{"CCJC", "EM_VOTACAO"}, lida.getTramitacaoEm(1_500_000_000_000L));
+        assertArrayEquals(new String[]{"CTF", "EM_VOTACAO"}, lida.getTramitacaoEm(1_500_000_500_000L));
+    }
+
+    @Test
+    void testaFamiliaErrada() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        this.codificador.escrevePartidos(Arrays.asList(new Partido("PartidoGov")), bytes);
+
+        assertThrows(IOException.class,
+                () -> this.codificador.lePessoas(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}
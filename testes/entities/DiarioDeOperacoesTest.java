@@ -0,0 +1,314 @@
+package entities;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.DiarioDeOperacoes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiarioDeOperacoesTest {
+
+    private File arquivo;
+    private DiarioDeOperacoes diario;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.arquivo = File.createTempFile("diario", ".log");
+        this.diario = new DiarioDeOperacoes(this.arquivo);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        this.diario.fecha();
+        this.arquivo.delete();
+        for (File segmento : segmentos())
+            segmento.delete();
+    }
+
+    private File[] segmentos() {
+        String prefixo = this.arquivo.getName().replace(".log", ".");
+        return this.arquivo.getParentFile().listFiles((dir, nome) -> nome.startsWith(prefixo) && nome.endsWith(".log")
+                && !nome.equals(this.arquivo.getName()));
+    }
+
+    private List<String[]> le(File arquivo) throws IOException {
+        List<String[]> registros = new ArrayList<>();
+        DiarioDeOperacoes leitor = new DiarioDeOperacoes(arquivo);
+        leitor.reexecuta(registros::add);
+        leitor.fecha();
+        return registros;
+    }
+
+    @Test
+    void testaReexecucaoEmOrdem() throws IOException {
+        this.diario.registra("cadastrarPartido", "PartidoGov");
+        this.diario.registra("cadastrarPessoa", "M1", "071111111-0", "PB", "", null);
+
+        List<String[]> registros = le(this.arquivo);
+        assertEquals(2, registros.size());
+        assertArrayEquals(new String[]{"cadastrarPartido", "PartidoGov"}, registros.get(0));
+        assertArrayEquals(new String[]{"cadastrarPessoa", "M1", "071111111-0", "PB", "", null}, registros.get(1));
+    }
+
+    @Test
+    void testaRegistroIncompletoDescartado() throws IOException {
+        this.diario.registra("cadastrarPartido", "PartidoGov");
+        this.diario.registra("cadastrarPartido", "PartidoOpo");
+        this.diario.fecha();
+
+        try (RandomAccessFile arq = new RandomAccessFile(this.arquivo, "rw")) {
+            arq.setLength(arq.length() - 3);
+        }
+
+        DiarioDeOperacoes reaberto = new DiarioDeOperacoes(this.arquivo);
+        List<String[]> registros = new ArrayList<>();
+        reaberto.reexecuta(registros::add);
+        assertEquals(1, registros.size());
+
+        reaberto.registra("cadastrarPartido", "PartidoNovo");
+        reaberto.fecha();
+
+        registros = le(this.arquivo);
+        assertEquals(2, registros.size());
+        assertEquals("PartidoNovo", registros.get(1)[1]);
+    }
+
+    @Test
+    void testaRegistroConcorrente() throws Exception {
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50; i++)
+                    this.diario.registra("cadastrarPartido", "P" + id + "-" + i);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(400, le(this.arquivo).size());
+        assertEquals(400, this.diario.getUltimaSequencia());
+    }
+
+    @Test
+    void testaLimpa() throws IOException {
+        this.diario.registra("cadastrarPartido", "PartidoGov");
+        this.diario.limpa();
+        assertTrue(le(this.arquivo).isEmpty());
+
+        this.diario.registra("cadastrarPartido", "PartidoOpo");
+        assertEquals(1, le(this.arquivo).size());
+    }
+
+    @Test
+    void testaDescartaAteMantemOperacoesPosteriores() throws IOException {
+        this.diario.registra("cadastrarPartido", "PartidoGov");
+        this.diario.registra("cadastrarPartido", "PartidoOpo");
+        this.diario.registra("cadastrarPartido", "PartidoNovo");
+
+        this.diario.descartaAte(2);
+        this.diario.registra("cadastrarPartido", "PartidoUltimo");
+
+        List<String[]> registros = le(this.arquivo);
+        assertEquals(2, registros.size());
+        assertEquals("PartidoNovo", registros.get(0)[1]);
+        assertEquals("PartidoUltimo", registros.get(1)[1]);
+    }
+
+    @Test
+    void testaReexecucaoIgnoraOperacoesJaSalvas() throws IOException {
+        this.diario.registra("cadastrarPartido", "PartidoGov");
+        this.diario.registra("cadastrarPartido", "PartidoOpo");
+
+        List<String[]> registros = new ArrayList<>();
+        DiarioDeOperacoes reaberto = new DiarioDeOperacoes(this.arquivo);
+        reaberto.reexecuta(1, registros::add);
+        reaberto.fecha();
+
+        assertEquals(1, registros.size());
+        assertEquals("PartidoOpo", registros.get(0)[1]);
+    }
+
+    @Test
+    void testaRotacaoEDescarteDeSegmentos() throws IOException {
+        this.diario.registra("cadastrarPartido", "PartidoGov");
+        this.diario.registra("cadastrarPartido", "PartidoOpo");
+        assertEquals(2, this.diario.rotaciona());
+        this.diario.registra("cadastrarPartido", "PartidoNovo");
+        assertEquals(1, segmentos().length);
+        assertEquals(2, this.diario.getQuantidadeDeSegmentos());
+
+        this.diario.descartaAte(2);
+        assertFalse(this.arquivo.exists());
+        assertEquals(1, this.diario.getQuantidadeDeSegmentos());
+        assertEquals(segmentos()[0].length(), this.diario.getTamanho());
+
+        List<String[]> registros = le(this.arquivo);
+        assertEquals(1, registros.size());
+        assertEquals("PartidoNovo", registros.get(0)[1]);
+    }
+
+    @Test
+    void testaReexecucaoComVariosSegmentos() throws IOException {
+        for (int i = 0; i < 6; i++) {
+            this.diario.registra("cadastrarPartido", "P" + i);
+            if (i % 2 == 1)
+                this.diario.rotaciona();
+        }
+        this.diario.registra("cadastrarPartido", "P6");
+        this.diario.fecha();
+
+        List<String[]> registros = new ArrayList<>();
+        DiarioDeOperacoes reaberto = new DiarioDeOperacoes(this.arquivo);
+        assertEquals(4, reaberto.getQuantidadeDeSegmentos());
+        reaberto.reexecuta(3, registros::add);
+        reaberto.registra("cadastrarPartido", "P7");
+        reaberto.fecha();
+
+        assertEquals(4, registros.size());
+        assertEquals("P3", registros.get(0)[1]);
+        assertEquals(8, le(this.arquivo).size());
+        assertEquals("P7", le(this.arquivo).get(7)[1]);
+    }
+
+    @Test
+    void testaRegistroCorrompidoDescartaSegmentosPosteriores() throws IOException {
+        this.diario.registra("cadastrarPartido", "PartidoGov");
+        this.diario.registra("cadastrarPartido", "PartidoOpo");
+        this.diario.rotaciona();
+        this.diario.registra("cadastrarPartido", "PartidoNovo");
+        this.diario.fecha();
+
+        try (RandomAccessFile arq = new RandomAccessFile(this.arquivo, "rw")) {
+            arq.setLength(arq.length() - 3);
+        }
+
+        List<String[]> registros = le(this.arquivo);
+        assertEquals(1, registros.size());
+        assertEquals(0, segmentos().length);
+    }
+
+    @Test
+    void testaFalhaNaGravacaoNaoConfirmaOperacoesDoLote() throws Exception {
+        CountDownLatch liberaPrimeiroLote = new CountDownLatch(1);
+        AtomicInteger escritas = new AtomicInteger();
+        this.diario.fecha();
+        this.diario = new DiarioDeOperacoes(this.arquivo) {
+            @Override
+            protected int escreve(FileChannel canal, ByteBuffer buffer) throws IOException {
+                int escrita = escritas.incrementAndGet();
+                if (escrita == 1) {
+                    try {
+                        liberaPrimeiroLote.await();
+                    } catch (InterruptedException ie) {
+                        throw new IOException(ie);
+                    }
+                } else if (escrita == 2) {
+                    ByteBuffer metade = buffer.duplicate();
+                    metade.limit(metade.position() + metade.remaining() / 2);
+                    canal.write(metade);
+                    throw new IOException("disco cheio");
+                }
+                return super.escreve(canal, buffer);
+            }
+        };
+
+        Thread primeira = new Thread(() -> this.diario.registra("cadastrarPartido", "P1"));
+        primeira.start();
+        while (escritas.get() == 0)
+            Thread.sleep(1);
+
+        AtomicInteger falhas = new AtomicInteger();
+        Thread[] threads = new Thread[2];
+        for (int t = 0; t < threads.length; t++) {
+            String partido = "P" + (t + 2);
+            threads[t] = new Thread(() -> {
+                try {
+                    this.diario.registra("cadastrarPartido", partido);
+                } catch (IllegalStateException ise) {
+                    falhas.incrementAndGet();
+                }
+            });
+            threads[t].start();
+        }
+        while (this.diario.getUltimaSequencia() < 3)
+            Thread.sleep(1);
+        liberaPrimeiroLote.countDown();
+
+        primeira.join();
+        for (Thread thread : threads)
+            thread.join();
+        assertEquals(2, falhas.get());
+
+        this.diario.registra("cadastrarPartido", "P4");
+        List<String[]> registros = le(this.arquivo);
+        assertEquals(2, registros.size());
+        assertEquals("P1", registros.get(0)[1]);
+        assertEquals("P4", registros.get(1)[1]);
+        assertEquals(this.arquivo.length(), this.diario.getTamanho());
+    }
+
+    @Test
+    void testaArgumentosSemLimiteDeTamanho() throws IOException {
+        StringBuilder politicos = new StringBuilder();
+        for (int i = 0; i < 10000; i++)
+            politicos.append(i > 0 ? "," : "").append(String.format("%09d-0", i));
+
+        this.diario.registra("cadastrarComissao", "CGOV", politicos.toString());
+        this.diario.registra("cadastrarPartido", "Ação");
+
+        List<String[]> registros = le(this.arquivo);
+        assertEquals(2, registros.size());
+        assertEquals(politicos.toString(), registros.get(0)[2]);
+        assertEquals("Ação", registros.get(1)[1]);
+        assertEquals(2, this.diario.getUltimaSequencia());
+    }
+
+    @Test
+    void testaLeituraDeRegistrosDoFormatoAnterior() throws IOException {
+        ByteArrayOutputStream conteudo = new ByteArrayOutputStream();
+        try (DataOutputStream escritor = new DataOutputStream(conteudo)) {
+            escritor.writeLong(1);
+            escritor.writeUTF("cadastrarPessoa");
+            escritor.writeShort(3);
+            escritor.writeBoolean(true);
+            escritor.writeUTF("M1");
+            escritor.writeBoolean(true);
+            escritor.writeUTF("071111111-0");
+            escritor.writeBoolean(false);
+        }
+        byte[] bytes = conteudo.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        Files.write(this.arquivo.toPath(), ByteBuffer.allocate(8 + bytes.length).putInt(bytes.length)
+                .putInt((int) crc.getValue()).put(bytes).array());
+
+        List<String[]> registros = new ArrayList<>();
+        DiarioDeOperacoes reaberto = new DiarioDeOperacoes(this.arquivo);
+        reaberto.reexecuta(registros::add);
+        reaberto.registra("cadastrarPartido", "PartidoGov");
+        reaberto.fecha();
+
+        assertEquals(1, registros.size());
+        assertEquals("cadastrarPessoa", registros.get(0)[0]);
+        assertEquals("071111111-0", registros.get(0)[2]);
+        assertNull(registros.get(0)[3]);
+        assertEquals(2, le(this.arquivo).size());
+    }
+}
@@ -0,0 +1,110 @@
+package entities;
+
+import enums.FormatoDeExportacao;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.EscritorDeRegistros;
+import util.LeitorDeRegistros;
+import util.LeitorDeRegistros.Registro;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EscritorDeRegistrosTest {
+
+    private File arquivo;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.arquivo = File.createTempFile("registros", ".txt");
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.arquivo.delete();
+    }
+
+    private List<Registro> escreveELe(FormatoDeExportacao formato) throws IOException {
+        try (OutputStream saida = new FileOutputStream(this.arquivo)) {
+            EscritorDeRegistros escritor = new EscritorDeRegistros(saida, formato, "codigo", "ementa", "ano", "conclusivo");
+            escritor.escreve("PL 1/2019", "Reduz \"impostos\", taxas\ne tarifas", 2019, true);
+            escritor.escreve("PEC 1/2019", "", 2019, null);
+            escritor.termina();
+            assertEquals(2, escritor.getQuantidade());
+        }
+
+        List<Registro> registros = new ArrayList<>();
+        new LeitorDeRegistros().percorre(this.arquivo, 10, registros::addAll);
+        return registros;
+    }
+
+    @Test
+    void testaNdjsonLidoPeloLeitor() throws IOException {
+        List<Registro> registros = escreveELe(FormatoDeExportacao.NDJSON);
+
+        assertEquals(2, registros.size());
+        assertEquals("Reduz \"impostos\", taxas\ne tarifas", registros.get(0).get("ementa"));
+        assertEquals("2019", registros.get(0).get("ano"));
+        assertEquals("true", registros.get(0).get("conclusivo"));
+        assertNull(registros.get(1).get("conclusivo"));
+    }
+
+    @Test
+    void testaCsvComAspas() throws IOException {
+        try (OutputStream saida = new FileOutputStream(this.arquivo)) {
+            EscritorDeRegistros escritor = new EscritorDeRegistros(saida, FormatoDeExportacao.CSV, "codigo", "ementa");
+            escritor.escreve("PL 1/2019", "Reduz \"impostos\", taxas");
+            escritor.escreve("PEC 1/2019", null);
+            escritor.termina();
+        }
+
+        List<Registro> registros = new ArrayList<>();
+        new LeitorDeRegistros().percorre(this.arquivo, 10, registros::addAll);
+        assertEquals("Reduz \"impostos\", taxas", registros.get(0).get("ementa"));
+        assertEquals("", registros.get(1).get("ementa"));
+    }
+
+    @Test
+    void testaListasEMapas() throws IOException {
+        Map<String, String> primeira = new LinkedHashMap<>();
+        primeira.put("local", "CCJC");
+        primeira.put("situacao", "APROVADO");
+        Map<String, String> segunda = new LinkedHashMap<>();
+        segunda.put("local", "plenario");
+        segunda.put("situacao", "EM_VOTACAO");
+        List<Map<String, String>> tramitacao = Arrays.asList(primeira, segunda);
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        EscritorDeRegistros escritor = new EscritorDeRegistros(json, FormatoDeExportacao.NDJSON, "tramitacao");
+        escritor.escreve(tramitacao);
+        escritor.termina();
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        escritor = new EscritorDeRegistros(csv, FormatoDeExportacao.CSV, "tramitacao");
+        escritor.escreve(tramitacao);
+        escritor.termina();
+
+        assertEquals("{\"tramitacao\":[{\"local\":\"CCJC\",\"situacao\":\"APROVADO\"},"
+                + "{\"local\":\"plenario\",\"situacao\":\"EM_VOTACAO\"}]}\n", json.toString(StandardCharsets.UTF_8));
+        assertEquals("tramitacao\nCCJC:APROVADO;plenario:EM_VOTACAO\n", csv.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testaQuantidadeDeValoresInvalida() throws IOException {
+        EscritorDeRegistros escritor = new EscritorDeRegistros(new ByteArrayOutputStream(), FormatoDeExportacao.CSV,
+                "codigo", "ementa");
+
+        assertThrows(IllegalArgumentException.class, () -> escritor.escreve("PL 1/2019"));
+    }
+}
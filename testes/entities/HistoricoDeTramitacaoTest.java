@@ -0,0 +1,54 @@
+package entities;
+
+import enums.SituacaoVotacao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.HistoricoDeTramitacao;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoricoDeTramitacaoTest {
+
+    private HistoricoDeTramitacao historico;
+
+    @BeforeEach
+    void setUp() {
+        this.historico = new HistoricoDeTramitacao();
+        this.historico.registra(100, "CCJC", SituacaoVotacao.EM_VOTACAO);
+        this.historico.registra(200, "CCJC", SituacaoVotacao.APROVADO);
+        this.historico.registra(200, "CTF", SituacaoVotacao.EM_VOTACAO);
+        this.historico.registra(300, "CTF", SituacaoVotacao.REJEITADO);
+    }
+
+    @Test
+    void testaPosicaoEm() {
+        assertEquals(-1, this.historico.posicaoEm(99));
+        assertEquals(0, this.historico.posicaoEm(100));
+        assertEquals(0, this.historico.posicaoEm(199));
+        assertEquals(2, this.historico.posicaoEm(200));
+        assertEquals("CTF", this.historico.getLocal(2));
+        assertEquals(3, this.historico.posicaoEm(Long.MAX_VALUE));
+        assertEquals(SituacaoVotacao.REJEITADO, this.historico.getSituacao(3));
+    }
+
+    @Test
+    void testaTransicaoRepetidaEInstanteAnterior() {
+        this.historico.registra(400, "CTF", SituacaoVotacao.REJEITADO);
+        assertEquals(4, this.historico.getQuantidade());
+
+        this.historico.registra(250, "plenario", SituacaoVotacao.EM_VOTACAO);
+        assertEquals(5, this.historico.getQuantidade());
+        assertEquals(300, this.historico.getInstante(4));
+    }
+
+    @Test
+    void testaCopiaIndependente() {
+        HistoricoDeTramitacao copia = this.historico.copia();
+        this.historico.registra(500, "plenario", SituacaoVotacao.EM_VOTACAO);
+
+        assertEquals(4, copia.getQuantidade());
+        assertEquals(5, this.historico.getQuantidade());
+        copia.registra(600, "CGOV", SituacaoVotacao.EM_VOTACAO);
+        assertEquals("plenario", this.historico.getLocal(4));
+    }
+}
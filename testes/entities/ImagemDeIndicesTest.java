@@ -0,0 +1,121 @@
+package entities;
+
+import enums.SituacaoVotacao;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.AcervoDePropostas;
+import util.CodificadorDeEntidades;
+import util.ImagemDeIndices;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImagemDeIndicesTest {
+
+    private File diretorio;
+    private CodificadorDeEntidades codificador;
+    private AcervoDePropostas acervo;
+    private ImagemDeIndices imagem;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.diretorio = Files.createTempDirectory("imagem").toFile();
+        this.codificador = new CodificadorDeEntidades();
+        this.acervo = new AcervoDePropostas(this.diretorio, this.codificador);
+        this.imagem = new ImagemDeIndices(this.diretorio, "segmentado");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        this.acervo.close();
+        for (File arquivo : this.diretorio.listFiles())
+            arquivo.delete();
+        this.diretorio.delete();
+    }
+
+    private PL aprovada(String codigo, String local) {
+        PL pl = new PL(codigo, "111111111-1", 2019, "Ementa da " + codigo, "saude", "https://example.net", true);
+        pl.registraTransicoes(100);
+        pl.alteraSituacaoDoUltimoLocal(SituacaoVotacao.APROVADO);
+        pl.setNovoLocalDeVotacao(local);
+        pl.alteraSituacaoDoUltimoLocal(SituacaoVotacao.APROVADO);
+        pl.registraTransicoes(200);
+        return pl;
+    }
+
+    @Test
+    void testaRestauracaoDoAcervo() throws IOException {
+        this.acervo.acrescenta(aprovada("PL 1/2019", "CTF"));
+        this.acervo.acrescenta(aprovada("PL 2/2019", "CCJC"));
+        this.acervo.acrescenta(aprovada("PL-irregular", "CTF"));
+        this.acervo.remove("PL 2/2019");
+        this.imagem.grava(ImagemDeIndices.captura(this.acervo, Arrays.asList("111111111-1", "222222222-2"),
+                Collections.singletonList(new PL("PL 4/2017", "111111111-1", 2017, "Ementa", "saude", "u", true))), 7);
+
+        ImagemDeIndices.Conteudo conteudo = new ImagemDeIndices(this.diretorio, "segmentado").le(7, this.codificador);
+        assertNotNull(conteudo);
+        AcervoDePropostas restaurado = conteudo.getAcervo();
+        try {
+            assertEquals(new HashSet<>(Arrays.asList("111111111-1", "222222222-2")), conteudo.getDeputados());
+            assertEquals(Collections.singleton(2017), conteudo.getAnosEmMemoria());
+            assertEquals(2, restaurado.getQuantidade());
+            assertFalse(restaurado.contem("PL 2/2019"));
+            assertEquals("CTF", restaurado.getLocalDeVotacao("PL 1/2019"));
+            assertEquals("APROVADO", restaurado.getSituacaoAtual("PL-irregular"));
+            assertEquals(aprovada("PL 1/2019", "CTF").exibirTramitacao(),
+                    restaurado.materializa("PL 1/2019").exibirTramitacao());
+
+            restaurado.acrescenta(aprovada("PL 3/2019", "CE"));
+            assertEquals("CE", restaurado.getLocalDeVotacao("PL 3/2019"));
+            assertEquals("Ementa da PL 1/2019", ((Projeto) restaurado.materializa("PL 1/2019")).getEmenta());
+        } finally {
+            restaurado.close();
+        }
+    }
+
+    @Test
+    void testaGravacaoIncremental() throws IOException {
+        this.acervo.acrescenta(aprovada("PL 1/2019", "CTF"));
+        this.imagem.grava(ImagemDeIndices.captura(this.acervo, Collections.emptyList(), Collections.emptyList()), 1);
+        long tamanho = new File(this.diretorio, "indices.registros").length();
+
+        this.acervo.acrescenta(aprovada("PL 2/2019", "CTF"));
+        this.acervo.remove("PL 1/2019");
+        this.imagem.grava(ImagemDeIndices.captura(this.acervo, Collections.emptyList(), Collections.emptyList()), 2);
+        assertTrue(new File(this.diretorio, "indices.registros").length() > tamanho);
+
+        ImagemDeIndices.Conteudo conteudo = new ImagemDeIndices(this.diretorio, "segmentado").le(2, this.codificador);
+        assertNotNull(conteudo);
+        assertEquals(1, conteudo.getAcervo().getQuantidade());
+        assertTrue(conteudo.getAcervo().contem("PL 2/2019"));
+        conteudo.getAcervo().close();
+    }
+
+    @Test
+    void testaImagemDeOutraGeracaoOuCorrompida() throws IOException {
+        this.acervo.acrescenta(aprovada("PL 1/2019", "CTF"));
+        this.imagem.grava(ImagemDeIndices.captura(this.acervo, Collections.emptyList(), Collections.emptyList()), 3);
+
+        assertNull(this.imagem.le(4, this.codificador));
+        assertNull(new ImagemDeIndices(this.diretorio, "memoria").le(3, this.codificador));
+
+        try (RandomAccessFile registros = new RandomAccessFile(new File(this.diretorio, "indices.registros"), "rw")) {
+            registros.seek(2);
+            int original = registros.read();
+            registros.seek(2);
+            registros.write(original ^ 0xFF);
+        }
+        assertNull(this.imagem.le(3, this.codificador));
+
+        this.imagem.limpa();
+        assertNull(this.imagem.le(3, this.codificador));
+    }
+}
@@ -0,0 +1,91 @@
+package entities;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import util.LeitorDeRegistros;
+import util.LeitorDeRegistros.Registro;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeitorDeRegistrosTest {
+
+    private File arquivo;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.arquivo = File.createTempFile("registros", ".txt");
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.arquivo.delete();
+    }
+
+    private List<Registro> le(String conteudo, int tamanhoDoLote, List<Integer> lotes) throws IOException {
+        Files.write(this.arquivo.toPath(), conteudo.getBytes(StandardCharsets.UTF_8));
+        List<Registro> registros = new ArrayList<>();
+        new LeitorDeRegistros().percorre(this.arquivo, tamanhoDoLote, lote -> {
+            lotes.add(lote.size());
+            registros.addAll(lote);
+        });
+        return registros;
+    }
+
+    @Test
+    void testaCsv() throws IOException {
+        List<Registro> registros = le("nome,dni,interesses\r\n"
+                + "Joao,111111111-1,\"saude,educacao\"\r\n"
+                + "\n"
+                + "\"Maria \"\"Mae\"\"\",222222222-2,\n"
+                + "Jose,333333333-3", 10, new ArrayList<>());
+
+        assertEquals(3, registros.size());
+        assertEquals("saude,educacao", registros.get(0).get("interesses"));
+        assertEquals(2, registros.get(0).getLinha());
+        assertEquals("Maria \"Mae\"", registros.get(1).get("nome"));
+        assertEquals("", registros.get(1).get("interesses"));
+        assertEquals(4, registros.get(1).getLinha());
+        assertNull(registros.get(2).get("interesses"));
+        assertNotNull(registros.get(2).getErro());
+    }
+
+    @Test
+    void testaNdjson() throws IOException {
+        List<Registro> registros = le("{\"nome\": \"Jo\\u00e3o\", \"dni\": \"111111111-1\", \"idade\": 42, \"partido\": null}\n"
+                + "{\"nome\": \"Maria\", \"dados\": {\"x\": 1}}\n"
+                + "{\"nome\": \"Jose\\\"\"}", 10, new ArrayList<>());
+
+        assertEquals(3, registros.size());
+        assertEquals("João", registros.get(0).get("nome"));
+        assertEquals("42", registros.get(0).get("idade"));
+        assertNull(registros.get(0).get("partido"));
+        assertEquals("", registros.get(0).get("partido", ""));
+        assertEquals("Erro ao importar registro: linha mal formada", registros.get(1).getErro());
+        assertEquals("Jose\"", registros.get(2).get("nome"));
+    }
+
+    @Test
+    void testaLotesEmVariosPedacos() throws IOException {
+        StringBuilder conteudo = new StringBuilder("nome,ementa\n");
+        String longa = new String(new char[3_000_000]).replace('\0', 'x');
+        for (int i = 0; i < 50_000; i++)
+            conteudo.append("pessoa ").append(i).append(",").append(i == 100 ? longa : "curta").append('\n');
+        List<Integer> lotes = new ArrayList<>();
+
+        List<Registro> registros = le(conteudo.toString(), 20_000, lotes);
+
+        assertEquals(50_000, registros.size());
+        assertEquals(List.of(20_000, 20_000, 10_000), lotes);
+        assertEquals("pessoa 49999", registros.get(49_999).get("nome"));
+        assertEquals(longa, registros.get(100).get("ementa"));
+        assertEquals(50_001, registros.get(49_999).getLinha());
+    }
+}
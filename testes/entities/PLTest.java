@@ -2,6 +2,8 @@ package entities;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import enums.SituacaoVotacao;
+import interfaces.PropostaLegislativa;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -29,4 +31,13 @@ class PLTest {
                 this.pl.toString());
     }
 
+    @Test
+    void testaCopiaIndependente() {
+        PropostaLegislativa copia = this.pl.copia();
+        this.pl.alteraSituacaoDoUltimoLocal(SituacaoVotacao.APROVADO);
+        this.pl.setNovoLocalDeVotacao("CTF");
+
+        assertEquals("EM VOTACAO (CCJC)", copia.exibirTramitacao());
+        assertEquals(this.pl.getNumCriacaoProjeto(), copia.getNumCriacaoProjeto());
+    }
 }
@@ -1,5 +1,6 @@
 package entities;
 
+import enums.EstrategiaBusca;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -129,4 +130,22 @@ class PessoaTest {
                         "25/02/1989 - 0 Leis",
                 this.p1.toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testaEstrategiaBusca() {
+        assertEquals(EstrategiaBusca.CONSTITUCIONAL, this.p1.getEstrategiaBusca());
+        this.p1.setEstrategiaBusca(EstrategiaBusca.APROVACAO);
+        assertEquals(EstrategiaBusca.APROVACAO, this.p1.getEstrategiaBusca());
+        assertThrows(NullPointerException.class, () -> this.p1.setEstrategiaBusca(null));
+    }
+
+    @Test
+    void testaCopiaIndependente() {
+        this.p1.setCargoPolitico("Deputado", dataInicialValida);
+        Pessoa copia = this.p1.copia();
+        this.p1.aumentaLeis();
+
+        assertEquals(0, copia.getCargo().getLeis());
+        assertEquals(1, this.p1.getCargo().getLeis());
+    }
+}
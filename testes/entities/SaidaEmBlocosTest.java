@@ -0,0 +1,124 @@
+package entities;
+
+import org.junit.jupiter.api.Test;
+import util.EntradaEmBlocos;
+import util.SaidaEmBlocos;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaidaEmBlocosTest {
+
+    private byte[] conteudo(int tamanho) {
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; texto.length() < tamanho; i++)
+            texto.append("PL ").append(i).append("/2019;Reduz a tributacao em cima de bicicletas;EM VOTACAO\n");
+        return texto.substring(0, tamanho).getBytes();
+    }
+
+    private byte[] grava(byte[] conteudo, int tamanhoBloco, int nivel) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SaidaEmBlocos saida = new SaidaEmBlocos(bytes, tamanhoBloco, nivel)) {
+            saida.write(conteudo);
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] le(byte[] gravado) throws IOException {
+        try (EntradaEmBlocos entrada = new EntradaEmBlocos(new ByteArrayInputStream(gravado))) {
+            byte[] lido = entrada.readAllBytes();
+            entrada.verificaFim();
+            return lido;
+        }
+    }
+
+    @Test
+    void testaCompressaoReduzArquivo() throws IOException {
+        byte[] conteudo = conteudo(300_000);
+        byte[] comprimido = grava(conteudo, 1 << 12, 6);
+        byte[] semCompressao = grava(conteudo, 1 << 12, 0);
+
+        assertTrue(comprimido.length < conteudo.length / 3);
+        assertTrue(semCompressao.length > conteudo.length);
+        assertArrayEquals(conteudo, le(comprimido));
+        assertArrayEquals(conteudo, le(semCompressao));
+    }
+
+    @Test
+    void testaBlocoIncompressivelGravadoSemCompressao() throws IOException {
+        byte[] conteudo = new byte[10_000];
+        new Random(42).nextBytes(conteudo);
+
+        byte[] gravado = grava(conteudo, 1 << 12, 9);
+
+        assertTrue(gravado.length < conteudo.length + 100);
+        assertArrayEquals(conteudo, le(gravado));
+    }
+
+    @Test
+    void testaCabecalhoRegistraCompressao() throws IOException {
+        try (EntradaEmBlocos entrada = new EntradaEmBlocos(new ByteArrayInputStream(grava(conteudo(10), 1 << 10, 4)))) {
+            assertEquals(SaidaEmBlocos.COMPRESSAO_DEFLATE, entrada.getAlgoritmo());
+            assertEquals(4, entrada.getNivel());
+            assertEquals(1 << 10, entrada.getTamanhoDoBloco());
+        }
+        try (EntradaEmBlocos entrada = new EntradaEmBlocos(new ByteArrayInputStream(grava(conteudo(10), 1 << 10, 0)))) {
+            assertEquals(SaidaEmBlocos.SEM_COMPRESSAO, entrada.getAlgoritmo());
+        }
+    }
+
+    @Test
+    void testaArquivoSemCabecalhoContinuaLegivel() throws IOException {
+        byte[] conteudo = conteudo(5000);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream saida = new DataOutputStream(bytes);
+        saida.writeInt(SaidaEmBlocos.ASSINATURA);
+        for (int inicio = 0; inicio < conteudo.length; inicio += 1024) {
+            int tamanho = Math.min(1024, conteudo.length - inicio);
+            CRC32 crc = new CRC32();
+            crc.update(conteudo, inicio, tamanho);
+            saida.writeInt(tamanho);
+            saida.writeInt((int) crc.getValue());
+            saida.write(conteudo, inicio, tamanho);
+        }
+        saida.writeInt(0);
+        saida.writeLong(conteudo.length);
+
+        assertArrayEquals(conteudo, le(bytes.toByteArray()));
+    }
+
+    @Test
+    void testaBlocoComprimidoCorrompido() throws IOException {
+        byte[] gravado = grava(conteudo(50_000), 1 << 12, 6);
+        gravado[gravado.length / 2] ^= 0x5A;
+
+        assertThrows(IOException.class, () -> le(gravado));
+    }
+
+    @Test
+    void testaArquivoComprimidoTruncado() throws IOException {
+        byte[] gravado = grava(conteudo(50_000), 1 << 12, 6);
+        byte[] truncado = Arrays.copyOf(gravado, gravado.length - 20);
+
+        assertThrows(IOException.class, () -> le(truncado));
+    }
+
+    @Test
+    void testaConfiguracaoInvalida() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        IllegalArgumentException nivel = assertThrows(IllegalArgumentException.class,
+                () -> new SaidaEmBlocos(bytes, 1 << 12, 10));
+        assertEquals("Erro ao configurar compressao: nivel invalido", nivel.getMessage());
+        IllegalArgumentException tamanho = assertThrows(IllegalArgumentException.class,
+                () -> new SaidaEmBlocos(bytes, 0, 1));
+        assertEquals("Erro ao configurar compressao: tamanho de bloco invalido", tamanho.getMessage());
+    }
+}